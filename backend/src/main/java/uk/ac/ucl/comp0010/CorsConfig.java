@@ -1,8 +1,10 @@
 package uk.ac.ucl.comp0010;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.ac.ucl.comp0010.controller.Controller;
 
 /**
  * Configuration class for enabling CORS (Cross-Origin Resource Sharing) in the application.
@@ -21,7 +23,8 @@ public class CorsConfig implements WebMvcConfigurer {
   /**
    * Adds CORS mappings to the specified registry.
    * This method allows requests from the specified origin (http://localhost:5173) and allows the
-   * specified methods, headers, and credentials for CORS requests.
+   * specified methods, headers, and credentials for CORS requests, and exposes the custom response
+   * headers to the frontend.
    *
    * @param registry the CORS registry to which mappings are added.
    */
@@ -29,6 +32,7 @@ public class CorsConfig implements WebMvcConfigurer {
   public void addCorsMappings(CorsRegistry registry) {
     registry.addMapping("/**").allowedOrigins("http://localhost:5173")
         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS").allowedHeaders("*")
+        .exposedHeaders(Controller.REGISTRATIONS_CREATED_HEADER, HttpHeaders.ETAG)
         .allowCredentials(true);
   }
 }
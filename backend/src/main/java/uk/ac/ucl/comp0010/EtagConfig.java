@@ -0,0 +1,57 @@
+package uk.ac.ucl.comp0010;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.insights.VersionEtagInterceptor;
+
+/**
+ * Configuration class for the ETags of the collection endpoints.
+ * This class implements {@link WebMvcConfigurer} to register a {@link VersionEtagInterceptor} for
+ * each collection, with the tables its responses are read from.
+ */
+@Configuration
+public class EtagConfig implements WebMvcConfigurer {
+
+  /**
+   * The data versions the ETags are built from.
+   */
+  private final DataVersion dataVersion;
+
+  /**
+   * Constructs the configuration on top of the data versions.
+   *
+   * @param dataVersion the data versions the ETags are built from.
+   */
+  public EtagConfig(DataVersion dataVersion) {
+    this.dataVersion = dataVersion;
+  }
+
+  /**
+   * Adds the ETag interceptors to the specified registry. Grades and registrations embed their
+   * student and module, so their tags also depend on those tables, the dashboard counts every
+   * table, and a cohort depends on the students as well as their registrations.
+   *
+   * @param registry the interceptor registry to which the interceptors are added.
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(new VersionEtagInterceptor(dataVersion, Table.STUDENT))
+        .addPathPatterns("/students");
+    registry.addInterceptor(new VersionEtagInterceptor(dataVersion, Table.MODULE))
+        .addPathPatterns("/modules");
+    registry.addInterceptor(
+            new VersionEtagInterceptor(dataVersion, Table.GRADE, Table.STUDENT, Table.MODULE))
+        .addPathPatterns("/grades");
+    registry.addInterceptor(new VersionEtagInterceptor(dataVersion, Table.REGISTRATION,
+            Table.STUDENT, Table.MODULE))
+        .addPathPatterns("/registrations");
+    registry.addInterceptor(new VersionEtagInterceptor(dataVersion, Table.values()))
+        .addPathPatterns("/dashboard");
+    registry.addInterceptor(new VersionEtagInterceptor(dataVersion, Table.REGISTRATION,
+            Table.STUDENT))
+        .addPathPatterns("/cohorts");
+  }
+}
@@ -1,26 +1,77 @@
 package uk.ac.ucl.comp0010.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ucl.comp0010.events.ChangeEvent;
+import uk.ac.ucl.comp0010.events.ChangeEventBroadcaster;
+import uk.ac.ucl.comp0010.export.CsvExporter;
 import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
 import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
+import uk.ac.ucl.comp0010.grade.ModuleScore;
+import uk.ac.ucl.comp0010.insights.Dashboard;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.insights.Insights;
+import uk.ac.ucl.comp0010.insights.InsightsService;
+import uk.ac.ucl.comp0010.module.CatalogueStats;
+import uk.ac.ucl.comp0010.module.GradeTotals;
 import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleDetail;
 import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsDrift;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepairJob;
+import uk.ac.ucl.comp0010.module.ModuleStatsService;
+import uk.ac.ucl.comp0010.module.ModuleStatsSummary;
+import uk.ac.ucl.comp0010.paging.CursorPage;
 import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationIndex;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
 import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationResult;
+import uk.ac.ucl.comp0010.registration.RegistrationView;
+import uk.ac.ucl.comp0010.streaming.NdjsonStreamer;
+import uk.ac.ucl.comp0010.student.GradeAggregateDrift;
+import uk.ac.ucl.comp0010.student.GradeAggregateRepairJob;
 import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentCacheStats;
+import uk.ac.ucl.comp0010.student.StudentDetail;
 import uk.ac.ucl.comp0010.student.StudentRepository;
-
+import uk.ac.ucl.comp0010.student.StudentSearchHit;
+import uk.ac.ucl.comp0010.student.StudentSearchIndex;
+import uk.ac.ucl.comp0010.student.StudentSummary;
+import uk.ac.ucl.comp0010.sync.ChangeLog;
+import uk.ac.ucl.comp0010.sync.SyncDelta;
+import uk.ac.ucl.comp0010.sync.SyncService;
+
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controller class for managing HTTP requests related to students, modules, grades, and
@@ -33,6 +84,11 @@ import java.util.Optional;
 @RestController
 public class Controller {
 
+  /**
+   * The response header reporting how many registrations a request created as a side effect.
+   */
+  public static final String REGISTRATIONS_CREATED_HEADER = "X-Registrations-Created";
+
   /**
    * Default constructor for Controller.
    */
@@ -67,18 +123,182 @@ public class Controller {
   @Autowired
   private RegistrationRepository registrationRepository;
 
+  /**
+   * The in-process module catalogue, updated whenever a module is created or deleted.
+   */
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+
+  /**
+   * The cache of students and their registered modules, evicted whenever they change.
+   */
+  @Autowired
+  private StudentCache studentCache;
+
+  /**
+   * The running score statistics of every module, updated in the same transaction as the grades.
+   */
+  @Autowired
+  private ModuleStatsService moduleStatsService;
+
+  /**
+   * The job that recomputes the per-student grade aggregates and reports any drift.
+   */
+  @Autowired
+  private GradeAggregateRepairJob gradeAggregateRepairJob;
+
+  /**
+   * The job that recomputes the statistics of every module and reports any drift.
+   */
+  @Autowired
+  private ModuleStatsRepairJob moduleStatsRepairJob;
+
+  /**
+   * The version of the data, moved on by every endpoint that writes it.
+   */
+  @Autowired
+  private DataVersion dataVersion;
+
+  /**
+   * The server-side summary shown on the insights page.
+   */
+  @Autowired
+  private InsightsService insightsService;
+
+  /**
+   * Writes the unpaged collections as newline-delimited JSON when the client asks for it.
+   */
+  @Autowired
+  private NdjsonStreamer ndjsonStreamer;
+
+  /**
+   * Writes the CSV exports straight from the database.
+   */
+  @Autowired
+  private CsvExporter csvExporter;
+
+  /**
+   * The log of changes that {@code GET /sync} is served from, written by every endpoint that
+   * writes the data.
+   */
+  @Autowired
+  private ChangeLog changeLog;
+
+  /**
+   * Builds the changes since a client's last sync.
+   */
+  @Autowired
+  private SyncService syncService;
+
+  /**
+   * Publishes the changes made by the endpoints that write the data to the clients subscribed to
+   * {@code GET /events}.
+   */
+  @Autowired
+  private ChangeEventBroadcaster changeEvents;
+
+  /**
+   * The search index over the students, updated whenever a student is created or deleted.
+   */
+  @Autowired
+  private StudentSearchIndex studentSearchIndex;
+
+  /**
+   * The per-module bitmaps of the registered students, updated whenever registrations change.
+   */
+  @Autowired
+  private RegistrationIndex registrationIndex;
+
+  /**
+   * The in-memory matrix of scores behind the insights, updated whenever grades change.
+   */
+  @Autowired
+  private GradeMatrix gradeMatrix;
+
+  /**
+   * The number of items returned on a page of a collection endpoint when the client does not ask
+   * for a specific page size.
+   */
+  @Value("${app.pagination.default-page-size:100}")
+  private int defaultPageSize = 100;
+
+  /**
+   * The largest page size a client may request from a collection endpoint.
+   */
+  @Value("${app.pagination.max-page-size:1000}")
+  private int maxPageSize = 1000;
+
+  /**
+   * Resolves the page size for a paginated request, falling back to the default page size and
+   * clamping the requested size to the range 1 to the maximum page size.
+   *
+   * @param limit the page size requested by the client, or {@code null} for the default.
+   * @return the page size to use.
+   */
+  private int pageSize(Integer limit) {
+    if (limit == null) {
+      return defaultPageSize;
+    }
+    return Math.max(1, Math.min(limit, maxPageSize));
+  }
+
   // Add endpoints for Students, Modules, Grades, and Registrations
 
   /**
-   * Retrieves a list of all students.
+   * Retrieves all students in a single unpaged response. Clients must opt in with
+   * {@code ?unpaged=true}; by default the endpoint is paginated.
    *
    * @return a list of all students in the database.
    */
-  @GetMapping("/students")
+  @GetMapping(value = "/students", params = "unpaged=true")
   public List<Student> getStudents() {
     return studentRepository.findAll();
   }
 
+  /**
+   * Retrieves one page of students, ordered by primary key. Pass the {@code nextCursor} of a page
+   * as {@code cursor} to fetch the page after it.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of students per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping("/students")
+  public ResponseEntity<CursorPage<Student>> getStudentPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    Long after;
+    try {
+      after = cursor == null ? Long.MIN_VALUE : Long.valueOf(CursorPage.decode(cursor));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<Student> rows = studentRepository.findByIdGreaterThanOrderByIdAsc(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, Student::getId));
+  }
+
+  /**
+   * Searches the students by ID, first name, last name, username and email, for the typeahead of
+   * the registration pages. The search is served from an in-memory index, so its cost depends on
+   * how many students match rather than on how many there are.
+   *
+   * @param q     the words to look for; every word must match.
+   * @param limit the largest number of students returned, or {@code null} for the default.
+   * @return a ResponseEntity containing the best matching students, best first.
+   */
+  @GetMapping("/students/search")
+  public ResponseEntity<List<StudentSearchHit>> searchStudents(
+      @RequestParam(defaultValue = "") String q,
+      @RequestParam(required = false) Integer limit) {
+    int size = limit == null ? StudentSearchIndex.DEFAULT_LIMIT
+        : Math.max(1, Math.min(limit, StudentSearchIndex.MAX_LIMIT));
+    return ResponseEntity.ok(studentSearchIndex.search(q, size));
+  }
+
   /**
    * Retrieves a specific student by their ID.
    *
@@ -87,8 +307,8 @@ public class Controller {
    */
   @GetMapping("/students/{id}")
   public ResponseEntity<Student> getStudentById(@PathVariable Long id) {
-    // Retrieve the student by ID
-    Student student = studentRepository.findById(id).orElse(null);
+    // Retrieve the student by ID, from the cache when it was requested recently
+    Student student = studentCache.find(id).orElse(null);
 
     if (student == null) {
       return ResponseEntity.notFound().build();  // If no student found, return 404
@@ -98,72 +318,282 @@ public class Controller {
   }
 
   /**
-   * Deletes a student by their ID along with all related grades and registrations.
+   * Deletes a student by their ID along with all related grades and registrations. The cascade
+   * runs in one transaction with bulk DELETE statements, so the number of statements does not
+   * depend on how many grades and registrations the student has.
    *
    * @param id the ID of the student to delete.
    * @return a ResponseEntity with 204 No Content if successful, or 404 if the student does not
    *         exist.
    */
   @DeleteMapping("/students/{id}")
+  @Transactional
   public ResponseEntity<Void> deleteStudent(@PathVariable Long id) {
-    // Check if the student exists
-    Student student = studentRepository.findById(id).orElse(null);
+    // Check if the student exists, locking it before the module statistics as addGrade does
+    Student student = studentRepository.findWithLockById(id).orElse(null);
     if (student == null) {
       return ResponseEntity.notFound().build();  // Return 404 if student doesn't exist
     }
 
-    // Delete all grades related to the student
-    List<Grade> grades = gradeRepository.findByStudentId(id);  // Fetch all grades for the student
-    if (grades != null && !grades.isEmpty()) {
-      gradeRepository.deleteAll(grades);  // Delete all grades for the student
-    }
-
-    // Delete all registrations related to the student
-    List<Registration> registrations =
-        registrationRepository.findByStudentId(id);  // Fetch all registrations for the student
-    if (registrations != null && !registrations.isEmpty()) {
-      registrationRepository.deleteAll(registrations);  // Delete all registrations for the student
-    }
+    // Remove the student's grades from the module statistics, then delete everything in bulk
+    changeLog.studentDeleted(id);
+    moduleStatsService.removeGrades(gradeRepository.findModuleScoresByStudentId(id));
+    gradeRepository.bulkDeleteByStudentId(id);
+    registrationRepository.bulkDeleteByStudentId(id);
 
     // Delete the student
     studentRepository.delete(student);
+    studentCache.evict(id);
+    studentSearchIndex.remove(id);
+    registrationIndex.removeStudent(id);
+    gradeMatrix.removeStudent(id);
+    dataVersion.bump(Table.STUDENT, Table.GRADE, Table.REGISTRATION);
+    changeEvents.publish(ChangeEvent.studentDeleted(id));
     return ResponseEntity.noContent().build();  // Return 204 No Content on success
   }
 
   /**
-   * Retrieves all modules marked as "Mandatory for New Courses" (MNC).
+   * Retrieves the hit, miss, eviction and expiration counters of the student cache.
+   *
+   * @return a ResponseEntity containing the counters.
+   */
+  @GetMapping("/students/cache/stats")
+  public ResponseEntity<StudentCacheStats> getStudentCacheStats() {
+    return ResponseEntity.ok(studentCache.stats());
+  }
+
+  /**
+   * Recomputes the grade count and score sum of every student whose stored aggregates no longer
+   * match their grades.
+   *
+   * @return a ResponseEntity containing the drift that was found and repaired, which is empty when
+   *         every aggregate was correct.
+   */
+  @PostMapping("/students/aggregates/repair")
+  public ResponseEntity<List<GradeAggregateDrift>> repairGradeAggregates() {
+    List<GradeAggregateDrift> drift = gradeAggregateRepairJob.repair();
+    if (!drift.isEmpty()) {
+      studentCache.evictAll(drift.stream().map(GradeAggregateDrift::studentId).toList());
+      dataVersion.bump(Table.STUDENT);
+    }
+    return ResponseEntity.ok(drift);
+  }
+
+  /**
+   * Recomputes the statistics of every module whose stored statistics no longer match its grades,
+   * creating them for a module that holds grades but has none.
+   *
+   * @return a ResponseEntity containing the drift that was found and repaired, which is empty when
+   *         every module's statistics were correct.
+   */
+  @PostMapping("/modules/stats/repair")
+  public ResponseEntity<List<ModuleStatsDrift>> repairModuleStats() {
+    List<ModuleStatsDrift> drift = moduleStatsRepairJob.repair();
+    if (!drift.isEmpty()) {
+      // The dashboard totals are summed from the statistics
+      dataVersion.bump(Table.GRADE);
+    }
+    return ResponseEntity.ok(drift);
+  }
+
+  /**
+   * Retrieves the summary shown on the insights page: counts, the overall and per-module average
+   * grades, the students who failed a module and the highest performing student. The summary is
+   * computed on the server in one pass over the in-memory grade matrix and cached until the data
+   * changes.
+   *
+   * @return a ResponseEntity containing the summary.
+   */
+  @GetMapping("/insights")
+  public ResponseEntity<Insights> getInsights() {
+    return ResponseEntity.ok(insightsService.get());
+  }
+
+  /**
+   * Retrieves the counts shown on the home page in one response. Every figure comes from a COUNT
+   * or SUM query: the grade count and average are summed from the per-module statistics and the
+   * students without a registration are counted with an anti-join, so no entity is loaded.
+   *
+   * @return a ResponseEntity containing the counts.
+   */
+  @GetMapping("/dashboard")
+  @Transactional(readOnly = true)
+  public ResponseEntity<Dashboard> getDashboard() {
+    GradeTotals grades = moduleStatsService.totals();
+    return ResponseEntity.ok(new Dashboard(studentRepository.count(), moduleRepository.count(),
+        registrationRepository.count(), grades.count(), grades.mean(),
+        studentRepository.countUnregistered()));
+  }
+
+  /**
+   * Exports every grade as CSV, gzip-compressed if the client accepts it.
+   *
+   * @param acceptEncoding the client's {@code Accept-Encoding} header, if any.
+   * @return a ResponseEntity whose body writes the export.
+   */
+  @GetMapping("/export/grades.csv")
+  public ResponseEntity<StreamingResponseBody> exportGrades(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+    boolean gzip = CsvExporter.acceptsGzip(acceptEncoding);
+    return csv("grades.csv", gzip, csvExporter.grades(gzip));
+  }
+
+  /**
+   * Exports the grade roster of a module as CSV, gzip-compressed if the client accepts it.
+   *
+   * @param code           the code of the module.
+   * @param acceptEncoding the client's {@code Accept-Encoding} header, if any.
+   * @return a ResponseEntity whose body writes the export, or 404 if the module does not exist.
+   */
+  @GetMapping("/export/modules/{code}/roster.csv")
+  public ResponseEntity<StreamingResponseBody> exportRoster(@PathVariable String code,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+    if (!moduleCatalogue.contains(code)) {
+      return ResponseEntity.notFound().build();  // If no module found, return 404
+    }
+    boolean gzip = CsvExporter.acceptsGzip(acceptEncoding);
+    return csv(code + "_roster.csv", gzip, csvExporter.roster(code, gzip));
+  }
+
+  /**
+   * Exports the transcript of a student as CSV, gzip-compressed if the client accepts it.
+   *
+   * @param id             the ID of the student.
+   * @param acceptEncoding the client's {@code Accept-Encoding} header, if any.
+   * @return a ResponseEntity whose body writes the export, or 404 if the student does not exist.
+   */
+  @GetMapping("/export/students/{id}/transcript.csv")
+  public ResponseEntity<StreamingResponseBody> exportTranscript(@PathVariable Long id,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding) {
+    if (!studentCache.contains(id)) {
+      return ResponseEntity.notFound().build();  // If no student found, return 404
+    }
+    boolean gzip = CsvExporter.acceptsGzip(acceptEncoding);
+    return csv(id + "_transcript.csv", gzip, csvExporter.transcript(id, gzip));
+  }
+
+  /**
+   * Builds the response of a CSV export.
+   *
+   * @param filename the name the client should save the file as.
+   * @param gzip     whether the body is gzip-compressed.
+   * @param body     the body writing the export.
+   * @return the response.
+   */
+  private ResponseEntity<StreamingResponseBody> csv(String filename, boolean gzip,
+      StreamingResponseBody body) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(body);
+  }
+
+  /**
+   * Retrieves all modules marked as "Mandatory for New Courses" (MNC). The set is served from
+   * the {@link ModuleCatalogue}, so it is only queried again after the catalogue is reloaded.
    *
    * @return a list of MNC modules.
    */
   public List<Module> getMncModules() {
-    List<Module> modules = moduleRepository.findAll();
-    List<Module> mncModules = new ArrayList<>();
-    for (Module module : modules) {
-      if (module.isMnc()) {
-        mncModules.add(module);
-      }
+    return moduleCatalogue.mnc();
+  }
+
+  /**
+   * Retrieves the students, modules, grades and registrations written or deleted since a client's
+   * last sync. A client holding the whole data set applies the delta instead of downloading every
+   * table again, then sends the returned {@code next} sequence number as {@code since} next time.
+   * A client that has not synced since the changes it needs were compacted away is sent an empty
+   * delta marked {@code resyncRequired}, and downloads every table again instead.
+   *
+   * @param since the sequence number returned by the client's last sync, or 0 for every change
+   *              logged, which requires a resync once the log has been compacted.
+   * @return a ResponseEntity containing the delta, or 400 if the sequence number is negative.
+   */
+  @GetMapping("/sync")
+  public ResponseEntity<SyncDelta> sync(@RequestParam(defaultValue = "0") long since) {
+    if (since < 0) {
+      return ResponseEntity.badRequest().build();
     }
-    return mncModules;
+    return ResponseEntity.ok(syncService.since(since));
+  }
+
+  /**
+   * Subscribes to a Server-Sent Events stream of the grades written, the registrations created or
+   * deleted, and the students and modules created or deleted, each sent as a compact
+   * {@link ChangeEvent} once its write commits. A client that falls behind has its oldest events
+   * dropped and is sent an {@value ChangeEventBroadcaster#OVERFLOW_EVENT} event, after which it
+   * should fetch the data again.
+   *
+   * @return the emitter the events are sent with.
+   */
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter subscribeToEvents() {
+    return changeEvents.subscribe();
   }
 
   /**
-   * Creates a new student and automatically registers them for all MNC modules.
+   * Retrieves the hit, miss and load counters of the module catalogue. The counters move on with
+   * every lookup rather than with the table versions, so the ETag is built from the counters
+   * themselves.
+   *
+   * @return a ResponseEntity containing the counters.
+   */
+  @GetMapping("/catalogue/stats")
+  public ResponseEntity<CatalogueStats> getCatalogueStats() {
+    CatalogueStats stats = moduleCatalogue.stats();
+    String etag = "\"" + Long.toString(stats.hits(), 36) + '-' + Long.toString(stats.misses(), 36)
+        + '-' + Long.toString(stats.loads(), 36) + '-' + Integer.toString(stats.size(), 36) + '"';
+    return ResponseEntity.ok().eTag(etag).body(stats);
+  }
+
+  /**
+   * Creates a new student and automatically registers them for all MNC modules. The mandatory
+   * registrations are written as a single JDBC batch, and their number is reported in the
+   * {@value #REGISTRATIONS_CREATED_HEADER} response header.
    *
    * @param student the student to create.
    * @return a ResponseEntity containing the created student.
    */
   @PostMapping("/students")
+  @Transactional
   public ResponseEntity<Student> createStudent(@RequestBody Student student) {
-    Student savedStudent = studentRepository.save(student);
-    System.out.println("Received Student: " + student);
+    // Flush the student so the registration batch can reference it
+    Student savedStudent = studentRepository.saveAndFlush(student);
 
-    List<Module> mncModules = getMncModules();
-    for (Module module : mncModules) {
-      Registration registration = new Registration(savedStudent, module);
-      registerStudent(registration);
+    List<RegistrationKey> keys = new ArrayList<>();
+    for (Module module : getMncModules()) {
+      keys.add(new RegistrationKey(savedStudent.getId(), module.getCode()));
     }
 
-    return ResponseEntity.ok(savedStudent);
+    // Mandatory modules an existing student is already registered for are skipped by the insert
+    List<RegistrationKey> created = registrationRepository.insertMissing(keys);
+    int registrationsCreated = created.size();
+    changeLog.students(List.of(savedStudent.getId()));
+    if (registrationsCreated > 0) {
+      changeLog.registrationsOfStudent(savedStudent.getId());
+    }
+    studentCache.evict(savedStudent.getId());
+    studentSearchIndex.put(savedStudent);
+    registrationIndex.addStudent(savedStudent.getId());
+    registrationIndex.register(created);
+    dataVersion.bump(Table.STUDENT, Table.REGISTRATION);
+    List<ChangeEvent> events = new ArrayList<>();
+    events.add(ChangeEvent.studentCreated(savedStudent.getId()));
+    for (RegistrationKey key : created) {
+      events.add(ChangeEvent.registrationCreated(key.studentId(), key.moduleCode()));
+    }
+    changeEvents.publishAll(events);
+
+    return ResponseEntity.ok()
+        .header(REGISTRATIONS_CREATED_HEADER, String.valueOf(registrationsCreated))
+        .body(savedStudent);
   }
 
   /**
@@ -174,31 +604,16 @@ public class Controller {
    */
   @GetMapping("/students/{id}/grades")
   public ResponseEntity<List<Grade>> getGradesByStudentId(@PathVariable Long id) {
-    // Retrieve the student by ID
-    Student student = studentRepository.findById(id).orElse(null);
-
-    if (student == null) {
+    // Check if the student exists
+    if (!studentCache.contains(id)) {
       return ResponseEntity.notFound().build();  // If no student found, return 404
     }
 
-    // Fetch all registrations and filter them by the given student
-    List<Registration> registrations = registrationRepository.findAll();
-    List<Grade> studentGrades = new ArrayList<>();
-
-    for (Registration registration : registrations) {
-      if (registration.getStudent().getId().equals(id)) {
-        Module module = registration.getModule();
-        Grade grade = student.getGradeByModule(module);  // Fetch the grade for this module
-
-        if (grade != null) {
-          // Add the grade to the list if it exists
-          studentGrades.add(grade);
-        }
-      }
-    }
+    // Fetch only this student's grades through the indexed transcript query
+    List<Grade> studentGrades = gradeRepository.findTranscriptByStudentId(id);
 
     // If no grades found, return 404
-    if (studentGrades.isEmpty()) {
+    if (studentGrades == null || studentGrades.isEmpty()) {
       return ResponseEntity.notFound().build();
     }
 
@@ -207,81 +622,202 @@ public class Controller {
   }
 
   /**
-   * Retrieves all grades for a specific module by its code.
+   * Retrieves everything the student detail page shows in one response: the student, the modules
+   * they are registered for and their grades in them. The student is served from the student
+   * cache, and the registrations and grades are read together with one query over the student_id
+   * index, so at most two indexed queries run.
    *
-   * @param code the code of the module.
-   * @return a ResponseEntity containing a list of grades, or 404 if no grades are found.
+   * @param id the ID of the student.
+   * @return a ResponseEntity containing the student's details, or 404 if the student does not
+   *         exist.
    */
-  @GetMapping("/modules/{code}/grades")
-  public ResponseEntity<List<Grade>> getGradesByModuleCode(@PathVariable String code) {
-    // Retrieve the module by ID
-    Module module = moduleRepository.findById(code).orElse(null);
-
-    if (module == null) {
-      return ResponseEntity.notFound().build();  // If no student found, return 404
+  @GetMapping("/students/{id}/detail")
+  public ResponseEntity<StudentDetail> getStudentDetail(@PathVariable Long id) {
+    Optional<Student> student = studentCache.find(id);
+    if (student.isEmpty()) {
+      return ResponseEntity.notFound().build();  // Return 404 if student doesn't exist
     }
 
-    // Fetch all registrations and filter them by the given module
-    List<Registration> registrations = registrationRepository.findAll();
-    List<Grade> moduleGrades = new ArrayList<>();
+    List<Module> modules = new ArrayList<>();
+    List<GradeView> grades = new ArrayList<>();
+    for (GradeView row : registrationRepository.findGradedByStudentId(id)) {
+      moduleCatalogue.find(row.moduleCode()).ifPresent(modules::add);
+      if (row.id() != null) {
+        grades.add(row);
+      }
+    }
+    return ResponseEntity.ok(new StudentDetail(student.get(), modules, grades));
+  }
 
-    for (Registration registration : registrations) {
-      if (registration.getModule().getCode().equals(code)) {
-        Student student = registration.getStudent();
-        Grade grade = student.getGradeByModule(module);  // Fetch the grade for this module
+  /**
+   * Retrieves everything the module detail page shows in one response: the module, the students
+   * registered for it and their grades in it. The module is served from the module catalogue, and
+   * the students and grades are read together with one query over the module_code index.
+   *
+   * @param code the code of the module.
+   * @return a ResponseEntity containing the module's details, or 404 if the module does not
+   *         exist.
+   */
+  @GetMapping("/modules/{code}/detail")
+  public ResponseEntity<ModuleDetail> getModuleDetail(@PathVariable String code) {
+    Optional<Module> module = moduleCatalogue.find(code);
+    if (module.isEmpty()) {
+      return ResponseEntity.notFound().build();  // Return 404 if module doesn't exist
+    }
 
-        if (grade != null) {
-          // Add the grade to the list if it exists
-          moduleGrades.add(grade);
-        }
+    List<StudentSummary> students = new ArrayList<>();
+    List<ModuleGrade> grades = new ArrayList<>();
+    for (ModuleGrade row : registrationRepository.findGradedByModuleCode(code)) {
+      students.add(row.student());
+      if (row.id() != null) {
+        grades.add(row);
       }
     }
+    return ResponseEntity.ok(new ModuleDetail(module.get(), students, grades));
+  }
+
+  /**
+   * Retrieves the grade roster for a specific module by its code. Each entry carries the grade's
+   * score and a compact summary of the student who achieved it.
+   *
+   * @param code the code of the module.
+   * @return a ResponseEntity containing a list of roster rows, or 404 if no grades are found.
+   */
+  @GetMapping("/modules/{code}/grades")
+  public ResponseEntity<List<ModuleGrade>> getGradesByModuleCode(@PathVariable String code) {
+    // Check if the module exists
+    if (!moduleCatalogue.contains(code)) {
+      return ResponseEntity.notFound().build();  // If no module found, return 404
+    }
+
+    // Fetch the roster for the module with a single indexed query
+    List<ModuleGrade> moduleGrades = gradeRepository.findRosterByModuleCode(code);
 
     // If no grades found, return 404
-    if (moduleGrades.isEmpty()) {
+    if (moduleGrades == null || moduleGrades.isEmpty()) {
       return ResponseEntity.notFound().build();
     }
 
-    // Return the list of grades for the student
+    // Return the roster for the module
     return ResponseEntity.ok(moduleGrades);
   }
 
   /**
-   * Retrieves all modules.
+   * Retrieves the score distribution of a module: the grade count, mean, variance, median, some
+   * percentiles and the full histogram. The summary is computed from the module's running
+   * statistics, without reading any grade.
    *
-   * @return a list of all modules in the database.
+   * @param code the code of the module.
+   * @return a ResponseEntity containing the module's statistics, or 404 if the module does not
+   *         exist.
    */
-  @GetMapping("/modules")
+  @GetMapping("/modules/{code}/stats")
+  public ResponseEntity<ModuleStatsSummary> getModuleStats(@PathVariable String code) {
+    // Check if the module exists
+    if (!moduleCatalogue.contains(code)) {
+      return ResponseEntity.notFound().build();  // If no module found, return 404
+    }
+    return ResponseEntity.ok(moduleStatsService.summarise(code));
+  }
+
+  /**
+   * Retrieves all modules in a single unpaged response, served from the {@link ModuleCatalogue}.
+   * Clients must opt in with {@code ?unpaged=true}; by default the endpoint is paginated.
+   *
+   * @return a list of all modules, in code order.
+   */
+  @GetMapping(value = "/modules", params = "unpaged=true")
   public List<Module> getModules() {
-    return moduleRepository.findAll();
+    return moduleCatalogue.all();
+  }
+
+  /**
+   * Retrieves one page of modules, ordered by primary key. Pass the {@code nextCursor} of a page
+   * as {@code cursor} to fetch the page after it.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of modules per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping("/modules")
+  public ResponseEntity<CursorPage<Module>> getModulePage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    String after;
+    try {
+      after = cursor == null ? "" : CursorPage.decode(cursor);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<Module> rows = moduleRepository.findByCodeGreaterThanOrderByCodeAsc(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, Module::getCode));
   }
 
   /**
    * Creates a new module and automatically registers all existing students if it is marked as MNC.
+   * The registrations are created by a single set-based statement in the database, and their
+   * number is reported in the {@value #REGISTRATIONS_CREATED_HEADER} response header. Each one
+   * created is announced as its own event, and the registration data version only moves on when
+   * some were.
    *
    * @param module the module to create.
    * @return a ResponseEntity containing the created module.
    */
   @PostMapping("/modules")
+  @Transactional
   public ResponseEntity<Module> createModule(@RequestBody Module module) {
-    Module savedModule = moduleRepository.save(module);
-    if (module.isMnc()) {
-      for (Student student : studentRepository.findAll()) {
-        Registration registration = new Registration(student, module);
-        registerStudent(registration);
+    // Flush the module so the registration insert can reference it
+    Module savedModule = moduleRepository.saveAndFlush(module);
+    moduleStatsService.initialise(savedModule.getCode());
+    moduleCatalogue.put(savedModule);
+    changeLog.module(savedModule.getCode());
+    changeEvents.publish(ChangeEvent.moduleCreated(savedModule.getCode()));
+
+    int registrationsCreated = 0;
+    if (savedModule.isMnc()) {
+      String code = savedModule.getCode();
+      // Register every student in one INSERT ... SELECT, without loading any Student entity
+      Set<Long> alreadyRegistered =
+          new HashSet<>(registrationRepository.findStudentIdsByModuleCode(code));
+      registrationsCreated = registrationRepository.registerAllStudents(code);
+      if (registrationsCreated > 0) {
+        // Read back whom the insert registered, so each one is logged, indexed and announced
+        List<RegistrationKey> inserted = registrationRepository.findStudentIdsByModuleCode(code)
+            .stream()
+            .filter(studentId -> !alreadyRegistered.contains(studentId))
+            .map(studentId -> new RegistrationKey(studentId, code))
+            .toList();
+        changeLog.registrations(inserted);
+        studentCache.evictAll(inserted.stream().map(RegistrationKey::studentId).toList());
+        registrationIndex.register(inserted);
+        dataVersion.bump(Table.REGISTRATION);
+        changeEvents.publishAll(inserted.stream()
+            .map(key -> ChangeEvent.registrationCreated(key.studentId(), key.moduleCode()))
+            .toList());
       }
     }
-    return ResponseEntity.ok(savedModule);
+    dataVersion.bump(Table.MODULE);
+
+    return ResponseEntity.ok()
+        .header(REGISTRATIONS_CREATED_HEADER, String.valueOf(registrationsCreated))
+        .body(savedModule);
   }
 
   /**
-   * Deletes a module by its code, along with all related grades and registrations.
+   * Deletes a module by its code, along with all related grades and registrations. The cascade
+   * runs in one transaction with bulk DELETE statements, so the number of statements does not
+   * depend on how many students are registered for the module.
    *
    * @param code the code of the module to delete.
    * @return a ResponseEntity with 204 No Content if successful, or 404 if the module does not
    *         exist.
    */
   @DeleteMapping("/modules/{code}")
+  @Transactional
   public ResponseEntity<Void> deleteModule(@PathVariable String code) {
     // Check if the module exists
     Module module = moduleRepository.findById(code).orElse(null);
@@ -289,72 +825,253 @@ public class Controller {
       return ResponseEntity.notFound().build();  // Return 404 if module doesn't exist
     }
 
-    // Delete all grades related to the module
-    List<Grade> grades = gradeRepository.findByModuleCode(code);  // Fetch all grades for the module
-    if (grades != null && !grades.isEmpty()) {
-      gradeRepository.deleteAll(grades);  // Delete all grades for the module
-    }
-
-    // Delete all registrations related to the module
-    List<Registration> registrations =
-        registrationRepository.findByModuleCode(code);  // Fetch all registrations for the module
-    if (registrations != null && !registrations.isEmpty()) {
-      registrationRepository.deleteAll(registrations);  // Delete all registrations for the module
-    }
+    // Remove the module's grades from the students' aggregates, then delete everything in bulk
+    changeLog.moduleDeleted(code);
+    studentRepository.subtractModuleGrades(code);
+    moduleStatsService.drop(code);
+    gradeRepository.bulkDeleteByModuleCode(code);
+    registrationRepository.bulkDeleteByModuleCode(code);
 
     // Delete the module
     moduleRepository.delete(module);
+    moduleCatalogue.remove(code);
+    registrationIndex.removeModule(code);
+    gradeMatrix.removeModule(code);
+    studentCache.clear();
+    dataVersion.bump(Table.MODULE, Table.STUDENT, Table.GRADE, Table.REGISTRATION);
+    changeEvents.publish(ChangeEvent.moduleDeleted(code));
     return ResponseEntity.noContent().build();  // Return 204 No Content on success
   }
 
   /**
-   * Retrieves all grades.
+   * Retrieves all grades in a single unpaged response. Clients must opt in with
+   * {@code ?unpaged=true}; by default the endpoint is paginated.
    *
    * @return a list of all grades in the database.
    */
-  @GetMapping("/grades")
+  @GetMapping(value = "/grades", params = "unpaged=true")
   public List<Grade> getGrades() {
     return gradeRepository.findAll();
   }
 
   /**
-   * Adds or updates a grade for a student and module.
+   * Streams all grades as newline-delimited JSON, one grade per line, for
+   * {@code ?unpaged=true&format=ndjson}. The grades are written as they are read from the
+   * database, so memory use does not grow with the number of grades.
+   *
+   * @return a ResponseEntity whose body writes every grade.
+   */
+  @GetMapping(value = "/grades", params = {"unpaged=true", "format=ndjson"})
+  public ResponseEntity<StreamingResponseBody> streamGrades() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjsonStreamer.stream(gradeRepository::streamAll));
+  }
+
+  /**
+   * Retrieves one page of grades, ordered by primary key. Pass the {@code nextCursor} of a page
+   * as {@code cursor} to fetch the page after it.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of grades per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping("/grades")
+  public ResponseEntity<CursorPage<Grade>> getGradePage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    Long after;
+    try {
+      after = cursor == null ? Long.MIN_VALUE : Long.valueOf(CursorPage.decode(cursor));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<Grade> rows = gradeRepository.findByIdGreaterThanOrderByIdAsc(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, Grade::getId));
+  }
+
+  /**
+   * Retrieves all grades as compact views, with {@code ?unpaged=true&view=compact}. Each grade
+   * refers to its student and module by key, and no student or module is loaded.
+   *
+   * @return a list of views of all grades, in ascending ID order.
+   */
+  @GetMapping(value = "/grades", params = {"unpaged=true", "view=compact"})
+  public List<GradeView> getGradeViews() {
+    return gradeRepository.findAllViews();
+  }
+
+  /**
+   * Retrieves one page of grades as compact views, with {@code ?view=compact}. Pages and cursors
+   * are the same as for {@link #getGradePage(String, Integer)}.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of grades per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping(value = "/grades", params = "view=compact")
+  public ResponseEntity<CursorPage<GradeView>> getGradeViewPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    Long after;
+    try {
+      after = cursor == null ? Long.MIN_VALUE : Long.valueOf(CursorPage.decode(cursor));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<GradeView> rows = gradeRepository.findViewsAfter(after, Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, GradeView::id));
+  }
+
+  /**
+   * Adds or updates a grade for a student and module. The student's row is locked first, so
+   * concurrent writes for the same student are serialised; the grade is then written with a single
+   * atomic upsert and the change is folded into the student's running aggregates and the module's
+   * statistics. The row written is read back, so the response carries its ID and the student's
+   * updated aggregates.
    *
    * @param grade the grade to add or update.
-   * @return a ResponseEntity containing the created or updated grade.
+   * @return a ResponseEntity containing the grade as written, 400 if the score is missing or
+   *         outside 0 to 100, or 404 if the student or module does not exist.
    */
   @PostMapping("/grades")
+  @Transactional
   public ResponseEntity<Grade> addGrade(@RequestBody Grade grade) {
+    Long studentId = grade.getStudent().getId();
+    String moduleCode = grade.getModule().getCode();
+    // A grade without a score would count in some aggregates and not others, so none is stored
+    if (grade.getScore() == null || grade.getScore() < Grade.MIN_SCORE
+        || grade.getScore() > Grade.MAX_SCORE) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the score is out of range
+    }
+    int score = grade.getScore();
+    if (!moduleCatalogue.contains(moduleCode)) {
+      return ResponseEntity.notFound().build();  // Return 404 if module doesn't exist
+    }
 
-    // Check if a Grade already exists for the given student and module
-    Optional<Grade> existingGrade =
-        gradeRepository.findByStudentAndModule(grade.getStudent(), grade.getModule());
-
-    if (existingGrade.isPresent()) {
-      // If exists, update the existing Grade's score (or other fields if necessary)
-      Grade foundGrade = existingGrade.get();
-      foundGrade.setScore(grade.getScore()); // Update score
-      gradeRepository.save(foundGrade); // Save updated grade
-      return ResponseEntity.ok(foundGrade);
+    // Lock the student so no concurrent write of their grades can interleave
+    if (studentRepository.findWithLockById(studentId).isEmpty()) {
+      return ResponseEntity.notFound().build();  // Return 404 if student doesn't exist
     }
 
-    // If not found, save as a new Grade
-    Grade savedGrade = gradeRepository.save(grade);
-    return ResponseEntity.ok(savedGrade);
+    // Record the grade in the module statistics before writing it, as a module that predates its
+    // statistics has them seeded from the grades it holds; then write the grade and apply the
+    // difference to the student's aggregates
+    Optional<Integer> previousScore = gradeRepository.findScore(studentId, moduleCode);
+    moduleStatsService.recordGrade(moduleCode, previousScore.orElse(null), score);
+    gradeRepository.upsert(studentId, moduleCode, score);
+    if (previousScore.isPresent()) {
+      studentRepository.adjustGradeAggregates(studentId, 0, score - previousScore.get());
+    } else {
+      studentRepository.adjustGradeAggregates(studentId, 1, score);
+    }
+    changeLog.grade(studentId, moduleCode);
+    studentCache.evict(studentId);
+    gradeMatrix.put(studentId, moduleCode, score);
+    dataVersion.bump(Table.GRADE, Table.STUDENT);
+    changeEvents.publish(ChangeEvent.gradeUpserted(studentId, moduleCode, score,
+        previousScore.orElse(null)));
+    return ResponseEntity.ok(gradeRepository.findByKey(studentId, moduleCode).orElseThrow());
   }
 
   /**
-   * Retrieves all registrations.
+   * Retrieves all registrations in a single unpaged response. Clients must opt in with
+   * {@code ?unpaged=true}; by default the endpoint is paginated.
    *
    * @return a list of all registrations in the database.
    */
-  @GetMapping("/registrations")
+  @GetMapping(value = "/registrations", params = "unpaged=true")
   public List<Registration> getRegistrations() {
     return registrationRepository.findAll();
   }
 
   /**
-   * Creates a new registration for a student in a module.
+   * Streams all registrations as newline-delimited JSON, one registration per line, for
+   * {@code ?unpaged=true&format=ndjson}.
+   *
+   * @return a ResponseEntity whose body writes every registration.
+   */
+  @GetMapping(value = "/registrations", params = {"unpaged=true", "format=ndjson"})
+  public ResponseEntity<StreamingResponseBody> streamRegistrations() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(ndjsonStreamer.stream(registrationRepository::streamAll));
+  }
+
+  /**
+   * Retrieves one page of registrations, ordered by primary key. Pass the {@code nextCursor} of a
+   * page as {@code cursor} to fetch the page after it.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of registrations per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping("/registrations")
+  public ResponseEntity<CursorPage<Registration>> getRegistrationPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    Long after;
+    try {
+      after = cursor == null ? Long.MIN_VALUE : Long.valueOf(CursorPage.decode(cursor));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<Registration> rows = registrationRepository.findByIdGreaterThanOrderByIdAsc(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, Registration::getId));
+  }
+
+  /**
+   * Retrieves all registrations as compact views, with {@code ?unpaged=true&view=compact}. Each
+   * registration refers to its student and module by key, and no student or module is loaded.
+   *
+   * @return a list of views of all registrations, in ascending ID order.
+   */
+  @GetMapping(value = "/registrations", params = {"unpaged=true", "view=compact"})
+  public List<RegistrationView> getRegistrationViews() {
+    return registrationRepository.findAllViews();
+  }
+
+  /**
+   * Retrieves one page of registrations as compact views, with {@code ?view=compact}. Pages and
+   * cursors are the same as for {@link #getRegistrationPage(String, Integer)}.
+   *
+   * @param cursor the cursor of the page to fetch, or {@code null} for the first page.
+   * @param limit  the number of registrations per page, or {@code null} for the default page size.
+   * @return a ResponseEntity containing the page, or 400 if the cursor is invalid.
+   */
+  @GetMapping(value = "/registrations", params = "view=compact")
+  public ResponseEntity<CursorPage<RegistrationView>> getRegistrationViewPage(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit) {
+    Long after;
+    try {
+      after = cursor == null ? Long.MIN_VALUE : Long.valueOf(CursorPage.decode(cursor));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();  // Return 400 if the cursor is malformed
+    }
+
+    // Fetch one extra row to find out whether another page follows
+    int pageSize = pageSize(limit);
+    List<RegistrationView> rows = registrationRepository.findViewsAfter(after,
+        Limit.of(pageSize + 1));
+    return ResponseEntity.ok(CursorPage.of(rows, pageSize, RegistrationView::id));
+  }
+
+  /**
+   * Creates a new registration for a student in a module. The registration is inserted only if it
+   * does not exist yet, in a single statement, so concurrent requests for the same pair cannot
+   * create duplicates.
    *
    * @param registration the registration to create.
    * @return a ResponseEntity containing the created registration, or an error message if the
@@ -362,32 +1079,118 @@ public class Controller {
    */
   @PostMapping("/registrations")
   public ResponseEntity<?> registerStudent(@RequestBody Registration registration) {
-    // Fetch the module by its code
-    Module module = moduleRepository.findById(registration.getModule().getCode()).orElse(null);
+    // Look the module up in the catalogue, which does not query the database
+    Module module = moduleCatalogue.find(registration.getModule().getCode()).orElse(null);
 
     if (module == null) {
       return ResponseEntity.badRequest().body("Invalid module ID provided.");
     }
 
     registration.setModule(module);
+    Long studentId = registration.getStudent().getId();
+
+    // Insert the registration unless it already exists
+    int inserted;
+    try {
+      inserted = registrationRepository.insertIfAbsent(studentId, module.getCode());
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent request inserted the same pair first; any other violation is rethrown
+      if (!registrationRepository.existsByStudentIdAndModuleCode(studentId, module.getCode())) {
+        throw e;
+      }
+      inserted = 0;
+    }
 
-    // Check if the registration already exists
-    boolean registrationExists =
-        registrationRepository.existsByStudentIdAndModuleCode(registration.getStudent().getId(),
-            registration.getModule().getCode());
-
-    if (registrationExists) {
+    if (inserted == 0) {
       return ResponseEntity.badRequest().body("This registration already exists.");
     }
-
-    // Save the registration
-    Registration savedRegistration = registrationRepository.save(registration);
-    return ResponseEntity.ok(savedRegistration);
+    RegistrationKey key = new RegistrationKey(studentId, module.getCode());
+    changeLog.registrations(List.of(key));
+    studentCache.evict(studentId);
+    registrationIndex.register(List.of(key));
+    dataVersion.bump(Table.REGISTRATION);
+    changeEvents.publish(ChangeEvent.registrationCreated(studentId, module.getCode()));
+    return ResponseEntity.ok(registration);
   }
 
+  /**
+   * Registers many (student, module) pairs in one request. Modules and students are resolved once
+   * for the whole batch, and the valid pairs are inserted with JDBC batching in one transaction.
+   * The insert skips pairs that are already registered. A pair a concurrent request inserts
+   * while the batch runs fails on the unique constraint; the insert then undoes its batch and
+   * inserts the pairs one at a time, each in its own savepoint, so that pair is skipped as well
+   * and reported as already existing rather than failing the request. The results, change log,
+   * index and events follow from the pairs the insert reports it inserted.
+   *
+   * @param keys the (studentId, moduleCode) pairs to register.
+   * @return a ResponseEntity containing one result per requested pair, in request order.
+   */
+  @PostMapping("/registrations/batch")
+  @Transactional
+  public ResponseEntity<List<RegistrationResult>> registerStudents(
+      @RequestBody List<RegistrationKey> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return ResponseEntity.ok(new ArrayList<>());
+    }
+
+    Set<Long> studentIds = new HashSet<>();
+    Set<String> moduleCodes = new HashSet<>();
+    for (RegistrationKey key : keys) {
+      if (key.studentId() != null && key.moduleCode() != null) {
+        studentIds.add(key.studentId());
+        moduleCodes.add(key.moduleCode());
+      }
+    }
+
+    // Resolve the modules and students once for the whole batch
+    Set<String> knownModules = new HashSet<>();
+    Set<Long> knownStudents = new HashSet<>();
+    if (!studentIds.isEmpty()) {
+      for (String code : moduleCodes) {
+        if (moduleCatalogue.contains(code)) {
+          knownModules.add(code);
+        }
+      }
+      knownStudents.addAll(studentRepository.findExistingIds(studentIds));
+    }
+    Set<RegistrationKey> valid = new LinkedHashSet<>();
+    for (RegistrationKey key : keys) {
+      if (knownModules.contains(key.moduleCode()) && knownStudents.contains(key.studentId())) {
+        valid.add(key);
+      }
+    }
+
+    // Insert the valid pairs in JDBC batches; only the rows actually inserted count as created
+    List<RegistrationKey> inserted = registrationRepository.insertMissing(valid);
+    Set<RegistrationKey> created = new HashSet<>(inserted);
+    List<RegistrationResult> results = new ArrayList<>();
+    for (RegistrationKey key : keys) {
+      if (!knownModules.contains(key.moduleCode())) {
+        results.add(new RegistrationResult(key, RegistrationResult.Status.INVALID_MODULE));
+      } else if (!knownStudents.contains(key.studentId())) {
+        results.add(new RegistrationResult(key, RegistrationResult.Status.INVALID_STUDENT));
+      } else if (created.remove(key)) {
+        results.add(new RegistrationResult(key, RegistrationResult.Status.CREATED));
+      } else {
+        results.add(new RegistrationResult(key, RegistrationResult.Status.ALREADY_EXISTS));
+      }
+    }
+
+    if (!inserted.isEmpty()) {
+      changeLog.registrations(inserted);
+      studentCache.evictAll(inserted.stream().map(RegistrationKey::studentId).toList());
+      registrationIndex.register(inserted);
+      dataVersion.bump(Table.REGISTRATION);
+      changeEvents.publishAll(inserted.stream()
+          .map(key -> ChangeEvent.registrationCreated(key.studentId(), key.moduleCode()))
+          .toList());
+    }
+    return ResponseEntity.ok(results);
+  }
 
   /**
    * Deletes a specific registration for a student in a module, along with any related grades.
+   * Both deletes are bulk statements run in one transaction.
    *
    * @param studentId the ID of the student whose registration is to be deleted
    * @param moduleId  the code of the module for which the registration is to be deleted
@@ -395,26 +1198,62 @@ public class Controller {
    *         successful - 404 Not Found if the registration does not exist
    */
   @DeleteMapping("/registrations/{student_id}/{module_id}")
-  public ResponseEntity<Void> deleteRegistration(@PathVariable Long studentId,
-      @PathVariable String moduleId) {
-    // Check if the module exists
-    Registration registration =
-        registrationRepository.findByStudentIdAndModuleCode(studentId, moduleId);
-    if (registration == null) {
-      return ResponseEntity.notFound().build();  // Return 404 if module doesn't exist
-    }
-
-    // Delete any grades
-    List<Grade> grades = gradeRepository.findByStudentIdAndModuleCode(studentId, moduleId);
-    if (grades != null && !grades.isEmpty()) {
-      gradeRepository.deleteAll(grades);  // Delete all grades for the student
+  @Transactional
+  public ResponseEntity<Void> deleteRegistration(@PathVariable("student_id") Long studentId,
+      @PathVariable("module_id") String moduleId) {
+    // Delete the registration, which also tells whether it existed
+    changeLog.registrationDeleted(studentId, moduleId);
+    if (registrationRepository.bulkDeleteByStudentIdAndModuleCode(studentId, moduleId) == 0) {
+      return ResponseEntity.notFound().build();  // Return 404 if registration doesn't exist
     }
 
-    // Delete the registration
-    registrationRepository.delete(registration);
+    // Delete any grades, removing them from the student's aggregates and module statistics first.
+    // The student row is updated before the statistics are locked, in the same order as addGrade.
+    studentRepository.subtractModuleGrade(studentId, moduleId);
+    Optional<Integer> score = gradeRepository.findScore(studentId, moduleId);
+    score.ifPresent(value -> moduleStatsService
+        .removeGrades(List.of(new ModuleScore(moduleId, value))));
+    changeLog.gradeDeleted(studentId, moduleId);
+    gradeRepository.bulkDeleteByStudentIdAndModuleCode(studentId, moduleId);
+    studentCache.evict(studentId);
+    registrationIndex.unregister(studentId, moduleId);
+    gradeMatrix.remove(studentId, moduleId);
+    dataVersion.bump(Table.REGISTRATION, Table.GRADE, Table.STUDENT);
+    changeEvents.publish(
+        ChangeEvent.registrationDeleted(studentId, moduleId, score.orElse(null)));
     return ResponseEntity.noContent().build();  // Return 204 No Content on success
   }
 
+  /**
+   * Retrieves the IDs of the students registered for every module in {@code all}, for at least
+   * one module in {@code any} and for no module in {@code none}; for example
+   * {@code /cohorts?none=A,B} lists the students taking neither A nor B. The cohort is evaluated
+   * over the in-memory registration bitmaps without querying the database.
+   *
+   * @param all  the codes of the modules every student returned is registered for.
+   * @param any  the codes of the modules every student returned is registered for one of.
+   * @param none the codes of the modules no student returned is registered for.
+   * @return a ResponseEntity containing the IDs of the students in ascending order, or 400 if a
+   *         module does not exist.
+   */
+  @GetMapping("/cohorts")
+  public ResponseEntity<List<Long>> getCohort(
+      @RequestParam(required = false) List<String> all,
+      @RequestParam(required = false) List<String> any,
+      @RequestParam(required = false) List<String> none) {
+    List<String> allCodes = all == null ? List.of() : all;
+    List<String> anyCodes = any == null ? List.of() : any;
+    List<String> noneCodes = none == null ? List.of() : none;
+    for (List<String> codes : List.of(allCodes, anyCodes, noneCodes)) {
+      for (String code : codes) {
+        if (!moduleCatalogue.contains(code)) {
+          return ResponseEntity.badRequest().build();  // Return 400 for an unknown module
+        }
+      }
+    }
+    return ResponseEntity.ok(registrationIndex.cohort(allCodes, anyCodes, noneCodes));
+  }
+
   /**
    * Retrieves a list of all students registered in a specific module.
    *
@@ -425,8 +1264,8 @@ public class Controller {
   @GetMapping("/modules/{code}/students")
   public ResponseEntity<List<Student>> getRegisteredStudentsByModuleCode(
       @PathVariable String code) {
-    // Retrieve the module by ID
-    Module module = moduleRepository.findById(code).orElse(null);
+    // Retrieve the module from the catalogue
+    Module module = moduleCatalogue.find(code).orElse(null);
 
     if (module == null) {
       return ResponseEntity.notFound().build();  // If no student found, return 404
@@ -456,22 +1295,16 @@ public class Controller {
    */
   @GetMapping("/students/{id}/modules")
   public ResponseEntity<List<Module>> getRegisteredModulesByStudentId(@PathVariable Long id) {
-    // Check if the student exists
-    Student student = studentRepository.findById(id).orElse(null);
-    if (student == null) {
+    // Check if the student exists, and fetch the codes of their modules from the cache
+    List<String> moduleCodes = studentCache.findModuleCodes(id).orElse(null);
+    if (moduleCodes == null) {
       return ResponseEntity.notFound().build(); // Return 404 if student doesn't exist
     }
 
-    // Fetch all registrations for the given student ID
-    List<Registration> registrations = registrationRepository.findByStudentId(id);
-    if (registrations == null || registrations.isEmpty()) {
-      return ResponseEntity.ok(new ArrayList<>()); // Return an empty list if no registrations
-    }
-
-    // Extract the list of modules from the registrations
+    // Resolve the modules from the catalogue
     List<Module> registeredModules = new ArrayList<>();
-    for (Registration registration : registrations) {
-      registeredModules.add(registration.getModule());
+    for (String code : moduleCodes) {
+      moduleCatalogue.find(code).ifPresent(registeredModules::add);
     }
 
     // Return the list of modules
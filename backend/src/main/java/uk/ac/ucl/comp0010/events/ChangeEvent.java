@@ -0,0 +1,133 @@
+package uk.ac.ucl.comp0010.events;
+
+/**
+ * A compact notice of one write to the data, published on {@code GET /events} once the write has
+ * committed. It carries the keys of what changed rather than the rows themselves, so an open page
+ * can patch the counts and lists it shows instead of fetching every table again.
+ *
+ * @param type          what happened.
+ * @param studentId     the ID of the student concerned, or {@code null} when a module was
+ *                      created or deleted.
+ * @param moduleCode    the code of the module concerned, or {@code null} when a student was
+ *                      created or deleted.
+ * @param score         the new score of a grade, or the score of the grade deleted together with
+ *                      a registration; {@code null} otherwise.
+ * @param previousScore the score a grade had before it was updated, or {@code null} if the grade
+ *                      is new.
+ */
+public record ChangeEvent(Type type, Long studentId, String moduleCode, Integer score,
+                          Integer previousScore) {
+
+  /**
+   * The kinds of change published.
+   */
+  public enum Type {
+    /**
+     * A grade was created or updated.
+     */
+    GRADE_UPSERTED,
+    /**
+     * A student was registered for a module.
+     */
+    REGISTRATION_CREATED,
+    /**
+     * A registration was deleted, together with its grade if it had one.
+     */
+    REGISTRATION_DELETED,
+    /**
+     * A student was created or updated; registrations for the mandatory modules follow.
+     */
+    STUDENT_CREATED,
+    /**
+     * A module was created or updated; a registration of every student follows if it is
+     * mandatory.
+     */
+    MODULE_CREATED,
+    /**
+     * A student was deleted, together with their grades and registrations.
+     */
+    STUDENT_DELETED,
+    /**
+     * A module was deleted, together with its grades and registrations.
+     */
+    MODULE_DELETED
+  }
+
+  /**
+   * Creates the event for a grade written by {@code POST /grades}.
+   *
+   * @param studentId     the ID of the student.
+   * @param moduleCode    the code of the module.
+   * @param score         the new score.
+   * @param previousScore the previous score, or {@code null} if the grade is new.
+   * @return the event.
+   */
+  public static ChangeEvent gradeUpserted(Long studentId, String moduleCode, Integer score,
+      Integer previousScore) {
+    return new ChangeEvent(Type.GRADE_UPSERTED, studentId, moduleCode, score, previousScore);
+  }
+
+  /**
+   * Creates the event for a new registration.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @return the event.
+   */
+  public static ChangeEvent registrationCreated(Long studentId, String moduleCode) {
+    return new ChangeEvent(Type.REGISTRATION_CREATED, studentId, moduleCode, null, null);
+  }
+
+  /**
+   * Creates the event for a deleted registration.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @param score      the score of the grade deleted with it, or {@code null} if there was none.
+   * @return the event.
+   */
+  public static ChangeEvent registrationDeleted(Long studentId, String moduleCode,
+      Integer score) {
+    return new ChangeEvent(Type.REGISTRATION_DELETED, studentId, moduleCode, score, null);
+  }
+
+  /**
+   * Creates the event for a student written by {@code POST /students}.
+   *
+   * @param studentId the ID of the student.
+   * @return the event.
+   */
+  public static ChangeEvent studentCreated(Long studentId) {
+    return new ChangeEvent(Type.STUDENT_CREATED, studentId, null, null, null);
+  }
+
+  /**
+   * Creates the event for a module written by {@code POST /modules}.
+   *
+   * @param moduleCode the code of the module.
+   * @return the event.
+   */
+  public static ChangeEvent moduleCreated(String moduleCode) {
+    return new ChangeEvent(Type.MODULE_CREATED, null, moduleCode, null, null);
+  }
+
+  /**
+   * Creates the event for a deleted student.
+   *
+   * @param studentId the ID of the student.
+   * @return the event.
+   */
+  public static ChangeEvent studentDeleted(Long studentId) {
+    return new ChangeEvent(Type.STUDENT_DELETED, studentId, null, null, null);
+  }
+
+  /**
+   * Creates the event for a deleted module.
+   *
+   * @param moduleCode the code of the module.
+   * @return the event.
+   */
+  public static ChangeEvent moduleDeleted(String moduleCode) {
+    return new ChangeEvent(Type.MODULE_DELETED, null, moduleCode, null, null);
+  }
+}
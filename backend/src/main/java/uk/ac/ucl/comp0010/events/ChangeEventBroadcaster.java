@@ -0,0 +1,298 @@
+package uk.ac.ucl.comp0010.events;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ucl.comp0010.support.TransactionCallbacks;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes {@link ChangeEvent}s to every client subscribed to {@code GET /events} as
+ * Server-Sent Events.
+ *
+ * <p>Events are published once the write that caused them commits, and are never sent on the
+ * writing thread: each subscriber has its own buffer of {@value #DEFAULT_BUFFER_SIZE} events by
+ * default, drained by a background thread. When a slow client lets its buffer fill up, the oldest
+ * event is dropped to make room, so a slow client never holds up a write or the other clients.
+ * The client is then sent an {@value #OVERFLOW_EVENT} event with the number of events it missed,
+ * before the events that follow, and should fetch the data again.</p>
+ */
+@Component
+public class ChangeEventBroadcaster {
+
+  /**
+   * The number of events buffered for each subscriber when none is configured.
+   */
+  static final int DEFAULT_BUFFER_SIZE = 256;
+
+  /**
+   * The name of the event telling a client that events were dropped from its buffer.
+   */
+  public static final String OVERFLOW_EVENT = "overflow";
+
+  /**
+   * The number of events buffered for each subscriber before the oldest is dropped, unless the
+   * subscriber was given its own.
+   */
+  private final int bufferSize;
+
+  /**
+   * The clients currently subscribed.
+   */
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Drains the buffers of the subscribers, one task per subscriber with events waiting.
+   */
+  private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+    Thread thread = new Thread(task, "change-events");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * The ID of the last event published, sent with each event so clients can tell them apart.
+   */
+  private final AtomicLong lastId = new AtomicLong();
+
+  /**
+   * Constructs the broadcaster.
+   *
+   * @param bufferSize the number of events buffered for each subscriber.
+   */
+  public ChangeEventBroadcaster(
+      @Value("${app.events.buffer-size:" + DEFAULT_BUFFER_SIZE + "}") int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("The event buffer must hold at least one event");
+    }
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Subscribes a new client, with the application's default timeout for asynchronous requests.
+   * A client that times out reconnects on its own.
+   *
+   * @return the emitter the events are sent with.
+   */
+  public SseEmitter subscribe() {
+    return subscribe(new SseEmitter());
+  }
+
+  /**
+   * Subscribes a client through the given emitter, with the configured buffer size.
+   *
+   * @param emitter the emitter the events are sent with.
+   * @return the emitter.
+   */
+  public SseEmitter subscribe(SseEmitter emitter) {
+    return subscribe(emitter, bufferSize);
+  }
+
+  /**
+   * Subscribes a client through the given emitter, buffering up to the given number of events
+   * for it before the oldest is dropped.
+   *
+   * @param emitter    the emitter the events are sent with.
+   * @param bufferSize the number of events buffered for the client.
+   * @return the emitter.
+   */
+  public SseEmitter subscribe(SseEmitter emitter, int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("The event buffer must hold at least one event");
+    }
+    Subscriber subscriber = new Subscriber(emitter, bufferSize);
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(error -> subscriber.close());
+    emitter.onCompletion(subscriber::close);
+    subscribers.add(subscriber);
+    return emitter;
+  }
+
+  /**
+   * Publishes an event once the current transaction commits, or immediately outside a
+   * transaction. Nothing is published if the transaction rolls back.
+   *
+   * @param event the event.
+   */
+  public void publish(ChangeEvent event) {
+    publishAll(List.of(event));
+  }
+
+  /**
+   * Publishes several events, in order, once the current transaction commits, or immediately
+   * outside a transaction.
+   *
+   * @param events the events.
+   */
+  public void publishAll(Collection<ChangeEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    List<ChangeEvent> batch = List.copyOf(events);
+    TransactionCallbacks.afterCommit(() -> {
+      for (ChangeEvent event : batch) {
+        long id = lastId.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+          subscriber.offer(id, event);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the number of clients currently subscribed.
+   *
+   * @return the number of subscribers.
+   */
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  /**
+   * Ends every subscription and stops the background threads when the application shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.emitter.complete();
+    }
+    subscribers.clear();
+    executor.shutdownNow();
+  }
+
+  /**
+   * An event waiting in a subscriber's buffer.
+   *
+   * @param id    the ID of the event.
+   * @param event the event.
+   */
+  private record Pending(long id, ChangeEvent event) {
+  }
+
+  /**
+   * A subscribed client, with its buffer of events not yet sent.
+   */
+  private final class Subscriber {
+
+    /**
+     * The emitter the events are sent with.
+     */
+    private final SseEmitter emitter;
+
+    /**
+     * The number of events buffered before the oldest is dropped.
+     */
+    private final int capacity;
+
+    /**
+     * The events not yet sent, oldest first. Guarded by this subscriber.
+     */
+    private final Deque<Pending> buffer = new ArrayDeque<>();
+
+    /**
+     * The number of events dropped since the client was last told. Guarded by this subscriber.
+     */
+    private long dropped;
+
+    /**
+     * Whether a task is draining the buffer. Guarded by this subscriber.
+     */
+    private boolean draining;
+
+    /**
+     * Whether the subscription has ended. Guarded by this subscriber.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a subscriber.
+     *
+     * @param emitter  the emitter the events are sent with.
+     * @param capacity the number of events buffered before the oldest is dropped.
+     */
+    private Subscriber(SseEmitter emitter, int capacity) {
+      this.emitter = emitter;
+      this.capacity = capacity;
+    }
+
+    /**
+     * Adds an event to the buffer, dropping the oldest if it is full, and starts draining it.
+     *
+     * @param id    the ID of the event.
+     * @param event the event.
+     */
+    private void offer(long id, ChangeEvent event) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (buffer.size() == capacity) {
+          buffer.pollFirst();
+          dropped++;
+        }
+        buffer.addLast(new Pending(id, event));
+        if (draining) {
+          return;
+        }
+        draining = true;
+      }
+      executor.execute(this::drain);
+    }
+
+    /**
+     * Sends the buffered events until the buffer is empty, telling the client first about any
+     * events dropped before them.
+     */
+    private void drain() {
+      while (true) {
+        long lost;
+        Pending next;
+        synchronized (this) {
+          lost = dropped;
+          dropped = 0;
+          next = buffer.pollFirst();
+          if (next == null) {
+            draining = false;
+            return;
+          }
+        }
+        try {
+          if (lost > 0) {
+            emitter.send(SseEmitter.event().name(OVERFLOW_EVENT)
+                .data(Map.of("dropped", lost), MediaType.APPLICATION_JSON));
+          }
+          emitter.send(SseEmitter.event().id(String.valueOf(next.id()))
+              .data(next.event(), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+          // The client has gone or the emitter has completed; the container ends the request
+          close();
+          return;
+        }
+      }
+    }
+
+    /**
+     * Ends the subscription and discards the events not yet sent.
+     */
+    private void close() {
+      synchronized (this) {
+        closed = true;
+        buffer.clear();
+      }
+      subscribers.remove(this);
+    }
+  }
+}
@@ -4,8 +4,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import uk.ac.ucl.comp0010.exceptions.InvalidGradeException;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.student.Student;
@@ -14,10 +17,28 @@ import uk.ac.ucl.comp0010.student.Student;
  * Represents a grade achieved by a student in a specific module. Each grade is uniquely identified
  * by an ID and includes a score, the student who achieved it, and the module in which it was
  * achieved. The score is validated to ensure it is within the range 0-100.
+ *
+ * <p>A student holds at most one grade per module, which the unique constraint on
+ * (student_id, module_id) enforces. Its index also lets a student's transcript be read without
+ * scanning unrelated rows, and a separate index on module_id serves module rosters.</p>
  */
 @Entity
+@Table(
+    uniqueConstraints = @UniqueConstraint(name = "uk_grade_student_module",
+        columnNames = {"student_id", "module_id"}),
+    indexes = @Index(name = "idx_grade_module", columnList = "module_id"))
 public class Grade {
 
+  /**
+   * The lowest score a grade can have.
+   */
+  public static final int MIN_SCORE = 0;
+
+  /**
+   * The highest score a grade can have.
+   */
+  public static final int MAX_SCORE = 100;
+
   /**
    * The unique identifier for this grade. Automatically generated by the persistence layer.
    */
@@ -62,7 +83,7 @@ public class Grade {
    * @throws InvalidGradeException if the score is less than 0 or greater than 100.
    */
   public Grade(Integer score, Student student, Module module) {
-    if (score > 100 || score < 0) {
+    if (score > MAX_SCORE || score < MIN_SCORE) {
       throw new InvalidGradeException("Grade score must be between 0 and 100!");
     }
     this.score = score;
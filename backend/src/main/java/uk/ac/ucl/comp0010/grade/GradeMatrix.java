@@ -0,0 +1,384 @@
+package uk.ac.ucl.comp0010.grade;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.support.InMemoryModel;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.sql.DataSource;
+
+/**
+ * In-memory copy of every score, held as a matrix of bytes with one column per module and one row
+ * per graded student, for analytics that read every grade.
+ *
+ * <p>A score takes one byte, against a {@link Grade} entity, its boxed score and the persistence
+ * context entry behind it when the grades are loaded as entities. Students and modules are given
+ * dense indices when first seen, through a dictionary from {@code Student.id} and one from
+ * {@code Module.code}; a cell without a grade holds {@link #NO_GRADE}. Each column is a single
+ * array, so a scan of a module, or of every module in turn, reads memory in order.</p>
+ *
+ * <p>The matrix is loaded when the application starts, with one pass over the grade table. The
+ * endpoints that write grades update it once their transaction commits, in the order the grades
+ * were written, so it never holds a grade that was rolled back or overwritten;
+ * {@link #invalidate()} makes the next read reload it after a change made by other means.</p>
+ */
+@Component
+public class GradeMatrix extends InMemoryModel {
+
+  /**
+   * The value of a cell whose student has no grade for the module.
+   */
+  public static final byte NO_GRADE = -1;
+
+  /**
+   * Loads every grade.
+   */
+  static final String GRADES_SQL = "SELECT student_id, module_id, score FROM grade";
+
+  /**
+   * The number of rows fetched at a time while loading.
+   */
+  static final int FETCH_SIZE = 1000;
+
+  /**
+   * The number of students the columns have room for at first.
+   */
+  static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The template the matrix is loaded with.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * The index of each student, by ID.
+   */
+  private final Map<Long, Integer> studentIndices = new HashMap<>();
+
+  /**
+   * The index of each module, by code.
+   */
+  private final Map<String, Integer> moduleIndices = new HashMap<>();
+
+  /**
+   * The ID of the student of each index.
+   */
+  private long[] studentIds = new long[INITIAL_CAPACITY];
+
+  /**
+   * The code of the module of each index.
+   */
+  private String[] moduleCodes = new String[16];
+
+  /**
+   * The scores of each module, by module index and then student index.
+   */
+  private byte[][] columns = new byte[16][];
+
+  /**
+   * The number of students the matrix holds.
+   */
+  private int students;
+
+  /**
+   * The number of modules the matrix holds.
+   */
+  private int modules;
+
+  /**
+   * A read-only view of the matrix, valid only while the read it was passed to runs.
+   */
+  private final Scores scores = new Scores();
+
+  /**
+   * Constructs the matrix on top of the application's data source.
+   *
+   * @param dataSource the data source the matrix is loaded from.
+   */
+  public GradeMatrix(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+  }
+
+  /**
+   * Loads the matrix once the application has started, so the first request does not wait for
+   * it.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    read(view -> null);
+  }
+
+  /**
+   * Runs a read over the scores with the read lock held, loading the matrix first if needed. The
+   * view passed to the read must not be kept after it returns.
+   *
+   * @param reader the read.
+   * @param <T>    the type of its result.
+   * @return its result.
+   */
+  public <T> T read(Function<Scores, T> reader) {
+    return query(() -> reader.apply(scores));
+  }
+
+  /**
+   * Records a created or updated grade, once the current transaction commits.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @param score      the score, or {@code null} to record no grade.
+   */
+  public void put(Long studentId, String moduleCode, Integer score) {
+    update(() -> set(studentId, moduleCode, score));
+  }
+
+  /**
+   * Records a deleted grade, once the current transaction commits.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  public void remove(Long studentId, String moduleCode) {
+    update(() -> {
+      Integer student = studentIndices.get(studentId);
+      Integer module = moduleIndices.get(moduleCode);
+      if (student != null && module != null) {
+        columns[module][student] = NO_GRADE;
+      }
+    });
+  }
+
+  /**
+   * Records a deleted student, together with their grades, once the current transaction commits.
+   * The last student takes the index freed, so the rows stay dense.
+   *
+   * @param studentId the ID of the student.
+   */
+  public void removeStudent(Long studentId) {
+    update(() -> {
+      Integer student = studentIndices.remove(studentId);
+      if (student == null) {
+        return;
+      }
+      int last = --students;
+      if (student != last) {
+        studentIds[student] = studentIds[last];
+        studentIndices.put(studentIds[student], student);
+      }
+      for (int module = 0; module < modules; module++) {
+        byte[] column = columns[module];
+        column[student] = column[last];
+        column[last] = NO_GRADE;
+      }
+    });
+  }
+
+  /**
+   * Records a deleted module, together with its grades, once the current transaction commits.
+   * The last module takes the index freed, so the columns stay dense.
+   *
+   * @param moduleCode the code of the module.
+   */
+  public void removeModule(String moduleCode) {
+    update(() -> {
+      Integer module = moduleIndices.remove(moduleCode);
+      if (module == null) {
+        return;
+      }
+      int last = --modules;
+      if (module != last) {
+        moduleCodes[module] = moduleCodes[last];
+        columns[module] = columns[last];
+        moduleIndices.put(moduleCodes[module], module);
+      }
+      moduleCodes[last] = null;
+      columns[last] = null;
+    });
+  }
+
+  /**
+   * Loads every grade.
+   */
+  @Override
+  protected void load() {
+    jdbcTemplate.query(GRADES_SQL, row -> {
+      int score = row.getInt(3);
+      if (!row.wasNull()) {
+        set(row.getLong(1), row.getString(2), score);
+      }
+    });
+  }
+
+  /**
+   * Discards every grade.
+   */
+  @Override
+  protected void reset() {
+    studentIndices.clear();
+    moduleIndices.clear();
+    studentIds = new long[INITIAL_CAPACITY];
+    moduleCodes = new String[16];
+    columns = new byte[16][];
+    students = 0;
+    modules = 0;
+  }
+
+  /**
+   * Sets the score of a cell, giving the student and module indices if they have none. Called
+   * with the write lock held.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @param score      the score, or {@code null} or a score out of range to record no grade.
+   */
+  private void set(Long studentId, String moduleCode, Integer score) {
+    // The endpoints reject scores out of range, so one here was written by other means
+    if (score == null || score < Grade.MIN_SCORE || score > Grade.MAX_SCORE) {
+      Integer student = studentIndices.get(studentId);
+      Integer module = moduleIndices.get(moduleCode);
+      if (student != null && module != null) {
+        columns[module][student] = NO_GRADE;
+      }
+      return;
+    }
+    // Both indices first, as giving either one may replace the arrays
+    int module = moduleIndex(moduleCode);
+    int student = studentIndex(studentId);
+    columns[module][student] = (byte) (int) score;
+  }
+
+  /**
+   * Returns the index of a student, giving them the next index if they have none and growing
+   * every column if it is full. Called with the write lock held.
+   *
+   * @param studentId the ID of the student.
+   * @return the index.
+   */
+  private int studentIndex(Long studentId) {
+    Integer index = studentIndices.get(studentId);
+    if (index != null) {
+      return index;
+    }
+    if (students == studentIds.length) {
+      int capacity = students * 2;
+      studentIds = Arrays.copyOf(studentIds, capacity);
+      for (int module = 0; module < modules; module++) {
+        columns[module] = grow(columns[module], capacity);
+      }
+    }
+    studentIds[students] = studentId;
+    studentIndices.put(studentId, students);
+    return students++;
+  }
+
+  /**
+   * Returns the index of a module, giving it the next index and an empty column if it has none.
+   * Called with the write lock held.
+   *
+   * @param moduleCode the code of the module.
+   * @return the index.
+   */
+  private int moduleIndex(String moduleCode) {
+    Integer index = moduleIndices.get(moduleCode);
+    if (index != null) {
+      return index;
+    }
+    if (modules == moduleCodes.length) {
+      moduleCodes = Arrays.copyOf(moduleCodes, modules * 2);
+      columns = Arrays.copyOf(columns, modules * 2);
+    }
+    moduleCodes[modules] = moduleCode;
+    columns[modules] = grow(new byte[0], studentIds.length);
+    moduleIndices.put(moduleCode, modules);
+    return modules++;
+  }
+
+  /**
+   * Copies a column into a longer one, filling the new cells with {@link #NO_GRADE}.
+   *
+   * @param column   the column.
+   * @param capacity the length of the new column.
+   * @return the new column.
+   */
+  private static byte[] grow(byte[] column, int capacity) {
+    byte[] grown = Arrays.copyOf(column, capacity);
+    Arrays.fill(grown, column.length, capacity, NO_GRADE);
+    return grown;
+  }
+
+  /**
+   * A read-only view of the scores, by dense student and module index.
+   */
+  public final class Scores {
+
+    /**
+     * Constructs the view of the enclosing matrix.
+     */
+    private Scores() {
+    }
+
+    /**
+     * Returns the number of students with an index.
+     *
+     * @return the number of students.
+     */
+    public int students() {
+      return students;
+    }
+
+    /**
+     * Returns the number of students each column has room for, and so its length in bytes.
+     *
+     * @return the length of a column.
+     */
+    public int capacity() {
+      return studentIds.length;
+    }
+
+    /**
+     * Returns the number of modules with an index.
+     *
+     * @return the number of modules.
+     */
+    public int modules() {
+      return modules;
+    }
+
+    /**
+     * Returns the ID of the student of an index.
+     *
+     * @param student the index of the student.
+     * @return the ID.
+     */
+    public long studentId(int student) {
+      return studentIds[student];
+    }
+
+    /**
+     * Returns the code of the module of an index.
+     *
+     * @param module the index of the module.
+     * @return the code.
+     */
+    public String moduleCode(int module) {
+      return moduleCodes[module];
+    }
+
+    /**
+     * Returns the score of a student in a module.
+     *
+     * @param module  the index of the module.
+     * @param student the index of the student.
+     * @return the score, or {@link GradeMatrix#NO_GRADE} if the student has no grade for the
+     *         module.
+     */
+    public int score(int module, int student) {
+      return columns[module][student];
+    }
+  }
+}
@@ -1,12 +1,21 @@
 package uk.ac.ucl.comp0010.grade;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.student.Student;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link Grade} entities.
@@ -25,6 +34,106 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
    */
   Optional<Grade> findByStudentAndModule(Student student, Module module);
 
+  /**
+   * Inserts the grade of a student in a module, or overwrites its score if the student already has
+   * a grade in that module, with a single standard SQL MERGE. The unique constraint on
+   * (student_id, module_id) guarantees that concurrent writers never produce duplicate rows.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @param score      the score to record.
+   * @return the number of rows inserted or updated, which is always 1.
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "MERGE INTO grade g USING (VALUES (CAST(:studentId AS BIGINT), "
+      + "CAST(:moduleCode AS VARCHAR(255)), CAST(:score AS INTEGER))) "
+      + "AS s(student_id, module_id, score) "
+      + "ON g.student_id = s.student_id AND g.module_id = s.module_id "
+      + "WHEN MATCHED THEN UPDATE SET score = s.score "
+      + "WHEN NOT MATCHED THEN INSERT (student_id, module_id, score) "
+      + "VALUES (s.student_id, s.module_id, s.score)",
+      nativeQuery = true)
+  int upsert(@Param("studentId") Long studentId, @Param("moduleCode") String moduleCode,
+      @Param("score") Integer score);
+
+  /**
+   * Finds the grade a student holds in a module, fetching its student and module in the same
+   * query.
+   *
+   * @param studentId the ID of the student.
+   * @param code      the code of the module.
+   * @return an {@link Optional} containing the grade, or empty if the student has no grade in the
+   *         module.
+   */
+  @Query("SELECT g FROM Grade g JOIN FETCH g.student JOIN FETCH g.module "
+      + "WHERE g.student.id = :studentId AND g.module.code = :code")
+  Optional<Grade> findByKey(@Param("studentId") Long studentId, @Param("code") String code);
+
+  /**
+   * Finds the score a student holds in a module, without loading the grade.
+   *
+   * @param studentId the ID of the student.
+   * @param code      the code of the module.
+   * @return an {@link Optional} containing the score, or empty if the student has no grade in the
+   *         module.
+   */
+  @Query("SELECT g.score FROM Grade g WHERE g.student.id = :studentId AND g.module.code = :code")
+  Optional<Integer> findScore(@Param("studentId") Long studentId, @Param("code") String code);
+
+  /**
+   * Finds the module and score of every grade a specific student holds, without loading the
+   * grades.
+   *
+   * @param studentId the ID of the student.
+   * @return one {@link ModuleScore} per grade of the student.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.ModuleScore(g.module.code, g.score) "
+      + "FROM Grade g WHERE g.student.id = :studentId")
+  List<ModuleScore> findModuleScoresByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Streams every grade with its student and module fetched in the same query. Rows are fetched
+   * from the database in batches as the stream is consumed. Must be consumed, and closed, inside a
+   * transaction.
+   *
+   * @return a {@link Stream} of all grades.
+   */
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+  @Query("SELECT g FROM Grade g LEFT JOIN FETCH g.student LEFT JOIN FETCH g.module")
+  Stream<Grade> streamAll();
+
+  /**
+   * Finds every grade as a compact {@link GradeView}, selecting only the grade's own columns.
+   *
+   * @return one {@link GradeView} per grade, in ascending ID order.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.GradeView(g.id, g.score, g.student.id, "
+      + "g.module.code) FROM Grade g ORDER BY g.id")
+  List<GradeView> findAllViews();
+
+  /**
+   * Finds the next page of grades after a given ID as compact {@link GradeView} rows, in ascending
+   * ID order. Used for keyset pagination of the compact grade list.
+   *
+   * @param id    the ID of the last grade on the previous page.
+   * @param limit the maximum number of grades to return.
+   * @return a list of at most {@code limit} views of grades with an ID greater than {@code id}.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.GradeView(g.id, g.score, g.student.id, "
+      + "g.module.code) FROM Grade g WHERE g.id > :id ORDER BY g.id")
+  List<GradeView> findViewsAfter(@Param("id") Long id, Limit limit);
+
+  /**
+   * Finds the grades with the given IDs as compact {@link GradeView} rows.
+   *
+   * @param ids the IDs of the grades.
+   * @return one {@link GradeView} per grade that still exists, in ascending ID order.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.GradeView(g.id, g.score, g.student.id, "
+      + "g.module.code) FROM Grade g WHERE g.id IN :ids ORDER BY g.id")
+  List<GradeView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
   /**
    * Finds all grades for a specific student by their ID.
    *
@@ -33,6 +142,19 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
    */
   List<Grade> findByStudentId(Long studentId);
 
+  /**
+   * Finds the transcript of a specific student, fetching each grade's module and student in the
+   * same query.
+   * The lookup is served by the (student_id, module_id) index, so its cost depends only on the
+   * number of grades the student holds and not on the size of the registration table.
+   *
+   * @param studentId the ID of the student whose grades are to be retrieved.
+   * @return a {@link List} of grades, with their modules initialised, for the specified student.
+   */
+  @Query("SELECT g FROM Grade g JOIN FETCH g.module JOIN FETCH g.student "
+      + "WHERE g.student.id = :studentId")
+  List<Grade> findTranscriptByStudentId(@Param("studentId") Long studentId);
+
   /**
    * Finds all grades for a specific module by its code.
    *
@@ -41,6 +163,19 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
    */
   List<Grade> findByModuleCode(String code);
 
+  /**
+   * Finds the grade roster of a specific module as compact rows. The roster is read with a single
+   * query over the module_id index joined to the student table, so the number of statements is the
+   * same however many students hold a grade in the module.
+   *
+   * @param code the unique code of the module whose roster is to be retrieved.
+   * @return a {@link List} of {@link ModuleGrade} rows for the specified module.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.ModuleGrade("
+      + "g.id, g.score, s.id, s.firstName, s.lastName, s.username) "
+      + "FROM Grade g JOIN g.student s WHERE g.module.code = :code")
+  List<ModuleGrade> findRosterByModuleCode(@Param("code") String code);
+
   /**
    * Finds grades for a specific student in a specific module.
    *
@@ -49,4 +184,50 @@ public interface GradeRepository extends JpaRepository<Grade, Long> {
    * @return a {@link List} of grades for the specified student and module combination.
    */
   List<Grade> findByStudentIdAndModuleCode(Long studentId, String code);
+
+  /**
+   * Finds the next page of grades after a given ID, in ascending ID order. Used for keyset
+   * pagination, which seeks straight to the cursor through the primary key index.
+   *
+   * @param id    the ID of the last grade on the previous page.
+   * @param limit the maximum number of grades to return.
+   * @return a list of at most {@code limit} grades with an ID greater than {@code id}.
+   */
+  List<Grade> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  /**
+   * Deletes every grade of a specific student with a single bulk DELETE. No grade is loaded into
+   * the persistence context, so one statement is sent whatever the number of grades. Must be
+   * called inside a transaction.
+   *
+   * @param studentId the ID of the student whose grades are to be deleted.
+   * @return the number of grades deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Grade g WHERE g.student.id = :studentId")
+  int bulkDeleteByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Deletes every grade of a specific module with a single bulk DELETE. Must be called inside a
+   * transaction.
+   *
+   * @param code the code of the module whose grades are to be deleted.
+   * @return the number of grades deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Grade g WHERE g.module.code = :code")
+  int bulkDeleteByModuleCode(@Param("code") String code);
+
+  /**
+   * Deletes the grades of a specific student in a specific module with a single bulk DELETE. Must
+   * be called inside a transaction.
+   *
+   * @param studentId the ID of the student.
+   * @param code      the code of the module.
+   * @return the number of grades deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Grade g WHERE g.student.id = :studentId AND g.module.code = :code")
+  int bulkDeleteByStudentIdAndModuleCode(@Param("studentId") Long studentId,
+      @Param("code") String code);
 }
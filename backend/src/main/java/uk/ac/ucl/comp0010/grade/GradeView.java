@@ -0,0 +1,14 @@
+package uk.ac.ucl.comp0010.grade;
+
+/**
+ * A compact view of a grade that refers to its student and module by key instead of embedding
+ * them. Instances are built directly by a JPQL constructor expression, so neither the
+ * {@link Grade} nor its student and module are hydrated to produce them.
+ *
+ * @param id         the unique identifier of the grade.
+ * @param score      the score of the grade.
+ * @param studentId  the ID of the student holding the grade.
+ * @param moduleCode the code of the module the grade is in.
+ */
+public record GradeView(Long id, Integer score, Long studentId, String moduleCode) {
+}
@@ -0,0 +1,31 @@
+package uk.ac.ucl.comp0010.grade;
+
+import uk.ac.ucl.comp0010.student.StudentSummary;
+
+/**
+ * A row of a module's grade roster: the grade's ID and score together with a compact summary of
+ * the student who achieved it. Instances are built directly by a JPQL constructor expression, so
+ * neither the {@link Grade} nor the student entity is hydrated to produce them.
+ *
+ * @param id      the unique identifier of the grade.
+ * @param score   the score achieved by the student.
+ * @param student a compact summary of the student who achieved the grade.
+ */
+public record ModuleGrade(Long id, Integer score, StudentSummary student) {
+
+  /**
+   * Constructs a roster row from the flat columns selected by
+   * {@link GradeRepository#findRosterByModuleCode(String)}.
+   *
+   * @param id        the unique identifier of the grade.
+   * @param score     the score achieved by the student.
+   * @param studentId the ID of the student.
+   * @param firstName the first name of the student.
+   * @param lastName  the last name of the student.
+   * @param username  the username of the student.
+   */
+  public ModuleGrade(Long id, Integer score, Long studentId, String firstName, String lastName,
+      String username) {
+    this(id, score, new StudentSummary(studentId, firstName, lastName, username));
+  }
+}
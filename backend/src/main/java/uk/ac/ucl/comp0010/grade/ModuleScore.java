@@ -0,0 +1,10 @@
+package uk.ac.ucl.comp0010.grade;
+
+/**
+ * The module and score of a grade, read without loading the grade entity.
+ *
+ * @param moduleCode the code of the module the grade is in.
+ * @param score      the score of the grade.
+ */
+public record ModuleScore(String moduleCode, Integer score) {
+}
@@ -0,0 +1,15 @@
+package uk.ac.ucl.comp0010.insights;
+
+/**
+ * The counts shown on the home page, as returned by {@code GET /dashboard}.
+ *
+ * @param studentCount      the number of students.
+ * @param moduleCount       the number of modules.
+ * @param registrationCount the number of registrations.
+ * @param gradeCount        the number of grades.
+ * @param averageGrade      the mean of all scores, or {@code null} if there are no grades.
+ * @param unregisteredCount the number of students not registered for any module.
+ */
+public record Dashboard(long studentCount, long moduleCount, long registrationCount,
+    long gradeCount, Double averageGrade, long unregisteredCount) {
+}
@@ -0,0 +1,122 @@
+package uk.ac.ucl.comp0010.insights;
+
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.support.TransactionCallbacks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of committed data changes, one per table and one overall. Every endpoint that writes
+ * students, modules, grades or registrations bumps the tables it changed, so anything derived from
+ * the data can be cached under the version it was computed from and recomputed only once the
+ * version moves on.
+ *
+ * <p>The per-table versions also make up the strong ETags of the collection endpoints. The ETag
+ * carries the time the application started, so a tag issued before a restart never matches.</p>
+ */
+@Component
+public class DataVersion {
+
+  /**
+   * The tables whose changes are counted.
+   */
+  public enum Table {
+    /**
+     * The students, including their grade aggregates.
+     */
+    STUDENT,
+    /**
+     * The modules.
+     */
+    MODULE,
+    /**
+     * The grades.
+     */
+    GRADE,
+    /**
+     * The registrations.
+     */
+    REGISTRATION
+  }
+
+  /**
+   * The number of committed changes since the application started.
+   */
+  private final AtomicLong version = new AtomicLong();
+
+  /**
+   * The number of committed changes to each table since the application started, indexed by
+   * {@link Table#ordinal()}.
+   */
+  private final AtomicLongArray tableVersions = new AtomicLongArray(Table.values().length);
+
+  /**
+   * The time the application started, in base 36, which prefixes every ETag.
+   */
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  /**
+   * Default constructor for DataVersion.
+   */
+  public DataVersion() {
+  }
+
+  /**
+   * Returns the current data version.
+   *
+   * @return the number of committed changes since the application started.
+   */
+  public long current() {
+    return version.get();
+  }
+
+  /**
+   * Returns the current version of a table.
+   *
+   * @param table the table.
+   * @return the number of committed changes to the table since the application started.
+   */
+  public long current(Table table) {
+    return tableVersions.get(table.ordinal());
+  }
+
+  /**
+   * Returns a strong ETag for a response built from the given tables. The tag changes whenever
+   * one of the tables changes.
+   *
+   * @param tables the tables the response is read from.
+   * @return the quoted ETag.
+   */
+  public String etag(Table... tables) {
+    StringBuilder etag = new StringBuilder("\"").append(epoch);
+    for (Table table : tables) {
+      etag.append('-').append(Long.toString(current(table), 36));
+    }
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Records a change to every table.
+   */
+  public void bump() {
+    bump(Table.values());
+  }
+
+  /**
+   * Records a change to the given tables. When called inside a transaction, the versions move on
+   * once the transaction commits, so a reader can never cache data from before the change under
+   * the new version; otherwise they move on immediately.
+   *
+   * @param tables the tables that changed.
+   */
+  public void bump(Table... tables) {
+    Runnable action = () -> {
+      for (Table table : tables) {
+        tableVersions.incrementAndGet(table.ordinal());
+      }
+      version.incrementAndGet();
+    };
+    TransactionCallbacks.afterCommit(action);
+  }
+}
@@ -0,0 +1,57 @@
+package uk.ac.ucl.comp0010.insights;
+
+import java.util.List;
+
+/**
+ * Summary of the whole data set shown on the insights page, as returned by
+ * {@code GET /insights}.
+ *
+ * @param dataVersion       the {@link DataVersion} the summary was computed from.
+ * @param studentCount      the number of students.
+ * @param moduleCount       the number of modules.
+ * @param registrationCount the number of registrations.
+ * @param unregisteredCount the number of students not registered for any module.
+ * @param averageGrade      the mean of all scores, or {@code null} if there are no grades.
+ * @param moduleAverages    the mean score of every module.
+ * @param failedStudents    the students who scored below the pass mark in at least one module.
+ * @param topStudent        the student with the highest average, or {@code null} if nobody has a
+ *                          grade.
+ */
+public record Insights(long dataVersion, long studentCount, long moduleCount,
+    long registrationCount, long unregisteredCount, Double averageGrade,
+    List<ModuleAverage> moduleAverages, List<FailedStudent> failedStudents,
+    TopStudent topStudent) {
+
+  /**
+   * The mean score of a module.
+   *
+   * @param code         the code of the module.
+   * @param name         the name of the module.
+   * @param averageGrade the mean score, or {@code null} if the module has no grades.
+   */
+  public record ModuleAverage(String code, String name, Double averageGrade) {
+  }
+
+  /**
+   * A student who failed at least one module.
+   *
+   * @param id            the ID of the student.
+   * @param firstName     the first name of the student.
+   * @param lastName      the last name of the student.
+   * @param failedModules the names of the modules the student failed.
+   */
+  public record FailedStudent(Long id, String firstName, String lastName,
+      List<String> failedModules) {
+  }
+
+  /**
+   * The student with the highest average score.
+   *
+   * @param id        the ID of the student.
+   * @param firstName the first name of the student.
+   * @param lastName  the last name of the student.
+   * @param average   the student's average score.
+   */
+  public record TopStudent(Long id, String firstName, String lastName, double average) {
+  }
+}
@@ -0,0 +1,230 @@
+package uk.ac.ucl.comp0010.insights;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the {@link Insights} summary on the server, so the insights page no longer downloads
+ * every student, module, grade and registration to derive a handful of numbers.
+ * The scores are read from the {@link GradeMatrix} in a single pass over its columns that
+ * accumulates every per-module and per-student figure at once. The result is cached under the
+ * {@link DataVersion} and the {@link GradeMatrix#version() matrix version} it was computed from,
+ * and served from memory until either moves on.
+ */
+@Component
+public class InsightsService {
+
+  /**
+   * Scores below this mark fail a module.
+   */
+  static final int PASS_MARK = 40;
+
+  /**
+   * The repository of students.
+   */
+  private final StudentRepository studentRepository;
+
+  /**
+   * The repository of modules.
+   */
+  private final ModuleRepository moduleRepository;
+
+  /**
+   * The in-memory matrix of scores.
+   */
+  private final GradeMatrix gradeMatrix;
+
+  /**
+   * The repository of registrations.
+   */
+  private final RegistrationRepository registrationRepository;
+
+  /**
+   * The version of the data, which the cached summary is keyed by.
+   */
+  private final DataVersion dataVersion;
+
+  /**
+   * A computed summary, with the version of the matrix it was computed from.
+   *
+   * @param insights      the summary, which holds the data version it was computed from.
+   * @param matrixVersion the version of the matrix.
+   */
+  private record Cached(Insights insights, long matrixVersion) {
+  }
+
+  /**
+   * The most recently computed summary, or {@code null} before the first request.
+   */
+  private volatile Cached cached;
+
+  /**
+   * Constructs the service on top of the repositories it summarises.
+   *
+   * @param studentRepository      the repository of students.
+   * @param moduleRepository       the repository of modules.
+   * @param gradeMatrix            the in-memory matrix of scores.
+   * @param registrationRepository the repository of registrations.
+   * @param dataVersion            the version of the data.
+   */
+  public InsightsService(StudentRepository studentRepository, ModuleRepository moduleRepository,
+      GradeMatrix gradeMatrix, RegistrationRepository registrationRepository,
+      DataVersion dataVersion) {
+    this.studentRepository = studentRepository;
+    this.moduleRepository = moduleRepository;
+    this.gradeMatrix = gradeMatrix;
+    this.registrationRepository = registrationRepository;
+    this.dataVersion = dataVersion;
+  }
+
+  /**
+   * Returns the summary of the current data, recomputing it only if the data has changed since it
+   * was last computed. The versions are read before the data, so a write that commits while the
+   * summary is being computed leaves it cached under an already stale version. The matrix is
+   * checked as well as the data version, since a grade written by one transaction can reach the
+   * matrix only once an earlier transaction has ended, after the data version moved on.
+   *
+   * @return the summary of the current data.
+   */
+  @Transactional(readOnly = true)
+  public Insights get() {
+    long version = dataVersion.current();
+    long matrixVersion = gradeMatrix.version();
+    Cached current = cached;
+    if (current != null && current.insights().dataVersion() == version
+        && current.matrixVersion() == matrixVersion) {
+      return current.insights();
+    }
+    Insights insights = compute(version);
+    cached = new Cached(insights, matrixVersion);
+    return insights;
+  }
+
+  /**
+   * Computes the summary from the grade matrix and the database.
+   *
+   * @param version the data version the summary is computed from.
+   * @return the summary.
+   */
+  private Insights compute(long version) {
+    // Per-module and per-student {count, sum}, and the codes of the modules each student failed
+    Map<String, long[]> moduleTotals = new HashMap<>();
+    Map<Long, long[]> studentTotals = new HashMap<>();
+    Map<Long, List<String>> failures = new TreeMap<>();
+    long[] totals = gradeMatrix.read(scores -> {
+      int studentCount = scores.students();
+      long[] counts = new long[studentCount];
+      long[] sums = new long[studentCount];
+      // In code order, so each student's failed modules are listed in code order
+      Integer[] order = new Integer[scores.modules()];
+      Arrays.setAll(order, module -> module);
+      Arrays.sort(order, (a, b) -> scores.moduleCode(a).compareTo(scores.moduleCode(b)));
+      long gradeCount = 0;
+      long scoreSum = 0;
+      for (int module : order) {
+        long moduleCount = 0;
+        long moduleSum = 0;
+        for (int student = 0; student < studentCount; student++) {
+          int score = scores.score(module, student);
+          if (score == GradeMatrix.NO_GRADE) {
+            continue;
+          }
+          moduleCount++;
+          moduleSum += score;
+          counts[student]++;
+          sums[student] += score;
+          if (score < PASS_MARK) {
+            failures.computeIfAbsent(scores.studentId(student), id -> new ArrayList<>())
+                .add(scores.moduleCode(module));
+          }
+        }
+        if (moduleCount > 0) {
+          moduleTotals.put(scores.moduleCode(module), new long[] {moduleCount, moduleSum});
+        }
+        gradeCount += moduleCount;
+        scoreSum += moduleSum;
+      }
+      for (int student = 0; student < studentCount; student++) {
+        if (counts[student] > 0) {
+          studentTotals.put(scores.studentId(student), new long[] {counts[student], sums[student]});
+        }
+      }
+      return new long[] {gradeCount, scoreSum};
+    });
+    long gradeCount = totals[0];
+    long scoreSum = totals[1];
+
+    List<Module> modules = moduleRepository.findAll();
+    Map<String, String> moduleNames = new HashMap<>();
+    List<Insights.ModuleAverage> moduleAverages = new ArrayList<>(modules.size());
+    for (Module module : modules) {
+      moduleNames.put(module.getCode(), module.getName());
+      moduleAverages.add(new Insights.ModuleAverage(module.getCode(), module.getName(),
+          average(moduleTotals.get(module.getCode()))));
+    }
+
+    Long topId = null;
+    double topAverage = 0;
+    for (Map.Entry<Long, long[]> entry : studentTotals.entrySet()) {
+      double average = average(entry.getValue());
+      if (topId == null || average > topAverage
+          || average == topAverage && entry.getKey() < topId) {
+        topId = entry.getKey();
+        topAverage = average;
+      }
+    }
+
+    // Only the students named in the summary are loaded
+    Set<Long> namedIds = new HashSet<>(failures.keySet());
+    if (topId != null) {
+      namedIds.add(topId);
+    }
+    Map<Long, Student> students = studentRepository.findAllById(namedIds).stream()
+        .collect(Collectors.toMap(Student::getId, Function.identity()));
+
+    List<Insights.FailedStudent> failedStudents = new ArrayList<>(failures.size());
+    for (Map.Entry<Long, List<String>> entry : failures.entrySet()) {
+      Student student = students.get(entry.getKey());
+      if (student != null) {
+        failedStudents.add(new Insights.FailedStudent(student.getId(), student.getFirstName(),
+            student.getLastName(), entry.getValue().stream()
+                .map(code -> moduleNames.getOrDefault(code, code)).toList()));
+      }
+    }
+    Student top = topId == null ? null : students.get(topId);
+    Insights.TopStudent topStudent = top == null ? null
+        : new Insights.TopStudent(top.getId(), top.getFirstName(), top.getLastName(), topAverage);
+
+    return new Insights(version, studentRepository.count(), modules.size(),
+        registrationRepository.count(), studentRepository.countUnregistered(),
+        gradeCount == 0 ? null : (double) scoreSum / gradeCount, moduleAverages, failedStudents,
+        topStudent);
+  }
+
+  /**
+   * Returns the mean of a {count, sum} pair.
+   *
+   * @param totals the totals, or {@code null} if there were no scores.
+   * @return the mean, or {@code null} if there were no scores.
+   */
+  private static Double average(long[] totals) {
+    return totals == null ? null : (double) totals[1] / totals[0];
+  }
+}
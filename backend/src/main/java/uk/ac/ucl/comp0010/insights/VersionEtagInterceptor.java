@@ -0,0 +1,64 @@
+package uk.ac.ucl.comp0010.insights;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+
+/**
+ * Answers conditional GET requests to a collection endpoint from the {@link DataVersion} of the
+ * tables it reads, before the handler runs.
+ *
+ * <p>Every GET or HEAD response carries a strong ETag built from the table versions and
+ * {@code Cache-Control: no-cache}, so the browser revalidates on every load. When the request's
+ * {@code If-None-Match} matches the current tag, the interceptor answers 304 Not Modified and the
+ * handler is never called: nothing is read from the database or serialised. The versions are read
+ * before the handler queries the data, so a response is never tagged with a version newer than
+ * its content.</p>
+ */
+public class VersionEtagInterceptor implements HandlerInterceptor {
+
+  /**
+   * The data versions the ETag is built from.
+   */
+  private final DataVersion dataVersion;
+
+  /**
+   * The tables the endpoint reads.
+   */
+  private final Table[] tables;
+
+  /**
+   * Constructs an interceptor for an endpoint that reads the given tables.
+   *
+   * @param dataVersion the data versions the ETag is built from.
+   * @param tables      the tables the endpoint reads.
+   */
+  public VersionEtagInterceptor(DataVersion dataVersion, Table... tables) {
+    this.dataVersion = dataVersion;
+    this.tables = tables.clone();
+  }
+
+  /**
+   * Sets the ETag of a GET or HEAD request, and answers 304 Not Modified if the client already
+   * holds the current version.
+   *
+   * @param request  the current request.
+   * @param response the current response.
+   * @param handler  the handler that would serve the request.
+   * @return {@code false} if the request was answered with 304, {@code true} otherwise.
+   */
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    String method = request.getMethod();
+    if (!"GET".equals(method) && !"HEAD".equals(method)) {
+      return true;
+    }
+    response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+    return !new ServletWebRequest(request, response).checkNotModified(dataVersion.etag(tables));
+  }
+}
@@ -0,0 +1,12 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * Counters of the {@link ModuleCatalogue}, as returned by {@code GET /catalogue/stats}.
+ *
+ * @param hits   the number of lookups served from the snapshot.
+ * @param misses the number of lookups for a code not in the snapshot, which queried the database.
+ * @param loads  the number of times the whole catalogue was loaded from the database.
+ * @param size   the number of modules in the current snapshot, or 0 if none is loaded.
+ */
+public record CatalogueStats(long hits, long misses, long loads, int size) {
+}
@@ -0,0 +1,20 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * The number of grades and the sum of their scores across every module, summed from the
+ * {@link ModuleStats} rows rather than the grade table.
+ *
+ * @param count the number of grades.
+ * @param sum   the sum of the scores.
+ */
+public record GradeTotals(Long count, Long sum) {
+
+  /**
+   * Returns the mean score.
+   *
+   * @return the mean score, or {@code null} if there are no grades.
+   */
+  public Double mean() {
+    return count == 0 ? null : (double) sum / count;
+  }
+}
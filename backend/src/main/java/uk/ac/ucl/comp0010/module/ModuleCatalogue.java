@@ -0,0 +1,244 @@
+package uk.ac.ucl.comp0010.module;
+
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.support.CommitOrder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process cache of the module catalogue: every module by code, and the MNC subset that every
+ * new student is registered for.
+ *
+ * <p>Readers are served from an immutable snapshot, so a lookup by code is a single hash probe
+ * and never takes a lock. The snapshot is loaded with {@link ModuleRepository#findAll()} on first
+ * use. Creating or deleting a module swaps in a new snapshot with that module added or removed;
+ * inside a transaction the swap is deferred until the transaction commits, so readers never see a
+ * module that was rolled back, and the swaps are made in the order the modules were written. A
+ * code missing from the snapshot is looked up in the database, in case the module was written by
+ * something other than this application.</p>
+ */
+@Component
+public class ModuleCatalogue {
+
+  /**
+   * An immutable view of the catalogue.
+   *
+   * @param byCode every module by code.
+   * @param all    every module, in code order.
+   * @param mnc    the MNC modules, in code order.
+   */
+  private record Snapshot(Map<String, Module> byCode, List<Module> all, List<Module> mnc) {
+
+    /**
+     * Builds a snapshot of the given modules.
+     *
+     * @param modules the modules, keyed by code.
+     * @return the snapshot.
+     */
+    static Snapshot of(Map<String, Module> modules) {
+      List<Module> all = new ArrayList<>(modules.values());
+      all.sort(Comparator.comparing(Module::getCode));
+      return new Snapshot(Map.copyOf(modules), List.copyOf(all),
+          all.stream().filter(Module::isMnc).toList());
+    }
+  }
+
+  /**
+   * The repository the catalogue is loaded from.
+   */
+  private final ModuleRepository moduleRepository;
+
+  /**
+   * The current snapshot, or {@code null} if the catalogue must be reloaded.
+   */
+  private volatile Snapshot snapshot;
+
+  /**
+   * Puts the swaps in the order the modules were written.
+   */
+  private final CommitOrder commitOrder = new CommitOrder();
+
+  /**
+   * Incremented on every change to the snapshot, so a lookup that queried the database while a
+   * module was being written does not add an outdated copy.
+   */
+  private long generation;
+
+  /**
+   * The number of lookups served from the snapshot.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * The number of lookups that queried the database.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The number of full loads of the catalogue.
+   */
+  private final AtomicLong loads = new AtomicLong();
+
+  /**
+   * Constructs the catalogue on top of the module repository.
+   *
+   * @param moduleRepository the repository the catalogue is loaded from.
+   */
+  public ModuleCatalogue(ModuleRepository moduleRepository) {
+    this.moduleRepository = moduleRepository;
+  }
+
+  /**
+   * Finds a module by its code.
+   *
+   * @param code the code of the module.
+   * @return an {@link Optional} containing the module, or empty if no module has that code.
+   */
+  public Optional<Module> find(String code) {
+    if (code == null) {
+      return Optional.empty();
+    }
+    Module module = current().byCode().get(code);
+    if (module != null) {
+      hits.incrementAndGet();
+      return Optional.of(module);
+    }
+
+    // Not in the snapshot: the module may have been written outside this application
+    misses.incrementAndGet();
+    long observed;
+    synchronized (this) {
+      observed = generation;
+    }
+    Optional<Module> loaded = moduleRepository.findById(code);
+    loaded.ifPresent(found -> {
+      synchronized (this) {
+        if (generation == observed && snapshot != null) {
+          swap(found, null);
+        }
+      }
+    });
+    return loaded;
+  }
+
+  /**
+   * Checks whether a module exists.
+   *
+   * @param code the code of the module.
+   * @return {@code true} if a module has that code.
+   */
+  public boolean contains(String code) {
+    return find(code).isPresent();
+  }
+
+  /**
+   * Returns every module.
+   *
+   * @return an unmodifiable list of all modules, in code order.
+   */
+  public List<Module> all() {
+    return current().all();
+  }
+
+  /**
+   * Returns the modules marked as MNC.
+   *
+   * @return an unmodifiable list of MNC modules, in code order.
+   */
+  public List<Module> mnc() {
+    return current().mnc();
+  }
+
+  /**
+   * Returns the hit, miss and load counters of the catalogue.
+   *
+   * @return the counters.
+   */
+  public CatalogueStats stats() {
+    Snapshot current = snapshot;
+    return new CatalogueStats(hits.get(), misses.get(), loads.get(),
+        current == null ? 0 : current.byCode().size());
+  }
+
+  /**
+   * Records a created or updated module, once the current transaction commits.
+   *
+   * @param module the module as saved.
+   */
+  public void put(Module module) {
+    commitOrder.afterCommit(() -> swap(module, null));
+  }
+
+  /**
+   * Records a deleted module, once the current transaction commits.
+   *
+   * @param code the code of the deleted module.
+   */
+  public void remove(String code) {
+    commitOrder.afterCommit(() -> swap(null, code));
+  }
+
+  /**
+   * Discards the snapshot, once the current transaction commits, so the next read reloads the
+   * whole catalogue.
+   */
+  public void invalidate() {
+    commitOrder.afterCommit(() -> {
+      synchronized (this) {
+        generation++;
+        snapshot = null;
+      }
+    });
+  }
+
+  /**
+   * Returns the current snapshot, loading it if there is none.
+   *
+   * @return the snapshot.
+   */
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current != null) {
+      return current;
+    }
+    synchronized (this) {
+      if (snapshot == null) {
+        Map<String, Module> modules = new HashMap<>();
+        for (Module module : moduleRepository.findAll()) {
+          modules.put(module.getCode(), module);
+        }
+        snapshot = Snapshot.of(modules);
+        loads.incrementAndGet();
+      }
+      return snapshot;
+    }
+  }
+
+  /**
+   * Swaps in a new snapshot with one module added or removed. Does nothing if no snapshot is
+   * loaded, since the next load will read the change from the database.
+   *
+   * @param added   the module to add or replace, or {@code null}.
+   * @param removed the code of the module to remove, or {@code null}.
+   */
+  private synchronized void swap(Module added, String removed) {
+    generation++;
+    if (snapshot == null) {
+      return;
+    }
+    Map<String, Module> modules = new HashMap<>(snapshot.byCode());
+    if (added != null) {
+      modules.put(added.getCode(), added);
+    }
+    if (removed != null) {
+      modules.remove(removed);
+    }
+    snapshot = Snapshot.of(modules);
+  }
+}
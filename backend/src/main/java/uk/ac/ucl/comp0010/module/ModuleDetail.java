@@ -0,0 +1,17 @@
+package uk.ac.ucl.comp0010.module;
+
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
+import uk.ac.ucl.comp0010.student.StudentSummary;
+
+import java.util.List;
+
+/**
+ * Everything the module detail page shows, as returned by {@code GET /modules/{code}/detail}.
+ *
+ * @param module   the module.
+ * @param students the students registered for the module, by ID.
+ * @param grades   the grades of those students in the module.
+ */
+public record ModuleDetail(Module module, List<StudentSummary> students,
+                           List<ModuleGrade> grades) {
+}
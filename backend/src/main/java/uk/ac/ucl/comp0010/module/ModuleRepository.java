@@ -1,8 +1,11 @@
 package uk.ac.ucl.comp0010.module;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for managing {@link Module} entities.
  * Provides CRUD operations for the Module entity by extending {@link JpaRepository}. The primary
@@ -10,4 +13,14 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ModuleRepository extends JpaRepository<Module, String> {
+
+  /**
+   * Finds the next page of modules after a given code, in ascending code order. Used for keyset
+   * pagination, which seeks straight to the cursor through the primary key index.
+   *
+   * @param code  the code of the last module on the previous page.
+   * @param limit the maximum number of modules to return.
+   * @return a list of at most {@code limit} modules with a code greater than {@code code}.
+   */
+  List<Module> findByCodeGreaterThanOrderByCodeAsc(String code, Limit limit);
 }
@@ -0,0 +1,243 @@
+package uk.ac.ucl.comp0010.module;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.util.Arrays;
+
+/**
+ * Running score statistics of a module, kept up to date as grades are written and deleted so the
+ * module's distribution can be summarised without scanning its grades.
+ *
+ * <p>The row holds the number of grades, the sum and the sum of squares of their scores, and a
+ * histogram with one bucket per possible score from 0 to 100. The mean and variance follow from
+ * the sums in constant time, and the median and other percentiles are read off the histogram in at
+ * most {@value #BUCKETS} steps.</p>
+ */
+@Entity
+public class ModuleStats {
+
+  /**
+   * The number of histogram buckets, one per score from 0 to 100.
+   */
+  public static final int BUCKETS = 101;
+
+  /**
+   * The code of the module these statistics describe.
+   */
+  @Id
+  private String moduleCode;
+
+  /**
+   * The number of grades recorded in the module.
+   */
+  @Column(name = "grade_count", nullable = false)
+  private long count;
+
+  /**
+   * The sum of the recorded scores.
+   */
+  @Column(name = "score_sum", nullable = false)
+  private long sum;
+
+  /**
+   * The sum of the squares of the recorded scores.
+   */
+  @Column(name = "score_sum_of_squares", nullable = false)
+  private long sumOfSquares;
+
+  /**
+   * The number of grades recorded for each score, indexed by score.
+   */
+  @Column(nullable = false)
+  private int[] histogram = new int[BUCKETS];
+
+  /**
+   * Default constructor required by JPA.
+   */
+  public ModuleStats() {
+  }
+
+  /**
+   * Constructs empty statistics for a module.
+   *
+   * @param moduleCode the code of the module.
+   */
+  public ModuleStats(String moduleCode) {
+    this.moduleCode = moduleCode;
+  }
+
+  /**
+   * Records a grade with the given score.
+   *
+   * @param score the score of the grade, between 0 and 100.
+   * @throws IllegalArgumentException if the score is outside 0 to 100.
+   */
+  public void add(int score) {
+    checkScore(score);
+    count++;
+    sum += score;
+    sumOfSquares += (long) score * score;
+    histogram[score]++;
+  }
+
+  /**
+   * Removes a previously recorded grade with the given score.
+   *
+   * @param score the score of the grade, between 0 and 100.
+   * @throws IllegalArgumentException if the score is outside 0 to 100.
+   */
+  public void remove(int score) {
+    checkScore(score);
+    count--;
+    sum -= score;
+    sumOfSquares -= (long) score * score;
+    histogram[score]--;
+  }
+
+  /**
+   * Records several grades with the same score.
+   *
+   * @param score the score of the grades, between 0 and 100.
+   * @param times the number of grades.
+   * @throws IllegalArgumentException if the score is outside 0 to 100.
+   */
+  public void add(int score, long times) {
+    checkScore(score);
+    count += times;
+    sum += score * times;
+    sumOfSquares += (long) score * score * times;
+    histogram[score] += (int) times;
+  }
+
+  /**
+   * Tells whether these statistics record the same grades as others, whatever module they
+   * describe.
+   *
+   * @param other the other statistics.
+   * @return {@code true} if the counts, sums and histograms are equal.
+   */
+  public boolean sameAs(ModuleStats other) {
+    return count == other.count && sum == other.sum && sumOfSquares == other.sumOfSquares
+        && Arrays.equals(histogram, other.histogram);
+  }
+
+  /**
+   * Replaces the recorded grades with those of other statistics.
+   *
+   * @param other the statistics to copy.
+   */
+  public void copyFrom(ModuleStats other) {
+    count = other.count;
+    sum = other.sum;
+    sumOfSquares = other.sumOfSquares;
+    histogram = other.histogram.clone();
+  }
+
+  /**
+   * Rejects a score that has no histogram bucket.
+   *
+   * @param score the score.
+   * @throws IllegalArgumentException if the score is outside 0 to 100.
+   */
+  private static void checkScore(int score) {
+    if (score < 0 || score >= BUCKETS) {
+      throw new IllegalArgumentException(
+          "Score must be between 0 and " + (BUCKETS - 1) + ", got " + score);
+    }
+  }
+
+  /**
+   * Computes the mean score.
+   *
+   * @return the mean score, or {@code null} if no grade is recorded.
+   */
+  public Double mean() {
+    if (count == 0) {
+      return null;
+    }
+    return (double) sum / count;
+  }
+
+  /**
+   * Computes the population variance of the scores.
+   *
+   * @return the variance, or {@code null} if no grade is recorded.
+   */
+  public Double variance() {
+    if (count == 0) {
+      return null;
+    }
+    double mean = (double) sum / count;
+    return Math.max(0.0, (double) sumOfSquares / count - mean * mean);
+  }
+
+  /**
+   * Finds the score at the given percentile using the nearest-rank method, by walking the
+   * histogram.
+   *
+   * @param percentile the percentile to find, between 0 and 100.
+   * @return the smallest score such that at least {@code percentile} percent of the grades are at
+   *         or below it, or {@code null} if no grade is recorded.
+   */
+  public Integer percentile(double percentile) {
+    if (count == 0) {
+      return null;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int score = 0; score < BUCKETS; score++) {
+      seen += histogram[score];
+      if (seen >= rank) {
+        return score;
+      }
+    }
+    return BUCKETS - 1;
+  }
+
+  /**
+   * Gets the code of the module these statistics describe.
+   *
+   * @return the module code.
+   */
+  public String getModuleCode() {
+    return moduleCode;
+  }
+
+  /**
+   * Gets the number of grades recorded in the module.
+   *
+   * @return the grade count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the sum of the recorded scores.
+   *
+   * @return the score sum.
+   */
+  public long getSum() {
+    return sum;
+  }
+
+  /**
+   * Gets the sum of the squares of the recorded scores.
+   *
+   * @return the sum of squares.
+   */
+  public long getSumOfSquares() {
+    return sumOfSquares;
+  }
+
+  /**
+   * Gets a copy of the score histogram, indexed by score.
+   *
+   * @return the number of grades recorded for each score from 0 to 100.
+   */
+  public int[] getHistogram() {
+    return histogram.clone();
+  }
+}
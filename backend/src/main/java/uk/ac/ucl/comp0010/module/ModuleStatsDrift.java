@@ -0,0 +1,17 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * A module whose stored {@link ModuleStats} no longer match the grades it actually holds, as found
+ * by {@link ModuleStatsRepairJob}.
+ *
+ * @param moduleCode  the code of the module.
+ * @param storedCount the grade count stored in the statistics, or {@code null} if the module had
+ *                    none.
+ * @param storedSum   the score sum stored in the statistics, or {@code null} if the module had
+ *                    none.
+ * @param actualCount the number of grades the module actually holds.
+ * @param actualSum   the actual sum of the module's scores.
+ */
+public record ModuleStatsDrift(String moduleCode, Long storedCount, Long storedSum,
+    Long actualCount, Long actualSum) {
+}
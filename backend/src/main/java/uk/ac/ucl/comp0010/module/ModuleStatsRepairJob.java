@@ -0,0 +1,68 @@
+package uk.ac.ucl.comp0010.module;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repairs the {@link ModuleStats} of every module by recomputing them from the grade table.
+ *
+ * <p>The statistics are maintained incrementally by every grade write and delete, and created
+ * from the grades of a module that predates them, so they should never drift; this job is the
+ * safety net that detects and corrects drift caused by writes that bypass the application. It runs
+ * on the {@code app.module-stats.repair-cron} schedule and can be triggered on demand through
+ * {@code POST /modules/stats/repair}.</p>
+ */
+@Component
+public class ModuleStatsRepairJob {
+
+  /**
+   * The logger used to report drift found by scheduled runs.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(ModuleStatsRepairJob.class);
+
+  /**
+   * The service the statistics are checked and recomputed through.
+   */
+  private final ModuleStatsService moduleStatsService;
+
+  /**
+   * Constructs the job on top of the statistics service.
+   *
+   * @param moduleStatsService the service the statistics are checked and recomputed through.
+   */
+  public ModuleStatsRepairJob(ModuleStatsService moduleStatsService) {
+    this.moduleStatsService = moduleStatsService;
+  }
+
+  /**
+   * Finds every module whose statistics have drifted and recomputes them from scratch. The drift
+   * is found without locking, then checked again for each module in a transaction of its own with
+   * its statistics locked, so a grade written in the meantime is not undone and no module stays
+   * locked while the others are repaired.
+   *
+   * @return the drift found, one entry per repaired module, as it was before the repair.
+   */
+  public List<ModuleStatsDrift> repair() {
+    List<ModuleStatsDrift> repaired = new ArrayList<>();
+    for (ModuleStatsDrift drift : moduleStatsService.findDrift()) {
+      moduleStatsService.repair(drift.moduleCode()).ifPresent(repaired::add);
+    }
+    return repaired;
+  }
+
+  /**
+   * Runs {@link #repair()} on the configured schedule and logs any drift it corrected.
+   */
+  @Scheduled(cron = "${app.module-stats.repair-cron:-}")
+  public void scheduledRepair() {
+    List<ModuleStatsDrift> drift = repair();
+    if (!drift.isEmpty()) {
+      LOG.warn("Repaired the statistics of {} modules: {}", drift.size(), drift);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ucl.comp0010.module;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link ModuleStats} entities, keyed by module code. The
+ * {@link ModuleStatsSeedRepository} fragment adds the insert used to create the statistics of a
+ * module that predates them.
+ */
+@Repository
+public interface ModuleStatsRepository extends JpaRepository<ModuleStats, String>,
+    ModuleStatsSeedRepository {
+
+  /**
+   * Finds the statistics of a module and locks their row until the surrounding transaction ends,
+   * so concurrent grade writes in the same module update the statistics one after the other. Must
+   * be called inside a transaction.
+   *
+   * @param moduleCode the code of the module.
+   * @return an {@link Optional} containing the locked statistics if found, or empty otherwise.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<ModuleStats> findWithLockByModuleCode(String moduleCode);
+
+  /**
+   * Sums the grade counts and score sums of every module. The statistics hold one row per module,
+   * so the cost does not depend on the number of grades.
+   *
+   * @return the number of grades and the sum of their scores.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.module.GradeTotals("
+      + "COALESCE(SUM(s.count), 0L), COALESCE(SUM(s.sum), 0L)) FROM ModuleStats s")
+  GradeTotals sumGradeTotals();
+
+  /**
+   * Counts the grades of a module by score, in one grouped query, to seed or check its
+   * statistics.
+   *
+   * @param moduleCode the code of the module.
+   * @return one {@link ScoreCount} per score held in the module.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.module.ScoreCount(g.module.code, g.score, COUNT(g)) "
+      + "FROM Grade g WHERE g.module.code = :moduleCode GROUP BY g.module.code, g.score")
+  List<ScoreCount> countScores(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Counts the grades of every module by score, in one grouped query, to check the statistics of
+   * every module.
+   *
+   * @return one {@link ScoreCount} per module and score held in it.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.module.ScoreCount(g.module.code, g.score, COUNT(g)) "
+      + "FROM Grade g GROUP BY g.module.code, g.score")
+  List<ScoreCount> countAllScores();
+}
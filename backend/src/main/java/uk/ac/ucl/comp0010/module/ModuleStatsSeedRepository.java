@@ -0,0 +1,19 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * Custom repository fragment for creating the {@link ModuleStats} of a module that predates them,
+ * with plain JDBC. {@link ModuleStatsRepository} extends this interface, so the method is available
+ * on the regular repository.
+ */
+public interface ModuleStatsSeedRepository {
+
+  /**
+   * Inserts the given statistics unless the module already has some. A concurrent transaction
+   * that inserted statistics for the same module first is waited for, and the insert then does
+   * nothing rather than fail on the primary key or abort the surrounding transaction.
+   *
+   * @param stats the statistics to insert.
+   * @return {@code true} if the statistics were inserted, {@code false} if the module had some.
+   */
+  boolean insertIfAbsent(ModuleStats stats);
+}
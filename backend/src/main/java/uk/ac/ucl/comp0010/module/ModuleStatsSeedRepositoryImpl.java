@@ -0,0 +1,86 @@
+package uk.ac.ucl.comp0010.module;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import javax.sql.DataSource;
+
+/**
+ * JDBC implementation of {@link ModuleStatsSeedRepository}. The statement runs on the connection of
+ * the surrounding transaction, so the statistics commit or roll back together with the caller's
+ * other work.
+ */
+public class ModuleStatsSeedRepositoryImpl implements ModuleStatsSeedRepository {
+
+  /**
+   * Inserts the statistics of one module unless it has some. Standard SQL MERGE is used so the
+   * statement runs unchanged on H2 and PostgreSQL.
+   */
+  static final String INSERT_IF_ABSENT_SQL = "MERGE INTO module_stats m "
+      + "USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+      + "CAST(? AS BIGINT), CAST(? AS INTEGER ARRAY))) "
+      + "AS s(module_code, grade_count, score_sum, score_sum_of_squares, histogram) "
+      + "ON m.module_code = s.module_code "
+      + "WHEN NOT MATCHED THEN INSERT "
+      + "(module_code, grade_count, score_sum, score_sum_of_squares, histogram) "
+      + "VALUES (s.module_code, s.grade_count, s.score_sum, s.score_sum_of_squares, s.histogram)";
+
+  /**
+   * The SQLSTATE of a unique constraint violation, on H2 as on PostgreSQL.
+   */
+  static final String UNIQUE_VIOLATION = "23505";
+
+  /**
+   * The template used to execute the insert.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Constructs the repository fragment on top of the application's data source.
+   *
+   * @param dataSource the data source backing the JPA repositories.
+   */
+  public ModuleStatsSeedRepositoryImpl(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The MERGE does not see statistics a concurrent transaction inserted but has not committed,
+   * so it tries to insert them too and fails on the primary key once the other commits. The
+   * insert runs in a savepoint, which is rolled back on that failure without aborting the
+   * transaction.</p>
+   */
+  @Override
+  public boolean insertIfAbsent(ModuleStats stats) {
+    return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+      Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+        statement.setString(1, stats.getModuleCode());
+        statement.setLong(2, stats.getCount());
+        statement.setLong(3, stats.getSum());
+        statement.setLong(4, stats.getSumOfSquares());
+        statement.setArray(5, connection.createArrayOf("INTEGER",
+            Arrays.stream(stats.getHistogram()).boxed().toArray()));
+        boolean inserted = statement.executeUpdate() > 0;
+        if (savepoint != null) {
+          connection.releaseSavepoint(savepoint);
+        }
+        return inserted;
+      } catch (SQLException e) {
+        if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+          throw e;
+        }
+        if (savepoint != null) {
+          connection.rollback(savepoint);
+        }
+        return false;
+      }
+    });
+  }
+}
@@ -0,0 +1,225 @@
+package uk.ac.ucl.comp0010.module;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.grade.ModuleScore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@link ModuleStats} of every module as grades are written and deleted. Every
+ * method that records a change must be called inside the transaction that changes the grades, so
+ * the statistics commit or roll back together with them, and before the grades are written or
+ * deleted.
+ *
+ * <p>A module that predates its statistics has them created on its first grade change, seeded
+ * from the grades it already holds in one grouped query. The statistics are locked before the
+ * grades change, so the seed counts the grades as they stood before the change, and the change is
+ * then applied on top of it as for any other module.</p>
+ */
+@Component
+public class ModuleStatsService {
+
+  /**
+   * The repository the statistics are stored in.
+   */
+  private final ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Constructs the service on top of the statistics repository.
+   *
+   * @param moduleStatsRepository the repository the statistics are stored in.
+   */
+  public ModuleStatsService(ModuleStatsRepository moduleStatsRepository) {
+    this.moduleStatsRepository = moduleStatsRepository;
+  }
+
+  /**
+   * Creates empty statistics for a module if it has none yet.
+   *
+   * @param moduleCode the code of the module.
+   */
+  public void initialise(String moduleCode) {
+    if (!moduleStatsRepository.existsById(moduleCode)) {
+      moduleStatsRepository.save(new ModuleStats(moduleCode));
+    }
+  }
+
+  /**
+   * Records a grade written in a module, replacing the student's previous score if they already
+   * had a grade there.
+   *
+   * @param moduleCode    the code of the module.
+   * @param previousScore the score being replaced, or {@code null} for a new grade.
+   * @param score         the score written.
+   */
+  public void recordGrade(String moduleCode, Integer previousScore, int score) {
+    ModuleStats stats = lock(moduleCode);
+    if (previousScore != null) {
+      stats.remove(previousScore);
+    }
+    stats.add(score);
+  }
+
+  /**
+   * Removes deleted grades from the statistics of their modules. The modules are locked in code
+   * order, so two concurrent deletions cannot deadlock on each other.
+   *
+   * @param scores the module and score of each deleted grade.
+   */
+  public void removeGrades(Collection<ModuleScore> scores) {
+    List<ModuleScore> ordered =
+        scores.stream().sorted(Comparator.comparing(ModuleScore::moduleCode)).toList();
+    for (ModuleScore score : ordered) {
+      lock(score.moduleCode()).remove(score.score() == null ? 0 : score.score());
+    }
+  }
+
+  /**
+   * Deletes the statistics of a module that is being deleted.
+   *
+   * @param moduleCode the code of the module.
+   */
+  public void drop(String moduleCode) {
+    moduleStatsRepository.deleteById(moduleCode);
+  }
+
+  /**
+   * Summarises the score distribution of a module.
+   *
+   * @param moduleCode the code of the module.
+   * @return the summary, which is empty if no grade was ever recorded in the module.
+   */
+  public ModuleStatsSummary summarise(String moduleCode) {
+    return ModuleStatsSummary.of(moduleStatsRepository.findById(moduleCode)
+        .orElseGet(() -> new ModuleStats(moduleCode)));
+  }
+
+  /**
+   * Sums the statistics of every module, which reads one row per module and no grade.
+   *
+   * @return the number of grades and the sum of their scores.
+   */
+  public GradeTotals totals() {
+    return moduleStatsRepository.sumGradeTotals();
+  }
+
+  /**
+   * Finds every module whose stored statistics differ from the grades it actually holds, or that
+   * holds grades but has no statistics, by recomputing the statistics from the grade table in one
+   * grouped query. Nothing is locked, so the result is only a list of modules to check again.
+   *
+   * @return one {@link ModuleStatsDrift} per module whose statistics have drifted, in code order.
+   */
+  public List<ModuleStatsDrift> findDrift() {
+    Map<String, ModuleStats> actual = new TreeMap<>();
+    for (ScoreCount count : moduleStatsRepository.countAllScores()) {
+      actual.computeIfAbsent(count.moduleCode(), ModuleStats::new).add(scoreOf(count),
+          count.count());
+    }
+    Map<String, ModuleStats> stored = new TreeMap<>();
+    for (ModuleStats stats : moduleStatsRepository.findAll()) {
+      stored.put(stats.getModuleCode(), stats);
+      actual.putIfAbsent(stats.getModuleCode(), new ModuleStats(stats.getModuleCode()));
+    }
+
+    List<ModuleStatsDrift> drift = new ArrayList<>();
+    for (ModuleStats expected : actual.values()) {
+      ModuleStats found = stored.get(expected.getModuleCode());
+      if (found == null || !found.sameAs(expected)) {
+        drift.add(drift(found, expected));
+      }
+    }
+    return drift;
+  }
+
+  /**
+   * Recomputes the statistics of a module from its grades, with the statistics locked so no grade
+   * change in the module can interleave, and creates them if the module has none.
+   *
+   * @param moduleCode the code of the module.
+   * @return the drift found, as it was before the repair, or empty if the statistics were right.
+   */
+  @Transactional
+  public Optional<ModuleStatsDrift> repair(String moduleCode) {
+    Optional<ModuleStats> stored = moduleStatsRepository.findWithLockByModuleCode(moduleCode);
+    if (stored.isEmpty()) {
+      return Optional.of(drift(null, create(moduleCode)));
+    }
+    ModuleStats stats = stored.get();
+    ModuleStats actual = seed(moduleCode);
+    if (stats.sameAs(actual)) {
+      return Optional.empty();
+    }
+    ModuleStatsDrift drift = drift(stats, actual);
+    stats.copyFrom(actual);
+    return Optional.of(drift);
+  }
+
+  /**
+   * Locks the statistics of a module, creating them first for a module that predates them.
+   *
+   * @param moduleCode the code of the module.
+   * @return the locked statistics.
+   */
+  private ModuleStats lock(String moduleCode) {
+    return moduleStatsRepository.findWithLockByModuleCode(moduleCode)
+        .orElseGet(() -> create(moduleCode));
+  }
+
+  /**
+   * Creates the statistics of a module from the grades it holds, then locks them. A concurrent
+   * transaction creating them first is waited for, and its statistics are locked instead.
+   *
+   * @param moduleCode the code of the module.
+   * @return the locked statistics.
+   */
+  private ModuleStats create(String moduleCode) {
+    moduleStatsRepository.insertIfAbsent(seed(moduleCode));
+    return moduleStatsRepository.findWithLockByModuleCode(moduleCode).orElseThrow();
+  }
+
+  /**
+   * Computes the statistics of a module from the grades it holds.
+   *
+   * @param moduleCode the code of the module.
+   * @return the statistics, not stored.
+   */
+  private ModuleStats seed(String moduleCode) {
+    ModuleStats stats = new ModuleStats(moduleCode);
+    for (ScoreCount count : moduleStatsRepository.countScores(moduleCode)) {
+      stats.add(scoreOf(count), count.count());
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the score a count of grades is recorded under. A grade without a score is recorded as
+   * 0, as {@link #removeGrades(Collection)} removes it.
+   *
+   * @param count the count of grades.
+   * @return the score.
+   */
+  private static int scoreOf(ScoreCount count) {
+    return count.score() == null ? 0 : count.score();
+  }
+
+  /**
+   * Describes the drift between stored statistics and those recomputed from the grades.
+   *
+   * @param stored the stored statistics, or {@code null} if the module has none.
+   * @param actual the recomputed statistics.
+   * @return the drift.
+   */
+  private static ModuleStatsDrift drift(ModuleStats stored, ModuleStats actual) {
+    return new ModuleStatsDrift(actual.getModuleCode(),
+        stored == null ? null : stored.getCount(), stored == null ? null : stored.getSum(),
+        actual.getCount(), actual.getSum());
+  }
+}
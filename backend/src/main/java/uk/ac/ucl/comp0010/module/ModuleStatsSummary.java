@@ -0,0 +1,32 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * Summary of a module's score distribution, as returned by {@code GET /modules/{code}/stats}. All
+ * statistics are {@code null} when the module has no grades.
+ *
+ * @param moduleCode   the code of the module.
+ * @param count        the number of grades in the module.
+ * @param mean         the mean score.
+ * @param variance     the population variance of the scores.
+ * @param median       the median score.
+ * @param percentile25 the 25th percentile score.
+ * @param percentile75 the 75th percentile score.
+ * @param percentile90 the 90th percentile score.
+ * @param histogram    the number of grades for each score from 0 to 100.
+ */
+public record ModuleStatsSummary(String moduleCode, long count, Double mean, Double variance,
+    Integer median, Integer percentile25, Integer percentile75, Integer percentile90,
+    int[] histogram) {
+
+  /**
+   * Summarises the given statistics.
+   *
+   * @param stats the running statistics of the module.
+   * @return the summary of the module's score distribution.
+   */
+  public static ModuleStatsSummary of(ModuleStats stats) {
+    return new ModuleStatsSummary(stats.getModuleCode(), stats.getCount(), stats.mean(),
+        stats.variance(), stats.percentile(50), stats.percentile(25), stats.percentile(75),
+        stats.percentile(90), stats.getHistogram());
+  }
+}
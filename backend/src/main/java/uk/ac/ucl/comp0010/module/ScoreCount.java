@@ -0,0 +1,12 @@
+package uk.ac.ucl.comp0010.module;
+
+/**
+ * The number of grades with a given score in a module, as counted from the grade table to seed or
+ * check the {@link ModuleStats} of the module.
+ *
+ * @param moduleCode the code of the module.
+ * @param score      the score, or {@code null} for grades without one.
+ * @param count      the number of grades in the module with that score.
+ */
+public record ScoreCount(String moduleCode, Integer score, Long count) {
+}
@@ -0,0 +1,63 @@
+package uk.ac.ucl.comp0010.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A single page of a keyset (cursor) paginated collection.
+ *
+ * <p>Pages are keyed on the primary key of the underlying entity: the next page is requested with
+ * the opaque {@code nextCursor} token, which encodes the key of the last item on this page. Because
+ * the database seeks straight to that key through the primary key index, a deep page costs the
+ * same as the first one, unlike OFFSET paging.</p>
+ *
+ * @param items      the items on this page, in ascending key order.
+ * @param nextCursor the token to request the following page with, or {@code null} if this is the
+ *                   last page.
+ * @param <T>        the type of the items on the page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+  /**
+   * Builds a page from rows fetched with a limit of {@code pageSize + 1}. The extra row, if
+   * present, only signals that another page exists and is not returned.
+   *
+   * @param rows         the rows fetched from the repository, in ascending key order.
+   * @param pageSize     the number of items to return on this page.
+   * @param keyExtractor a function returning the primary key of an item.
+   * @param <T>          the type of the items on the page.
+   * @return the page, with a next cursor if more rows remain.
+   */
+  public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, ?> keyExtractor) {
+    if (rows.size() <= pageSize) {
+      return new CursorPage<>(rows, null);
+    }
+    List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+    return new CursorPage<>(items, encode(keyExtractor.apply(items.get(pageSize - 1))));
+  }
+
+  /**
+   * Encodes a primary key as an opaque, URL-safe cursor token.
+   *
+   * @param key the primary key of the last item on a page.
+   * @return the cursor token.
+   */
+  public static String encode(Object key) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(String.valueOf(key).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor token back into the string form of the primary key it was built from.
+   *
+   * @param cursor the cursor token supplied by the client.
+   * @return the string form of the primary key.
+   * @throws IllegalArgumentException if the token is not a valid cursor.
+   */
+  public static String decode(String cursor) {
+    return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+  }
+}
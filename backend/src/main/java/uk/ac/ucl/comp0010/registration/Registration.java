@@ -6,6 +6,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.student.Student;
 
@@ -13,8 +15,13 @@ import uk.ac.ucl.comp0010.student.Student;
  * Represents a registration of a student to a specific module.
  * This entity is used to map the association between a {@link Student} and a {@link Module}. Each
  * instance signifies that a given student has registered for a particular module.
+ *
+ * <p>A student can be registered for a module only once, which the unique constraint on
+ * (student_id, module_code) enforces even when registrations are created concurrently.</p>
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_registration_student_module",
+    columnNames = {"student_id", "module_code"}))
 public class Registration {
 
   /**
@@ -0,0 +1,32 @@
+package uk.ac.ucl.comp0010.registration;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom repository fragment for writing registrations in bulk with plain JDBC batching, bypassing
+ * entity hydration. {@link RegistrationRepository} extends this interface, so the methods are
+ * available on the regular repository.
+ */
+public interface RegistrationBatchRepository {
+
+  /**
+   * Inserts a registration for every given (student, module) pair that is not registered yet,
+   * using JDBC batch statements. Pairs that already exist are skipped by the database rather than
+   * rejected, so callers do not need to filter them out first, and so are pairs a concurrent
+   * transaction inserts while the batch runs.
+   *
+   * @param keys the pairs to register.
+   * @return the number of registrations inserted.
+   */
+  int insertAll(Collection<RegistrationKey> keys);
+
+  /**
+   * Inserts a registration for every given (student, module) pair that is not registered yet, as
+   * {@link #insertAll(Collection)} does, and tells which pairs were inserted.
+   *
+   * @param keys the pairs to register.
+   * @return the pairs inserted, in the order given.
+   */
+  List<RegistrationKey> insertMissing(Collection<RegistrationKey> keys);
+}
@@ -0,0 +1,209 @@
+package uk.ac.ucl.comp0010.registration;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * JDBC implementation of {@link RegistrationBatchRepository}. Statements run on the connection of
+ * the surrounding transaction, so a batch commits or rolls back together with the caller's other
+ * work.
+ */
+public class RegistrationBatchRepositoryImpl implements RegistrationBatchRepository {
+
+  /**
+   * The number of rows sent to the database in each JDBC batch.
+   */
+  static final int BATCH_SIZE = 500;
+
+  /**
+   * The SQLSTATE of a unique constraint violation, on H2 as on PostgreSQL.
+   */
+  static final String UNIQUE_VIOLATION = "23505";
+
+  /**
+   * Inserts one registration unless it already exists. Standard SQL MERGE is used so the statement
+   * runs unchanged on H2 and PostgreSQL.
+   */
+  static final String INSERT_IF_ABSENT_SQL = "MERGE INTO registration r "
+      + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(255)))) "
+      + "AS s(student_id, module_code) "
+      + "ON r.student_id = s.student_id AND r.module_code = s.module_code "
+      + "WHEN NOT MATCHED THEN INSERT (student_id, module_code) "
+      + "VALUES (s.student_id, s.module_code)";
+
+  /**
+   * The template used to execute the batch inserts.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Constructs the repository fragment on top of the application's data source.
+   *
+   * @param dataSource the data source backing the JPA repositories.
+   */
+  public RegistrationBatchRepositoryImpl(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public int insertAll(Collection<RegistrationKey> keys) {
+    return insertMissing(keys).size();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The pairs are sent in JDBC batches, inside a savepoint. The MERGE does not see a pair that
+   * a concurrent transaction inserted but has not committed, so it tries to insert the pair too
+   * and fails on the unique constraint once the other commits. A driver may also report a
+   * statement of a batch as {@link Statement#SUCCESS_NO_INFO}, which does not tell whether the
+   * pair was inserted. In either case the batches are undone and the pairs inserted one at a
+   * time, each in its own savepoint with its own count, skipping any that violate the unique
+   * constraint. Outside a transaction there is no savepoint to undo a batch with, so the pairs
+   * are inserted one at a time from the start.</p>
+   */
+  @Override
+  public List<RegistrationKey> insertMissing(Collection<RegistrationKey> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return List.of();
+    }
+    List<RegistrationKey> pairs = List.copyOf(keys);
+    return jdbcTemplate.execute((ConnectionCallback<List<RegistrationKey>>) connection -> {
+      if (connection.getAutoCommit()) {
+        return insertEach(connection, pairs);
+      }
+      Savepoint savepoint = connection.setSavepoint();
+      List<RegistrationKey> inserted;
+      try {
+        inserted = insertBatched(connection, pairs);
+      } catch (SQLException e) {
+        if (!isUniqueViolation(e)) {
+          throw e;
+        }
+        inserted = null;
+      }
+      if (inserted == null) {
+        connection.rollback(savepoint);
+        return insertEach(connection, pairs);
+      }
+      connection.releaseSavepoint(savepoint);
+      return inserted;
+    });
+  }
+
+  /**
+   * Inserts the missing pairs in batches of {@value #BATCH_SIZE}.
+   *
+   * @param connection the connection of the current transaction.
+   * @param keys       the pairs to register.
+   * @return the pairs inserted, in the order given, or {@code null} if the driver did not report
+   *         whether each statement inserted a row.
+   * @throws SQLException if a statement fails.
+   */
+  private static List<RegistrationKey> insertBatched(Connection connection,
+      List<RegistrationKey> keys) throws SQLException {
+    List<RegistrationKey> inserted = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+      for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+        List<RegistrationKey> batch = keys.subList(from, Math.min(from + BATCH_SIZE, keys.size()));
+        for (RegistrationKey key : batch) {
+          bind(statement, key);
+          statement.addBatch();
+        }
+        // The counts come back in the order the statements were added
+        int[] counts = statement.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+          if (counts[i] == Statement.SUCCESS_NO_INFO) {
+            return null;
+          }
+          if (counts[i] > 0) {
+            inserted.add(batch.get(i));
+          }
+        }
+      }
+    }
+    return inserted;
+  }
+
+  /**
+   * Inserts the missing pairs one statement at a time, skipping any that a concurrent transaction
+   * inserted first. Inside a transaction each statement runs in its own savepoint, so a pair that
+   * violates the unique constraint is undone without aborting the transaction.
+   *
+   * @param connection the connection to insert on.
+   * @param keys       the pairs to register.
+   * @return the pairs inserted, in the order given.
+   * @throws SQLException if a statement fails for any other reason.
+   */
+  private static List<RegistrationKey> insertEach(Connection connection,
+      List<RegistrationKey> keys) throws SQLException {
+    boolean transactional = !connection.getAutoCommit();
+    List<RegistrationKey> inserted = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_IF_ABSENT_SQL)) {
+      for (RegistrationKey key : keys) {
+        bind(statement, key);
+        Savepoint savepoint = transactional ? connection.setSavepoint() : null;
+        try {
+          if (statement.executeUpdate() > 0) {
+            inserted.add(key);
+          }
+        } catch (SQLException e) {
+          if (!isUniqueViolation(e)) {
+            throw e;
+          }
+          if (transactional) {
+            connection.rollback(savepoint);
+          }
+          continue;
+        }
+        if (transactional) {
+          connection.releaseSavepoint(savepoint);
+        }
+      }
+    }
+    return inserted;
+  }
+
+  /**
+   * Tells whether a statement or batch failed on a unique constraint. A failed batch may carry
+   * the error of its statement as a cause or as the next exception rather than as its own state.
+   *
+   * @param e the exception.
+   * @return {@code true} if the exception or one it chains to is a unique violation.
+   */
+  private static boolean isUniqueViolation(SQLException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException sql) {
+        for (SQLException next = sql; next != null; next = next.getNextException()) {
+          if (UNIQUE_VIOLATION.equals(next.getSQLState())) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sets the parameters of {@link #INSERT_IF_ABSENT_SQL} to a pair.
+   *
+   * @param statement the statement.
+   * @param key       the pair.
+   * @throws SQLException if a parameter cannot be set.
+   */
+  private static void bind(PreparedStatement statement, RegistrationKey key)
+      throws SQLException {
+    statement.setLong(1, key.studentId());
+    statement.setString(2, key.moduleCode());
+  }
+}
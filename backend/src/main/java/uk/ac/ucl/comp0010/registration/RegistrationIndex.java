@@ -0,0 +1,280 @@
+package uk.ac.ucl.comp0010.registration;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.support.InMemoryModel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * In-memory index of the registrations: one bitmap per module over the students, answering
+ * which students are in some modules but not others, for {@code GET /cohorts}, without querying
+ * the database.
+ *
+ * <p>Each student is given a bit when first seen, so the bitmaps are dense whatever the student
+ * IDs are: {@value #STUDENTS_PER_KILOBYTE} students take one kilobyte per module. A cohort is
+ * evaluated with word-wide AND, OR and AND NOT over the bitmaps of the modules named, so its cost
+ * depends on the number of students and modules named rather than on the number of
+ * registrations.</p>
+ *
+ * <p>The index is loaded when the application starts, with one pass over the students and one
+ * over the registrations. The endpoints that write registrations update it once their transaction
+ * commits, so it never holds a registration that was rolled back; {@link #invalidate()} makes the
+ * next read reload it after a change made by other means.</p>
+ */
+@Component
+public class RegistrationIndex extends InMemoryModel {
+
+  /**
+   * The number of students whose bits fit in one kilobyte.
+   */
+  static final int STUDENTS_PER_KILOBYTE = 8192;
+
+  /**
+   * Loads the ID of every student.
+   */
+  static final String STUDENTS_SQL = "SELECT id FROM student";
+
+  /**
+   * Loads every registration.
+   */
+  static final String REGISTRATIONS_SQL = "SELECT student_id, module_code FROM registration";
+
+  /**
+   * The number of rows fetched at a time while loading.
+   */
+  static final int FETCH_SIZE = 1000;
+
+  /**
+   * The template the index is loaded with.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * The bit of each student, by ID.
+   */
+  private final Map<Long, Integer> bits = new HashMap<>();
+
+  /**
+   * The ID of the student of each bit; a bit whose student was deleted is not reused until the
+   * index is reloaded.
+   */
+  private long[] studentIds = new long[1024];
+
+  /**
+   * The bits of the students that exist.
+   */
+  private final BitSet students = new BitSet();
+
+  /**
+   * The students registered for each module, by module code.
+   */
+  private final Map<String, BitSet> modules = new HashMap<>();
+
+  /**
+   * The number of bits given out.
+   */
+  private int size;
+
+  /**
+   * Constructs the index on top of the application's data source.
+   *
+   * @param dataSource the data source the index is loaded from.
+   */
+  public RegistrationIndex(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+  }
+
+  /**
+   * Loads the index once the application has started, so the first request does not wait for
+   * it.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    query(() -> null);
+  }
+
+  /**
+   * Finds the students registered for every one of some modules, for at least one of others, and
+   * for none of a third set. An empty set of modules places no condition, so with no modules at
+   * all every student is returned.
+   *
+   * @param all  the modules every student returned is registered for.
+   * @param any  the modules every student returned is registered for at least one of, or empty.
+   * @param none the modules no student returned is registered for.
+   * @return the IDs of the students, in ascending order.
+   */
+  public List<Long> cohort(Collection<String> all, Collection<String> any,
+      Collection<String> none) {
+    long[] ids = query(() -> {
+      BitSet cohort = (BitSet) students.clone();
+      for (String code : all) {
+        cohort.and(module(code));
+      }
+      if (!any.isEmpty()) {
+        BitSet union = new BitSet();
+        for (String code : any) {
+          union.or(module(code));
+        }
+        cohort.and(union);
+      }
+      for (String code : none) {
+        cohort.andNot(module(code));
+      }
+
+      long[] found = new long[cohort.cardinality()];
+      int next = 0;
+      for (int bit = cohort.nextSetBit(0); bit >= 0; bit = cohort.nextSetBit(bit + 1)) {
+        found[next++] = studentIds[bit];
+      }
+      return found;
+    });
+    Arrays.sort(ids);
+    return Arrays.stream(ids).boxed().toList();
+  }
+
+  /**
+   * Records a created student, once the current transaction commits.
+   *
+   * @param studentId the ID of the student.
+   */
+  public void addStudent(Long studentId) {
+    update(() -> students.set(bit(studentId)));
+  }
+
+  /**
+   * Records new registrations, once the current transaction commits.
+   *
+   * @param keys the registrations.
+   */
+  public void register(Collection<RegistrationKey> keys) {
+    List<RegistrationKey> registered = List.copyOf(keys);
+    update(() -> {
+      for (RegistrationKey key : registered) {
+        add(key.studentId(), key.moduleCode());
+      }
+    });
+  }
+
+  /**
+   * Records a deleted registration, once the current transaction commits.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  public void unregister(Long studentId, String moduleCode) {
+    update(() -> {
+      Integer bit = bits.get(studentId);
+      BitSet module = modules.get(moduleCode);
+      if (bit != null && module != null) {
+        module.clear(bit);
+      }
+    });
+  }
+
+  /**
+   * Records a deleted student, together with their registrations, once the current transaction
+   * commits.
+   *
+   * @param studentId the ID of the student.
+   */
+  public void removeStudent(Long studentId) {
+    update(() -> {
+      Integer bit = bits.remove(studentId);
+      if (bit != null) {
+        students.clear(bit);
+        for (BitSet module : modules.values()) {
+          module.clear(bit);
+        }
+      }
+    });
+  }
+
+  /**
+   * Records a deleted module, together with its registrations, once the current transaction
+   * commits.
+   *
+   * @param moduleCode the code of the module.
+   */
+  public void removeModule(String moduleCode) {
+    update(() -> modules.remove(moduleCode));
+  }
+
+  /**
+   * Returns the students registered for a module. Called with a lock held.
+   *
+   * @param moduleCode the code of the module.
+   * @return the students, empty if there are none.
+   */
+  private BitSet module(String moduleCode) {
+    BitSet module = modules.get(moduleCode);
+    return module == null ? new BitSet() : module;
+  }
+
+  /**
+   * Loads every student and registration.
+   */
+  @Override
+  protected void load() {
+    // In ID order the bits follow the IDs, for the students loaded together
+    jdbcTemplate.query(STUDENTS_SQL + " ORDER BY id", row -> {
+      students.set(bit(row.getLong(1)));
+    });
+    jdbcTemplate.query(REGISTRATIONS_SQL, row -> {
+      add(row.getLong(1), row.getString(2));
+    });
+  }
+
+  /**
+   * Discards every student and registration.
+   */
+  @Override
+  protected void reset() {
+    bits.clear();
+    students.clear();
+    modules.clear();
+    size = 0;
+  }
+
+  /**
+   * Records a registration. Called with the write lock held.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  private void add(Long studentId, String moduleCode) {
+    int bit = bit(studentId);
+    // A student registered before their creation was recorded exists all the same
+    students.set(bit);
+    modules.computeIfAbsent(moduleCode, code -> new BitSet()).set(bit);
+  }
+
+  /**
+   * Returns the bit of a student, giving them the next bit if they have none. Called with the
+   * write lock held.
+   *
+   * @param studentId the ID of the student.
+   * @return the bit.
+   */
+  private int bit(Long studentId) {
+    Integer bit = bits.get(studentId);
+    if (bit != null) {
+      return bit;
+    }
+    if (size == studentIds.length) {
+      studentIds = Arrays.copyOf(studentIds, size * 2);
+    }
+    studentIds[size] = studentId;
+    bits.put(studentId, size);
+    return size++;
+  }
+}
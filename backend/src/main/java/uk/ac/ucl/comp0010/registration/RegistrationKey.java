@@ -0,0 +1,12 @@
+package uk.ac.ucl.comp0010.registration;
+
+/**
+ * Identifies a registration by the pair of student ID and module code it links, without loading
+ * either entity. Used as the request item of a batch registration and as the key when matching a
+ * batch against registrations that already exist.
+ *
+ * @param studentId  the ID of the student.
+ * @param moduleCode the code of the module.
+ */
+public record RegistrationKey(Long studentId, String moduleCode) {
+}
@@ -1,18 +1,76 @@
 package uk.ac.ucl.comp0010.registration;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link Registration} entities.
  * This interface extends {@link JpaRepository} to provide CRUD operations for the
  * {@link Registration} entity. Additionally, it defines custom query methods for specific
- * operations related to student and module associations.
+ * operations related to student and module associations, and inherits JDBC batch writes from
+ * {@link RegistrationBatchRepository}.
  */
 @Repository
-public interface RegistrationRepository extends JpaRepository<Registration, Long> {
+public interface RegistrationRepository
+    extends JpaRepository<Registration, Long>, RegistrationBatchRepository {
+
+  /**
+   * Streams every registration with its student and module fetched in the same query. Rows are
+   * fetched from the database in batches as the stream is consumed. Must be consumed, and closed,
+   * inside a transaction.
+   *
+   * @return a {@link Stream} of all registrations.
+   */
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+  @Query("SELECT r FROM Registration r JOIN FETCH r.student JOIN FETCH r.module")
+  Stream<Registration> streamAll();
+
+  /**
+   * Finds every registration as a compact {@link RegistrationView}, selecting only the
+   * registration's own columns.
+   *
+   * @return one {@link RegistrationView} per registration, in ascending ID order.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.registration.RegistrationView(r.id, r.student.id, "
+      + "r.module.code) FROM Registration r ORDER BY r.id")
+  List<RegistrationView> findAllViews();
+
+  /**
+   * Finds the next page of registrations after a given ID as compact {@link RegistrationView}
+   * rows, in ascending ID order. Used for keyset pagination of the compact registration list.
+   *
+   * @param id    the ID of the last registration on the previous page.
+   * @param limit the maximum number of registrations to return.
+   * @return a list of at most {@code limit} views of registrations with an ID greater than
+   *         {@code id}.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.registration.RegistrationView(r.id, r.student.id, "
+      + "r.module.code) FROM Registration r WHERE r.id > :id ORDER BY r.id")
+  List<RegistrationView> findViewsAfter(@Param("id") Long id, Limit limit);
+
+  /**
+   * Finds the registrations with the given IDs as compact {@link RegistrationView} rows.
+   *
+   * @param ids the IDs of the registrations.
+   * @return one {@link RegistrationView} per registration that still exists, in ascending ID
+   *         order.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.registration.RegistrationView(r.id, r.student.id, "
+      + "r.module.code) FROM Registration r WHERE r.id IN :ids ORDER BY r.id")
+  List<RegistrationView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
 
   /**
    * Checks if a registration exists for a given student and module.
@@ -24,6 +82,26 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
    */
   boolean existsByStudentIdAndModuleCode(Long studentId, String moduleId);
 
+  /**
+   * Registers a student for a module unless the registration already exists, in a single MERGE
+   * statement and without a prior existence check. Two concurrent calls for the same pair cannot
+   * both insert: the unique constraint on (student_id, module_code) rejects the second one.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @return 1 if the registration was created, or 0 if it already existed.
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "MERGE INTO registration r "
+      + "USING (VALUES (CAST(:studentId AS BIGINT), CAST(:moduleCode AS VARCHAR(255)))) "
+      + "AS s(student_id, module_code) "
+      + "ON r.student_id = s.student_id AND r.module_code = s.module_code "
+      + "WHEN NOT MATCHED THEN INSERT (student_id, module_code) "
+      + "VALUES (s.student_id, s.module_code)",
+      nativeQuery = true)
+  int insertIfAbsent(@Param("studentId") Long studentId, @Param("moduleCode") String moduleCode);
+
   /**
    * Finds all registrations associated with a specific student.
    *
@@ -32,6 +110,44 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
    */
   List<Registration> findByStudentId(Long studentId);
 
+  /**
+   * Finds the codes of the modules a student is registered for, without loading any entity.
+   *
+   * @param studentId the ID of the student.
+   * @return the module codes, in registration order.
+   */
+  @Query("SELECT r.module.code FROM Registration r WHERE r.student.id = :studentId ORDER BY r.id")
+  List<String> findModuleCodesByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Finds every registration of a student together with its grade, with one query over the
+   * student_id index left-joined to the grade of the same student and module. A registration
+   * without a grade has a {@code null} grade ID and score.
+   *
+   * @param studentId the ID of the student.
+   * @return one {@link GradeView} per registration, in the order the registrations were made.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.GradeView(g.id, g.score, r.student.id, "
+      + "r.module.code) FROM Registration r LEFT JOIN Grade g "
+      + "ON g.student.id = r.student.id AND g.module.code = r.module.code "
+      + "WHERE r.student.id = :studentId ORDER BY r.id")
+  List<GradeView> findGradedByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Finds every student registered for a module together with their grade in it, with one query
+   * over the module_code index joined to the student and left-joined to the grade. A student
+   * without a grade has a {@code null} grade ID and score.
+   *
+   * @param moduleCode the code of the module.
+   * @return one {@link ModuleGrade} per registration, by student ID.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.grade.ModuleGrade("
+      + "g.id, g.score, s.id, s.firstName, s.lastName, s.username) "
+      + "FROM Registration r JOIN r.student s LEFT JOIN Grade g "
+      + "ON g.student.id = s.id AND g.module.code = r.module.code "
+      + "WHERE r.module.code = :moduleCode ORDER BY s.id")
+  List<ModuleGrade> findGradedByModuleCode(@Param("moduleCode") String moduleCode);
+
   /**
    * Finds all registrations associated with a specific module.
    *
@@ -50,4 +166,74 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
    */
   Registration findByStudentIdAndModuleCode(Long studentId, String moduleId);
 
+  /**
+   * Finds the next page of registrations after a given ID, in ascending ID order. Used for keyset
+   * pagination, which seeks straight to the cursor through the primary key index.
+   *
+   * @param id    the ID of the last registration on the previous page.
+   * @param limit the maximum number of registrations to return.
+   * @return a list of at most {@code limit} registrations with an ID greater than {@code id}.
+   */
+  List<Registration> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  /**
+   * Finds the IDs of the students registered for a module, without loading the registrations.
+   *
+   * @param moduleCode the code of the module.
+   * @return the IDs of the students registered for the module.
+   */
+  @Query("SELECT r.student.id FROM Registration r WHERE r.module.code = :moduleCode")
+  List<Long> findStudentIdsByModuleCode(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Registers every student who is not yet registered for the given module, with a single
+   * set-based INSERT ... SELECT executed inside the database. No student entity is loaded, so the
+   * cost does not grow the heap with the number of students. Must be called inside a transaction.
+   *
+   * @param moduleCode the code of the module to register all students for.
+   * @return the number of registrations created.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO registration (student_id, module_code) "
+      + "SELECT s.id, :moduleCode FROM student s WHERE NOT EXISTS ("
+      + "SELECT 1 FROM registration r WHERE r.student_id = s.id AND r.module_code = :moduleCode)",
+      nativeQuery = true)
+  int registerAllStudents(@Param("moduleCode") String moduleCode);
+
+  /**
+   * Deletes every registration of a specific student with a single bulk DELETE. No registration is
+   * loaded into the persistence context, so one statement is sent whatever the number of
+   * registrations. Must be called inside a transaction.
+   *
+   * @param studentId the ID of the student whose registrations are to be deleted.
+   * @return the number of registrations deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Registration r WHERE r.student.id = :studentId")
+  int bulkDeleteByStudentId(@Param("studentId") Long studentId);
+
+  /**
+   * Deletes every registration of a specific module with a single bulk DELETE. Must be called
+   * inside a transaction.
+   *
+   * @param moduleId the code of the module whose registrations are to be deleted.
+   * @return the number of registrations deleted.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Registration r WHERE r.module.code = :moduleId")
+  int bulkDeleteByModuleCode(@Param("moduleId") String moduleId);
+
+  /**
+   * Deletes the registration of a specific student in a specific module with a single bulk
+   * DELETE. Must be called inside a transaction.
+   *
+   * @param studentId the ID of the student.
+   * @param moduleId  the code of the module.
+   * @return the number of registrations deleted, which is 0 if the student was not registered.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM Registration r "
+      + "WHERE r.student.id = :studentId AND r.module.code = :moduleId")
+  int bulkDeleteByStudentIdAndModuleCode(@Param("studentId") Long studentId,
+      @Param("moduleId") String moduleId);
 }
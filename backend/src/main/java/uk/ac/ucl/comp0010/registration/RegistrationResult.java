@@ -0,0 +1,47 @@
+package uk.ac.ucl.comp0010.registration;
+
+/**
+ * The outcome of registering one (student, module) pair as part of a batch registration.
+ *
+ * @param studentId  the ID of the student.
+ * @param moduleCode the code of the module.
+ * @param status     what happened to this pair.
+ */
+public record RegistrationResult(Long studentId, String moduleCode, Status status) {
+
+  /**
+   * The possible outcomes of registering a single pair.
+   */
+  public enum Status {
+    /**
+     * The registration was created.
+     */
+    CREATED,
+
+    /**
+     * The student was already registered for the module, or the pair appeared earlier in the same
+     * batch.
+     */
+    ALREADY_EXISTS,
+
+    /**
+     * No module exists with the given code.
+     */
+    INVALID_MODULE,
+
+    /**
+     * No student exists with the given ID.
+     */
+    INVALID_STUDENT
+  }
+
+  /**
+   * Constructs the result for a pair identified by a {@link RegistrationKey}.
+   *
+   * @param key    the pair that was registered.
+   * @param status what happened to this pair.
+   */
+  public RegistrationResult(RegistrationKey key, Status status) {
+    this(key.studentId(), key.moduleCode(), status);
+  }
+}
@@ -0,0 +1,13 @@
+package uk.ac.ucl.comp0010.registration;
+
+/**
+ * A compact view of a registration that refers to its student and module by key instead of
+ * embedding them. Instances are built directly by a JPQL constructor expression, so neither the
+ * {@link Registration} nor its student and module are hydrated to produce them.
+ *
+ * @param id         the unique identifier of the registration.
+ * @param studentId  the ID of the registered student.
+ * @param moduleCode the code of the module the student is registered for.
+ */
+public record RegistrationView(Long id, Long studentId, String moduleCode) {
+}
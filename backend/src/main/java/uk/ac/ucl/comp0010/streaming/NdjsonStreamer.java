@@ -0,0 +1,110 @@
+package uk.ac.ucl.comp0010.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a repository stream as newline-delimited JSON (NDJSON), one object per line.
+ *
+ * <p>The rows are serialised one at a time as the database cursor advances, and the persistence
+ * context is cleared every {@value #BATCH_SIZE} rows, so the memory used does not depend on the
+ * number of rows and the first line is sent before the query has been read to the end.</p>
+ */
+@Component
+public class NdjsonStreamer {
+
+  /**
+   * The number of rows written between two flushes of the response and the persistence context.
+   */
+  static final int BATCH_SIZE = 500;
+
+  /**
+   * The writer each row is serialised with.
+   */
+  private final ObjectWriter writer;
+
+  /**
+   * The entity manager of the streaming transaction, cleared as rows are written.
+   */
+  private final EntityManager entityManager;
+
+  /**
+   * Runs each stream in its own read-only transaction, since the response is written after the
+   * request thread, and its transaction, have returned.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Constructs the streamer.
+   *
+   * @param objectMapper       the application's object mapper.
+   * @param entityManager      the shared entity manager.
+   * @param transactionManager the transaction manager the streams run in.
+   */
+  public NdjsonStreamer(ObjectMapper objectMapper, EntityManager entityManager,
+      PlatformTransactionManager transactionManager) {
+    // Each value is written on its own, so the mapper must neither close nor flush the response
+    this.writer = objectMapper.copy()
+        .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+        .writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  /**
+   * Returns a response body that writes every row of a stream as one line of JSON.
+   *
+   * @param rows opens the stream of rows; called once the response starts being written.
+   * @param <T>  the type of the rows.
+   * @return the response body.
+   */
+  public <T> StreamingResponseBody stream(Supplier<Stream<T>> rows) {
+    return out -> {
+      try {
+        transactionTemplate.executeWithoutResult(status -> write(rows, out));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+  }
+
+  /**
+   * Writes every row of a stream to the response inside the current transaction.
+   *
+   * @param rows opens the stream of rows.
+   * @param out  the response.
+   * @param <T>  the type of the rows.
+   */
+  private <T> void write(Supplier<Stream<T>> rows, OutputStream out) {
+    try (Stream<T> stream = rows.get()) {
+      int written = 0;
+      for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+        writer.writeValue(out, it.next());
+        out.write('\n');
+        if (++written % BATCH_SIZE == 0) {
+          out.flush();
+          entityManager.clear();
+        }
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
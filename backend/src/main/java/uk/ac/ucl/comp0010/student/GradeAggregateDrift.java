@@ -0,0 +1,15 @@
+package uk.ac.ucl.comp0010.student;
+
+/**
+ * A student whose stored grade aggregates no longer match the grades they actually hold, as found
+ * by {@link GradeAggregateRepairJob}.
+ *
+ * @param studentId   the ID of the student.
+ * @param storedCount the grade count stored on the student.
+ * @param storedSum   the score sum stored on the student.
+ * @param actualCount the number of grades the student actually holds.
+ * @param actualSum   the actual sum of the student's scores.
+ */
+public record GradeAggregateDrift(Long studentId, Integer storedCount, Long storedSum,
+    Long actualCount, Long actualSum) {
+}
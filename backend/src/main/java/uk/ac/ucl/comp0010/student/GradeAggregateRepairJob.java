@@ -0,0 +1,77 @@
+package uk.ac.ucl.comp0010.student;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ucl.comp0010.sync.ChangeLog;
+
+import java.util.List;
+
+/**
+ * Repairs the per-student grade aggregates ({@link Student#getGradeCount()} and
+ * {@link Student#getScoreSum()}) by recomputing them from the grade table.
+ *
+ * <p>The aggregates are maintained incrementally by every grade write and delete, so they should
+ * never drift; this job is the safety net that detects and corrects drift caused by writes that
+ * bypass the application. It runs on the {@code app.aggregates.repair-cron} schedule and can be
+ * triggered on demand through {@code POST /students/aggregates/repair}.</p>
+ */
+@Component
+public class GradeAggregateRepairJob {
+
+  /**
+   * The logger used to report drift found by scheduled runs.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(GradeAggregateRepairJob.class);
+
+  /**
+   * The repository the aggregates are read from and written to.
+   */
+  private final StudentRepository studentRepository;
+
+  /**
+   * The log the repaired students are recorded in, so syncing clients receive the new aggregates.
+   */
+  private final ChangeLog changeLog;
+
+  /**
+   * Constructs the job on top of the student repository.
+   *
+   * @param studentRepository the repository the aggregates are read from and written to.
+   * @param changeLog         the log the repaired students are recorded in.
+   */
+  public GradeAggregateRepairJob(StudentRepository studentRepository, ChangeLog changeLog) {
+    this.studentRepository = studentRepository;
+    this.changeLog = changeLog;
+  }
+
+  /**
+   * Finds every student whose aggregates have drifted and recomputes them from scratch, in one
+   * transaction.
+   *
+   * @return the drift found, one entry per repaired student, as it was before the repair.
+   */
+  @Transactional
+  public List<GradeAggregateDrift> repair() {
+    List<GradeAggregateDrift> drift = studentRepository.findGradeAggregateDrift();
+    if (!drift.isEmpty()) {
+      List<Long> ids = drift.stream().map(GradeAggregateDrift::studentId).toList();
+      studentRepository.recomputeGradeAggregates(ids);
+      changeLog.students(ids);
+    }
+    return drift;
+  }
+
+  /**
+   * Runs {@link #repair()} on the configured schedule and logs any drift it corrected.
+   */
+  @Scheduled(cron = "${app.aggregates.repair-cron:-}")
+  public void scheduledRepair() {
+    List<GradeAggregateDrift> drift = repair();
+    if (!drift.isEmpty()) {
+      LOG.warn("Repaired grade aggregates of {} students: {}", drift.size(), drift);
+    }
+  }
+}
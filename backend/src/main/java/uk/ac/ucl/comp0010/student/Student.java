@@ -1,5 +1,7 @@
 package uk.ac.ucl.comp0010.student;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
@@ -14,6 +16,10 @@ import java.util.List;
  * A student has an ID, first name, last name, username, and email address. Additionally, the
  * student maintains a list of grades for modules they are enrolled in. This class provides methods
  * to manage grades and compute the student's average score.
+ *
+ * <p>The number of grades and the sum of their scores are persisted on the student and kept up to
+ * date by the statements that write and delete grades, so the average is read in constant time
+ * without loading the grades. Entity updates never touch these columns.</p>
  */
 @Entity
 public class Student {
@@ -58,25 +64,45 @@ public class Student {
   private List<Grade> grades = new ArrayList<>();
 
   /**
-   * Computes the average score of the student's grades.
+   * The number of grades the student holds. Maintained by the grade write and delete statements,
+   * and read-only in JSON.
+   */
+  @Column(name = "grade_count", nullable = false, updatable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private int gradeCount;
+
+  /**
+   * The sum of the scores of the grades the student holds. Maintained by the grade write and
+   * delete statements, and read-only in JSON.
+   */
+  @Column(name = "score_sum", nullable = false, updatable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private long scoreSum;
+
+  /**
+   * Computes the average score of the student's grades from the running aggregates, without
+   * loading the grades.
    *
    * @return the average score, or 0 if there are no grades.
    */
   public Double computeAverage() {
-    if (grades.isEmpty()) {
-      return (Double) 0.0;
+    if (gradeCount == 0) {
+      return 0.0;
     }
-    return (Double) grades.stream().mapToInt(Grade::getScore).average().orElse(0f);
+    return (double) scoreSum / gradeCount;
   }
 
   /**
-   * Adds a grade to the student's list of grades. Also sets the student reference in the grade.
+   * Adds a grade to the student's list of grades. Also sets the student reference in the grade
+   * and folds the grade into the in-memory aggregates.
    *
    * @param grade the grade to add.
    */
   public void addGrade(Grade grade) {
     grades.add(grade);
     grade.setStudent(this); // Setting the back reference
+    gradeCount++;
+    scoreSum += grade.getScore() == null ? 0 : grade.getScore();
   }
 
   /**
@@ -129,6 +155,24 @@ public class Student {
     this.id = id;
   }
 
+  /**
+   * Gets the number of grades the student holds.
+   *
+   * @return the student's grade count.
+   */
+  public int getGradeCount() {
+    return gradeCount;
+  }
+
+  /**
+   * Gets the sum of the scores of the student's grades.
+   *
+   * @return the student's score sum.
+   */
+  public long getScoreSum() {
+    return scoreSum;
+  }
+
   /**
    * Gets the first name of the student.
    *
@@ -0,0 +1,274 @@
+package uk.ac.ucl.comp0010.student;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.support.TransactionCallbacks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of students and the codes of the modules they are registered for,
+ * which the student detail pages request over and over.
+ *
+ * <p>At most {@code app.student-cache.max-size} students are kept; when the cache is full the
+ * least recently used one is evicted. An entry is dropped once it is older than
+ * {@code app.student-cache.ttl}, so a change made outside this application is seen within that
+ * time. Every endpoint that changes a student, their grade aggregates or their registrations
+ * evicts the student once its transaction commits; the bulk statements that touch every student
+ * clear the whole cache.</p>
+ */
+@Component
+public class StudentCache {
+
+  /**
+   * A cached student.
+   *
+   * @param student     the student.
+   * @param moduleCodes the codes of the modules the student is registered for, or {@code null} if
+   *                    they have not been loaded.
+   * @param expiresAt   the {@link System#nanoTime()} after which the entry is stale.
+   */
+  private record Entry(Student student, List<String> moduleCodes, long expiresAt) {
+  }
+
+  /**
+   * The repository students are loaded from.
+   */
+  private final StudentRepository studentRepository;
+
+  /**
+   * The repository the registered module codes are loaded from.
+   */
+  private final RegistrationRepository registrationRepository;
+
+  /**
+   * The largest number of students kept.
+   */
+  private final int maxSize;
+
+  /**
+   * How long an entry is served before it is reloaded, in nanoseconds.
+   */
+  private final long ttlNanos;
+
+  /**
+   * The cached students by ID, in least recently used order. Guarded by {@code this}.
+   */
+  private final LinkedHashMap<Long, Entry> entries;
+
+  /**
+   * Incremented on every eviction, so a lookup that queried the database while a student was
+   * being written does not cache an outdated copy. Guarded by {@code this}.
+   */
+  private long generation;
+
+  /**
+   * The number of lookups served from the cache. Guarded by {@code this}.
+   */
+  private long hits;
+
+  /**
+   * The number of lookups that queried the database. Guarded by {@code this}.
+   */
+  private long misses;
+
+  /**
+   * The number of entries dropped because the cache was full. Guarded by {@code this}.
+   */
+  private long evictions;
+
+  /**
+   * The number of entries dropped because they expired. Guarded by {@code this}.
+   */
+  private long expirations;
+
+  /**
+   * Constructs the cache on top of the student and registration repositories.
+   *
+   * @param studentRepository      the repository students are loaded from.
+   * @param registrationRepository the repository the registered module codes are loaded from.
+   * @param maxSize                the largest number of students kept.
+   * @param ttl                    how long an entry is served before it is reloaded.
+   */
+  public StudentCache(StudentRepository studentRepository,
+      RegistrationRepository registrationRepository,
+      @Value("${app.student-cache.max-size:10000}") int maxSize,
+      @Value("${app.student-cache.ttl:PT10M}") Duration ttl) {
+    this.studentRepository = studentRepository;
+    this.registrationRepository = registrationRepository;
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        if (size() > StudentCache.this.maxSize) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Finds a student by their ID.
+   *
+   * @param id the ID of the student.
+   * @return an {@link Optional} containing the student, or empty if no student has that ID.
+   */
+  public Optional<Student> find(Long id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    Entry entry = lookup(id);
+    if (entry != null) {
+      return Optional.of(entry.student());
+    }
+    long observed = generation();
+    Optional<Student> loaded = studentRepository.findById(id);
+    loaded.ifPresent(student -> store(id, observed, current -> new Entry(student,
+        current == null ? null : current.moduleCodes(), System.nanoTime() + ttlNanos)));
+    return loaded;
+  }
+
+  /**
+   * Checks whether a student exists.
+   *
+   * @param id the ID of the student.
+   * @return {@code true} if a student has that ID.
+   */
+  public boolean contains(Long id) {
+    return find(id).isPresent();
+  }
+
+  /**
+   * Returns the codes of the modules a student is registered for.
+   *
+   * @param id the ID of the student.
+   * @return an {@link Optional} containing the module codes in registration order, or empty if
+   *         no student has that ID.
+   */
+  public Optional<List<String>> findModuleCodes(Long id) {
+    Optional<Student> student = find(id);
+    if (student.isEmpty()) {
+      return Optional.empty();
+    }
+    synchronized (this) {
+      Entry entry = entries.get(id);
+      if (entry != null && entry.moduleCodes() != null) {
+        hits++;
+        return Optional.of(entry.moduleCodes());
+      }
+      misses++;
+    }
+    long observed = generation();
+    List<String> codes = List.copyOf(registrationRepository.findModuleCodesByStudentId(id));
+    store(id, observed, current -> current == null ? null
+        : new Entry(current.student(), codes, current.expiresAt()));
+    return Optional.of(codes);
+  }
+
+  /**
+   * Returns the hit, miss, eviction and expiration counters of the cache.
+   *
+   * @return the counters.
+   */
+  public synchronized StudentCacheStats stats() {
+    return new StudentCacheStats(hits, misses, evictions, expirations, entries.size());
+  }
+
+  /**
+   * Evicts a student, once the current transaction commits.
+   *
+   * @param id the ID of the student that changed.
+   */
+  public void evict(Long id) {
+    TransactionCallbacks.afterCommit(() -> {
+      synchronized (this) {
+        generation++;
+        entries.remove(id);
+      }
+    });
+  }
+
+  /**
+   * Evicts several students, once the current transaction commits.
+   *
+   * @param ids the IDs of the students that changed.
+   */
+  public void evictAll(Collection<Long> ids) {
+    TransactionCallbacks.afterCommit(() -> {
+      synchronized (this) {
+        generation++;
+        entries.keySet().removeAll(ids);
+      }
+    });
+  }
+
+  /**
+   * Evicts every student, once the current transaction commits.
+   */
+  public void clear() {
+    TransactionCallbacks.afterCommit(() -> {
+      synchronized (this) {
+        generation++;
+        entries.clear();
+      }
+    });
+  }
+
+  /**
+   * Returns the live entry for a student, counting a hit or a miss and dropping it if it expired.
+   *
+   * @param id the ID of the student.
+   * @return the entry, or {@code null} if the student is not cached.
+   */
+  private synchronized Entry lookup(Long id) {
+    Entry entry = entries.get(id);
+    if (entry != null && System.nanoTime() - entry.expiresAt() >= 0) {
+      entries.remove(id);
+      expirations++;
+      entry = null;
+    }
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry;
+  }
+
+  /**
+   * Returns the current generation.
+   *
+   * @return the generation.
+   */
+  private synchronized long generation() {
+    return generation;
+  }
+
+  /**
+   * Replaces the entry for a student, unless the cache changed since the value was read.
+   *
+   * @param id       the ID of the student.
+   * @param observed the generation before the value was read from the database.
+   * @param update   computes the new entry from the current one, or returns {@code null} to
+   *                 leave the cache unchanged.
+   */
+  private synchronized void store(Long id, long observed, Function<Entry, Entry> update) {
+    if (generation != observed) {
+      return;
+    }
+    Entry entry = update.apply(entries.get(id));
+    if (entry != null) {
+      entries.put(id, entry);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package uk.ac.ucl.comp0010.student;
+
+/**
+ * Counters of the {@link StudentCache}, as returned by {@code GET /students/cache/stats}.
+ *
+ * @param hits        the number of lookups served from the cache.
+ * @param misses      the number of lookups that queried the database.
+ * @param evictions   the number of entries dropped because the cache was full.
+ * @param expirations the number of entries dropped because they outlived the time to live.
+ * @param size        the number of students currently cached.
+ */
+public record StudentCacheStats(long hits, long misses, long evictions, long expirations,
+                                int size) {
+}
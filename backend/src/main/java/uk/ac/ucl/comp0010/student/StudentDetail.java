@@ -0,0 +1,16 @@
+package uk.ac.ucl.comp0010.student;
+
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.module.Module;
+
+import java.util.List;
+
+/**
+ * Everything the student detail page shows, as returned by {@code GET /students/{id}/detail}.
+ *
+ * @param student the student.
+ * @param modules the modules the student is registered for, in the order they were registered.
+ * @param grades  the student's grades in those modules.
+ */
+public record StudentDetail(Student student, List<Module> modules, List<GradeView> grades) {
+}
@@ -1,8 +1,18 @@
 package uk.ac.ucl.comp0010.student;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repository interface for managing {@link Student} entities.
  * This interface extends {@link JpaRepository} to provide CRUD operations for the {@link Student}
@@ -11,4 +21,117 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
+
+  /**
+   * Finds the next page of students after a given ID, in ascending ID order. Used for keyset
+   * pagination, which seeks straight to the cursor through the primary key index.
+   *
+   * @param id    the ID of the last student on the previous page.
+   * @param limit the maximum number of students to return.
+   * @return a list of at most {@code limit} students with an ID greater than {@code id}.
+   */
+  List<Student> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+  /**
+   * Finds which of the given IDs belong to existing students, without loading the students.
+   *
+   * @param ids the student IDs to check.
+   * @return the subset of {@code ids} for which a student exists.
+   */
+  @Query("SELECT s.id FROM Student s WHERE s.id IN :ids")
+  List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Finds a student by ID and locks its row until the surrounding transaction ends. Grade writes
+   * take this lock first, so concurrent writes for the same student are serialised and the
+   * student's aggregates cannot lose an update. Must be called inside a transaction.
+   *
+   * @param id the ID of the student.
+   * @return an {@link Optional} containing the locked student if found, or empty otherwise.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<Student> findWithLockById(Long id);
+
+  /**
+   * Adds the given deltas to a student's grade count and score sum in a single statement. Must be
+   * called inside a transaction. The persistence context is cleared afterwards, so a student read
+   * later in the transaction carries the new aggregates.
+   *
+   * @param id         the ID of the student.
+   * @param countDelta the change in the number of grades.
+   * @param sumDelta   the change in the sum of scores.
+   * @return the number of students updated.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Student s SET s.gradeCount = s.gradeCount + :countDelta, "
+      + "s.scoreSum = s.scoreSum + :sumDelta WHERE s.id = :id")
+  int adjustGradeAggregates(@Param("id") Long id, @Param("countDelta") int countDelta,
+      @Param("sumDelta") long sumDelta);
+
+  /**
+   * Removes the grade a student holds in a module from the student's aggregates, in a single
+   * statement. Must be called inside a transaction, before the grade itself is deleted.
+   *
+   * @param id   the ID of the student.
+   * @param code the code of the module whose grade is about to be deleted.
+   * @return the number of students updated, which is 0 if the student has no grade in the module.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Student s SET s.gradeCount = s.gradeCount - 1, "
+      + "s.scoreSum = s.scoreSum - (SELECT COALESCE(g.score, 0) FROM Grade g "
+      + "WHERE g.student.id = s.id AND g.module.code = :code) "
+      + "WHERE s.id = :id AND EXISTS (SELECT 1 FROM Grade g "
+      + "WHERE g.student.id = s.id AND g.module.code = :code)")
+  int subtractModuleGrade(@Param("id") Long id, @Param("code") String code);
+
+  /**
+   * Removes the grades of a module from the aggregates of every student holding one, in a single
+   * statement. Must be called inside a transaction, before the grades themselves are deleted.
+   *
+   * @param code the code of the module whose grades are about to be deleted.
+   * @return the number of students updated.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Student s SET s.gradeCount = s.gradeCount - 1, "
+      + "s.scoreSum = s.scoreSum - (SELECT COALESCE(g.score, 0) FROM Grade g "
+      + "WHERE g.student.id = s.id AND g.module.code = :code) "
+      + "WHERE EXISTS (SELECT 1 FROM Grade g WHERE g.student.id = s.id AND g.module.code = :code)")
+  int subtractModuleGrades(@Param("code") String code);
+
+  /**
+   * Counts the students who are not registered for any module, with a single anti-join against
+   * the registration table.
+   *
+   * @return the number of students without a registration.
+   */
+  @Query("SELECT COUNT(s) FROM Student s WHERE NOT EXISTS "
+      + "(SELECT 1 FROM Registration r WHERE r.student = s)")
+  long countUnregistered();
+
+  /**
+   * Finds every student whose stored aggregates differ from the grades actually held, by
+   * recomputing the aggregates from the grade table in one grouped query.
+   *
+   * @return one {@link GradeAggregateDrift} per student whose aggregates have drifted.
+   */
+  @Query("SELECT new uk.ac.ucl.comp0010.student.GradeAggregateDrift("
+      + "s.id, s.gradeCount, s.scoreSum, COUNT(g), COALESCE(SUM(g.score), 0L)) "
+      + "FROM Student s LEFT JOIN s.grades g "
+      + "GROUP BY s.id, s.gradeCount, s.scoreSum "
+      + "HAVING s.gradeCount <> COUNT(g) OR s.scoreSum <> COALESCE(SUM(g.score), 0L)")
+  List<GradeAggregateDrift> findGradeAggregateDrift();
+
+  /**
+   * Recomputes the aggregates of the given students from scratch from the grade table. Must be
+   * called inside a transaction.
+   *
+   * @param ids the IDs of the students to recompute.
+   * @return the number of students updated.
+   */
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Student s SET "
+      + "s.gradeCount = (SELECT COUNT(g) FROM Grade g WHERE g.student.id = s.id), "
+      + "s.scoreSum = (SELECT COALESCE(SUM(g.score), 0L) FROM Grade g WHERE g.student.id = s.id) "
+      + "WHERE s.id IN :ids")
+  int recomputeGradeAggregates(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,25 @@
+package uk.ac.ucl.comp0010.student;
+
+/**
+ * A student matching a search, with every field the search looks at.
+ *
+ * @param id        the unique identifier of the student.
+ * @param firstName the first name of the student.
+ * @param lastName  the last name of the student.
+ * @param username  the username of the student.
+ * @param email     the email address of the student.
+ */
+public record StudentSearchHit(Long id, String firstName, String lastName, String username,
+                               String email) {
+
+  /**
+   * Creates the hit for a student.
+   *
+   * @param student the student.
+   * @return the hit.
+   */
+  public static StudentSearchHit of(Student student) {
+    return new StudentSearchHit(student.getId(), student.getFirstName(), student.getLastName(),
+        student.getUsername(), student.getEmail());
+  }
+}
@@ -0,0 +1,607 @@
+package uk.ac.ucl.comp0010.student;
+
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.support.InMemoryModel;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory search index over the ID, first name, last name, username and email of every
+ * student, answering the typeahead of the registration pages without loading the students.
+ *
+ * <p>The fields are split into lowercase words, kept in a sorted map so the words starting with
+ * a term are one range of it, and into every {@value #GRAM}-character substring, so a term found
+ * anywhere inside a field is looked up through its rarest substring instead of by scanning every
+ * student. A query is split into terms the same way, and a student matches when every term is a
+ * word, starts a word or, from {@value #GRAM} characters, appears anywhere in a field.</p>
+ *
+ * <p>Matches are ranked by how well their terms match, whole words first, then words started,
+ * then substrings. A single term, the typical keystroke, lists the students whose words it starts
+ * in the alphabetical order of those words; other matches that rank equally are listed in ID
+ * order. Either way the index is read in ranking order, so a search stops once the requested
+ * number of students is found instead of ranking every student that matches.</p>
+ *
+ * <p>The index is loaded with {@link StudentRepository#findAll()} on first use. Creating,
+ * updating or deleting a student updates it once the transaction commits, so searches never see
+ * a student that was rolled back; {@link #invalidate()} makes the next search reload it after a
+ * change made by other means.</p>
+ */
+@Component
+public class StudentSearchIndex extends InMemoryModel {
+
+  /**
+   * The number of matches returned when the client does not ask for a number.
+   */
+  public static final int DEFAULT_LIMIT = 10;
+
+  /**
+   * The largest number of matches a client may ask for.
+   */
+  public static final int MAX_LIMIT = 100;
+
+  /**
+   * The length of the substrings indexed, and the shortest term matched inside a word.
+   */
+  static final int GRAM = 3;
+
+  /**
+   * An indexed student.
+   *
+   * @param hit    the student as returned by a search.
+   * @param fields the searched fields, in lowercase.
+   * @param words  the words of the fields.
+   */
+  private record Entry(StudentSearchHit hit, List<String> fields, Set<String> words) {
+  }
+
+  /**
+   * How well a student matches a query.
+   *
+   * @param slot the slot of the student.
+   * @param rank the sum of the ranks of the terms: 0 for a word, 1 for the start of a word and 2
+   *             for a substring.
+   * @param id   the ID of the student.
+   */
+  private record Match(int slot, int rank, long id) {
+  }
+
+  /**
+   * Orders matches best first.
+   */
+  private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::rank)
+      .thenComparingLong(Match::id);
+
+  /**
+   * The repository the index is loaded from.
+   */
+  private final StudentRepository studentRepository;
+
+  /**
+   * The indexed students by slot; the slot of a removed student holds {@code null} until another
+   * student takes it.
+   */
+  private final List<Entry> entries = new ArrayList<>();
+
+  /**
+   * The slots freed by removed students, the most recently freed first, so an updated student is
+   * indexed again in the slot it had.
+   */
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+  /**
+   * The slot of each indexed student, by ID.
+   */
+  private final Map<Long, Integer> slots = new HashMap<>();
+
+  /**
+   * The students with each word, in word order.
+   */
+  private final NavigableMap<String, Postings> words = new TreeMap<>();
+
+  /**
+   * The students with each substring of {@value #GRAM} characters.
+   */
+  private final Map<String, Postings> grams = new HashMap<>();
+
+  /**
+   * Constructs the index on top of the student repository.
+   *
+   * @param studentRepository the repository the index is loaded from.
+   */
+  public StudentSearchIndex(StudentRepository studentRepository) {
+    this.studentRepository = studentRepository;
+  }
+
+  /**
+   * Finds the students best matching a query.
+   *
+   * @param query the words to look for.
+   * @param limit the largest number of students returned.
+   * @return the matching students, best first; empty if the query has no words.
+   */
+  public List<StudentSearchHit> search(String query, int limit) {
+    List<String> terms = split(query);
+    if (terms.isEmpty() || limit < 1) {
+      return List.of();
+    }
+    return query(() -> terms.size() == 1 ? searchTerm(terms.get(0), limit)
+        : searchTerms(terms, limit));
+  }
+
+  /**
+   * Returns the number of students indexed.
+   *
+   * @return the number of students, or 0 if the index is not loaded.
+   */
+  public int size() {
+    return inspect(slots::size);
+  }
+
+  /**
+   * Records a created or updated student, once the current transaction commits.
+   *
+   * @param student the student as saved.
+   */
+  public void put(Student student) {
+    StudentSearchHit hit = StudentSearchHit.of(student);
+    update(() -> {
+      unindex(hit.id());
+      index(hit);
+    });
+  }
+
+  /**
+   * Records a deleted student, once the current transaction commits.
+   *
+   * @param id the ID of the deleted student.
+   */
+  public void remove(Long id) {
+    update(() -> unindex(id));
+  }
+
+  /**
+   * Finds the students matching a single term, reading the words it starts in order and stopping
+   * once enough students are found.
+   *
+   * @param term  the term.
+   * @param limit the largest number of students returned.
+   * @return the matching students, best first.
+   */
+  private List<StudentSearchHit> searchTerm(String term, int limit) {
+    List<StudentSearchHit> hits = new ArrayList<>();
+    BitSet seen = new BitSet(entries.size());
+    // A word equal to the term sorts before the words it starts
+    for (Postings postings : words.subMap(term, true, term + Character.MAX_VALUE, false)
+        .values()) {
+      for (int i = 0; i < postings.size; i++) {
+        int slot = postings.slots[i];
+        if (!seen.get(slot)) {
+          seen.set(slot);
+          hits.add(entries.get(slot).hit());
+          if (hits.size() == limit) {
+            return hits;
+          }
+        }
+      }
+    }
+
+    // Every student with a word starting with the term is listed; the others can only contain it
+    Postings candidates = term.length() >= GRAM ? rarestGram(term) : null;
+    for (int i = 0; candidates != null && i < candidates.size; i++) {
+      int slot = candidates.slots[i];
+      if (!seen.get(slot) && containing(entries.get(slot), term)) {
+        hits.add(entries.get(slot).hit());
+        if (hits.size() == limit) {
+          break;
+        }
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Finds the students matching every one of several terms. The candidates are the students that
+   * may match the rarest term; read in ID order, they are no longer read once enough of them
+   * match as well as any student could.
+   *
+   * @param terms the terms.
+   * @param limit the largest number of students returned.
+   * @return the matching students, best first.
+   */
+  private List<StudentSearchHit> searchTerms(List<String> terms, int limit) {
+    String rarest = null;
+    int fewest = Integer.MAX_VALUE;
+    int bestRank = 0;
+    for (String term : terms) {
+      int estimate = estimate(term, fewest);
+      if (rarest == null || estimate < fewest) {
+        rarest = term;
+        fewest = estimate;
+      }
+      bestRank += bestRank(term);
+    }
+
+    PriorityQueue<Match> top = new PriorityQueue<>(BEST_FIRST.reversed());
+    if (rarest.length() >= GRAM) {
+      Postings candidates = rarestGram(rarest);
+      for (int i = 0; candidates != null && i < candidates.size; i++) {
+        offer(top, match(candidates.slots[i], terms), limit);
+        if (top.size() == limit && top.peek().rank() == bestRank) {
+          break;  // The students that follow have higher IDs and cannot rank better
+        }
+      }
+    } else {
+      BitSet candidates = new BitSet(entries.size());
+      for (Postings postings : words.subMap(rarest, true, rarest + Character.MAX_VALUE, false)
+          .values()) {
+        postings.addTo(candidates);
+      }
+      for (int slot = candidates.nextSetBit(0); slot >= 0;
+          slot = candidates.nextSetBit(slot + 1)) {
+        offer(top, match(slot, terms), limit);
+      }
+    }
+
+    List<Match> matches = new ArrayList<>(top);
+    matches.sort(BEST_FIRST);
+    return matches.stream().map(match -> entries.get(match.slot()).hit()).toList();
+  }
+
+  /**
+   * Returns the best rank any student has for a term.
+   *
+   * @param term the term.
+   * @return 0 if the term is a word, 1 if it starts a word, 2 otherwise.
+   */
+  private int bestRank(String term) {
+    if (words.containsKey(term)) {
+      return 0;
+    }
+    String next = words.higherKey(term);
+    return next != null && next.startsWith(term) ? 1 : 2;
+  }
+
+  /**
+   * Estimates how many students may match a term: the students containing its rarest substring,
+   * or for a term too short for substrings, the postings of the words it starts.
+   *
+   * @param term  the term.
+   * @param bound the estimate above which counting may stop.
+   * @return the estimate.
+   */
+  private int estimate(String term, int bound) {
+    int count = 0;
+    if (term.length() < GRAM) {
+      for (Postings postings : words.subMap(term, true, term + Character.MAX_VALUE, false)
+          .values()) {
+        count += postings.size;
+        if (count >= bound) {
+          break;
+        }
+      }
+      return count;
+    }
+
+    count = Integer.MAX_VALUE;
+    for (int i = 0; i + GRAM <= term.length(); i++) {
+      Postings postings = grams.get(term.substring(i, i + GRAM));
+      count = Math.min(count, postings == null ? 0 : postings.size);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the students containing the rarest {@value #GRAM}-character substring of a term, the
+   * only ones that may contain the term.
+   *
+   * @param term the term, of at least {@value #GRAM} characters.
+   * @return the students, or {@code null} if no student contains some part of the term.
+   */
+  private Postings rarestGram(String term) {
+    Postings rarest = null;
+    for (int i = 0; i + GRAM <= term.length(); i++) {
+      Postings postings = grams.get(term.substring(i, i + GRAM));
+      if (postings == null) {
+        return null;
+      }
+      if (rarest == null || postings.size < rarest.size) {
+        rarest = postings;
+      }
+    }
+    return rarest;
+  }
+
+  /**
+   * Checks how well a student matches every one of several terms.
+   *
+   * @param slot  the slot of the student.
+   * @param terms the terms.
+   * @return the match, or {@code null} if some term does not match.
+   */
+  private Match match(int slot, List<String> terms) {
+    Entry entry = entries.get(slot);
+    int rank = 0;
+    terms:
+    for (String term : terms) {
+      int termRank = 2;
+      for (String word : entry.words()) {
+        if (word.equals(term)) {
+          continue terms;
+        }
+        if (word.startsWith(term)) {
+          termRank = 1;
+        }
+      }
+      if (termRank == 2 && (term.length() < GRAM || !containing(entry, term))) {
+        return null;
+      }
+      rank += termRank;
+    }
+    return new Match(slot, rank, entry.hit().id());
+  }
+
+  /**
+   * Checks whether a field of a student contains a term.
+   *
+   * @param entry the student.
+   * @param term  the term.
+   * @return {@code true} if a field contains the term.
+   */
+  private static boolean containing(Entry entry, String term) {
+    for (String field : entry.fields()) {
+      if (field.contains(term)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds a match to the best matches found so far, keeping at most {@code limit} of them.
+   *
+   * @param top   the best matches, worst first.
+   * @param match the match, or {@code null} if the student does not match.
+   * @param limit the number of matches kept.
+   */
+  private static void offer(PriorityQueue<Match> top, Match match, int limit) {
+    if (match == null) {
+      return;
+    }
+    if (top.size() < limit) {
+      top.add(match);
+    } else if (BEST_FIRST.compare(match, top.peek()) < 0) {
+      top.poll();
+      top.add(match);
+    }
+  }
+
+  /**
+   * Indexes every student.
+   */
+  @Override
+  protected void load() {
+    List<Student> students = new ArrayList<>(studentRepository.findAll());
+    // In ID order every posting is appended to
+    students.sort(Comparator.comparing(Student::getId));
+    for (Student student : students) {
+      index(StudentSearchHit.of(student));
+    }
+  }
+
+  /**
+   * Discards every indexed student.
+   */
+  @Override
+  protected void reset() {
+    entries.clear();
+    freeSlots.clear();
+    slots.clear();
+    words.clear();
+    grams.clear();
+  }
+
+  /**
+   * Adds a student to the index. Called with the write lock held.
+   *
+   * @param hit the student.
+   */
+  private void index(StudentSearchHit hit) {
+    List<String> fields = new ArrayList<>();
+    for (Object value : new Object[] {hit.id(), hit.firstName(), hit.lastName(), hit.username(),
+        hit.email()}) {
+      if (value != null && !value.toString().isBlank()) {
+        fields.add(value.toString().toLowerCase(Locale.ROOT));
+      }
+    }
+    Set<String> fieldWords = new LinkedHashSet<>();
+    for (String field : fields) {
+      fieldWords.addAll(split(field));
+    }
+
+    Entry entry = new Entry(hit, List.copyOf(fields), Set.copyOf(fieldWords));
+    int slot;
+    if (freeSlots.isEmpty()) {
+      slot = entries.size();
+      entries.add(entry);
+    } else {
+      slot = freeSlots.pop();
+      entries.set(slot, entry);
+    }
+    slots.put(hit.id(), slot);
+    for (String word : fieldWords) {
+      words.computeIfAbsent(word, key -> new Postings()).add(slot);
+    }
+    // A substring repeated in the fields is listed once, as postings ignore a student already in
+    for (String field : fields) {
+      for (int i = 0; i + GRAM <= field.length(); i++) {
+        grams.computeIfAbsent(field.substring(i, i + GRAM), key -> new Postings()).add(slot);
+      }
+    }
+  }
+
+  /**
+   * Removes a student from the index, if indexed. Called with the write lock held.
+   *
+   * @param id the ID of the student.
+   */
+  private void unindex(Long id) {
+    Integer slot = slots.remove(id);
+    if (slot == null) {
+      return;
+    }
+    Entry entry = entries.get(slot);
+    for (String word : entry.words()) {
+      remove(words, word, id);
+    }
+    for (String field : entry.fields()) {
+      for (int i = 0; i + GRAM <= field.length(); i++) {
+        remove(grams, field.substring(i, i + GRAM), id);
+      }
+    }
+    entries.set(slot, null);
+    freeSlots.push(slot);
+  }
+
+  /**
+   * Removes a student from the postings of a key, dropping the key once no student has it.
+   *
+   * @param postings the postings by key.
+   * @param key      the key.
+   * @param id       the ID of the student.
+   */
+  private void remove(Map<String, Postings> postings, String key, long id) {
+    Postings list = postings.get(key);
+    if (list != null && list.remove(id) && list.size == 0) {
+      postings.remove(key);
+    }
+  }
+
+  /**
+   * Splits text into lowercase words: the runs of letters and digits.
+   *
+   * @param text the text, or {@code null}.
+   * @return the distinct words, in the order they appear.
+   */
+  private static List<String> split(String text) {
+    if (text == null) {
+      return List.of();
+    }
+    String lower = text.toLowerCase(Locale.ROOT);
+    Set<String> parts = new LinkedHashSet<>();
+    int start = -1;
+    for (int i = 0; i <= lower.length(); i++) {
+      boolean inWord = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        parts.add(lower.substring(start, i));
+        start = -1;
+      }
+    }
+    return List.copyOf(parts);
+  }
+
+  /**
+   * The slots of the students with a word or substring, in ID order, so students matching
+   * equally well are found in ID order.
+   */
+  private final class Postings {
+
+    /**
+     * The slots; only the first {@link #size} are used.
+     */
+    private int[] slots = new int[4];
+
+    /**
+     * The number of slots used.
+     */
+    private int size;
+
+    /**
+     * Adds a slot, keeping the slots in ID order.
+     *
+     * @param slot the slot of the student.
+     */
+    private void add(int slot) {
+      int at = find(entries.get(slot).hit().id());
+      if (at >= 0) {
+        return;
+      }
+      at = -at - 1;
+      if (size == slots.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+      }
+      System.arraycopy(slots, at, slots, at + 1, size - at);
+      slots[at] = slot;
+      size++;
+    }
+
+    /**
+     * Removes the slot of a student.
+     *
+     * @param id the ID of the student.
+     * @return {@code true} if the student was listed.
+     */
+    private boolean remove(long id) {
+      int at = find(id);
+      if (at < 0) {
+        return false;
+      }
+      System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+      size--;
+      return true;
+    }
+
+    /**
+     * Marks every slot in a set.
+     *
+     * @param set the set.
+     */
+    private void addTo(BitSet set) {
+      for (int i = 0; i < size; i++) {
+        set.set(slots[i]);
+      }
+    }
+
+    /**
+     * Finds a student by binary search.
+     *
+     * @param id the ID of the student.
+     * @return the index of the student, or {@code -(insertion point) - 1} if not listed.
+     */
+    private int find(long id) {
+      int low = 0;
+      int high = size - 1;
+      // New students usually have the highest ID
+      if (size > 0 && entries.get(slots[high]).hit().id() < id) {
+        return -size - 1;
+      }
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        long midId = entries.get(slots[mid]).hit().id();
+        if (midId < id) {
+          low = mid + 1;
+        } else if (midId > id) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -low - 1;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package uk.ac.ucl.comp0010.student;
+
+/**
+ * A compact, read-only view of a {@link Student} used when a response only needs to identify the
+ * student rather than carry the full entity and its associations.
+ *
+ * @param id        the unique identifier of the student.
+ * @param firstName the first name of the student.
+ * @param lastName  the last name of the student.
+ * @param username  the username of the student.
+ */
+public record StudentSummary(Long id, String firstName, String lastName, String username) {
+}
@@ -0,0 +1,100 @@
+package uk.ac.ucl.comp0010.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies changes to state held outside the database once their transactions commit, in the order
+ * the changes were made rather than the order the transactions happen to commit in.
+ *
+ * <p>The after-commit callbacks of two transactions run on their own threads and can run in
+ * either order, so a copy updated straight from them can end up holding the older of two writes
+ * to the same row. Each change here draws a sequence number when it is made, inside its
+ * transaction: a write that conflicts with another waits for the other's row locks, and so draws
+ * after the other has committed. Once a transaction ends, its changes are applied in sequence
+ * order, each only after every change drawn before it has been applied, or dropped with its
+ * rolled-back transaction.</p>
+ *
+ * <p>A change is held back only while a transaction that drew earlier is still running. Changes
+ * must not throw, as a change that throws stops the ones held behind it until the next
+ * transaction ends.</p>
+ */
+public final class CommitOrder {
+
+  /**
+   * Stands for a change whose transaction rolled back.
+   */
+  private static final Runnable NOTHING = () -> {
+  };
+
+  /**
+   * The last sequence number drawn.
+   */
+  private final AtomicLong drawn = new AtomicLong();
+
+  /**
+   * The changes whose transactions have ended but which wait for an earlier one, by sequence
+   * number. Guarded by this object.
+   */
+  private final Map<Long, Runnable> ended = new HashMap<>();
+
+  /**
+   * The sequence number of the last change applied or dropped. Guarded by this object.
+   */
+  private long applied;
+
+  /**
+   * Applies a change once the current transaction commits, after every change drawn before it;
+   * drops it if the transaction rolls back. Outside a transaction the change counts as committed
+   * at once.
+   *
+   * @param change the change.
+   */
+  public void afterCommit(Runnable change) {
+    long sequence = drawn.incrementAndGet();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      end(sequence, change);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      /**
+       * Whether the change was handed over on commit.
+       */
+      private boolean done;
+
+      @Override
+      public void afterCommit() {
+        done = true;
+        end(sequence, change);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        // Also reached when an earlier callback threw and this one's afterCommit never ran
+        if (!done) {
+          end(sequence, status == STATUS_COMMITTED ? change : NOTHING);
+        }
+      }
+    });
+  }
+
+  /**
+   * Records the end of the transaction of a change, then applies every change whose turn has
+   * come.
+   *
+   * @param sequence the sequence number of the change.
+   * @param change   the change, or {@link #NOTHING} if its transaction rolled back.
+   */
+  private synchronized void end(long sequence, Runnable change) {
+    ended.put(sequence, change);
+    Runnable next;
+    while ((next = ended.remove(applied + 1)) != null) {
+      applied++;
+      next.run();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package uk.ac.ucl.comp0010.support;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * A copy of some of the database held in memory, loaded on first read and kept in step by the
+ * endpoints that write the tables it copies.
+ *
+ * <p>Reads run together under a read lock; the load and every change take the write lock. A
+ * change is applied once the transaction that made it commits, so the model never holds a row
+ * that was rolled back, and only to a loaded model, since one not yet loaded sees the change when
+ * it is. Changes go through a {@link CommitOrder}, so two writes to the same row are applied in
+ * the order they were made even when their transactions' callbacks run the other way round. A
+ * change may reach a model loaded after its transaction committed, so applying one twice must
+ * leave the model as applying it once does.</p>
+ *
+ * <p>{@link #invalidate()} makes the next read reload the model after a change made by other
+ * means; a change that fails to apply does the same, rather than leave the model wrong until the
+ * application restarts.</p>
+ */
+public abstract class InMemoryModel {
+
+  /**
+   * Lets reads run together while the model is not being changed.
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Puts the changes in the order they were made.
+   */
+  private final CommitOrder commitOrder = new CommitOrder();
+
+  /**
+   * Whether the model holds every row it copies.
+   */
+  private boolean loaded;
+
+  /**
+   * The number of changes applied and of times the model was discarded.
+   */
+  private volatile long version;
+
+  /**
+   * Constructs an empty model, loaded on first read.
+   */
+  protected InMemoryModel() {
+  }
+
+  /**
+   * Returns a number that moves on whenever the content of the model may have changed, so a
+   * result computed from the model can be cached until it does. A transaction's changes can reach
+   * the model after other data it changed is visible, so such a cache is keyed by this version as
+   * well as by the version of that data.
+   *
+   * @return the version.
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Discards the model, once the current transaction commits, so the next read reloads it.
+   */
+  public void invalidate() {
+    commitOrder.afterCommit(() -> {
+      lock.writeLock().lock();
+      try {
+        discard();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Runs a read with the read lock held, loading the model first if needed.
+   *
+   * @param reader the read.
+   * @param <T>    the type of its result.
+   * @return its result.
+   */
+  protected <T> T query(Supplier<T> reader) {
+    lock.readLock().lock();
+    if (!loaded) {
+      lock.readLock().unlock();
+      lock.writeLock().lock();
+      try {
+        if (!loaded) {
+          reset();
+          load();
+          loaded = true;
+        }
+        lock.readLock().lock();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+    try {
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Runs a read with the read lock held, over the model as it is, without loading it.
+   *
+   * @param reader the read.
+   * @param <T>    the type of its result.
+   * @return its result.
+   */
+  protected <T> T inspect(Supplier<T> reader) {
+    lock.readLock().lock();
+    try {
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Applies a change to the model once the current transaction commits, in the order the changes
+   * were made, with the write lock held.
+   *
+   * @param change the change.
+   */
+  protected void update(Runnable change) {
+    commitOrder.afterCommit(() -> {
+      lock.writeLock().lock();
+      try {
+        if (loaded) {
+          version++;
+          change.run();
+        }
+      } catch (RuntimeException e) {
+        discard();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Empties the model so the next read reloads it. Called with the write lock held.
+   */
+  private void discard() {
+    version++;
+    reset();
+    loaded = false;
+  }
+
+  /**
+   * Loads every row the model copies into an empty model. Called with the write lock held, so
+   * concurrent changes wait for the load and are applied on top of it.
+   */
+  protected abstract void load();
+
+  /**
+   * Discards everything the model holds. Called with the write lock held.
+   */
+  protected abstract void reset();
+}
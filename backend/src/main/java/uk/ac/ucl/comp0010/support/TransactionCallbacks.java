@@ -0,0 +1,55 @@
+package uk.ac.ucl.comp0010.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs actions at the end of the current transaction, for the components that keep state outside
+ * the database and must not see a change that is rolled back.
+ */
+public final class TransactionCallbacks {
+
+  /**
+   * Not instantiable.
+   */
+  private TransactionCallbacks() {
+  }
+
+  /**
+   * Runs an action once the current transaction commits, or immediately outside a transaction.
+   * Actions registered by one transaction run in the order they were registered.
+   *
+   * @param action the action.
+   */
+  public static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+
+  /**
+   * Runs an action once the current transaction ends, whether it commits or rolls back, or
+   * immediately outside a transaction.
+   *
+   * @param action the action.
+   */
+  public static void afterCompletion(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          action.run();
+        }
+      });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,391 @@
+package uk.ac.ucl.comp0010.sync;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
+import uk.ac.ucl.comp0010.support.TransactionCallbacks;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+/**
+ * Records every write to the students, modules, grades and registrations in the
+ * {@code change_log} table, so a client can fetch only what changed since its last sync.
+ *
+ * <p>Each method is called by a write path inside its transaction, before any bulk delete, and
+ * logs the affected rows with one set-based statement per table, so the cost does not depend on
+ * how many rows a bulk statement touches. A deleted row is logged as a tombstone.</p>
+ *
+ * <p>Sequence numbers are drawn when a change is logged but become visible when its transaction
+ * commits, which may be out of order. {@link #since(long)} therefore never tells a client to
+ * resume past the lowest sequence number a transaction still in flight could hold; the rows
+ * beyond it are sent again on the next sync, which applying them twice makes harmless.</p>
+ *
+ * <p>{@link #compact(Instant)} keeps the log from growing without bound: it drops every change
+ * logged before a cutoff that a later change to the same row supersedes, and every tombstone
+ * logged before it, and raises a floor to the highest sequence number dropped. A client that last
+ * synced below the floor may have missed a deletion, so it is told to download the data again
+ * rather than sent a delta.</p>
+ */
+@Component
+public class ChangeLog {
+
+  /**
+   * Logs one row of a table by its key.
+   */
+  static final String LOG_ONE_SQL = "INSERT INTO change_log "
+      + "(seq, kind, entity_key, deleted, logged_at) "
+      + "VALUES (nextval('change_seq'), ?, ?, ?, CURRENT_TIMESTAMP)";
+
+  /**
+   * The latest change to each row in a range of sequence numbers.
+   */
+  static final String LATEST_SQL = "SELECT kind, entity_key, deleted FROM change_log "
+      + "WHERE seq IN (SELECT MAX(seq) FROM change_log WHERE seq > ? AND seq < ? "
+      + "GROUP BY kind, entity_key)";
+
+  /**
+   * Draws the upper bound of a sync; every sequence number drawn before it is lower.
+   */
+  static final String NEXT_SEQ_SQL = "SELECT nextval('change_seq')";
+
+  /**
+   * The highest sequence number a compaction dropped, if any compaction dropped one.
+   */
+  static final String FLOOR_SQL = "SELECT seq FROM change_log_floor WHERE id = 1";
+
+  /**
+   * The highest sequence number logged before a cutoff.
+   */
+  static final String HORIZON_SQL = "SELECT MAX(seq) FROM change_log WHERE logged_at < ?";
+
+  /**
+   * Raises the floor to a sequence number, creating it on the first compaction. Standard SQL
+   * MERGE is used so the statement runs unchanged on H2 and PostgreSQL.
+   */
+  static final String RAISE_FLOOR_SQL = "MERGE INTO change_log_floor f "
+      + "USING (VALUES (1, CAST(? AS BIGINT))) AS s(id, seq) ON f.id = s.id "
+      + "WHEN MATCHED THEN UPDATE SET seq = GREATEST(f.seq, s.seq) "
+      + "WHEN NOT MATCHED THEN INSERT (id, seq) VALUES (s.id, s.seq)";
+
+  /**
+   * Drops the tombstones up to a sequence number, and the changes up to it that a later change
+   * to the same row supersedes.
+   */
+  static final String COMPACT_SQL = "DELETE FROM change_log c WHERE c.seq <= ? "
+      + "AND (c.deleted OR EXISTS (SELECT 1 FROM change_log l "
+      + "WHERE l.kind = c.kind AND l.entity_key = c.entity_key AND l.seq > c.seq))";
+
+  /**
+   * The number of rows sent to the database in each JDBC batch.
+   */
+  static final int BATCH_SIZE = 500;
+
+  /**
+   * The changes to the data in a range of sequence numbers.
+   *
+   * @param next           the sequence number the client should resume from.
+   * @param resyncRequired whether changes the client needs were compacted away, in which case
+   *                       no change is reported and the client must download the data again.
+   * @param upserted       the keys of the rows written, by table.
+   * @param deleted        the keys of the rows deleted, by table.
+   */
+  public record Changes(long next, boolean resyncRequired, Map<Table, Set<String>> upserted,
+                        Map<Table, Set<String>> deleted) {
+  }
+
+  /**
+   * The template the log is written and read with.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * The lowest sequence number each writing transaction still in flight could be below, keyed by
+   * a token per transaction.
+   */
+  private final Map<Object, Long> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * The highest upper bound drawn by a sync. A transaction that starts logging afterwards can
+   * only draw higher sequence numbers.
+   */
+  private final AtomicLong drawn = new AtomicLong();
+
+  /**
+   * Constructs the change log on top of the application's data source.
+   *
+   * @param dataSource the data source backing the JPA repositories.
+   */
+  public ChangeLog(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Logs students as written.
+   *
+   * @param ids the IDs of the students.
+   */
+  public void students(Collection<Long> ids) {
+    run(() -> jdbcTemplate.batchUpdate(LOG_ONE_SQL, ids, BATCH_SIZE, (ps, id) -> {
+      ps.setString(1, Table.STUDENT.name());
+      ps.setString(2, String.valueOf(id));
+      ps.setBoolean(3, false);
+    }));
+  }
+
+  /**
+   * Logs a student as deleted, together with their grades and registrations. Must be called
+   * before they are deleted.
+   *
+   * @param id the ID of the student.
+   */
+  public void studentDeleted(Long id) {
+    run(() -> {
+      logSelected(Table.GRADE, true, "id", "grade WHERE student_id = ?", id);
+      logSelected(Table.REGISTRATION, true, "id", "registration WHERE student_id = ?", id);
+      logOne(Table.STUDENT, String.valueOf(id), true);
+    });
+  }
+
+  /**
+   * Logs a module as written.
+   *
+   * @param code the code of the module.
+   */
+  public void module(String code) {
+    run(() -> logOne(Table.MODULE, code, false));
+  }
+
+  /**
+   * Logs a module as deleted, together with its grades and registrations, and the students whose
+   * grade aggregates lose its grades. Must be called before they are deleted.
+   *
+   * @param code the code of the module.
+   */
+  public void moduleDeleted(String code) {
+    run(() -> {
+      logSelected(Table.STUDENT, false, "student_id", "grade WHERE module_id = ?", code);
+      logSelected(Table.GRADE, true, "id", "grade WHERE module_id = ?", code);
+      logSelected(Table.REGISTRATION, true, "id", "registration WHERE module_code = ?", code);
+      logOne(Table.MODULE, code, true);
+    });
+  }
+
+  /**
+   * Logs a student's grade in a module as written, together with the student's grade aggregates.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  public void grade(Long studentId, String moduleCode) {
+    run(() -> {
+      logSelected(Table.GRADE, false, "id", "grade WHERE student_id = ? AND module_id = ?",
+          studentId, moduleCode);
+      logOne(Table.STUDENT, String.valueOf(studentId), false);
+    });
+  }
+
+  /**
+   * Logs a student's grade in a module as deleted, together with the student's grade aggregates,
+   * if the grade exists. Must be called before it is deleted.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  public void gradeDeleted(Long studentId, String moduleCode) {
+    run(() -> {
+      logSelected(Table.STUDENT, false, "student_id",
+          "grade WHERE student_id = ? AND module_id = ?", studentId, moduleCode);
+      logSelected(Table.GRADE, true, "id", "grade WHERE student_id = ? AND module_id = ?",
+          studentId, moduleCode);
+    });
+  }
+
+  /**
+   * Logs registrations as written.
+   *
+   * @param keys the (studentId, moduleCode) pairs of the registrations.
+   */
+  public void registrations(Collection<RegistrationKey> keys) {
+    run(() -> jdbcTemplate.batchUpdate(selectSql(Table.REGISTRATION, false, "id",
+            "registration WHERE student_id = ? AND module_code = ?"), keys, BATCH_SIZE,
+        (ps, key) -> {
+          ps.setLong(1, key.studentId());
+          ps.setString(2, key.moduleCode());
+        }));
+  }
+
+  /**
+   * Logs every registration of a student as written.
+   *
+   * @param studentId the ID of the student.
+   */
+  public void registrationsOfStudent(Long studentId) {
+    run(() -> logSelected(Table.REGISTRATION, false, "id", "registration WHERE student_id = ?",
+        studentId));
+  }
+
+  /**
+   * Logs a student's registration for a module as deleted, if it exists. Must be called before
+   * it is deleted.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   */
+  public void registrationDeleted(Long studentId, String moduleCode) {
+    run(() -> logSelected(Table.REGISTRATION, true, "id",
+        "registration WHERE student_id = ? AND module_code = ?", studentId, moduleCode));
+  }
+
+  /**
+   * Returns the latest change to every row changed after a sequence number. Rows written more
+   * than once are reported once, as written or deleted by their latest change. If the sequence
+   * number is below the floor, no change is reported and a resync is required; the client then
+   * downloads the data and resumes from the returned sequence number.
+   *
+   * @param since the sequence number the client last synced to.
+   * @return the changes, and the sequence number to resume from.
+   */
+  public Changes since(long since) {
+    // Every sequence number drawn before the upper bound is lower, and every transaction that
+    // drew one and is not yet committed was registered in flight before it drew it
+    long upper = jdbcTemplate.queryForObject(NEXT_SEQ_SQL, Long.class);
+    drawn.accumulateAndGet(upper, Math::max);
+    long next = upper - 1;
+    for (long floor : inFlight.values()) {
+      next = Math.min(next, floor);
+    }
+
+    if (since < floor()) {
+      return new Changes(next, true, Map.of(), Map.of());
+    }
+
+    Map<Table, Set<String>> upserted = new EnumMap<>(Table.class);
+    Map<Table, Set<String>> deleted = new EnumMap<>(Table.class);
+    for (Table table : Table.values()) {
+      upserted.put(table, new LinkedHashSet<>());
+      deleted.put(table, new LinkedHashSet<>());
+    }
+    jdbcTemplate.query(LATEST_SQL, rs -> {
+      Table table = Table.valueOf(rs.getString(1));
+      (rs.getBoolean(3) ? deleted : upserted).get(table).add(rs.getString(2));
+    }, since, upper);
+
+    // A compaction that committed while the log was read may have dropped a change it needed
+    if (since < floor()) {
+      return new Changes(next, true, Map.of(), Map.of());
+    }
+    return new Changes(next, false, upserted, deleted);
+  }
+
+  /**
+   * Compacts the changes logged before a cutoff: drops those superseded by a later change to the
+   * same row and every tombstone, then raises the floor to the highest sequence number logged
+   * before the cutoff. Must be called inside a transaction, so the floor and the log change
+   * together; a sync reads the floor again after the log, so one that read the log before the
+   * compaction committed and the floor after it is told to resync.
+   *
+   * @param before the cutoff; changes logged at or after it are kept whole.
+   * @return the number of changes dropped.
+   */
+  public int compact(Instant before) {
+    Long horizon = jdbcTemplate.queryForObject(HORIZON_SQL, Long.class, Timestamp.from(before));
+    if (horizon == null) {
+      return 0;
+    }
+    jdbcTemplate.update(RAISE_FLOOR_SQL, horizon);
+    return jdbcTemplate.update(COMPACT_SQL, horizon);
+  }
+
+  /**
+   * Reads the floor, below which a client must resync.
+   *
+   * @return the highest sequence number a compaction dropped, or 0 if none did.
+   */
+  private long floor() {
+    List<Long> floor = jdbcTemplate.queryForList(FLOOR_SQL, Long.class);
+    return floor.isEmpty() ? 0 : floor.get(0);
+  }
+
+  /**
+   * Logs one row.
+   *
+   * @param table   the table of the row.
+   * @param key     the key of the row.
+   * @param deleted whether the row was deleted.
+   */
+  private void logOne(Table table, String key, boolean deleted) {
+    jdbcTemplate.update(LOG_ONE_SQL, table.name(), key, deleted);
+  }
+
+  /**
+   * Logs every row a query selects.
+   *
+   * @param table     the table of the rows.
+   * @param deleted   whether the rows are deleted.
+   * @param keyColumn the column holding the key of each row.
+   * @param fromWhere the table and condition the rows are selected from.
+   * @param args      the arguments of the condition.
+   */
+  private void logSelected(Table table, boolean deleted, String keyColumn, String fromWhere,
+      Object... args) {
+    jdbcTemplate.update(selectSql(table, deleted, keyColumn, fromWhere), args);
+  }
+
+  /**
+   * Builds the statement logging every row a query selects. The table and flag are constants, so
+   * they are inlined rather than bound.
+   *
+   * @param table     the table of the rows.
+   * @param deleted   whether the rows are deleted.
+   * @param keyColumn the column holding the key of each row.
+   * @param fromWhere the table and condition the rows are selected from.
+   * @return the statement.
+   */
+  private static String selectSql(Table table, boolean deleted, String keyColumn,
+      String fromWhere) {
+    return "INSERT INTO change_log (seq, kind, entity_key, deleted, logged_at) "
+        + "SELECT nextval('change_seq'), '" + table.name() + "', CAST(" + keyColumn
+        + " AS VARCHAR(255)), " + deleted + ", CURRENT_TIMESTAMP FROM " + fromWhere;
+  }
+
+  /**
+   * Runs logging statements as part of a transaction in flight. Inside a transaction, it stays in
+   * flight until the transaction completes; outside one, each statement commits on its own.
+   *
+   * @param statements the logging statements.
+   */
+  private void run(Runnable statements) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      Object token = new Object();
+      inFlight.put(token, drawn.get());
+      try {
+        statements.run();
+      } finally {
+        inFlight.remove(token);
+      }
+      return;
+    }
+    if (!TransactionSynchronizationManager.hasResource(this)) {
+      Object token = new Object();
+      inFlight.put(token, drawn.get());
+      TransactionSynchronizationManager.bindResource(this, token);
+      TransactionCallbacks.afterCompletion(() -> {
+        TransactionSynchronizationManager.unbindResourceIfPossible(this);
+        inFlight.remove(token);
+      });
+    }
+    statements.run();
+  }
+}
@@ -0,0 +1,71 @@
+package uk.ac.ucl.comp0010.sync;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Compacts the {@link ChangeLog} so it does not grow without bound.
+ *
+ * <p>Changes older than the {@code app.change-log.retention} period are reduced to the latest
+ * change to each row that still exists, and the floor is raised past them, so a client that has
+ * not synced within the period downloads the data again. It runs on the
+ * {@code app.change-log.compact-cron} schedule.</p>
+ */
+@Component
+public class ChangeLogCompactionJob {
+
+  /**
+   * The logger used to report what scheduled runs dropped.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(ChangeLogCompactionJob.class);
+
+  /**
+   * The log to compact.
+   */
+  private final ChangeLog changeLog;
+
+  /**
+   * How long changes are kept whole, and so how long a client can go without syncing.
+   */
+  private final Duration retention;
+
+  /**
+   * Constructs the job on top of the change log.
+   *
+   * @param changeLog the log to compact.
+   * @param retention how long changes are kept whole.
+   */
+  public ChangeLogCompactionJob(ChangeLog changeLog,
+      @Value("${app.change-log.retention:30d}") Duration retention) {
+    this.changeLog = changeLog;
+    this.retention = retention;
+  }
+
+  /**
+   * Compacts the changes logged before the retention period, in one transaction.
+   *
+   * @return the number of changes dropped.
+   */
+  @Transactional
+  public int compact() {
+    return changeLog.compact(Instant.now().minus(retention));
+  }
+
+  /**
+   * Runs {@link #compact()} on the configured schedule and logs how much it dropped.
+   */
+  @Scheduled(cron = "${app.change-log.compact-cron:-}")
+  public void scheduledCompact() {
+    int dropped = compact();
+    if (dropped > 0) {
+      LOG.info("Compacted the change log, dropping {} changes", dropped);
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package uk.ac.ucl.comp0010.sync;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+
+import java.time.Instant;
+
+/**
+ * A row of the change log: one student, module, grade or registration that was written or
+ * deleted, under the sequence number of the change.
+ *
+ * <p>Rows are only inserted by the set-based statements of {@link ChangeLog}, and only deleted by
+ * its compaction; the entity is mapped so the table, its index and the {@code change_seq}
+ * sequence are created with the rest of the schema. The index lets the compaction find the later
+ * changes to each row without scanning the log.</p>
+ */
+@Entity
+@Table(name = "change_log", indexes = @Index(columnList = "kind, entity_key, seq"))
+public class ChangeLogEntry {
+
+  /**
+   * The sequence number of the change, drawn from {@code change_seq}.
+   */
+  @Id
+  @SequenceGenerator(name = "change_seq", sequenceName = "change_seq", allocationSize = 1)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_seq")
+  private Long seq;
+
+  /**
+   * The table of the row that changed.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 32)
+  private DataVersion.Table kind;
+
+  /**
+   * The key of the row that changed: the ID of a student, grade or registration, or the code of a
+   * module.
+   */
+  @Column(name = "entity_key", nullable = false)
+  private String entityKey;
+
+  /**
+   * Whether the row was deleted.
+   */
+  @Column(nullable = false)
+  private boolean deleted;
+
+  /**
+   * When the change was logged.
+   */
+  @Column(name = "logged_at", nullable = false)
+  private Instant loggedAt;
+
+  /**
+   * Default constructor required by JPA.
+   */
+  protected ChangeLogEntry() {
+  }
+
+  /**
+   * Gets the sequence number of the change.
+   *
+   * @return the sequence number.
+   */
+  public Long getSeq() {
+    return seq;
+  }
+
+  /**
+   * Gets the table of the row that changed.
+   *
+   * @return the table.
+   */
+  public DataVersion.Table getKind() {
+    return kind;
+  }
+
+  /**
+   * Gets the key of the row that changed.
+   *
+   * @return the key.
+   */
+  public String getEntityKey() {
+    return entityKey;
+  }
+
+  /**
+   * Checks whether the row was deleted.
+   *
+   * @return {@code true} if the row was deleted.
+   */
+  public boolean isDeleted() {
+    return deleted;
+  }
+
+  /**
+   * Gets when the change was logged.
+   *
+   * @return the time the change was logged.
+   */
+  public Instant getLoggedAt() {
+    return loggedAt;
+  }
+}
@@ -0,0 +1,45 @@
+package uk.ac.ucl.comp0010.sync;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The floor of the change log: the highest sequence number a compaction dropped. A client that
+ * last synced below it may have missed a deletion and must download the data again.
+ *
+ * <p>The table holds at most one row, with ID 1, written by {@link ChangeLog#compact} and created
+ * by its first run; the entity is mapped so the table is created with the rest of the schema.</p>
+ */
+@Entity
+@Table(name = "change_log_floor")
+public class ChangeLogFloor {
+
+  /**
+   * The ID of the only row.
+   */
+  @Id
+  private Integer id;
+
+  /**
+   * The highest sequence number dropped.
+   */
+  @Column(nullable = false)
+  private long seq;
+
+  /**
+   * Default constructor required by JPA.
+   */
+  protected ChangeLogFloor() {
+  }
+
+  /**
+   * Gets the highest sequence number dropped.
+   *
+   * @return the sequence number.
+   */
+  public long getSeq() {
+    return seq;
+  }
+}
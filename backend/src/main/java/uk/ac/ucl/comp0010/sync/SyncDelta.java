@@ -0,0 +1,53 @@
+package uk.ac.ucl.comp0010.sync;
+
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.registration.RegistrationView;
+import uk.ac.ucl.comp0010.student.Student;
+
+import java.util.List;
+
+/**
+ * The changes to the data since a client's last sync, as returned by {@code GET /sync}.
+ * Rows written since then are returned in their current state, and rows deleted since then as
+ * tombstones. Applying the same delta twice has no further effect.
+ *
+ * <p>If the changes since the client's last sync were compacted away, the delta is empty and
+ * {@code resyncRequired} is set: the client must download every table again, and then sync from
+ * {@code next}.</p>
+ *
+ * @param next           the sequence number to send as {@code since} on the next sync.
+ * @param resyncRequired whether the client must download the data again instead.
+ * @param students      the students created or updated.
+ * @param modules       the modules created or updated.
+ * @param grades        the grades created or updated.
+ * @param registrations the registrations created.
+ * @param deleted       the keys of the rows deleted.
+ */
+public record SyncDelta(long next, boolean resyncRequired, List<Student> students,
+                        List<Module> modules, List<GradeView> grades,
+                        List<RegistrationView> registrations, Tombstones deleted) {
+
+  /**
+   * Builds the empty delta telling a client to download the data again.
+   *
+   * @param next the sequence number to sync from once the data is downloaded.
+   * @return the delta.
+   */
+  public static SyncDelta resync(long next) {
+    return new SyncDelta(next, true, List.of(), List.of(), List.of(), List.of(),
+        new Tombstones(List.of(), List.of(), List.of(), List.of()));
+  }
+
+  /**
+   * The keys of the rows deleted since the client's last sync.
+   *
+   * @param students      the IDs of the deleted students.
+   * @param modules       the codes of the deleted modules.
+   * @param grades        the IDs of the deleted grades.
+   * @param registrations the IDs of the deleted registrations.
+   */
+  public record Tombstones(List<Long> students, List<String> modules, List<Long> grades,
+                           List<Long> registrations) {
+  }
+}
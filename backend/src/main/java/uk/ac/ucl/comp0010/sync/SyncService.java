@@ -0,0 +1,136 @@
+package uk.ac.ucl.comp0010.sync;
+
+import org.springframework.stereotype.Component;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationView;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Builds the {@link SyncDelta} a client needs to bring its copy of the data up to date.
+ * The {@link ChangeLog} tells which rows changed; only those rows are then loaded, in chunks of
+ * {@value #CHUNK_SIZE} keys, so the cost of a sync depends on how much changed and not on the
+ * size of the tables.
+ */
+@Component
+public class SyncService {
+
+  /**
+   * The largest number of keys looked up in one query.
+   */
+  static final int CHUNK_SIZE = 1000;
+
+  /**
+   * The log of changes.
+   */
+  private final ChangeLog changeLog;
+
+  /**
+   * The repository of students.
+   */
+  private final StudentRepository studentRepository;
+
+  /**
+   * The catalogue of modules.
+   */
+  private final ModuleCatalogue moduleCatalogue;
+
+  /**
+   * The repository of grades.
+   */
+  private final GradeRepository gradeRepository;
+
+  /**
+   * The repository of registrations.
+   */
+  private final RegistrationRepository registrationRepository;
+
+  /**
+   * Constructs the service.
+   *
+   * @param changeLog              the log of changes.
+   * @param studentRepository      the repository of students.
+   * @param moduleCatalogue        the catalogue of modules.
+   * @param gradeRepository        the repository of grades.
+   * @param registrationRepository the repository of registrations.
+   */
+  public SyncService(ChangeLog changeLog, StudentRepository studentRepository,
+      ModuleCatalogue moduleCatalogue, GradeRepository gradeRepository,
+      RegistrationRepository registrationRepository) {
+    this.changeLog = changeLog;
+    this.studentRepository = studentRepository;
+    this.moduleCatalogue = moduleCatalogue;
+    this.gradeRepository = gradeRepository;
+    this.registrationRepository = registrationRepository;
+  }
+
+  /**
+   * Returns the changes since a sequence number. A row written and then deleted is only reported
+   * as deleted; a row whose latest write was committed after the log was read, but which has
+   * been deleted since, is left out and reported as deleted on the next sync. A client that last
+   * synced below the floor of the compacted log is told to resync instead.
+   *
+   * @param since the sequence number the client last synced to, or 0 for every change.
+   * @return the changes.
+   */
+  public SyncDelta since(long since) {
+    ChangeLog.Changes changes = changeLog.since(since);
+    if (changes.resyncRequired()) {
+      return SyncDelta.resync(changes.next());
+    }
+
+    List<Module> modules = new ArrayList<>();
+    for (String code : changes.upserted().get(Table.MODULE)) {
+      moduleCatalogue.find(code).ifPresent(modules::add);
+    }
+    return new SyncDelta(changes.next(), false,
+        load(ids(changes.upserted().get(Table.STUDENT)), studentRepository::findAllById),
+        modules,
+        load(ids(changes.upserted().get(Table.GRADE)), gradeRepository::findViewsByIdIn),
+        load(ids(changes.upserted().get(Table.REGISTRATION)),
+            registrationRepository::findViewsByIdIn),
+        new SyncDelta.Tombstones(ids(changes.deleted().get(Table.STUDENT)),
+            List.copyOf(changes.deleted().get(Table.MODULE)),
+            ids(changes.deleted().get(Table.GRADE)),
+            ids(changes.deleted().get(Table.REGISTRATION))));
+  }
+
+  /**
+   * Parses numeric keys.
+   *
+   * @param keys the keys, as logged.
+   * @return the keys as IDs.
+   */
+  private static List<Long> ids(Set<String> keys) {
+    return keys.stream().map(Long::valueOf).toList();
+  }
+
+  /**
+   * Loads the rows with the given IDs, {@value #CHUNK_SIZE} at a time.
+   *
+   * @param ids    the IDs of the rows.
+   * @param loader loads the rows with a chunk of IDs.
+   * @param <T>    the type of the rows.
+   * @return the rows that still exist.
+   */
+  private static <T> List<T> load(List<Long> ids,
+      Function<Collection<Long>, ? extends Iterable<T>> loader) {
+    List<T> rows = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+      loader.apply(ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)))
+          .forEach(rows::add);
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,206 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ucl.comp0010.events.ChangeEvent;
+import uk.ac.ucl.comp0010.events.ChangeEventBroadcaster;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the {@link ChangeEventBroadcaster} class.
+ * <p>
+ * The clients are stood in for by emitters that record what is sent to them, and can hold up a
+ * send to play a slow client.
+ * </p>
+ */
+public class ChangeEventBroadcasterTest {
+
+  /**
+   * Default constructor for ChangeEventBroadcasterTest.
+   */
+  public ChangeEventBroadcasterTest() {
+  }
+
+  private ChangeEventBroadcaster broadcaster;
+
+  /**
+   * Ends the subscriptions and stops the background threads after each test.
+   */
+  @AfterEach
+  void tearDown() {
+    if (broadcaster != null) {
+      broadcaster.shutdown();
+    }
+  }
+
+  /**
+   * An emitter recording the data of each event sent to it.
+   */
+  private static class RecordingEmitter extends SseEmitter {
+
+    /**
+     * The data of the events sent, in order.
+     */
+    final List<Object> sent = new CopyOnWriteArrayList<>();
+
+    /**
+     * Counted down when a send starts.
+     */
+    final CountDownLatch sending = new CountDownLatch(1);
+
+    /**
+     * Opened to let sends complete.
+     */
+    final CountDownLatch released;
+
+    /**
+     * Counted down by each send that completes.
+     */
+    final CountDownLatch sends;
+
+    /**
+     * Creates an emitter.
+     *
+     * @param released opened to let sends complete.
+     * @param sends    the number of sends expected.
+     */
+    RecordingEmitter(CountDownLatch released, int sends) {
+      this.released = released;
+      this.sends = new CountDownLatch(sends);
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      sending.countDown();
+      try {
+        released.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+        // The SSE field names and line breaks are sent as text around the data
+        if (!(data.getData() instanceof String)) {
+          sent.add(data.getData());
+        }
+      }
+      sends.countDown();
+    }
+  }
+
+  /**
+   * Tests that a subscriber is sent every event, in the order published.
+   *
+   * @throws InterruptedException if interrupted while waiting for the events.
+   */
+  @Test
+  void testEventsAreSentInOrder() throws InterruptedException {
+    broadcaster = new ChangeEventBroadcaster(8);
+    RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0), 3);
+    broadcaster.subscribe(emitter);
+
+    List<ChangeEvent> events = List.of(ChangeEvent.gradeUpserted(1L, "TM1", 70, null),
+        ChangeEvent.registrationCreated(2L, "TM1"), ChangeEvent.moduleDeleted("TM1"));
+    broadcaster.publishAll(events);
+
+    assertTrue(emitter.sends.await(5, TimeUnit.SECONDS));
+    assertEquals(events, emitter.sent);
+  }
+
+  /**
+   * Tests that a slow subscriber's buffer drops its oldest events once full, and that the
+   * subscriber is told how many it missed before the events that follow. The other subscriber
+   * buffers more events than the burst, so it receives every one of them.
+   *
+   * @throws InterruptedException if interrupted while waiting for the events.
+   */
+  @Test
+  void testSlowSubscriberDropsOldestEvents() throws InterruptedException {
+    broadcaster = new ChangeEventBroadcaster(3);
+    CountDownLatch released = new CountDownLatch(1);
+    RecordingEmitter slow = new RecordingEmitter(released, 5);
+    RecordingEmitter fast = new RecordingEmitter(new CountDownLatch(0), 6);
+    broadcaster.subscribe(slow);
+    broadcaster.subscribe(fast, 8);
+
+    List<ChangeEvent> events = List.of(ChangeEvent.studentDeleted(1L),
+        ChangeEvent.studentDeleted(2L), ChangeEvent.studentDeleted(3L),
+        ChangeEvent.studentDeleted(4L), ChangeEvent.studentDeleted(5L),
+        ChangeEvent.studentDeleted(6L));
+
+    // The first event is taken from the buffer and held up in the send
+    broadcaster.publish(events.get(0));
+    assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+    broadcaster.publishAll(events.subList(1, events.size()));
+
+    // The other subscriber is not held up by the slow one
+    assertTrue(fast.sends.await(5, TimeUnit.SECONDS));
+    assertEquals(events, fast.sent);
+
+    released.countDown();
+    assertTrue(slow.sends.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(events.get(0), Map.of("dropped", 2L), events.get(3), events.get(4),
+        events.get(5)), slow.sent);
+  }
+
+  /**
+   * Tests that events published in a transaction are only sent once it commits.
+   *
+   * @throws InterruptedException if interrupted while waiting for the event.
+   */
+  @Test
+  void testEventsWaitForCommit() throws InterruptedException {
+    broadcaster = new ChangeEventBroadcaster(8);
+    RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0), 1);
+    broadcaster.subscribe(emitter);
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      broadcaster.publish(ChangeEvent.studentDeleted(1L));
+      assertTrue(emitter.sent.isEmpty());
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertTrue(emitter.sends.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of(ChangeEvent.studentDeleted(1L)), emitter.sent);
+  }
+
+  /**
+   * Tests that a client that has gone away is unsubscribed when an event cannot be sent to it.
+   *
+   * @throws InterruptedException if interrupted while waiting for the client to be dropped.
+   */
+  @Test
+  void testGoneClientIsUnsubscribed() throws InterruptedException {
+    broadcaster = new ChangeEventBroadcaster(8);
+    broadcaster.subscribe(new SseEmitter() {
+      @Override
+      public void send(SseEventBuilder builder) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+    });
+    assertEquals(1, broadcaster.subscriberCount());
+
+    broadcaster.publish(ChangeEvent.studentDeleted(1L));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (broadcaster.subscriberCount() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, broadcaster.subscriberCount());
+  }
+}
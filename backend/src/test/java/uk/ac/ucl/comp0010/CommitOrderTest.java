@@ -0,0 +1,99 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.ac.ucl.comp0010.support.CommitOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link CommitOrder} class. Each transaction is simulated by registering its
+ * changes with synchronization active and then ending it by hand, so the tests choose the order
+ * in which transactions end.
+ */
+public class CommitOrderTest {
+
+  /**
+   * Default constructor for CommitOrderTest.
+   */
+  public CommitOrderTest() {
+  }
+
+  /**
+   * Makes changes inside a simulated transaction, without ending it.
+   *
+   * @param order   the order the changes go through.
+   * @param changes the changes.
+   * @return the synchronizations that end the transaction.
+   */
+  private static List<TransactionSynchronization> begin(CommitOrder order,
+      Runnable... changes) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      for (Runnable change : changes) {
+        order.afterCommit(change);
+      }
+      return TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  /**
+   * Ends a simulated transaction the way Spring does.
+   *
+   * @param transaction the synchronizations of the transaction.
+   * @param committed   whether the transaction commits rather than rolls back.
+   */
+  private static void end(List<TransactionSynchronization> transaction, boolean committed) {
+    if (committed) {
+      transaction.forEach(TransactionSynchronization::afterCommit);
+    }
+    int status = committed ? TransactionSynchronization.STATUS_COMMITTED
+        : TransactionSynchronization.STATUS_ROLLED_BACK;
+    transaction.forEach(synchronization -> synchronization.afterCompletion(status));
+  }
+
+  /**
+   * Tests that a transaction ending first waits for the changes of one that made its changes
+   * earlier, and that the changes are then applied in the order they were made.
+   */
+  @Test
+  void testChangesAppliedInOrderMade() {
+    CommitOrder order = new CommitOrder();
+    List<String> applied = new ArrayList<>();
+    List<TransactionSynchronization> first = begin(order, () -> applied.add("a"),
+        () -> applied.add("b"));
+    List<TransactionSynchronization> second = begin(order, () -> applied.add("c"));
+
+    end(second, true);
+    assertEquals(List.of(), applied);
+
+    end(first, true);
+    assertEquals(List.of("a", "b", "c"), applied);
+
+    // Outside a transaction a change is applied at once
+    order.afterCommit(() -> applied.add("d"));
+    assertEquals(List.of("a", "b", "c", "d"), applied);
+  }
+
+  /**
+   * Tests that the changes of a rolled-back transaction are dropped and no longer hold back the
+   * changes made after them.
+   */
+  @Test
+  void testRolledBackChangesDropped() {
+    CommitOrder order = new CommitOrder();
+    List<String> applied = new ArrayList<>();
+    List<TransactionSynchronization> first = begin(order, () -> applied.add("a"));
+    List<TransactionSynchronization> second = begin(order, () -> applied.add("b"));
+
+    end(second, true);
+    end(first, false);
+    assertEquals(List.of("b"), applied);
+  }
+}
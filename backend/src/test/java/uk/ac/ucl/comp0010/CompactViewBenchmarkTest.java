@@ -0,0 +1,126 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the compact grade and registration views against the full entity lists, at
+ * {@value #STUDENTS} x {@value #MODULES} rows each. Serialises each list as the endpoint would and
+ * checks that the JSON payloads of the compact views are several times smaller.
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class CompactViewBenchmarkTest {
+
+  /**
+   * Default constructor for CompactViewBenchmarkTest.
+   */
+  public CompactViewBenchmarkTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 1000;
+
+  /**
+   * The number of modules in the benchmark data set; every student has a grade and a
+   * registration in each.
+   */
+  private static final int MODULES = 20;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the benchmark created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Loads a list and serialises it as the endpoint would.
+   *
+   * @param list loads the list.
+   * @return the size of the JSON payload, in bytes.
+   * @throws Exception if the list cannot be serialised.
+   */
+  private long payloadBytes(Supplier<List<?>> list) throws Exception {
+    List<?> rows = list.get();
+    assertEquals(STUDENTS * MODULES, rows.size());
+    return objectMapper.writeValueAsBytes(rows).length;
+  }
+
+  /**
+   * Compares the payload sizes of the full and compact lists.
+   *
+   * @throws Exception if a list cannot be serialised.
+   */
+  @Test
+  void benchmarkCompactViews() throws Exception {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), 0, 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) "
+        + "SELECT s.id, m.code, MOD(s.id, 101) FROM student s, module m");
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code) "
+        + "SELECT s.id, m.code FROM student s, module m");
+
+    long fullGrades = payloadBytes(controller::getGrades);
+    long compactGrades = payloadBytes(controller::getGradeViews);
+    long fullRegistrations = payloadBytes(controller::getRegistrations);
+    long compactRegistrations = payloadBytes(controller::getRegistrationViews);
+
+    assertTrue(compactGrades * 3 < fullGrades, "compact grades should be 3x smaller");
+    assertTrue(compactRegistrations * 3 < fullRegistrations,
+        "compact registrations should be 3x smaller");
+  }
+}
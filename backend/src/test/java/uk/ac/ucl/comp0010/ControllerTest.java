@@ -2,31 +2,75 @@ package uk.ac.ucl.comp0010;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyList;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.events.ChangeEvent;
+import uk.ac.ucl.comp0010.events.ChangeEventBroadcaster;
+import uk.ac.ucl.comp0010.export.CsvExporter;
 import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
 import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
+import uk.ac.ucl.comp0010.grade.ModuleScore;
+import uk.ac.ucl.comp0010.insights.Dashboard;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.insights.Insights;
+import uk.ac.ucl.comp0010.insights.InsightsService;
+import uk.ac.ucl.comp0010.module.CatalogueStats;
+import uk.ac.ucl.comp0010.module.GradeTotals;
 import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleDetail;
 import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStats;
+import uk.ac.ucl.comp0010.module.ModuleStatsDrift;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepairJob;
+import uk.ac.ucl.comp0010.module.ModuleStatsService;
+import uk.ac.ucl.comp0010.module.ModuleStatsSummary;
+import uk.ac.ucl.comp0010.paging.CursorPage;
 import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationIndex;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
 import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationResult;
+import uk.ac.ucl.comp0010.registration.RegistrationView;
+import uk.ac.ucl.comp0010.streaming.NdjsonStreamer;
+import uk.ac.ucl.comp0010.student.GradeAggregateDrift;
+import uk.ac.ucl.comp0010.student.GradeAggregateRepairJob;
 import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentCacheStats;
+import uk.ac.ucl.comp0010.student.StudentDetail;
 import uk.ac.ucl.comp0010.student.StudentRepository;
+import uk.ac.ucl.comp0010.student.StudentSearchHit;
+import uk.ac.ucl.comp0010.student.StudentSearchIndex;
+import uk.ac.ucl.comp0010.sync.ChangeLog;
+import uk.ac.ucl.comp0010.sync.SyncDelta;
+import uk.ac.ucl.comp0010.sync.SyncService;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 /**
@@ -60,6 +104,36 @@ public class ControllerTest {
 
   @Mock
   GradeRepository gradeRepository;
+  @Mock
+  ModuleCatalogue moduleCatalogue;
+  @Mock
+  StudentCache studentCache;
+  @Mock
+  GradeAggregateRepairJob gradeAggregateRepairJob;
+  @Mock
+  ModuleStatsRepairJob moduleStatsRepairJob;
+  @Mock
+  ModuleStatsService moduleStatsService;
+  @Mock
+  DataVersion dataVersion;
+  @Mock
+  InsightsService insightsService;
+  @Mock
+  NdjsonStreamer ndjsonStreamer;
+  @Mock
+  CsvExporter csvExporter;
+  @Mock
+  ChangeLog changeLog;
+  @Mock
+  SyncService syncService;
+  @Mock
+  ChangeEventBroadcaster changeEvents;
+  @Mock
+  StudentSearchIndex studentSearchIndex;
+  @Mock
+  RegistrationIndex registrationIndex;
+  @Mock
+  GradeMatrix gradeMatrix;
   Module myFirstModule;
   Module mySecondModule;
 
@@ -114,9 +188,9 @@ public class ControllerTest {
    * Tests the {@link Controller#registerStudent(Registration)} method for the scenario where the
    * student is already registered for the specified module.
    * <p>
-   * The test mocks the repositories to simulate the existing registration and verifies that the
-   * appropriate response (400 Bad Request) and message ("This registration already exists.") are
-   * returned.
+   * The test mocks the insert-if-absent statement to report that no row was inserted and verifies
+   * that the appropriate response (400 Bad Request) and message ("This registration already
+   * exists.") are returned without a separate existence check.
    * </p>
    */
   @Test
@@ -127,11 +201,11 @@ public class ControllerTest {
     Registration myFirstStudentToFirstModuleRegistration =
         new Registration(myFirstStudent, myFirstModule);
 
-    Mockito.when(moduleRepository.findById(myFirstModule.getCode()))
+    Mockito.when(moduleCatalogue.find(myFirstModule.getCode()))
         .thenReturn(Optional.of(myFirstModule));
 
-    Mockito.when(registrationRepository.existsByStudentIdAndModuleCode(myFirstStudent.getId(),
-        myFirstModule.getCode())).thenReturn(true);
+    Mockito.when(registrationRepository.insertIfAbsent(myFirstStudent.getId(),
+        myFirstModule.getCode())).thenReturn(0);
 
     ResponseEntity<?> response =
         myController.registerStudent(myFirstStudentToFirstModuleRegistration);
@@ -140,8 +214,58 @@ public class ControllerTest {
     assertThat(response.getBody()).isEqualTo(
         "This registration already exists.");  // Correct message
 
-    Mockito.verify(registrationRepository, Mockito.times(1))
-        .existsByStudentIdAndModuleCode(myFirstStudent.getId(), myFirstModule.getCode());
+    Mockito.verify(registrationRepository, Mockito.never())
+        .existsByStudentIdAndModuleCode(Mockito.anyLong(), Mockito.anyString());
+  }
+
+  /**
+   * Tests the {@link Controller#registerStudent(Registration)} method when a concurrent request
+   * registers the same pair first.
+   * <p>
+   * The unique constraint violation raised by the losing insert must be reported as the existing
+   * "already exists" response.
+   * </p>
+   */
+  @Test
+  public void testRegisterStudentConcurrentDuplicate() {
+    Student myFirstStudent =
+        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    Module myFirstModule = new Module("TM1", "TestModule1", false);
+
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(registrationRepository.insertIfAbsent(1L, "TM1"))
+        .thenThrow(new DataIntegrityViolationException("uk_registration_student_module"));
+    Mockito.when(registrationRepository.existsByStudentIdAndModuleCode(1L, "TM1"))
+        .thenReturn(true);
+
+    ResponseEntity<?> response =
+        myController.registerStudent(new Registration(myFirstStudent, myFirstModule));
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(response.getBody()).isEqualTo("This registration already exists.");
+  }
+
+  /**
+   * Tests the {@link Controller#registerStudent(Registration)} method when the insert violates a
+   * constraint other than uniqueness, such as an unknown student.
+   * <p>
+   * The violation must be propagated rather than reported as a duplicate.
+   * </p>
+   */
+  @Test
+  public void testRegisterStudentUnknownStudent() {
+    Student unknownStudent =
+        createTestStudent(9L, "Unknown", "Student", "unknown@mail.com", "unknown9");
+    Module myFirstModule = new Module("TM1", "TestModule1", false);
+
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(registrationRepository.insertIfAbsent(9L, "TM1"))
+        .thenThrow(new DataIntegrityViolationException("fk_registration_student"));
+    Mockito.when(registrationRepository.existsByStudentIdAndModuleCode(9L, "TM1"))
+        .thenReturn(false);
+
+    assertThrows(DataIntegrityViolationException.class,
+        () -> myController.registerStudent(new Registration(unknownStudent, myFirstModule)));
   }
 
   /**
@@ -153,22 +277,92 @@ public class ControllerTest {
    */
   @Test
   public void testGetGradesByModuleIdNoModuleGrades() {
-    // Test for a case where we have a student, a module, and a registration, but no grades
+    // Test for a case where the module exists but nobody holds a grade in it
+    Mockito.when(moduleCatalogue.contains("1")).thenReturn(true);
+    Mockito.when(gradeRepository.findRosterByModuleCode("1")).thenReturn(List.of());
+
+    assertThat(myController.getGradesByModuleCode("1")).isEqualTo(
+        ResponseEntity.notFound().build());
+  }
+
+  /**
+   * Tests the {@link Controller#getStudentPage(String, Integer)} method for the first page of a
+   * collection that spans more than one page.
+   * <p>
+   * The test verifies that only the requested number of students is returned and that the next
+   * cursor points at the last student on the page.
+   * </p>
+   */
+  @Test
+  public void testGetStudentPageWithNextPage() {
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
+    Student mySecondStudent =
+        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2");
+    Mockito.when(studentRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2)))
+        .thenReturn(List.of(myFirstStudent, mySecondStudent));
 
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
-    Mockito.when(moduleRepository.findById("1L")).thenReturn(Optional.of(myFirstModule));
+    ResponseEntity<CursorPage<Student>> response = myController.getStudentPage(null, 1);
 
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Mockito.when(registrationRepository.findAll())
-        .thenReturn(List.of(myFirstStudentToFirstModuleRegistration));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(List.of(myFirstStudent), response.getBody().items());
+    assertEquals("1", CursorPage.decode(response.getBody().nextCursor()));
+    Mockito.verify(studentRepository, Mockito.never()).findAll();
+  }
 
-    assertThat(myController.getGradesByModuleCode(myFirstModule.getCode())).isEqualTo(
-        ResponseEntity.notFound().build());
+  /**
+   * Tests the {@link Controller#getStudentPage(String, Integer)} method for the last page of a
+   * collection.
+   * <p>
+   * The test verifies that the cursor is used as the keyset lower bound and that no next cursor is
+   * returned once the collection is exhausted.
+   * </p>
+   */
+  @Test
+  public void testGetStudentPageLastPage() {
+    Student mySecondStudent =
+        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2");
+    Mockito.when(studentRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(2)))
+        .thenReturn(List.of(mySecondStudent));
+
+    ResponseEntity<CursorPage<Student>> response =
+        myController.getStudentPage(CursorPage.encode(1L), 1);
+
+    assertEquals(List.of(mySecondStudent), response.getBody().items());
+    assertThat(response.getBody().nextCursor()).isNull();
+  }
+
+  /**
+   * Tests the {@link Controller#getStudentPage(String, Integer)} method with a malformed cursor.
+   * <p>
+   * The test verifies that HTTP 400 Bad Request is returned without querying the repository.
+   * </p>
+   */
+  @Test
+  public void testGetStudentPageWithInvalidCursor() {
+    ResponseEntity<CursorPage<Student>> response = myController.getStudentPage("!!", null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    Mockito.verifyNoInteractions(studentRepository);
+  }
+
+  /**
+   * Tests that the paginated endpoints fall back to the default page size and clamp oversized
+   * requests to the maximum page size.
+   */
+  @Test
+  public void testPaginatedEndpointsPageSizes() {
+    Mockito.when(moduleRepository.findByCodeGreaterThanOrderByCodeAsc("", Limit.of(101)))
+        .thenReturn(List.of(new Module("TM1", "TestModule1", false)));
+    Mockito.when(gradeRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(1001)))
+        .thenReturn(List.of());
+    Mockito.when(
+            registrationRepository.findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2)))
+        .thenReturn(List.of());
+
+    assertEquals(1, myController.getModulePage(null, null).getBody().items().size());
+    assertThat(myController.getGradePage(null, 50_000).getBody().items()).isEmpty();
+    assertThat(myController.getRegistrationPage(null, 0).getBody().nextCursor()).isNull();
   }
 
   /**
@@ -203,45 +397,22 @@ public class ControllerTest {
    */
   @Test
   public void testGetGradesByModuleIdForTwoStudents() {
-    // Test for a case with a student registered to Modules 1 and 2 with grades in each, and
-    // another student registered to only Module 2 with a grade
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Student mySecondStudent =
-        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(studentRepository.findById(2L)).thenReturn(Optional.of(mySecondStudent));
-
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
-    mySecondModule = new Module("TM2", "TestModule2", false);
-    mySecondModule.setCode("2");
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
-    Mockito.when(moduleRepository.findById("2")).thenReturn(Optional.of(mySecondModule));
-
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Registration myFirstStudentToSecondModuleRegistration =
-        new Registration(myFirstStudent, mySecondModule);
-    Registration mySecondStudentToSecondModuleRegistration =
-        new Registration(mySecondStudent, mySecondModule);
-    Mockito.when(registrationRepository.findAll()).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, myFirstStudentToSecondModuleRegistration,
-            mySecondStudentToSecondModuleRegistration));
-
-    // Test the getGradesByModuleId method
-    Grade firstStudentFirstModuleGrade = new Grade(10, myFirstStudent, myFirstModule);
-    Grade firstStudentSecondModuleGrade = new Grade(10, myFirstStudent, mySecondModule);
-    myFirstStudent.addGrade(firstStudentFirstModuleGrade);
-    myFirstStudent.addGrade(firstStudentSecondModuleGrade);
-
-    Grade secondStudentSecondModuleGrade = new Grade(25, mySecondStudent, mySecondModule);
-    mySecondStudent.addGrade(secondStudentSecondModuleGrade);
-
-    assertThat(myController.getGradesByModuleCode(myFirstModule.getCode())).isEqualTo(
-        ResponseEntity.ok(List.of(firstStudentFirstModuleGrade)));
-    assertThat(myController.getGradesByModuleCode(mySecondModule.getCode())).isEqualTo(
-        ResponseEntity.ok(List.of(firstStudentSecondModuleGrade, secondStudentSecondModuleGrade)));
+    // Test for a case with two students holding a grade in the module
+    ModuleGrade firstStudentGrade =
+        new ModuleGrade(1L, 10, 1L, "First", "Student", "firststudent1");
+    ModuleGrade secondStudentGrade =
+        new ModuleGrade(2L, 25, 2L, "Second", "Student", "secondstudent2");
+    Mockito.when(moduleCatalogue.contains("2")).thenReturn(true);
+    Mockito.when(gradeRepository.findRosterByModuleCode("2"))
+        .thenReturn(List.of(firstStudentGrade, secondStudentGrade));
+
+    assertThat(myController.getGradesByModuleCode("2")).isEqualTo(
+        ResponseEntity.ok(List.of(firstStudentGrade, secondStudentGrade)));
+    assertThat(firstStudentGrade.student().id()).isEqualTo(1L);
+
+    // The roster must come from the single roster query, not from scanning registrations
+    Mockito.verify(registrationRepository, Mockito.never()).findAll();
+    Mockito.verify(studentRepository, Mockito.never()).findById(Mockito.anyLong());
   }
 
   /**
@@ -278,8 +449,8 @@ public class ControllerTest {
   /**
    * Tests the {@link Controller#registerStudent(Registration)} method for a new registration.
    * <p>
-   * This test verifies that a new registration is saved to the repository and the appropriate
-   * response (200 OK) is returned.
+   * This test verifies that a new registration is inserted with a single insert-if-absent
+   * statement and the appropriate response (200 OK) is returned.
    * </p>
    */
   @Test
@@ -290,11 +461,10 @@ public class ControllerTest {
     Registration myFirstStudentToFirstModuleRegistration =
         new Registration(myFirstStudent, myFirstModule);
 
-    Mockito.when(moduleRepository.findById(myFirstModule.getCode()))
+    Mockito.when(moduleCatalogue.find(myFirstModule.getCode()))
         .thenReturn(Optional.of(myFirstModule));
 
-    Mockito.when(registrationRepository.save(myFirstStudentToFirstModuleRegistration))
-        .thenReturn(myFirstStudentToFirstModuleRegistration);
+    Mockito.when(registrationRepository.insertIfAbsent(1L, "TM1")).thenReturn(1);
 
     ResponseEntity<?> response =
         myController.registerStudent(myFirstStudentToFirstModuleRegistration);
@@ -302,6 +472,8 @@ public class ControllerTest {
     assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);  // Status should be 200 OK
     assertThat(response.getBody()).isEqualTo(
         myFirstStudentToFirstModuleRegistration);  // Body should contain the saved registration
+    Mockito.verify(registrationRepository, Mockito.never()).save(Mockito.any(Registration.class));
+    Mockito.verify(registrationIndex).register(List.of(new RegistrationKey(1L, "TM1")));
   }
 
 
@@ -325,7 +497,7 @@ public class ControllerTest {
 
     myFirstModule = new Module("TM1", "TestModule1", false);
     myFirstModule.setCode("1");
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(moduleCatalogue.find("1")).thenReturn(Optional.of(myFirstModule));
 
     Registration myFirstStudentToFirstModuleRegistration =
         new Registration(myFirstStudent, myFirstModule);
@@ -352,7 +524,7 @@ public class ControllerTest {
 
     Registration registration = new Registration();
     registration.setModule(mySecondModule);
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(moduleCatalogue.find("1")).thenReturn(Optional.of(myFirstModule));
     Mockito.when(registrationRepository.findAll()).thenReturn(List.of(registration));
 
     ResponseEntity<List<Student>> response =
@@ -363,20 +535,19 @@ public class ControllerTest {
   /**
    * Tests the {@link Controller#getMncModules()} method.
    * <p>
-   * This test verifies that the method retrieves only the modules marked as "MNC" (Mandatory
-   * Non-Credit).
+   * This test verifies that the method serves the modules marked as "MNC" (Mandatory
+   * Non-Credit) from the cache instead of scanning every module.
    * </p>
    */
   @Test
   public void testGetMncModule() {
     // Test retrieving MNC modules
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
     mySecondModule = new Module("TM2", "TestModule2", true);
     mySecondModule.setCode("2");
-    Mockito.when(moduleRepository.findAll()).thenReturn(List.of(myFirstModule, mySecondModule));
+    Mockito.when(moduleCatalogue.mnc()).thenReturn(List.of(mySecondModule));
 
     assertThat(myController.getMncModules()).isEqualTo(List.of(mySecondModule));
+    Mockito.verify(moduleRepository, Mockito.never()).findAll();
   }
 
   /**
@@ -388,37 +559,69 @@ public class ControllerTest {
     // Test creating a student
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    Mockito.when(studentRepository.saveAndFlush(myFirstStudent)).thenReturn(myFirstStudent);
     myController.createStudent(myFirstStudent);
-    Mockito.verify(studentRepository).save(myFirstStudent);
+    Mockito.verify(studentRepository).saveAndFlush(myFirstStudent);
+    Mockito.verify(registrationRepository).insertMissing(List.of());
+    Mockito.verify(changeEvents).publishAll(List.of(ChangeEvent.studentCreated(1L)));
+    Mockito.verify(studentSearchIndex).put(myFirstStudent);
+    Mockito.verify(registrationIndex).addStudent(1L);
   }
 
   /**
    * Tests the {@link Controller#createStudent(Student)} method for a case where the student is
-   * automatically registered to an existing MNC module upon creation.
+   * automatically registered to existing MNC modules upon creation.
    * <p>
-   * This test verifies that the registration process is triggered when a student is created and
-   * that the correct interactions with the repository and registration logic occur.
+   * This test verifies that the mandatory registrations are written as one insert-if-absent batch,
+   * without a pre-check query, and that the number actually inserted is reported.
    * </p>
    */
   @Test
   public void testCreateStudentWithMncModule() {
-    // Test creating a student with automatic registration to an existing MNC module
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
+    // Test creating a student with automatic registration to existing MNC modules
+    myFirstModule = new Module("TM1", "TestModule1", true);
     mySecondModule = new Module("TM2", "TestModule2", true);
-    mySecondModule.setCode("2");
-    Mockito.when(moduleRepository.findAll()).thenReturn(List.of(myFirstModule, mySecondModule));
+    Mockito.when(moduleCatalogue.mnc()).thenReturn(List.of(myFirstModule, mySecondModule));
 
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.save(myFirstStudent)).thenReturn(myFirstStudent);
+    Mockito.when(studentRepository.saveAndFlush(myFirstStudent)).thenReturn(myFirstStudent);
+    Mockito.when(registrationRepository.insertMissing(Mockito.anyCollection()))
+        .thenReturn(List.of(new RegistrationKey(1L, "TM2")));
+
+    ResponseEntity<Student> createdStudent = myController.createStudent(myFirstStudent);
 
-    Controller spyController = Mockito.spy(myController);
-    ResponseEntity<Student> createdStudent = spyController.createStudent(myFirstStudent);
-    Mockito.verify(studentRepository).save(myFirstStudent);
-    Mockito.verify(spyController, Mockito.times(1))
-        .registerStudent(Mockito.any(Registration.class));
+    Mockito.verify(studentRepository).saveAndFlush(myFirstStudent);
+    Mockito.verify(registrationRepository).insertMissing(
+        List.of(new RegistrationKey(1L, "TM1"), new RegistrationKey(1L, "TM2")));
+    Mockito.verify(changeEvents).publishAll(List.of(ChangeEvent.studentCreated(1L),
+        ChangeEvent.registrationCreated(1L, "TM2")));
+    Mockito.verify(registrationRepository, Mockito.never()).save(Mockito.any(Registration.class));
+    Mockito.verify(moduleRepository, Mockito.never()).findAll();
     assertEquals(createdStudent.getBody(), myFirstStudent);
+    assertEquals("1",
+        createdStudent.getHeaders().getFirst(Controller.REGISTRATIONS_CREATED_HEADER));
+  }
+
+  /**
+   * Tests the {@link Controller#searchStudents(String, Integer)} method.
+   * <p>
+   * This test verifies that the matches come from the search index, and that the number asked for
+   * falls back to the default and is clamped to the maximum.
+   * </p>
+   */
+  @Test
+  void testSearchStudents() {
+    List<StudentSearchHit> hits = List.of(
+        new StudentSearchHit(1L, "First", "Student", "firststudent1", "firststudent@mail.com"));
+    Mockito.when(studentSearchIndex.search("first", StudentSearchIndex.DEFAULT_LIMIT))
+        .thenReturn(hits);
+
+    assertEquals(hits, myController.searchStudents("first", null).getBody());
+    myController.searchStudents("first", 1000);
+    Mockito.verify(studentSearchIndex).search("first", StudentSearchIndex.MAX_LIMIT);
+    myController.searchStudents("first", 0);
+    Mockito.verify(studentSearchIndex).search("first", 1);
   }
 
   /**
@@ -433,7 +636,7 @@ public class ControllerTest {
   void testGetStudentByIdWhenStudentExists() {
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
+    Mockito.when(studentCache.find(1L)).thenReturn(Optional.of(myFirstStudent));
     assertThat(myController.getStudentById(1L)).isEqualTo(ResponseEntity.ok(myFirstStudent));
   }
 
@@ -446,21 +649,22 @@ public class ControllerTest {
    */
   @Test
   void testGetStudentsByIdWhenStudentDoesNotExist() {
-    Mockito.when(studentRepository.findById(-1L)).thenReturn(Optional.empty());
+    Mockito.when(studentCache.find(-1L)).thenReturn(Optional.empty());
     assertThat(myController.getStudentById(-1L)).isEqualTo(ResponseEntity.notFound().build());
   }
 
   /**
-   * Tests the {@link Controller#getStudentById(Long)} method when the student does not exist.
+   * Tests the {@link Controller#getGradesByStudentId(Long)} method when the student does not exist.
    * <p>
    * This test verifies that the response is HTTP 404 Not Found when the provided ID does not
-   * correspond to any student.
+   * correspond to any student, and that no grade query is issued.
    * </p>
    */
   @Test
   void testGetGradesByStudentIdWhenStudentDoesNotExist() {
-    Mockito.when(studentRepository.findById(-1L)).thenReturn(Optional.empty());
+    Mockito.when(studentCache.contains(-1L)).thenReturn(false);
     assertThat(myController.getGradesByStudentId(-1L)).isEqualTo(ResponseEntity.notFound().build());
+    Mockito.verify(gradeRepository, Mockito.never()).findTranscriptByStudentId(-1L);
   }
 
   /**
@@ -473,23 +677,8 @@ public class ControllerTest {
    */
   @Test
   void testGetGradesByStudentIdWhenStudentHasNoGrades() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
-    mySecondModule = new Module("TM2", "TestModule2", false);
-    mySecondModule.setCode("2");
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
-    Mockito.when(moduleRepository.findById("2")).thenReturn(Optional.of(mySecondModule));
-
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Registration myFirstStudentToSecondModuleRegistration =
-        new Registration(myFirstStudent, mySecondModule);
-    Mockito.when(registrationRepository.findAll()).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, myFirstStudentToSecondModuleRegistration));
+    Mockito.when(studentCache.contains(1L)).thenReturn(true);
+    Mockito.when(gradeRepository.findTranscriptByStudentId(1L)).thenReturn(List.of());
 
     assertThat(myController.getGradesByStudentId(1L)).isEqualTo(ResponseEntity.notFound().build());
   }
@@ -499,58 +688,43 @@ public class ControllerTest {
    * grades.
    * <p>
    * This test verifies that all grades for a given student are returned in the response with HTTP
-   * 200 OK.
+   * 200 OK, and that they come from the single transcript query rather than a scan of every
+   * registration.
    * </p>
    */
   @Test
   void testGetGradesByStudentIdWhenStudentHasGrades() {
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
+    Mockito.when(studentCache.contains(1L)).thenReturn(true);
 
     myFirstModule = new Module("TM1", "TestModule1", false);
     myFirstModule.setCode("1");
     mySecondModule = new Module("TM2", "TestModule2", false);
     mySecondModule.setCode("2");
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
-    Mockito.when(moduleRepository.findById("2")).thenReturn(Optional.of(mySecondModule));
-
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Registration myFirstStudentToSecondModuleRegistration =
-        new Registration(myFirstStudent, mySecondModule);
-    Mockito.when(registrationRepository.findAll()).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, myFirstStudentToSecondModuleRegistration));
 
     Grade firstStudentFirstModuleGrade = new Grade(10, myFirstStudent, myFirstModule);
     Grade firstStudentSecondModuleGrade = new Grade(10, myFirstStudent, mySecondModule);
-    myFirstStudent.addGrade(firstStudentFirstModuleGrade);
-    myFirstStudent.addGrade(firstStudentSecondModuleGrade);
+    Mockito.when(gradeRepository.findTranscriptByStudentId(1L))
+        .thenReturn(List.of(firstStudentFirstModuleGrade, firstStudentSecondModuleGrade));
 
     assertThat(myController.getGradesByStudentId(1L)).isEqualTo(
         ResponseEntity.ok(List.of(firstStudentFirstModuleGrade, firstStudentSecondModuleGrade)));
+    Mockito.verify(registrationRepository, Mockito.never()).findAll();
   }
 
   /**
-   * Tests the {@link Controller#getGradesByStudentId(Long)} method when the student has a
-   * non-matching registration.
+   * Tests the {@link Controller#getGradesByStudentId(Long)} method when the transcript query
+   * returns null.
    * <p>
-   * This test simulates a situation where the provided student exists, but their registration does
-   * not match the expected context. The test verifies that no grades are found and HTTP 404 Not
+   * The test verifies that a null result is treated like an empty transcript and HTTP 404 Not
    * Found is returned.
    * </p>
    */
   @Test
-  void testGetGradesByStudentIdWithNonMatchingRegistration() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Student mySecondStudent =
-        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2");
-
-    Registration registration = new Registration();
-    registration.setStudent(mySecondStudent);
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(registrationRepository.findAll()).thenReturn(List.of(registration));
+  void testGetGradesByStudentIdWithNullGrades() {
+    Mockito.when(studentCache.contains(1L)).thenReturn(true);
+    Mockito.when(gradeRepository.findTranscriptByStudentId(1L)).thenReturn(null);
 
     assertEquals(myController.getGradesByStudentId(1L), ResponseEntity.notFound().build());
   }
@@ -565,24 +739,14 @@ public class ControllerTest {
    */
   @Test
   void testGradesByModuleCodeWhenNoModules() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-
-    Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Mockito.when(moduleRepository.findById("TM1")).thenReturn(Optional.of(myFirstModule));
-
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Mockito.when(registrationRepository.findAll())
-        .thenReturn(List.of(myFirstStudentToFirstModuleRegistration));
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(false);
 
-    ResponseEntity<List<Grade>> response =
-        myController.getGradesByModuleCode(myFirstModule.getCode());
+    ResponseEntity<List<ModuleGrade>> response = myController.getGradesByModuleCode("TM1");
 
     assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
 
     assertThat(response.getBody()).isNull();
+    Mockito.verify(gradeRepository, Mockito.never()).findRosterByModuleCode("TM1");
   }
 
   /**
@@ -611,12 +775,89 @@ public class ControllerTest {
     Mockito.verify(gradeRepository, Mockito.times(1)).findAll();
   }
 
+  /**
+   * Tests the {@link Controller#streamGrades()} method.
+   * <p>
+   * This test verifies that the grades are handed to the streamer as NDJSON and that the full list
+   * is never loaded.
+   * </p>
+   */
+  @Test
+  void testStreamGrades() {
+    StreamingResponseBody body = out -> { };
+    Mockito.when(ndjsonStreamer.<Grade>stream(Mockito.any())).thenReturn(body);
+
+    ResponseEntity<StreamingResponseBody> response = myController.streamGrades();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertEquals(body, response.getBody());
+    Mockito.verify(gradeRepository, Mockito.never()).findAll();
+  }
+
+  /**
+   * Tests the {@link Controller#exportGrades(String)} method for a client accepting gzip.
+   * <p>
+   * This test verifies that the export is requested compressed and that the response is marked
+   * as a gzip-encoded CSV attachment.
+   * </p>
+   */
+  @Test
+  void testExportGradesWithGzip() {
+    StreamingResponseBody body = out -> { };
+    Mockito.when(csvExporter.grades(true)).thenReturn(body);
+
+    ResponseEntity<StreamingResponseBody> response = myController.exportGrades("gzip, deflate");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(body, response.getBody());
+    assertEquals("text/csv;charset=UTF-8",
+        response.getHeaders().getContentType().toString());
+    assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("attachment; filename=\"grades.csv\"",
+        response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+  }
+
+  /**
+   * Tests the {@link Controller#exportRoster(String, String)} method for a module that does not
+   * exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned and nothing is exported.
+   * </p>
+   */
+  @Test
+  void testExportRosterWhenModuleDoesNotExist() {
+    Mockito.when(moduleCatalogue.contains("NOPE")).thenReturn(false);
+
+    assertThat(myController.exportRoster("NOPE", null))
+        .isEqualTo(ResponseEntity.notFound().build());
+    Mockito.verifyNoInteractions(csvExporter);
+  }
+
+  /**
+   * Tests the {@link Controller#exportTranscript(Long, String)} method without gzip.
+   * <p>
+   * This test verifies that the transcript is requested uncompressed and that no content encoding
+   * is declared.
+   * </p>
+   */
+  @Test
+  void testExportTranscript() {
+    StreamingResponseBody body = out -> { };
+    Mockito.when(studentCache.contains(1L)).thenReturn(true);
+    Mockito.when(csvExporter.transcript(1L, false)).thenReturn(body);
+
+    ResponseEntity<StreamingResponseBody> response = myController.exportTranscript(1L, null);
+
+    assertEquals(body, response.getBody());
+    assertEquals(null, response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
   /**
    * Tests the {@link Controller#getModules()} method for retrieving all available modules.
    * <p>
-   * This test ensures that the controller interacts correctly with the repository and retrieves the
-   * expected number of modules. Additionally, it verifies that the correct repository interaction
-   * occurs exactly once.
+   * This test ensures that the controller serves the modules from the catalogue snapshot without
+   * querying the repository.
    * </p>
    */
   @Test
@@ -624,7 +865,7 @@ public class ControllerTest {
     Module myFirstModule = new Module("TM1", "TestModule1", false);
     Module mySecondModule = new Module("TM2", "TestModule2", false);
 
-    Mockito.when(moduleRepository.findAll()).thenReturn(List.of(myFirstModule, mySecondModule));
+    Mockito.when(moduleCatalogue.all()).thenReturn(List.of(myFirstModule, mySecondModule));
 
     List<Module> modules = myController.getModules();
 
@@ -632,7 +873,26 @@ public class ControllerTest {
     assertEquals(myFirstModule, modules.get(0));
     assertEquals(mySecondModule, modules.get(1));
 
-    Mockito.verify(moduleRepository, Mockito.times(1)).findAll();
+    Mockito.verify(moduleCatalogue, Mockito.times(1)).all();
+    Mockito.verify(moduleRepository, Mockito.never()).findAll();
+  }
+
+  /**
+   * Tests the {@link Controller#getCatalogueStats()} method.
+   * <p>
+   * This verifies that the hit, miss and load counters of the module catalogue are returned as-is,
+   * tagged with an ETag built from the counters.
+   * </p>
+   */
+  @Test
+  void testGetCatalogueStats() {
+    CatalogueStats stats = new CatalogueStats(10, 2, 1, 5);
+    Mockito.when(moduleCatalogue.stats()).thenReturn(stats);
+
+    ResponseEntity<CatalogueStats> response = myController.getCatalogueStats();
+
+    assertEquals(stats, response.getBody());
+    assertEquals("\"a-2-1-5\"", response.getHeaders().getETag());
   }
 
   /**
@@ -657,57 +917,376 @@ public class ControllerTest {
   }
 
   /**
-   * Tests the {@link Controller#addGrade(Grade)} method when a grade already exists for a student
-   * and module, and when creating a new grade.
+   * Tests the {@link Controller#getRegistrationViews()} method.
+   * <p>
+   * This test verifies that the compact views are returned without loading any registration
+   * entity.
+   * </p>
+   */
+  @Test
+  void testGetRegistrationViews() {
+    List<RegistrationView> views = List.of(new RegistrationView(1L, 1L, "TM1"));
+    Mockito.when(registrationRepository.findAllViews()).thenReturn(views);
+
+    assertEquals(views, myController.getRegistrationViews());
+    Mockito.verify(registrationRepository, Mockito.never()).findAll();
+  }
+
+  /**
+   * Tests the {@link Controller#getGradeViewPage(String, Integer)} method for the first page of a
+   * collection that spans more than one page.
    * <p>
-   * This test verifies: 1. Updating an existing grade if a record exists for the given student and
-   * module combination. 2. Creating a new grade if no prior record is found.
+   * The test verifies that the page holds compact views and that the next cursor points at the
+   * last grade on the page.
    * </p>
+   */
+  @Test
+  void testGetGradeViewPageWithNextPage() {
+    GradeView first = new GradeView(1L, 70, 1L, "TM1");
+    GradeView second = new GradeView(2L, 55, 2L, "TM1");
+    Mockito.when(gradeRepository.findViewsAfter(Long.MIN_VALUE, Limit.of(2)))
+        .thenReturn(List.of(first, second));
+
+    ResponseEntity<CursorPage<GradeView>> response = myController.getGradeViewPage(null, 1);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(List.of(first), response.getBody().items());
+    assertEquals("1", CursorPage.decode(response.getBody().nextCursor()));
+    Mockito.verify(gradeRepository, Mockito.never())
+        .findByIdGreaterThanOrderByIdAsc(Mockito.anyLong(), Mockito.any());
+  }
+
+  /**
+   * Tests the {@link Controller#addGrade(Grade)} method for a new grade.
    * <p>
-   * It ensures the repository is called correctly for both updating and creating grades and
-   * verifies the expected HTTP responses.
+   * This test verifies that the student is locked, the grade is written with a single upsert
+   * without loading the existing grade entity, the new grade is added to the student's
+   * aggregates, and the row written is returned rather than the request body.
    * </p>
    */
   @Test
   void testAddGrade() {
-    // Arrange for valid scenarios
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
     Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Grade existingGrade = new Grade(80, myFirstStudent, myFirstModule);
+    Grade grade = new Grade(95, myFirstStudent, myFirstModule);
+    Grade written = new Grade(95, myFirstStudent, myFirstModule);
 
-    Grade newGrade = new Grade(90, myFirstStudent, myFirstModule);
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(studentRepository.findWithLockById(1L)).thenReturn(Optional.of(myFirstStudent));
+    Mockito.when(gradeRepository.findScore(1L, "TM1")).thenReturn(Optional.empty());
+    Mockito.when(gradeRepository.upsert(1L, "TM1", 95)).thenReturn(1);
+    Mockito.when(gradeRepository.findByKey(1L, "TM1")).thenReturn(Optional.of(written));
 
-    // Mock repositories
-    Mockito.when(gradeRepository.findByStudentAndModule(myFirstStudent, myFirstModule))
-        .thenReturn(Optional.of(existingGrade));
+    ResponseEntity<Grade> response = myController.addGrade(grade);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertSame(written, response.getBody());
+
+    InOrder inOrder = Mockito.inOrder(studentRepository, moduleStatsService, gradeRepository);
+    inOrder.verify(studentRepository).findWithLockById(1L);
+    inOrder.verify(moduleStatsService).recordGrade("TM1", null, 95);
+    inOrder.verify(gradeRepository).upsert(1L, "TM1", 95);
+    inOrder.verify(studentRepository).adjustGradeAggregates(1L, 1, 95);
+    inOrder.verify(gradeRepository).findByKey(1L, "TM1");
+    Mockito.verify(changeLog).grade(1L, "TM1");
+    Mockito.verify(studentCache).evict(1L);
+    Mockito.verify(gradeMatrix).put(1L, "TM1", 95);
+    Mockito.verify(dataVersion).bump(Table.GRADE, Table.STUDENT);
+    Mockito.verify(changeEvents).publish(ChangeEvent.gradeUpserted(1L, "TM1", 95, null));
+    Mockito.verify(gradeRepository, Mockito.never())
+        .findByStudentAndModule(Mockito.any(), Mockito.any());
+    Mockito.verify(gradeRepository, Mockito.never()).save(Mockito.any(Grade.class));
+  }
 
-    Mockito.when(gradeRepository.save(existingGrade)).thenReturn(existingGrade);
-    Mockito.when(gradeRepository.save(newGrade)).thenReturn(newGrade);
+  /**
+   * Tests the {@link Controller#addGrade(Grade)} method when the student already has a grade in
+   * the module.
+   * <p>
+   * This test verifies that only the difference between the new and the previous score is applied
+   * to the student's aggregates, and that the grade count is unchanged.
+   * </p>
+   */
+  @Test
+  void testAddGradeUpdatesExistingGrade() {
+    Student myFirstStudent =
+        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    Module myFirstModule = new Module("TM1", "TestModule1", false);
+    Grade grade = new Grade(70, myFirstStudent, myFirstModule);
 
-    // branch where there is
-    Grade updatedGrade = new Grade(95, myFirstStudent, myFirstModule);
-    updatedGrade.setScore(95);
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(studentRepository.findWithLockById(1L)).thenReturn(Optional.of(myFirstStudent));
+    Mockito.when(gradeRepository.findScore(1L, "TM1")).thenReturn(Optional.of(80));
+    Mockito.when(gradeRepository.findByKey(1L, "TM1")).thenReturn(Optional.of(grade));
 
-    ResponseEntity<Grade> response = myController.addGrade(updatedGrade);
+    ResponseEntity<Grade> response = myController.addGrade(grade);
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    assertEquals(95, response.getBody().getScore());
+    Mockito.verify(gradeRepository).upsert(1L, "TM1", 70);
+    Mockito.verify(studentRepository).adjustGradeAggregates(1L, 0, -10);
+    Mockito.verify(moduleStatsService).recordGrade("TM1", 80, 70);
+    Mockito.verify(gradeMatrix).put(1L, "TM1", 70);
+  }
 
-    Mockito.verify(gradeRepository, Mockito.times(1))
-        .findByStudentAndModule(myFirstStudent, myFirstModule);
-    Mockito.verify(gradeRepository, Mockito.times(1)).save(existingGrade);
+  /**
+   * Tests the {@link Controller#addGrade(Grade)} method with a missing score and scores outside 0
+   * to 100.
+   * <p>
+   * This test verifies that HTTP 400 Bad Request is returned before the student is locked, and
+   * nothing is written.
+   * </p>
+   */
+  @Test
+  void testAddGradeRejectsOutOfRangeScore() {
+    Student myFirstStudent =
+        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    for (Integer score : new Integer[] {null, -1, 101, 200}) {
+      Grade grade = new Grade();
+      grade.setStudent(myFirstStudent);
+      grade.setModule(new Module("TM1", "TestModule1", false));
+      grade.setScore(score);
+      assertThat(myController.addGrade(grade)).isEqualTo(ResponseEntity.badRequest().build());
+    }
+    Mockito.verifyNoInteractions(studentRepository, gradeRepository, moduleStatsService,
+        dataVersion, gradeMatrix);
+  }
 
-    // create new grade
-    Mockito.when(gradeRepository.findByStudentAndModule(myFirstStudent, myFirstModule))
-        .thenReturn(Optional.empty());
+  /**
+   * Tests the {@link Controller#addGrade(Grade)} method for a student that does not exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned and nothing is written.
+   * </p>
+   */
+  @Test
+  void testAddGradeForUnknownStudent() {
+    Student unknownStudent =
+        createTestStudent(9L, "Unknown", "Student", "unknown@mail.com", "unknown9");
+    Grade grade = new Grade(70, unknownStudent, new Module("TM1", "TestModule1", false));
+
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(studentRepository.findWithLockById(9L)).thenReturn(Optional.empty());
+
+    assertThat(myController.addGrade(grade)).isEqualTo(ResponseEntity.notFound().build());
+    Mockito.verify(gradeRepository, Mockito.never())
+        .upsert(Mockito.anyLong(), Mockito.anyString(), Mockito.anyInt());
+    Mockito.verify(studentRepository, Mockito.never())
+        .adjustGradeAggregates(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyLong());
+    Mockito.verifyNoInteractions(moduleStatsService, dataVersion, gradeMatrix);
+  }
 
-    response = myController.addGrade(newGrade);
-    assertEquals(HttpStatus.OK, response.getStatusCode());
-    assertEquals(newGrade, response.getBody());
+  /**
+   * Tests the {@link Controller#addGrade(Grade)} method for a module that does not exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned before the student is locked, rather
+   * than the upsert failing on the foreign key.
+   * </p>
+   */
+  @Test
+  void testAddGradeForUnknownModule() {
+    Student myFirstStudent =
+        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    Grade grade = new Grade(70, myFirstStudent, new Module("NONE", "Unknown", false));
+
+    Mockito.when(moduleCatalogue.contains("NONE")).thenReturn(false);
+
+    assertThat(myController.addGrade(grade)).isEqualTo(ResponseEntity.notFound().build());
+    Mockito.verifyNoInteractions(studentRepository, gradeRepository, moduleStatsService,
+        dataVersion, gradeMatrix);
+  }
+
+  /**
+   * Tests the {@link Controller#repairGradeAggregates()} method.
+   * <p>
+   * This test verifies that the drift reported by the repair job is returned with HTTP 200 OK and
+   * that the data version moves on because aggregates were changed.
+   * </p>
+   */
+  @Test
+  void testRepairGradeAggregates() {
+    List<GradeAggregateDrift> drift = List.of(new GradeAggregateDrift(1L, 2, 150L, 1L, 80L));
+    Mockito.when(gradeAggregateRepairJob.repair()).thenReturn(drift);
+
+    assertThat(myController.repairGradeAggregates()).isEqualTo(ResponseEntity.ok(drift));
+    Mockito.verify(dataVersion).bump(Table.STUDENT);
+  }
+
+  /**
+   * Tests the {@link Controller#repairGradeAggregates()} method when no aggregate has drifted.
+   * <p>
+   * This test verifies that the data version is left alone, so cached insights stay valid.
+   * </p>
+   */
+  @Test
+  void testRepairGradeAggregatesWithoutDrift() {
+    Mockito.when(gradeAggregateRepairJob.repair()).thenReturn(List.of());
+
+    assertThat(myController.repairGradeAggregates().getBody()).isEmpty();
+    Mockito.verifyNoInteractions(dataVersion);
+  }
+
+  /**
+   * Tests the {@link Controller#repairModuleStats()} method.
+   * <p>
+   * This test verifies that the drift reported by the repair job is returned with HTTP 200 OK and
+   * that the grade version moves on, as the dashboard totals are summed from the statistics.
+   * </p>
+   */
+  @Test
+  void testRepairModuleStats() {
+    List<ModuleStatsDrift> drift = List.of(new ModuleStatsDrift("TM1", null, null, 2L, 140L));
+    Mockito.when(moduleStatsRepairJob.repair()).thenReturn(drift);
+
+    assertThat(myController.repairModuleStats()).isEqualTo(ResponseEntity.ok(drift));
+    Mockito.verify(dataVersion).bump(Table.GRADE);
+  }
+
+  /**
+   * Tests the {@link Controller#getStudentDetail(Long)} method.
+   * <p>
+   * This test verifies that the student comes from the cache, that the registrations and grades
+   * come from the single joined query, and that a registration without a grade only adds its
+   * module.
+   * </p>
+   */
+  @Test
+  void testGetStudentDetail() {
+    Student student =
+        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
+    Module myFirstModule = new Module("TM1", "TestModule1", false);
+    Module mySecondModule = new Module("TM2", "TestModule2", false);
+    GradeView grade = new GradeView(7L, 65, 1L, "TM1");
+    Mockito.when(studentCache.find(1L)).thenReturn(Optional.of(student));
+    Mockito.when(registrationRepository.findGradedByStudentId(1L))
+        .thenReturn(List.of(grade, new GradeView(null, null, 1L, "TM2")));
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(moduleCatalogue.find("TM2")).thenReturn(Optional.of(mySecondModule));
+
+    assertThat(myController.getStudentDetail(1L)).isEqualTo(ResponseEntity.ok(
+        new StudentDetail(student, List.of(myFirstModule, mySecondModule), List.of(grade))));
+    Mockito.verifyNoInteractions(gradeRepository, studentRepository, moduleRepository);
+  }
+
+  /**
+   * Tests the {@link Controller#getStudentDetail(Long)} method for a student that does not exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned without reading any registration.
+   * </p>
+   */
+  @Test
+  void testGetStudentDetailWhenStudentDoesNotExist() {
+    Mockito.when(studentCache.find(1L)).thenReturn(Optional.empty());
+
+    assertEquals(HttpStatus.NOT_FOUND, myController.getStudentDetail(1L).getStatusCode());
+    Mockito.verifyNoInteractions(registrationRepository);
+  }
+
+  /**
+   * Tests the {@link Controller#getModuleDetail(String)} method.
+   * <p>
+   * This test verifies that the module comes from the catalogue, that every registered student is
+   * listed, and that only the rows with a grade are returned as grades.
+   * </p>
+   */
+  @Test
+  void testGetModuleDetail() {
+    Module module = new Module("TM1", "TestModule1", false);
+    ModuleGrade graded = new ModuleGrade(7L, 65, 1L, "First", "Student", "firststudent1");
+    ModuleGrade ungraded = new ModuleGrade(null, null, 2L, "Second", "Student", "secondstudent2");
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.of(module));
+    Mockito.when(registrationRepository.findGradedByModuleCode("TM1"))
+        .thenReturn(List.of(graded, ungraded));
+
+    assertThat(myController.getModuleDetail("TM1")).isEqualTo(ResponseEntity.ok(
+        new ModuleDetail(module, List.of(graded.student(), ungraded.student()),
+            List.of(graded))));
+    Mockito.verifyNoInteractions(gradeRepository, studentRepository, moduleRepository);
+  }
+
+  /**
+   * Tests the {@link Controller#getModuleDetail(String)} method for a module that does not exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned without reading any registration.
+   * </p>
+   */
+  @Test
+  void testGetModuleDetailWhenModuleDoesNotExist() {
+    Mockito.when(moduleCatalogue.find("NOPE")).thenReturn(Optional.empty());
+
+    assertEquals(HttpStatus.NOT_FOUND, myController.getModuleDetail("NOPE").getStatusCode());
+    Mockito.verifyNoInteractions(registrationRepository);
+  }
+
+  /**
+   * Tests the {@link Controller#getDashboard()} method.
+   * <p>
+   * This test verifies that every figure comes from a count or from the module statistics
+   * totals, and that no entity is loaded.
+   * </p>
+   */
+  @Test
+  void testGetDashboard() {
+    Mockito.when(studentRepository.count()).thenReturn(4L);
+    Mockito.when(moduleRepository.count()).thenReturn(2L);
+    Mockito.when(registrationRepository.count()).thenReturn(5L);
+    Mockito.when(moduleStatsService.totals()).thenReturn(new GradeTotals(3L, 165L));
+    Mockito.when(studentRepository.countUnregistered()).thenReturn(1L);
+
+    assertThat(myController.getDashboard())
+        .isEqualTo(ResponseEntity.ok(new Dashboard(4L, 2L, 5L, 3L, 55.0, 1L)));
+    Mockito.verify(studentRepository, Mockito.never()).findAll();
+    Mockito.verify(gradeRepository, Mockito.never()).findAll();
+    Mockito.verify(registrationRepository, Mockito.never()).findAll();
+  }
+
+  /**
+   * Tests the {@link Controller#getInsights()} method.
+   * <p>
+   * This test verifies that the summary computed by the insights service is returned with HTTP
+   * 200 OK and that no entity list is loaded by the controller.
+   * </p>
+   */
+  @Test
+  void testGetInsights() {
+    Insights insights = new Insights(3L, 2L, 1L, 2L, 0L, 55.0,
+        List.of(new Insights.ModuleAverage("TM1", "TestModule1", 55.0)),
+        List.of(new Insights.FailedStudent(2L, "Second", "Student", List.of("TestModule1"))),
+        new Insights.TopStudent(1L, "First", "Student", 70.0));
+    Mockito.when(insightsService.get()).thenReturn(insights);
+
+    assertThat(myController.getInsights()).isEqualTo(ResponseEntity.ok(insights));
+    Mockito.verifyNoInteractions(studentRepository, moduleRepository, gradeRepository,
+        registrationRepository);
+  }
 
-    Mockito.verify(gradeRepository, Mockito.times(1)).save(newGrade);
+  /**
+   * Tests the {@link Controller#getModuleStats(String)} method for an existing module.
+   * <p>
+   * This test verifies that the summary is served from the module statistics with HTTP 200 OK and
+   * that no grade is read.
+   * </p>
+   */
+  @Test
+  void testGetModuleStats() {
+    ModuleStats stats = new ModuleStats("TM1");
+    stats.add(40);
+    stats.add(60);
+    ModuleStatsSummary summary = ModuleStatsSummary.of(stats);
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(moduleStatsService.summarise("TM1")).thenReturn(summary);
+
+    assertThat(myController.getModuleStats("TM1")).isEqualTo(ResponseEntity.ok(summary));
+    Mockito.verifyNoInteractions(gradeRepository);
+  }
+
+  /**
+   * Tests the {@link Controller#getModuleStats(String)} method for a module that does not exist.
+   * <p>
+   * This test verifies that HTTP 404 Not Found is returned.
+   * </p>
+   */
+  @Test
+  void testGetModuleStatsWhenModuleDoesNotExist() {
+    Mockito.when(moduleCatalogue.contains("NOPE")).thenReturn(false);
+    assertThat(myController.getModuleStats("NOPE")).isEqualTo(ResponseEntity.notFound().build());
+    Mockito.verifyNoInteractions(moduleStatsService);
   }
 
   /**
@@ -732,7 +1311,7 @@ public class ControllerTest {
    */
   @Test
   void testDeleteStudentWhenStudentDoesNotExists() {
-    Mockito.when(studentRepository.findById(-1L)).thenReturn(Optional.empty());
+    Mockito.when(studentRepository.findWithLockById(-1L)).thenReturn(Optional.empty());
     assertThat(myController.deleteStudent(-1L)).isEqualTo(ResponseEntity.notFound().build());
   }
 
@@ -741,8 +1320,7 @@ public class ControllerTest {
    * grades or registrations.
    * <p>
    * This test ensures that a student with no associated data can be successfully deleted without
-   * any errors and will return HTTP 204 No Content. It verifies that the repository's delete
-   * operation is called as expected.
+   * any errors and will return HTTP 204 No Content. The bulk deletes simply affect no rows.
    * </p>
    */
   @Test
@@ -750,121 +1328,124 @@ public class ControllerTest {
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
 
-    Mockito.when(studentRepository.findById(myFirstStudent.getId()))
-        .thenReturn(java.util.Optional.of(myFirstStudent));
-    Mockito.when(gradeRepository.findByStudentId(myFirstStudent.getId())).thenReturn(List.of());
-    Mockito.when(registrationRepository.findByStudentId(myFirstStudent.getId()))
-        .thenReturn(List.of());
-
-    ResponseEntity<Void> response = myController.deleteStudent(myFirstStudent.getId());
-
-    assertEquals(204, response.getStatusCodeValue());
-
-    Mockito.verify(studentRepository).delete(myFirstStudent);
-  }
-
-  /**
-   * Tests the deletion of a student when both grades and registrations are null.
-   * <p>
-   * This verifies that a student can still be deleted when there are no associated grades or
-   * registrations. It ensures the HTTP 204 No Content response is returned, and the repository's
-   * delete method is called.
-   * </p>
-   */
-  @Test
-  void testDeleteStudentWithNullGradesAndNullRegistrationsSuccessfully() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-
-    Mockito.when(studentRepository.findById(myFirstStudent.getId()))
+    Mockito.when(studentRepository.findWithLockById(myFirstStudent.getId()))
         .thenReturn(java.util.Optional.of(myFirstStudent));
-    Mockito.when(gradeRepository.findByStudentId(myFirstStudent.getId())).thenReturn(null);
-    Mockito.when(registrationRepository.findByStudentId(myFirstStudent.getId())).thenReturn(null);
+    Mockito.when(gradeRepository.bulkDeleteByStudentId(1L)).thenReturn(0);
+    Mockito.when(registrationRepository.bulkDeleteByStudentId(1L)).thenReturn(0);
 
     ResponseEntity<Void> response = myController.deleteStudent(myFirstStudent.getId());
 
     assertEquals(204, response.getStatusCodeValue());
 
     Mockito.verify(studentRepository).delete(myFirstStudent);
+    Mockito.verify(studentCache).evict(1L);
+    Mockito.verify(studentSearchIndex).remove(1L);
+    Mockito.verify(registrationIndex).removeStudent(1L);
+    Mockito.verify(gradeMatrix).removeStudent(1L);
   }
 
   /**
    * Tests deleting a student successfully when grades and registrations exist.
    * <p>
-   * This ensures that: 1. The student's grades and registrations are checked and deleted first. 2.
-   * After deletion of these dependencies, the student is successfully deleted. 3. The HTTP 204 No
-   * Content response is returned as expected.
+   * This ensures that: 1. The student's grades are removed from the module statistics. 2. The
+   * grades and registrations are removed with bulk deletes, without loading them. 3. The student is
+   * then deleted. 4. The HTTP 204 No Content response is returned as expected.
    * </p>
    */
   @Test
   void testDeleteStudentWithGradesAndRegistrationsSuccessfully() {
     Student myFirstStudent =
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Grade grade = new Grade(80, myFirstStudent, myFirstModule);
 
-    Mockito.when(studentRepository.findById(myFirstStudent.getId()))
+    Mockito.when(studentRepository.findWithLockById(myFirstStudent.getId()))
         .thenReturn(java.util.Optional.of(myFirstStudent));
-    Mockito.when(gradeRepository.findByStudentId(myFirstStudent.getId()))
-        .thenReturn(Arrays.asList(grade));
-    Mockito.when(registrationRepository.findByStudentId(myFirstStudent.getId()))
-        .thenReturn(Arrays.asList(myFirstStudentToFirstModuleRegistration));
+    List<ModuleScore> scores = List.of(new ModuleScore("TM1", 70), new ModuleScore("TM2", 55));
+    Mockito.when(gradeRepository.findModuleScoresByStudentId(1L)).thenReturn(scores);
+    Mockito.when(gradeRepository.bulkDeleteByStudentId(1L)).thenReturn(3);
+    Mockito.when(registrationRepository.bulkDeleteByStudentId(1L)).thenReturn(4);
 
     ResponseEntity<Void> response = myController.deleteStudent(myFirstStudent.getId());
 
     assertEquals(204, response.getStatusCodeValue());
 
-    Mockito.verify(gradeRepository).deleteAll(Arrays.asList(grade));
-    Mockito.verify(registrationRepository)
-        .deleteAll(Arrays.asList(myFirstStudentToFirstModuleRegistration));
-
-    Mockito.verify(studentRepository).delete(myFirstStudent);
+    InOrder inOrder = Mockito.inOrder(moduleStatsService, gradeRepository, registrationRepository,
+        studentRepository);
+    inOrder.verify(moduleStatsService).removeGrades(scores);
+    inOrder.verify(gradeRepository).bulkDeleteByStudentId(1L);
+    inOrder.verify(registrationRepository).bulkDeleteByStudentId(1L);
+    inOrder.verify(studentRepository).delete(myFirstStudent);
+    Mockito.verify(changeEvents).publish(ChangeEvent.studentDeleted(1L));
+    Mockito.verify(gradeRepository, Mockito.never()).findByStudentId(1L);
+    Mockito.verify(registrationRepository, Mockito.never()).findByStudentId(1L);
+    Mockito.verify(gradeRepository, Mockito.never()).deleteAll(anyList());
+    Mockito.verify(registrationRepository, Mockito.never()).deleteAll(anyList());
   }
 
   /**
    * Tests creating a module without an MNC (Module-Related Student or Condition).
    * <p>
    * This test verifies: 1. The module is created successfully with HTTP 200 OK. 2. No registration
-   * is saved when no MNC logic applies.
+   * is created when no MNC logic applies.
    * </p>
    */
   @Test
   void testCreateModuleWithoutMnc() {
     Module myFirstModule = new Module("TM1", "TestModule1", false);
 
-    Mockito.when(moduleRepository.save(myFirstModule)).thenReturn(myFirstModule);
+    Mockito.when(moduleRepository.saveAndFlush(myFirstModule)).thenReturn(myFirstModule);
     ResponseEntity<Module> response = myController.createModule(myFirstModule);
 
     assertEquals(200, response.getStatusCodeValue());
     assertEquals(myFirstModule, response.getBody());
+    assertEquals("0",
+        response.getHeaders().getFirst(Controller.REGISTRATIONS_CREATED_HEADER));
 
     Mockito.verify(registrationRepository, Mockito.never()).save(Mockito.any(Registration.class));
+    Mockito.verify(registrationRepository, Mockito.never()).registerAllStudents(Mockito.any());
+    Mockito.verify(moduleStatsService).initialise("TM1");
+    Mockito.verify(changeEvents).publish(ChangeEvent.moduleCreated("TM1"));
+    Mockito.verifyNoMoreInteractions(changeEvents);
+    Mockito.verify(dataVersion).bump(Table.MODULE);
+    Mockito.verifyNoMoreInteractions(dataVersion);
   }
 
   /**
    * Tests creating a module when MNC is enabled.
    * <p>
-   * This verifies that: 1. The module is created successfully with HTTP 200 OK. 2. No registration
-   * is saved when MNC is toggled (ensuring no unintended operations).
+   * This verifies that: 1. The module is created successfully with HTTP 200 OK. 2. All students
+   * are registered by the single set-based insert, without loading any student or saving
+   * registrations one at a time. 3. The number of registrations created is reported. 4. Each
+   * student the insert registered, and only those, is logged, indexed and announced.
    * </p>
    */
   @Test
   void testCreateModuleWithMnc() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
     Module myFirstModule = new Module("TM1", "TestModule1", true);
 
-    Mockito.when(moduleRepository.save(myFirstModule)).thenReturn(myFirstModule);
-    Mockito.when(studentRepository.findAll()).thenReturn(Arrays.asList(myFirstStudent));
+    Mockito.when(moduleRepository.saveAndFlush(myFirstModule)).thenReturn(myFirstModule);
+    Mockito.when(registrationRepository.findStudentIdsByModuleCode("TM1"))
+        .thenReturn(List.of(9L), List.of(9L, 1L, 2L, 3L));
+    Mockito.when(registrationRepository.registerAllStudents("TM1")).thenReturn(3);
     ResponseEntity<Module> response = myController.createModule(myFirstModule);
 
     assertEquals(200, response.getStatusCodeValue());
     assertEquals(myFirstModule, response.getBody());
-
+    assertEquals("3",
+        response.getHeaders().getFirst(Controller.REGISTRATIONS_CREATED_HEADER));
+
+    List<RegistrationKey> inserted = List.of(new RegistrationKey(1L, "TM1"),
+        new RegistrationKey(2L, "TM1"), new RegistrationKey(3L, "TM1"));
+    Mockito.verify(registrationRepository).registerAllStudents("TM1");
+    Mockito.verify(moduleCatalogue).put(myFirstModule);
+    Mockito.verify(changeLog).registrations(inserted);
+    Mockito.verify(studentCache).evictAll(List.of(1L, 2L, 3L));
+    Mockito.verify(registrationIndex).register(inserted);
+    Mockito.verify(dataVersion).bump(Table.REGISTRATION);
+    Mockito.verify(dataVersion).bump(Table.MODULE);
+    Mockito.verify(changeEvents).publishAll(List.of(ChangeEvent.registrationCreated(1L, "TM1"),
+        ChangeEvent.registrationCreated(2L, "TM1"), ChangeEvent.registrationCreated(3L, "TM1")));
+    Mockito.verify(studentRepository, Mockito.never()).findAll();
     Mockito.verify(registrationRepository, Mockito.never()).save(Mockito.any(Registration.class));
-
   }
 
   /**
@@ -884,190 +1465,214 @@ public class ControllerTest {
    * Tests deleting a module that has no grades or registrations linked to it.
    * <p>
    * This verifies: 1. The module is deleted without side effects. 2. The HTTP 204 No Content
-   * response is returned. 3. No grade or registration deletion calls are made in this scenario.
+   * response is returned. 3. The module is removed from the catalogue.
    * </p>
    */
   @Test
   void testDeleteModuleWhenNoGradesOrRegistrations() {
     Module module = new Module("TM1", "Test Module 1", false);
     Mockito.when(moduleRepository.findById("TM1")).thenReturn(Optional.of(module));
-    Mockito.when(gradeRepository.findByModuleCode("TM1")).thenReturn(Collections.emptyList());
-    Mockito.when(registrationRepository.findByModuleCode("TM1"))
-        .thenReturn(Collections.emptyList());
+    Mockito.when(gradeRepository.bulkDeleteByModuleCode("TM1")).thenReturn(0);
+    Mockito.when(registrationRepository.bulkDeleteByModuleCode("TM1")).thenReturn(0);
 
     ResponseEntity<Void> response = myController.deleteModule("TM1");
 
     assertEquals(204, response.getStatusCodeValue()); // 204 No Content
-    Mockito.verify(gradeRepository).findByModuleCode("TM1");
-    Mockito.verify(registrationRepository).findByModuleCode("TM1");
-    Mockito.verify(gradeRepository, Mockito.never()).deleteAll(anyList());
-    Mockito.verify(registrationRepository, Mockito.never()).deleteAll(anyList());
+    Mockito.verify(studentRepository).subtractModuleGrades("TM1");
+    Mockito.verify(moduleStatsService).drop("TM1");
+    Mockito.verify(gradeRepository).bulkDeleteByModuleCode("TM1");
+    Mockito.verify(registrationRepository).bulkDeleteByModuleCode("TM1");
     Mockito.verify(moduleRepository).delete(module);
+    Mockito.verify(moduleCatalogue).remove("TM1");
+    Mockito.verify(registrationIndex).removeModule("TM1");
+    Mockito.verify(gradeMatrix).removeModule("TM1");
+    InOrder inOrder = Mockito.inOrder(changeLog, gradeRepository, registrationRepository);
+    inOrder.verify(changeLog).moduleDeleted("TM1");
+    inOrder.verify(gradeRepository).bulkDeleteByModuleCode("TM1");
+    inOrder.verify(registrationRepository).bulkDeleteByModuleCode("TM1");
   }
 
   /**
-   * Tests deleting a module when both grades and registrations are null.
+   * Tests deleting a module when grades and registrations exist.
    * <p>
-   * This verifies that: 1. The module is deleted without side effects or errors. 2. The HTTP 204 No
-   * Content response is returned. 3. Grade and registration deletions are skipped.
+   * This ensures: 1. All associated grades and registrations are removed with bulk deletes,
+   * without loading them. 2. The HTTP 204 No Content response is returned. 3. The module itself is
+   * deleted last.
    * </p>
    */
   @Test
-  void testDeleteModuleWhenNullGradesAndNullRegistrations() {
-    Module module = new Module("TM1", "Test Module 1", false);
+  void testDeleteModuleWhenGradesAndRegistrationsExist() {
+    Module module = new Module("TM1", "TestModule1", false);
     Mockito.when(moduleRepository.findById("TM1")).thenReturn(Optional.of(module));
-    Mockito.when(gradeRepository.findByModuleCode("TM1")).thenReturn(null);
-    Mockito.when(registrationRepository.findByModuleCode("TM1")).thenReturn(null);
+    Mockito.when(gradeRepository.bulkDeleteByModuleCode("TM1")).thenReturn(2000);
+    Mockito.when(registrationRepository.bulkDeleteByModuleCode("TM1")).thenReturn(2000);
 
     ResponseEntity<Void> response = myController.deleteModule("TM1");
 
     assertEquals(204, response.getStatusCodeValue()); // 204 No Content
-    Mockito.verify(gradeRepository).findByModuleCode("TM1");
-    Mockito.verify(registrationRepository).findByModuleCode("TM1");
+    InOrder inOrder = Mockito.inOrder(studentRepository, gradeRepository, registrationRepository,
+        moduleRepository);
+    inOrder.verify(studentRepository).subtractModuleGrades("TM1");
+    inOrder.verify(gradeRepository).bulkDeleteByModuleCode("TM1");
+    inOrder.verify(registrationRepository).bulkDeleteByModuleCode("TM1");
+    inOrder.verify(moduleRepository).delete(module);
+    Mockito.verify(changeEvents).publish(ChangeEvent.moduleDeleted("TM1"));
+    Mockito.verify(gradeRepository, Mockito.never()).findByModuleCode("TM1");
+    Mockito.verify(registrationRepository, Mockito.never()).findByModuleCode("TM1");
     Mockito.verify(gradeRepository, Mockito.never()).deleteAll(anyList());
     Mockito.verify(registrationRepository, Mockito.never()).deleteAll(anyList());
-    Mockito.verify(moduleRepository).delete(module);
   }
 
   /**
-   * Tests deleting a module when grades and registrations exist.
+   * Tests the {@link Controller#registerStudents(List)} method with a mixed batch.
    * <p>
-   * This ensures: 1. All associated grades and registrations are deleted. 2. The HTTP 204 No
-   * Content response is returned. 3. Repository methods for grade and registration deletions are
-   * invoked correctly.
+   * The test verifies that each pair gets its own result, that modules and students are each
+   * resolved once, that only valid, non-duplicated pairs are passed to the batch insert, and that
+   * a pair is reported as created only if the insert reports it inserted, so a pair another
+   * request registered first is reported as existing.
    * </p>
    */
   @Test
-  void testDeleteModuleWhenGradesAndRegistrationsExist() {
-
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Student mySecondStudent =
-        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(studentRepository.findById(2L)).thenReturn(Optional.of(mySecondStudent));
-
-    myFirstModule = new Module("TM1", "TestModule1", false);
-    myFirstModule.setCode("1");
-    Mockito.when(moduleRepository.findById("1")).thenReturn(Optional.of(myFirstModule));
-
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Registration mySecondStudentToFirstModuleRegistration =
-        new Registration(mySecondStudent, myFirstModule);
-    Mockito.when(registrationRepository.findAll()).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, mySecondStudentToFirstModuleRegistration));
-
-    Grade firstStudentFirstModuleGrade = new Grade(10, myFirstStudent, myFirstModule);
-    Grade secondStudentFirstModuleGrade = new Grade(10, myFirstStudent, mySecondModule);
-    myFirstStudent.addGrade(firstStudentFirstModuleGrade);
-    mySecondStudent.addGrade(secondStudentFirstModuleGrade);
+  void testRegisterStudentsBatch() {
+    Module myFirstModule = new Module("TM1", "TestModule1", false);
+    RegistrationKey created = new RegistrationKey(1L, "TM1");
+    RegistrationKey existing = new RegistrationKey(2L, "TM1");
+    RegistrationKey unknownModule = new RegistrationKey(1L, "NOPE");
+    RegistrationKey unknownStudent = new RegistrationKey(3L, "TM1");
 
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(studentRepository.findExistingIds(Mockito.anyCollection()))
+        .thenReturn(List.of(1L, 2L));
+    Mockito.when(registrationRepository.insertMissing(Set.of(created, existing)))
+        .thenReturn(List.of(created));
 
-    Mockito.when(moduleRepository.findById("TM1")).thenReturn(Optional.of(myFirstModule));
-    Mockito.when(gradeRepository.findByModuleCode("TM1"))
-        .thenReturn(List.of(firstStudentFirstModuleGrade, secondStudentFirstModuleGrade));
-    Mockito.when(registrationRepository.findByModuleCode("TM1")).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, mySecondStudentToFirstModuleRegistration));
+    ResponseEntity<List<RegistrationResult>> response = myController.registerStudents(
+        List.of(created, existing, unknownModule, unknownStudent, created));
 
-    ResponseEntity<Void> response = myController.deleteModule("TM1");
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(List.of(
+            new RegistrationResult(created, RegistrationResult.Status.CREATED),
+            new RegistrationResult(existing, RegistrationResult.Status.ALREADY_EXISTS),
+            new RegistrationResult(unknownModule, RegistrationResult.Status.INVALID_MODULE),
+            new RegistrationResult(unknownStudent, RegistrationResult.Status.INVALID_STUDENT),
+            new RegistrationResult(created, RegistrationResult.Status.ALREADY_EXISTS)),
+        response.getBody());
+
+    Mockito.verify(moduleRepository, Mockito.never()).findAllById(Mockito.anyIterable());
+    Mockito.verify(registrationRepository).insertMissing(Set.of(created, existing));
+    Mockito.verify(changeLog).registrations(List.of(created));
+    Mockito.verify(registrationIndex).register(List.of(created));
+    Mockito.verify(dataVersion).bump(Table.REGISTRATION);
+    Mockito.verify(changeEvents).publishAll(List.of(ChangeEvent.registrationCreated(1L, "TM1")));
+    Mockito.verify(registrationRepository, Mockito.never()).save(Mockito.any(Registration.class));
+  }
 
-    assertEquals(204, response.getStatusCodeValue()); // 204 No Content
-    Mockito.verify(gradeRepository).findByModuleCode("TM1");
-    Mockito.verify(registrationRepository).findByModuleCode("TM1");
-    Mockito.verify(gradeRepository)
-        .deleteAll(List.of(firstStudentFirstModuleGrade, secondStudentFirstModuleGrade));
-    Mockito.verify(registrationRepository).deleteAll(
-        List.of(myFirstStudentToFirstModuleRegistration, mySecondStudentToFirstModuleRegistration));
-    Mockito.verify(moduleRepository).delete(myFirstModule);
+  /**
+   * Tests the {@link Controller#registerStudents(List)} method with an empty batch.
+   * <p>
+   * The test verifies that an empty result list is returned without touching the repositories.
+   * </p>
+   */
+  @Test
+  void testRegisterStudentsEmptyBatch() {
+    assertThat(myController.registerStudents(List.of()).getBody()).isEmpty();
+    Mockito.verifyNoInteractions(moduleRepository, studentRepository, registrationRepository);
   }
 
   /**
-   * Tests deleting a registration when valid associations exist.
+   * Tests deleting a registration together with its grade.
    * <p>
-   * This ensures: 1. The registration is deleted successfully. 2. All associated grades for the
-   * registration are deleted, as expected. 3. The HTTP 204 No Content response is returned.
+   * This ensures that the registration and its grades are removed with bulk deletes and that the
+   * HTTP 204 No Content response is returned.
    * </p>
    */
   @Test
   void testDeleteRegistration() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Grade firstStudentFirstModuleGrade = new Grade(10, myFirstStudent, myFirstModule);
-
-    Mockito.when(registrationRepository.findByStudentIdAndModuleCode(1L, "TM1"))
-        .thenReturn(myFirstStudentToFirstModuleRegistration);
-    Mockito.when(gradeRepository.findByStudentIdAndModuleCode(1L, "TM1"))
-        .thenReturn(List.of(firstStudentFirstModuleGrade));
+    Mockito.when(registrationRepository.bulkDeleteByStudentIdAndModuleCode(1L, "TM1"))
+        .thenReturn(1);
+    Mockito.when(gradeRepository.bulkDeleteByStudentIdAndModuleCode(1L, "TM1")).thenReturn(1);
+    Mockito.when(gradeRepository.findScore(1L, "TM1")).thenReturn(Optional.of(60));
 
     assertThat(myController.deleteRegistration(1L, "TM1")).isEqualTo(
         ResponseEntity.noContent().build());
-    Mockito.verify(registrationRepository).delete(myFirstStudentToFirstModuleRegistration);
-    Mockito.verify(gradeRepository).deleteAll(List.of(firstStudentFirstModuleGrade));
+    Mockito.verify(moduleStatsService).removeGrades(List.of(new ModuleScore("TM1", 60)));
+    Mockito.verify(registrationRepository).bulkDeleteByStudentIdAndModuleCode(1L, "TM1");
+    InOrder inOrder = Mockito.inOrder(studentRepository, gradeRepository);
+    inOrder.verify(studentRepository).subtractModuleGrade(1L, "TM1");
+    inOrder.verify(gradeRepository).bulkDeleteByStudentIdAndModuleCode(1L, "TM1");
+    Mockito.verify(studentCache).evict(1L);
+    InOrder logOrder = Mockito.inOrder(changeLog, registrationRepository, gradeRepository);
+    logOrder.verify(changeLog).registrationDeleted(1L, "TM1");
+    logOrder.verify(registrationRepository).bulkDeleteByStudentIdAndModuleCode(1L, "TM1");
+    logOrder.verify(changeLog).gradeDeleted(1L, "TM1");
+    logOrder.verify(gradeRepository).bulkDeleteByStudentIdAndModuleCode(1L, "TM1");
+    Mockito.verify(changeEvents).publish(ChangeEvent.registrationDeleted(1L, "TM1", 60));
+    Mockito.verify(registrationIndex).unregister(1L, "TM1");
+    Mockito.verify(gradeMatrix).remove(1L, "TM1");
+    Mockito.verify(registrationRepository, Mockito.never())
+        .findByStudentIdAndModuleCode(1L, "TM1");
   }
 
   /**
-   * Tests attempting to delete a null registration.
+   * Tests attempting to delete a registration that does not exist.
    * <p>
-   * This ensures that when no registration is found, the HTTP 404 Not Found response is returned.
+   * This ensures that when the bulk delete affects no row, the HTTP 404 Not Found response is
+   * returned and no grade is touched.
    * </p>
    */
   @Test
   void testDeleteNullRegistration() {
-    Mockito.when(registrationRepository.findByStudentIdAndModuleCode(1L, "TM1")).thenReturn(null);
+    Mockito.when(registrationRepository.bulkDeleteByStudentIdAndModuleCode(1L, "TM1"))
+        .thenReturn(0);
     assertThat(myController.deleteRegistration(1L, "TM1")).isEqualTo(
         ResponseEntity.notFound().build());
+    Mockito.verify(gradeRepository, Mockito.never())
+        .bulkDeleteByStudentIdAndModuleCode(Mockito.anyLong(), Mockito.anyString());
+    Mockito.verifyNoInteractions(changeEvents);
   }
 
   /**
-   * Tests deleting a registration when no grades are associated.
+   * Tests the {@link Controller#getCohort(List, List, List)} method.
    * <p>
-   * This ensures: 1. The registration is deleted successfully. 2. No grades are found and no
-   * additional operations fail. 3. The HTTP 204 No Content response is returned as expected.
+   * This ensures that the cohort is evaluated by the registration index, that a missing group of
+   * modules places no condition, and that an unknown module is rejected with 400 Bad Request.
    * </p>
    */
   @Test
-  void testDeleteRegistrationWithNullGrades() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-
-    Mockito.when(registrationRepository.findByStudentIdAndModuleCode(1L, "TM1"))
-        .thenReturn(myFirstStudentToFirstModuleRegistration);
-    Mockito.when(gradeRepository.findByStudentIdAndModuleCode(1L, "TM1")).thenReturn(null);
+  void testGetCohort() {
+    Mockito.when(moduleCatalogue.contains("TM1")).thenReturn(true);
+    Mockito.when(moduleCatalogue.contains("TM2")).thenReturn(true);
+    Mockito.when(registrationIndex.cohort(List.of("TM1"), List.of(), List.of("TM2")))
+        .thenReturn(List.of(1L, 3L));
+
+    ResponseEntity<List<Long>> response =
+        myController.getCohort(List.of("TM1"), null, List.of("TM2"));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(List.of(1L, 3L), response.getBody());
 
-    assertThat(myController.deleteRegistration(1L, "TM1")).isEqualTo(
-        ResponseEntity.noContent().build());
-    Mockito.verify(registrationRepository).delete(myFirstStudentToFirstModuleRegistration);
+    assertEquals(HttpStatus.BAD_REQUEST,
+        myController.getCohort(List.of("TM1"), List.of("NOPE"), null).getStatusCode());
+    Mockito.verify(registrationIndex, Mockito.times(1))
+        .cohort(Mockito.anyCollection(), Mockito.anyCollection(), Mockito.anyCollection());
   }
 
   /**
-   * Tests deleting a registration when no associated grades are linked.
+   * Tests deleting a registration when no grades are associated.
    * <p>
-   * This ensures: 1. The registration is deleted successfully. 2. The HTTP 204 No Content response
-   * is returned.
+   * This ensures: 1. The registration is deleted successfully. 2. The grade bulk delete affecting
+   * no row does not fail. 3. The HTTP 204 No Content response is returned as expected.
    * </p>
    */
   @Test
-  void testDeleteRegistrationWithEmptyGrades() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Module myFirstModule = new Module("TM1", "TestModule1", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-
-    Mockito.when(registrationRepository.findByStudentIdAndModuleCode(1L, "TM1"))
-        .thenReturn(myFirstStudentToFirstModuleRegistration);
-    Mockito.when(gradeRepository.findByStudentIdAndModuleCode(1L, "TM1")).thenReturn(List.of());
+  void testDeleteRegistrationWithNoGrades() {
+    Mockito.when(registrationRepository.bulkDeleteByStudentIdAndModuleCode(1L, "TM1"))
+        .thenReturn(1);
+    Mockito.when(gradeRepository.bulkDeleteByStudentIdAndModuleCode(1L, "TM1")).thenReturn(0);
 
     assertThat(myController.deleteRegistration(1L, "TM1")).isEqualTo(
         ResponseEntity.noContent().build());
-    Mockito.verify(registrationRepository).delete(myFirstStudentToFirstModuleRegistration);
+    Mockito.verify(registrationRepository).bulkDeleteByStudentIdAndModuleCode(1L, "TM1");
+    Mockito.verify(changeEvents).publish(ChangeEvent.registrationDeleted(1L, "TM1", null));
   }
 
   /**
@@ -1083,17 +1688,14 @@ public class ControllerTest {
         createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
     Module myFirstModule = new Module("TM1", "TestModule1", false);
     Module mySecondModule = new Module("TM2", "TestModule2", false);
-    Registration myFirstStudentToFirstModuleRegistration =
-        new Registration(myFirstStudent, myFirstModule);
-    Registration myFirstStudentToSecondModuleRegistration =
-        new Registration(myFirstStudent, mySecondModule);
 
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(registrationRepository.findByStudentId(1L)).thenReturn(
-        List.of(myFirstStudentToFirstModuleRegistration, myFirstStudentToSecondModuleRegistration));
+    Mockito.when(studentCache.findModuleCodes(1L)).thenReturn(Optional.of(List.of("TM1", "TM2")));
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.of(myFirstModule));
+    Mockito.when(moduleCatalogue.find("TM2")).thenReturn(Optional.of(mySecondModule));
 
     assertThat(myController.getRegisteredModulesByStudentId(1L)).isEqualTo(
         ResponseEntity.ok(List.of(myFirstModule, mySecondModule)));
+    Mockito.verify(registrationRepository, Mockito.never()).findByStudentId(1L);
   }
 
   /**
@@ -1104,7 +1706,7 @@ public class ControllerTest {
    */
   @Test
   void testGetRegisteredModulesByStudentIdWhenStudentNotFound() {
-    Mockito.when(moduleRepository.findById("1")).thenReturn(null);
+    Mockito.when(studentCache.findModuleCodes(1L)).thenReturn(Optional.empty());
     assertThat(myController.getRegisteredModulesByStudentId(1L)).isEqualTo(
         ResponseEntity.notFound().build());
   }
@@ -1117,31 +1719,81 @@ public class ControllerTest {
    */
   @Test
   void testGetRegisteredModulesByStudentIdWithNoModule() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(registrationRepository.findByStudentId(1L)).thenReturn(List.of());
+    Mockito.when(studentCache.findModuleCodes(1L)).thenReturn(Optional.of(List.of()));
     assertThat(myController.getRegisteredModulesByStudentId(1L)).isEqualTo(
         ResponseEntity.ok(List.of()));
   }
 
   /**
-   * Tests retrieving registered modules when null responses are returned by the repository.
+   * Tests retrieving registered modules when a cached module code is no longer in the catalogue.
    * <p> This verifies:
-   * 1. The response returns HTTP 200 OK with an empty list when nulls are encountered instead of
-   * valid data.</p>
+   * 1. The response returns HTTP 200 OK with an empty list when the module was deleted after the
+   * student's module codes were cached.</p>
    */
   @Test
-  void testGetRegisteredModulesByStudentIdWithNullModule() {
-    Student myFirstStudent =
-        createTestStudent(1L, "First", "Student", "firststudent@mail.com", "firststudent1");
-
-    Mockito.when(studentRepository.findById(1L)).thenReturn(Optional.of(myFirstStudent));
-    Mockito.when(registrationRepository.findByStudentId(1L)).thenReturn(null);
+  void testGetRegisteredModulesByStudentIdWithDeletedModule() {
+    Mockito.when(studentCache.findModuleCodes(1L)).thenReturn(Optional.of(List.of("TM1")));
+    Mockito.when(moduleCatalogue.find("TM1")).thenReturn(Optional.empty());
 
     assertThat(myController.getRegisteredModulesByStudentId(1L)).isEqualTo(
         ResponseEntity.ok(List.of()));
   }
 
+  /**
+   * Tests the {@link Controller#sync(long)} method.
+   * <p>
+   * This verifies that the delta built by the sync service is returned with HTTP 200 OK.
+   * </p>
+   */
+  @Test
+  void testSync() {
+    SyncDelta delta = new SyncDelta(7, false, List.of(), List.of(), List.of(), List.of(),
+        new SyncDelta.Tombstones(List.of(1L), List.of(), List.of(), List.of()));
+    Mockito.when(syncService.since(3)).thenReturn(delta);
+
+    assertThat(myController.sync(3)).isEqualTo(ResponseEntity.ok(delta));
+  }
+
+  /**
+   * Tests the {@link Controller#sync(long)} method with a negative sequence number.
+   * <p>
+   * This verifies that HTTP 400 Bad Request is returned without reading the change log.
+   * </p>
+   */
+  @Test
+  void testSyncWithNegativeSince() {
+    assertEquals(HttpStatus.BAD_REQUEST, myController.sync(-1).getStatusCode());
+    Mockito.verifyNoInteractions(syncService);
+  }
+
+  /**
+   * Tests the {@link Controller#subscribeToEvents()} method.
+   * <p>
+   * This verifies that the emitter created by the broadcaster is returned to the client.
+   * </p>
+   */
+  @Test
+  void testSubscribeToEvents() {
+    SseEmitter emitter = new SseEmitter();
+    Mockito.when(changeEvents.subscribe()).thenReturn(emitter);
+
+    assertThat(myController.subscribeToEvents()).isSameAs(emitter);
+  }
+
+  /**
+   * Tests the {@link Controller#getStudentCacheStats()} method.
+   * <p>
+   * This verifies that the counters of the student cache are returned as-is.
+   * </p>
+   */
+  @Test
+  void testGetStudentCacheStats() {
+    StudentCacheStats stats = new StudentCacheStats(10, 2, 1, 0, 9);
+    Mockito.when(studentCache.stats()).thenReturn(stats);
+
+    assertEquals(HttpStatus.OK, myController.getStudentCacheStats().getStatusCode());
+    assertEquals(stats, myController.getStudentCacheStats().getBody());
+  }
+
 
 }
@@ -0,0 +1,194 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests the CSV exports against the full application context, and benchmarks the grade export
+ * at {@value #STUDENTS} x {@value #MODULES} grades.
+ */
+@SpringBootTest
+public class CsvExportTest {
+
+  /**
+   * Default constructor for CsvExportTest.
+   */
+  public CsvExportTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 500;
+
+  /**
+   * The number of modules in the benchmark data set; every student has a grade in each.
+   */
+  private static final int MODULES = 500;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Inserts two students and two modules, one of them with a name that must be quoted.
+   */
+  private void insertSmallData() {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) VALUES (1, 'Ada', 'Lovelace', 'ada', 'ada@mail.com', 0, 0), "
+        + "(2, 'Alan', 'Turing', 'alan', 'alan@mail.com', 0, 0)");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) VALUES "
+        + "('M1', 'Logic, \"Sets\" and Proofs', FALSE), ('M2', 'Compilers', FALSE)");
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) VALUES "
+        + "(1, 'M1', 90), (2, 'M1', 35), (1, 'M2', 70)");
+  }
+
+  /**
+   * Writes a response body to memory.
+   *
+   * @param body the body.
+   * @return the bytes written.
+   * @throws IOException if the body cannot be written.
+   */
+  private static byte[] write(StreamingResponseBody body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    body.writeTo(out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Tests the roster of a module, including the quoting of a field.
+   *
+   * @throws IOException if the export cannot be written.
+   */
+  @Test
+  void testExportRoster() throws IOException {
+    insertSmallData();
+    String csv = new String(write(controller.exportRoster("M1", null).getBody()),
+        StandardCharsets.UTF_8);
+    assertEquals("Student ID,First Name,Last Name,Username,Score\r\n"
+        + "1,Ada,Lovelace,ada,90\r\n"
+        + "2,Alan,Turing,alan,35\r\n", csv);
+  }
+
+  /**
+   * Tests the transcript of a student, including the quoting of a module name.
+   *
+   * @throws IOException if the export cannot be written.
+   */
+  @Test
+  void testExportTranscript() throws IOException {
+    insertSmallData();
+    String csv = new String(write(controller.exportTranscript(1L, null).getBody()),
+        StandardCharsets.UTF_8);
+    assertEquals("Module Code,Module Name,Score\r\n"
+        + "M1,\"Logic, \"\"Sets\"\" and Proofs\",90\r\n"
+        + "M2,Compilers,70\r\n", csv);
+  }
+
+  /**
+   * Tests that a gzip export decompresses to the same CSV as the plain export.
+   *
+   * @throws IOException if the export cannot be written.
+   */
+  @Test
+  void testExportGradesWithGzip() throws IOException {
+    insertSmallData();
+    byte[] plain = write(controller.exportGrades(null).getBody());
+    byte[] compressed = write(controller.exportGrades("gzip").getBody());
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      assertEquals(new String(plain, StandardCharsets.UTF_8),
+          new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    assertEquals(4, new String(plain, StandardCharsets.UTF_8).split("\r\n").length);
+  }
+
+  /**
+   * Exports {@value #STUDENTS} x {@value #MODULES} grades, checking that every row is written
+   * within the time limit.
+   *
+   * @throws IOException if the export cannot be written.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkExportGrades() throws IOException {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), 0, 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) "
+        + "SELECT s.id, m.code, MOD(s.id + LENGTH(m.code), 101) FROM student s, module m");
+
+    long[] lines = new long[1];
+    OutputStream counting = new OutputStream() {
+      @Override
+      public void write(int b) {
+        if (b == '\n') {
+          lines[0]++;
+        }
+      }
+    };
+
+    long start = System.nanoTime();
+    controller.exportGrades(null).getBody().writeTo(counting);
+    long nanos = System.nanoTime() - start;
+
+    long rows = (long) STUDENTS * MODULES;
+    assertEquals(rows + 1, lines[0]);
+    assertTrue(nanos < 60_000_000_000L, "the export should finish in seconds");
+  }
+}
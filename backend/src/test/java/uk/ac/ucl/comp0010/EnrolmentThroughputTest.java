@@ -0,0 +1,99 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+/**
+ * Benchmark of enrolment-day throughput: creating students through {@link Controller} while
+ * several MNC modules exist, each new student being auto-registered for all of them.
+ * <p>
+ * The test runs against the full application context so that the transaction, the MNC module
+ * cache and the JDBC registration batch are all exercised. It checks that every mandatory
+ * registration was written.
+ * </p>
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class EnrolmentThroughputTest {
+
+  /**
+   * Default constructor for EnrolmentThroughputTest.
+   */
+  public EnrolmentThroughputTest() {
+  }
+
+  /**
+   * The number of students created by the benchmark.
+   */
+  private static final int STUDENTS = 500;
+
+  /**
+   * The number of MNC modules every student is registered for.
+   */
+  private static final int MNC_MODULES = 5;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the benchmark created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Creates {@value #STUDENTS} students, each registered for every MNC module.
+   */
+  @Test
+  void benchmarkCreateStudentWithMncModules() {
+    for (int i = 0; i < MNC_MODULES; i++) {
+      controller.createModule(new Module("MNC" + i, "Mandatory module " + i, true));
+    }
+
+    for (long id = 1; id <= STUDENTS; id++) {
+      Student student = new Student();
+      student.setId(id);
+      student.setUsername("student" + id);
+      controller.createStudent(student);
+    }
+
+    assertEquals((long) STUDENTS * MNC_MODULES, registrationRepository.count());
+  }
+}
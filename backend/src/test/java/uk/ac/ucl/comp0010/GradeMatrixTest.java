@@ -0,0 +1,227 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.List;
+
+/**
+ * Integration tests for the {@link GradeMatrix}.
+ * <p>
+ * The writes go through {@link Controller}, so the tests check that every write path keeps the
+ * matrix in step with the grade table and that the insights read from it. A benchmark checks the
+ * size of the columns holding {@value #STUDENTS} students with a grade in each of
+ * {@value #MODULES} modules.
+ * </p>
+ */
+@SpringBootTest
+public class GradeMatrixTest {
+
+  /**
+   * Default constructor for GradeMatrixTest.
+   */
+  public GradeMatrixTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 5000;
+
+  /**
+   * The number of modules in the benchmark data set; every student has a grade in each.
+   */
+  private static final int MODULES = 40;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private GradeMatrix gradeMatrix;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private DataVersion dataVersion;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Reloads the matrix before each test, since other tests write to the tables directly.
+   */
+  @BeforeEach
+  void setUp() {
+    gradeMatrix.invalidate();
+  }
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+    gradeMatrix.invalidate();
+  }
+
+  /**
+   * Creates a student through the controller.
+   *
+   * @param id the ID of the student.
+   * @return the student.
+   */
+  private Student createStudent(long id) {
+    Student student = new Student();
+    student.setId(id);
+    student.setUsername("student" + id);
+    return controller.createStudent(student).getBody();
+  }
+
+  /**
+   * Returns the score of a student in a module, as held by the matrix.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @return the score, or {@code null} if the matrix holds none.
+   */
+  private Integer score(long studentId, String moduleCode) {
+    return gradeMatrix.read(scores -> {
+      for (int module = 0; module < scores.modules(); module++) {
+        if (!scores.moduleCode(module).equals(moduleCode)) {
+          continue;
+        }
+        for (int student = 0; student < scores.students(); student++) {
+          int score = scores.score(module, student);
+          if (scores.studentId(student) == studentId && score != GradeMatrix.NO_GRADE) {
+            return score;
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Tests that grades written and deleted by every write path are reflected in the matrix and in
+   * the insights computed from it.
+   */
+  @Test
+  void testWritesKeepMatrixInStep() {
+    Module first = controller.createModule(new Module("GM1", "Matrix 1", false)).getBody();
+    Module second = controller.createModule(new Module("GM2", "Matrix 2", false)).getBody();
+    Student one = createStudent(1);
+    Student two = createStudent(2);
+    controller.registerStudents(List.of(new RegistrationKey(1L, "GM1"),
+        new RegistrationKey(1L, "GM2"), new RegistrationKey(2L, "GM1")));
+    controller.addGrade(new Grade(80, one, first));
+    controller.addGrade(new Grade(30, one, second));
+    controller.addGrade(new Grade(60, two, first));
+
+    assertEquals(80, score(1, "GM1"));
+    assertEquals(30, score(1, "GM2"));
+    assertNull(score(2, "GM2"));
+    assertEquals(170.0 / 3, controller.getInsights().getBody().averageGrade(), 0.001);
+
+    controller.addGrade(new Grade(90, one, first));
+    assertEquals(90, score(1, "GM1"));
+
+    controller.deleteRegistration(1L, "GM2");
+    assertNull(score(1, "GM2"));
+
+    // The last student takes the row of the one deleted
+    controller.deleteStudent(1L);
+    assertNull(score(1, "GM1"));
+    assertEquals(60, score(2, "GM1"));
+    assertEquals(60.0, controller.getInsights().getBody().averageGrade(), 0.001);
+
+    controller.deleteModule("GM1");
+    assertNull(score(2, "GM1"));
+    assertEquals(1, (int) gradeMatrix.read(scores -> scores.modules()));
+    assertNull(controller.getInsights().getBody().averageGrade());
+  }
+
+  /**
+   * Checks that the matrix holds every score of the grade table, in columns of under two bytes
+   * per grade.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkBytesPerGrade() {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), 0, 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) "
+        + "SELECT s.id, m.code, MOD(s.id * 7 + CAST(SUBSTRING(m.code, 3) AS INT) * 13, 101) "
+        + "FROM student s, module m");
+    moduleCatalogue.invalidate();
+    gradeMatrix.invalidate();
+    dataVersion.bump();
+    int grades = STUDENTS * MODULES;
+    long expectedSum = jdbcTemplate.queryForObject("SELECT SUM(score) FROM grade", Long.class);
+
+    long sum = gradeMatrix.read(scores -> {
+      long total = 0;
+      for (int module = 0; module < scores.modules(); module++) {
+        for (int student = 0; student < scores.students(); student++) {
+          int score = scores.score(module, student);
+          if (score != GradeMatrix.NO_GRADE) {
+            total += score;
+          }
+        }
+      }
+      return total;
+    });
+    long columnBytes = gradeMatrix.read(scores -> {
+      assertEquals(STUDENTS, scores.students());
+      assertEquals(MODULES, scores.modules());
+      return (long) scores.capacity() * scores.modules();
+    });
+
+    assertEquals(expectedSum, sum);
+    assertEquals(expectedSum, Math.round(controller.getInsights().getBody().averageGrade()
+        * grades));
+    // The columns grow by doubling, so each is less than twice as long as needed
+    assertTrue(columnBytes < 2L * grades, "a grade should take under two bytes in the matrix");
+  }
+}
@@ -5,17 +5,25 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import uk.ac.ucl.comp0010.grade.Grade;
 import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
 import uk.ac.ucl.comp0010.student.Student;
 import uk.ac.ucl.comp0010.student.StudentRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,7 +39,7 @@ import java.util.Optional;
  * invalid query conditions.
  * </p>
  */
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class GradeRepositoryTest {
 
   /**
@@ -46,6 +54,10 @@ public class GradeRepositoryTest {
   private StudentRepository studentRepository;
   @Autowired
   private ModuleRepository moduleRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private EntityManager entityManager;
 
   private Student student;
   private Module module;
@@ -201,7 +213,8 @@ public class GradeRepositoryTest {
    */
   @Test
   public void testFindAllGrades() {
-    Grade anotherGrade = new Grade(90, student, module);
+    Module anotherModule = moduleRepository.save(new Module("CS102", "Algorithms", false));
+    Grade anotherGrade = new Grade(90, student, anotherModule);
     gradeRepository.save(grade);
     gradeRepository.save(anotherGrade);
 
@@ -269,4 +282,212 @@ public class GradeRepositoryTest {
     assertTrue(retrievedGradeWithNullModule.isPresent());
   }
 
+  /**
+   * Tests that the transcript query returns only the requested student's grades with their
+   * modules already initialised.
+   */
+  @Test
+  public void testFindTranscriptByStudentId_Valid() {
+    List<Grade> transcript = gradeRepository.findTranscriptByStudentId(student.getId());
+
+    assertThat(transcript).hasSize(1);
+    assertEquals("CS101", transcript.get(0).getModule().getCode());
+    assertEquals(85, transcript.get(0).getScore());
+  }
+
+  /**
+   * Benchmarks the transcript query against a growing registration table.
+   * <p>
+   * The number of SQL statements issued (and therefore the work done per transcript view) must
+   * stay at a single statement whether there are no other registrations or thousands of them.
+   * </p>
+   */
+  @Test
+  public void testFindTranscriptByStudentId_ConstantAsRegistrationsGrow() {
+    long statementsBefore = countStatements(
+        () -> gradeRepository.findTranscriptByStudentId(student.getId())
+            .forEach(g -> g.getModule().getName()));
+
+    for (long id = 100; id < 2100; id++) {
+      Student other = new Student();
+      other.setId(id);
+      other.setUsername("student" + id);
+      studentRepository.save(other);
+      registrationRepository.save(new Registration(other, module));
+    }
+
+    long statementsAfter = countStatements(
+        () -> gradeRepository.findTranscriptByStudentId(student.getId())
+            .forEach(g -> g.getModule().getName()));
+
+    assertEquals(1, statementsBefore);
+    assertEquals(statementsBefore, statementsAfter);
+  }
+
+  /**
+   * Tests that the module roster query returns compact rows carrying the student summary.
+   */
+  @Test
+  public void testFindRosterByModuleCode_Valid() {
+    List<ModuleGrade> roster = gradeRepository.findRosterByModuleCode(module.getCode());
+
+    assertThat(roster).hasSize(1);
+    assertEquals(85, roster.get(0).score());
+    assertEquals(student.getId(), roster.get(0).student().id());
+    assertEquals("johndoe", roster.get(0).student().username());
+  }
+
+  /**
+   * Tests that reading a module roster issues a single SQL statement however many students hold a
+   * grade in the module, so there is no per-student lazy loading.
+   */
+  @Test
+  public void testFindRosterByModuleCode_ConstantStatementCount() {
+    long statementsForOneStudent =
+        countStatements(() -> gradeRepository.findRosterByModuleCode(module.getCode()));
+
+    for (long id = 100; id < 150; id++) {
+      Student other = new Student();
+      other.setId(id);
+      other.setUsername("student" + id);
+      studentRepository.save(other);
+      gradeRepository.save(new Grade(50, other, module));
+    }
+
+    List<ModuleGrade> roster = new ArrayList<>();
+    long statementsForManyStudents =
+        countStatements(() -> roster.addAll(gradeRepository.findRosterByModuleCode("CS101")));
+
+    assertThat(roster).hasSize(51);
+    assertEquals(1, statementsForOneStudent);
+    assertEquals(statementsForOneStudent, statementsForManyStudents);
+  }
+
+  /**
+   * Tests that the compact grade views are read in one statement that loads no entity.
+   */
+  @Test
+  public void testFindAllViews_LoadsNoEntity() {
+    for (long id = 100; id < 150; id++) {
+      Student other = new Student();
+      other.setId(id);
+      other.setUsername("student" + id);
+      studentRepository.save(other);
+      gradeRepository.save(new Grade(50, other, module));
+    }
+
+    List<GradeView> views = new ArrayList<>();
+    long statements = countStatements(() -> views.addAll(gradeRepository.findAllViews()));
+    long entitiesLoaded = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+        .getStatistics().getEntityLoadCount();
+
+    assertThat(views).hasSize(51);
+    assertEquals(new GradeView(grade.getId(), 85, student.getId(), "CS101"), views.get(0));
+    assertEquals(1, statements);
+    assertEquals(0, entitiesLoaded);
+  }
+
+  /**
+   * Tests that the module cascade deletes its grades and registrations with a constant number of
+   * statements.
+   * <p>
+   * Verifies that: 1. The bulk deletes report every row they removed. 2. Exactly one statement is
+   * sent per table, whether the module has one or fifty students.
+   * </p>
+   */
+  @Test
+  public void testBulkDeleteByModuleCode_ConstantStatementCount() {
+    registrationRepository.save(new Registration(student, module));
+    for (long id = 100; id < 150; id++) {
+      Student other = new Student();
+      other.setId(id);
+      other.setUsername("student" + id);
+      studentRepository.save(other);
+      registrationRepository.save(new Registration(other, module));
+      gradeRepository.save(new Grade(50, other, module));
+    }
+
+    int[] deleted = new int[2];
+    long statements = countStatements(() -> {
+      deleted[0] = gradeRepository.bulkDeleteByModuleCode("CS101");
+      deleted[1] = registrationRepository.bulkDeleteByModuleCode("CS101");
+    });
+
+    assertEquals(51, deleted[0]);
+    assertEquals(51, deleted[1]);
+    assertEquals(2, statements);
+    assertTrue(gradeRepository.findByModuleCode("CS101").isEmpty());
+    assertTrue(registrationRepository.findByModuleCode("CS101").isEmpty());
+  }
+
+  /**
+   * Tests the student and student/module bulk deletes.
+   * <p>
+   * Verifies that: 1. Deleting by student and module removes only that pair. 2. Deleting by
+   * student removes the rest of the student's rows and leaves other students untouched.
+   * </p>
+   */
+  @Test
+  public void testBulkDeleteByStudentIdAndByPair() {
+    Module otherModule = moduleRepository.save(new Module("CS102", "Algorithms", false));
+    Student otherStudent = new Student();
+    otherStudent.setId(2L);
+    otherStudent.setUsername("janedoe");
+    otherStudent = studentRepository.save(otherStudent);
+    gradeRepository.save(new Grade(70, student, otherModule));
+    gradeRepository.save(new Grade(60, otherStudent, module));
+    registrationRepository.save(new Registration(student, module));
+    registrationRepository.save(new Registration(student, otherModule));
+
+    assertEquals(1, gradeRepository.bulkDeleteByStudentIdAndModuleCode(1L, "CS101"));
+    assertEquals(1, registrationRepository.bulkDeleteByStudentIdAndModuleCode(1L, "CS101"));
+    assertEquals(0, registrationRepository.bulkDeleteByStudentIdAndModuleCode(1L, "CS101"));
+
+    assertEquals(1, gradeRepository.bulkDeleteByStudentId(1L));
+    assertEquals(1, registrationRepository.bulkDeleteByStudentId(1L));
+    assertEquals(1, gradeRepository.findByStudentId(2L).size());
+  }
+
+  /**
+   * Tests that the upsert overwrites an existing grade and inserts a missing one.
+   * <p>
+   * Verifies that: 1. Writing the same student and module again updates the score in place. 2.
+   * Writing a new pair inserts a new grade. 3. Each write is a single statement.
+   * </p>
+   */
+  @Test
+  public void testUpsert() {
+    Module otherModule = moduleRepository.save(new Module("CS102", "Algorithms", false));
+
+    long updateStatements = countStatements(() -> gradeRepository.upsert(1L, "CS101", 40));
+    long insertStatements = countStatements(() -> gradeRepository.upsert(1L, "CS102", 65));
+    entityManager.clear();
+
+    List<Grade> updated = gradeRepository.findByStudentIdAndModuleCode(1L, "CS101");
+    assertEquals(1, updated.size());
+    assertEquals(40, updated.get(0).getScore());
+    List<Grade> inserted = gradeRepository.findByStudentIdAndModuleCode(1L, otherModule.getCode());
+    assertEquals(1, inserted.size());
+    assertEquals(65, inserted.get(0).getScore());
+    assertEquals(1, updateStatements);
+    assertEquals(1, insertStatements);
+  }
+
+  /**
+   * Flushes and clears the persistence context, runs the given action, and returns the number of
+   * JDBC statements Hibernate prepared while running it.
+   *
+   * @param action the repository interaction to measure.
+   * @return the number of statements prepared by the action.
+   */
+  private long countStatements(Runnable action) {
+    entityManager.flush();
+    entityManager.clear();
+    Statistics statistics =
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    action.run();
+    return statistics.getPrepareStatementCount();
+  }
+
 }
@@ -0,0 +1,174 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stress test of concurrent grade writes through {@link Controller#addGrade(Grade)}.
+ * <p>
+ * Several threads mark the same students in the same modules at the same time. Because each write
+ * is an atomic upsert backed by the unique constraint on (student_id, module_id), exactly one grade
+ * must exist per pair afterwards, however the writes interleave, and each student's running
+ * aggregates and each module's statistics must match the grades finally written.
+ * </p>
+ */
+@SpringBootTest
+public class GradeUpsertConcurrencyTest {
+
+  /**
+   * Default constructor for GradeUpsertConcurrencyTest.
+   */
+  public GradeUpsertConcurrencyTest() {
+  }
+
+  /**
+   * The number of threads writing grades at the same time.
+   */
+  private static final int THREADS = 8;
+
+  /**
+   * The number of grade writes each thread makes per (student, module) pair.
+   */
+  private static final int WRITES_PER_PAIR = 20;
+
+  /**
+   * The number of students, each of whom is graded in every module.
+   */
+  private static final int STUDENTS = 5;
+
+  /**
+   * The number of modules every student is graded in.
+   */
+  private static final int MODULES = 3;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  private final List<Student> students = new ArrayList<>();
+  private final List<Module> modules = new ArrayList<>();
+
+  /**
+   * Creates the students and modules the threads will grade.
+   */
+  @BeforeEach
+  void setUp() {
+    for (long id = 1; id <= STUDENTS; id++) {
+      Student student = new Student();
+      student.setId(id);
+      student.setUsername("student" + id);
+      students.add(studentRepository.save(student));
+    }
+    for (int i = 0; i < MODULES; i++) {
+      modules.add(controller.createModule(new Module("STRESS" + i, "Stress module " + i, false))
+          .getBody());
+    }
+  }
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Tests that concurrent writes of the same grades never create duplicate rows.
+   *
+   * @throws Exception if a writer thread fails.
+   */
+  @Test
+  void testConcurrentGradeWritesCreateNoDuplicates() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> writers = new ArrayList<>();
+    try {
+      for (int t = 0; t < THREADS; t++) {
+        int thread = t;
+        writers.add(executor.submit(() -> {
+          start.await();
+          for (int round = 0; round < WRITES_PER_PAIR; round++) {
+            for (Student student : students) {
+              for (Module module : modules) {
+                controller.addGrade(new Grade((thread * 10 + round) % 101, student, module));
+              }
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> writer : writers) {
+        writer.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(STUDENTS * MODULES, gradeRepository.count());
+    for (Student student : students) {
+      for (Module module : modules) {
+        List<Grade> grades =
+            gradeRepository.findByStudentIdAndModuleCode(student.getId(), module.getCode());
+        assertEquals(1, grades.size());
+        assertTrue(grades.get(0).getScore() >= 0 && grades.get(0).getScore() <= 100);
+      }
+
+      // The running aggregates must match the grades that were finally written
+      Student reloaded = studentRepository.findById(student.getId()).orElseThrow();
+      long actualSum = gradeRepository.findByStudentId(student.getId()).stream()
+          .mapToLong(Grade::getScore).sum();
+      assertEquals(MODULES, reloaded.getGradeCount());
+      assertEquals(actualSum, reloaded.getScoreSum());
+    }
+
+    // So must each module's statistics
+    for (Module module : modules) {
+      assertEquals(STUDENTS, controller.getModuleStats(module.getCode()).getBody().count());
+    }
+  }
+}
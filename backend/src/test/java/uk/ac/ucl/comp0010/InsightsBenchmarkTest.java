@@ -0,0 +1,208 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.Insights;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of the insights page at {@value #STUDENTS} x {@value #MODULES} = 100k grades,
+ * comparing the server-side {@code GET /insights} summary against the previous client-side
+ * approach of downloading every student, module, grade and registration and filtering them.
+ * <p>
+ * The client-side approach is reproduced in Java: the four unpaged lists are loaded and
+ * serialised to JSON as the endpoints would send them, then the per-module averages, failed
+ * students and top student are derived with the same nested filters the page used. The test
+ * checks that the two approaches agree, and that the summary is faster and far smaller.
+ * </p>
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class InsightsBenchmarkTest {
+
+  /**
+   * Default constructor for InsightsBenchmarkTest.
+   */
+  public InsightsBenchmarkTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 2000;
+
+  /**
+   * The number of modules in the benchmark data set; every student has a grade in each.
+   */
+  private static final int MODULES = 50;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private DataVersion dataVersion;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private GradeMatrix gradeMatrix;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the benchmark created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+    gradeMatrix.invalidate();
+    dataVersion.bump();
+  }
+
+  /**
+   * Inserts the benchmark data set with JDBC batches. Every tenth student fails one module.
+   */
+  private void insertData() {
+    List<Object[]> students = new ArrayList<>();
+    for (int i = 1; i <= STUDENTS; i++) {
+      students.add(new Object[] {(long) i, "First" + i, "Last" + i, "user" + i,
+          "user" + i + "@mail.com"});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) VALUES (?, ?, ?, ?, ?, 0, 0)", students);
+
+    List<Object[]> modules = new ArrayList<>();
+    for (int m = 0; m < MODULES; m++) {
+      modules.add(new Object[] {"BM" + m, "Benchmark module " + m});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO module (code, name, mnc) VALUES (?, ?, FALSE)", modules);
+
+    List<Object[]> grades = new ArrayList<>();
+    for (int i = 1; i <= STUDENTS; i++) {
+      for (int m = 0; m < MODULES; m++) {
+        int score = i % 10 == 0 && m == i % MODULES ? 25 : 40 + (i * 7 + m * 13) % 61;
+        grades.add(new Object[] {(long) i, "BM" + m, score});
+      }
+      if (i % 200 == 0) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO grade (student_id, module_id, score) VALUES (?, ?, ?)", grades);
+        grades.clear();
+      }
+    }
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code) "
+        + "SELECT s.id, 'BM0' FROM student s WHERE MOD(s.id, 2) = 0");
+    gradeMatrix.invalidate();
+    dataVersion.bump();
+  }
+
+  /**
+   * Compares the client-side and server-side insights at 100k grades, in time and payload
+   * size.
+   *
+   * @throws Exception if a list cannot be serialised.
+   */
+  @Test
+  void benchmarkInsightsAgainstClientSideAggregation() throws Exception {
+    insertData();
+
+    // Client side: download the four unpaged lists, then filter them as the page did
+    long start = System.nanoTime();
+    long[] clientPayload = new long[1];
+    double[] clientAverage = new double[1];
+    int[] clientFailed = new int[1];
+    transactionTemplate.executeWithoutResult(status -> {
+      try {
+        List<Student> students = controller.getStudents();
+        List<Module> modules = controller.getModules();
+        List<Grade> grades = controller.getGrades();
+        List<Registration> registrations = controller.getRegistrations();
+        clientPayload[0] = objectMapper.writeValueAsBytes(students).length
+            + objectMapper.writeValueAsBytes(modules).length
+            + objectMapper.writeValueAsBytes(grades).length
+            + objectMapper.writeValueAsBytes(registrations).length;
+
+        clientAverage[0] = grades.stream().mapToInt(Grade::getScore).average().orElse(0);
+        for (Module module : modules) {
+          grades.stream().filter(g -> g.getModule().getCode().equals(module.getCode()))
+              .mapToInt(Grade::getScore).average();
+        }
+        for (Student student : students) {
+          if (grades.stream().anyMatch(g -> g.getStudent().getId().equals(student.getId())
+              && g.getScore() < 40)) {
+            clientFailed[0]++;
+          }
+          grades.stream().filter(g -> g.getStudent().getId().equals(student.getId()))
+              .mapToInt(Grade::getScore).average();
+        }
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    long clientNanos = System.nanoTime() - start;
+
+    // Server side: one summary, computed in a single pass and then served from the cache
+    start = System.nanoTime();
+    Insights insights = controller.getInsights().getBody();
+    long serverNanos = System.nanoTime() - start;
+    long serverPayload = objectMapper.writeValueAsBytes(insights).length;
+
+    Insights cached = controller.getInsights().getBody();
+
+    assertSame(insights, cached);
+    assertEquals(STUDENTS, insights.studentCount());
+    assertEquals(MODULES, insights.moduleCount());
+    assertEquals(STUDENTS / 2, insights.unregisteredCount());
+    assertEquals(clientAverage[0], insights.averageGrade(), 0.0001);
+    assertEquals(clientFailed[0], insights.failedStudents().size());
+    assertEquals(STUDENTS / 10, insights.failedStudents().size());
+    assertTrue(serverNanos < clientNanos, "the summary should beat the client-side approach");
+    assertTrue(serverPayload * 10 < clientPayload[0],
+        "the summary should be a small fraction of the raw lists");
+  }
+}
@@ -0,0 +1,155 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeMatrix;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.Insights;
+import uk.ac.ucl.comp0010.insights.InsightsService;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Unit tests for the {@link InsightsService}. Verifies the single-pass summary against
+ * hand-computed values and that it is only recomputed once the {@link DataVersion} moves on.
+ */
+@DataJpaTest
+public class InsightsTest {
+
+  /**
+   * Default constructor for InsightsTest.
+   */
+  public InsightsTest() {
+  }
+
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private DataSource dataSource;
+
+  private DataVersion dataVersion;
+  private InsightsService insightsService;
+
+  /**
+   * Creates the service on top of the repositories and a fresh grade matrix before each test. The
+   * data version is mocked, as a real one only moves on once the test transaction commits, which
+   * it never does. The matrix loads inside the test transaction, so it sees the grades saved once
+   * they are flushed.
+   */
+  @BeforeEach
+  void setUp() {
+    dataVersion = Mockito.mock(DataVersion.class);
+    insightsService = new InsightsService(studentRepository, moduleRepository,
+        new GradeMatrix(dataSource), registrationRepository, dataVersion);
+  }
+
+  /**
+   * Saves a student with the given id and name.
+   *
+   * @param id        the id of the student, which is assigned by hand rather than generated.
+   * @param firstName the first name of the student.
+   * @param lastName  the last name of the student.
+   * @return the saved student.
+   */
+  private Student saveStudent(long id, String firstName, String lastName) {
+    Student student = new Student();
+    student.setId(id);
+    student.setFirstName(firstName);
+    student.setLastName(lastName);
+    student.setUsername(firstName.toLowerCase());
+    student.setEmail(firstName.toLowerCase() + "@mail.com");
+    return studentRepository.save(student);
+  }
+
+  /**
+   * Tests the summary of an empty database.
+   */
+  @Test
+  void testEmptyInsights() {
+    Insights insights = insightsService.get();
+    assertEquals(0, insights.studentCount());
+    assertEquals(0, insights.moduleCount());
+    assertNull(insights.averageGrade());
+    assertEquals(List.of(), insights.failedStudents());
+    assertNull(insights.topStudent());
+  }
+
+  /**
+   * Tests the counts, averages, failures and top student of a small data set.
+   */
+  @Test
+  void testInsights() {
+    Student first = saveStudent(1L, "First", "Student");
+    Student second = saveStudent(2L, "Second", "Student");
+    saveStudent(3L, "Third", "Student");
+    Module maths = moduleRepository.save(new Module("MATH", "Maths", false));
+    Module physics = moduleRepository.save(new Module("PHYS", "Physics", false));
+    moduleRepository.save(new Module("CHEM", "Chemistry", false));
+    registrationRepository.save(new Registration(first, maths));
+    registrationRepository.save(new Registration(second, physics));
+    gradeRepository.save(new Grade(80, first, maths));
+    gradeRepository.save(new Grade(70, first, physics));
+    gradeRepository.save(new Grade(30, second, maths));
+    gradeRepository.save(new Grade(20, second, physics));
+    gradeRepository.flush();
+
+    Insights insights = insightsService.get();
+
+    assertEquals(3, insights.studentCount());
+    assertEquals(3, insights.moduleCount());
+    assertEquals(2, insights.registrationCount());
+    assertEquals(1, insights.unregisteredCount());
+    assertEquals(50.0, insights.averageGrade(), 0.001);
+    assertEquals(List.of(
+        new Insights.ModuleAverage("CHEM", "Chemistry", null),
+        new Insights.ModuleAverage("MATH", "Maths", 55.0),
+        new Insights.ModuleAverage("PHYS", "Physics", 45.0)),
+        insights.moduleAverages().stream()
+            .sorted((a, b) -> a.code().compareTo(b.code())).toList());
+    assertEquals(1, insights.failedStudents().size());
+    Insights.FailedStudent failed = insights.failedStudents().get(0);
+    assertEquals(second.getId(), failed.id());
+    assertEquals(List.of("Maths", "Physics"), failed.failedModules().stream().sorted().toList());
+    assertEquals(new Insights.TopStudent(first.getId(), "First", "Student", 75.0),
+        insights.topStudent());
+  }
+
+  /**
+   * Tests that the summary is served from the cache until the data version moves on.
+   */
+  @Test
+  void testInsightsCachedUntilVersionChanges() {
+    Insights first = insightsService.get();
+    saveStudent(1L, "First", "Student");
+    assertSame(first, insightsService.get());
+
+    Mockito.when(dataVersion.current()).thenReturn(1L);
+    Insights second = insightsService.get();
+    assertNotSame(first, second);
+    assertEquals(1, second.studentCount());
+    assertEquals(1L, second.dataVersion());
+  }
+}
@@ -0,0 +1,143 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ucl.comp0010.module.CatalogueStats;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Unit tests for the {@link ModuleCatalogue} class.
+ * <p>
+ * The repository is mocked so the tests can count how often the catalogue actually queries the
+ * database.
+ * </p>
+ */
+public class ModuleCatalogueTest {
+
+  /**
+   * Default constructor for ModuleCatalogueTest.
+   */
+  public ModuleCatalogueTest() {
+  }
+
+  @Mock
+  ModuleRepository moduleRepository;
+
+  private ModuleCatalogue catalogue;
+
+  private Module mncModule;
+
+  private Module otherModule;
+
+  /**
+   * Initializes the mocks and a fresh catalogue of two modules before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    catalogue = new ModuleCatalogue(moduleRepository);
+    mncModule = new Module("TM1", "TestModule1", true);
+    otherModule = new Module("TM2", "TestModule2", false);
+    Mockito.when(moduleRepository.findAll()).thenReturn(List.of(otherModule, mncModule));
+  }
+
+  /**
+   * Tests that the catalogue is loaded once and then served from the snapshot.
+   */
+  @Test
+  void testLoadsOnce() {
+    assertEquals(List.of(mncModule, otherModule), catalogue.all());
+    assertSame(mncModule, catalogue.find("TM1").orElseThrow());
+    assertTrue(catalogue.contains("TM2"));
+
+    Mockito.verify(moduleRepository, Mockito.times(1)).findAll();
+    Mockito.verify(moduleRepository, Mockito.never()).findById(Mockito.anyString());
+    assertEquals(new CatalogueStats(2, 0, 1, 2), catalogue.stats());
+  }
+
+  /**
+   * Tests that only the MNC modules are returned by {@link ModuleCatalogue#mnc()}.
+   */
+  @Test
+  void testMncSubset() {
+    assertEquals(List.of(mncModule), catalogue.mnc());
+  }
+
+  /**
+   * Tests that a code missing from the snapshot is looked up in the database and, if found, added
+   * to the snapshot.
+   */
+  @Test
+  void testMissFallsBackToDatabase() {
+    Module external = new Module("TM3", "TestModule3", false);
+    Mockito.when(moduleRepository.findById("TM3")).thenReturn(Optional.of(external));
+    Mockito.when(moduleRepository.findById("NOPE")).thenReturn(Optional.empty());
+
+    assertSame(external, catalogue.find("TM3").orElseThrow());
+    assertSame(external, catalogue.find("TM3").orElseThrow());
+    assertFalse(catalogue.contains("NOPE"));
+
+    Mockito.verify(moduleRepository, Mockito.times(1)).findById("TM3");
+    assertEquals(new CatalogueStats(1, 2, 1, 3), catalogue.stats());
+  }
+
+  /**
+   * Tests that putting and removing modules outside a transaction swaps the snapshot without
+   * querying the database again.
+   */
+  @Test
+  void testPutAndRemoveSwapSnapshot() {
+    catalogue.all();
+    Module created = new Module("TM0", "TestModule0", true);
+
+    catalogue.put(created);
+    assertEquals(List.of(created, mncModule), catalogue.mnc());
+
+    catalogue.remove("TM1");
+    assertEquals(List.of(created, otherModule), catalogue.all());
+
+    Mockito.verify(moduleRepository, Mockito.times(1)).findAll();
+    Mockito.verify(moduleRepository, Mockito.never()).findById(Mockito.anyString());
+  }
+
+  /**
+   * Tests that invalidating the catalogue outside a transaction forces the next read to reload.
+   */
+  @Test
+  void testInvalidateReloads() {
+    Module created = new Module("TM3", "TestModule3", true);
+    Mockito.when(moduleRepository.findAll()).thenReturn(List.of(mncModule))
+        .thenReturn(List.of(mncModule, created));
+
+    assertEquals(1, catalogue.all().size());
+    catalogue.invalidate();
+    assertEquals(2, catalogue.all().size());
+
+    Mockito.verify(moduleRepository, Mockito.times(2)).findAll();
+  }
+
+  /**
+   * Tests that the lists returned by the catalogue cannot be modified by callers.
+   */
+  @Test
+  void testListsAreUnmodifiable() {
+    assertThrows(UnsupportedOperationException.class,
+        () -> catalogue.all().add(new Module("TM3", "TestModule3", true)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> catalogue.mnc().add(new Module("TM3", "TestModule3", true)));
+  }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import uk.ac.ucl.comp0010.grade.Grade;
 import uk.ac.ucl.comp0010.grade.GradeRepository;
 import uk.ac.ucl.comp0010.module.Module;
@@ -16,6 +17,8 @@ import uk.ac.ucl.comp0010.module.ModuleRepository;
 import uk.ac.ucl.comp0010.student.Student;
 import uk.ac.ucl.comp0010.student.StudentRepository;
 
+import java.util.List;
+
 
 /**
  * Unit test for the ModuleRepository class.
@@ -143,8 +146,17 @@ public class ModuleRepositoryTest {
     student.setEmail("janedoe@example.com");
     studentRepository.save(student);
 
+    // Each student holds at most one grade per module
+    Student otherStudent = new Student();
+    otherStudent.setId(3L);
+    otherStudent.setFirstName("John");
+    otherStudent.setLastName("Smith");
+    otherStudent.setUsername("johnsmith");
+    otherStudent.setEmail("johnsmith@example.com");
+    studentRepository.save(otherStudent);
+
     Grade grade1 = new Grade(90, student, moduleWithGrades);
-    Grade grade2 = new Grade(75, student, moduleWithGrades);
+    Grade grade2 = new Grade(75, otherStudent, moduleWithGrades);
 
     moduleWithGrades.getGrades().add(grade1);
     moduleWithGrades.getGrades().add(grade2);
@@ -218,4 +230,21 @@ public class ModuleRepositoryTest {
     assertNotNull(retrievedModule);
     assertEquals(1, retrievedModule.getGrades().size());
   }
+
+  /**
+   * Tests keyset pagination over module codes. Verifies that each page starts strictly after the
+   * cursor and is ordered by code.
+   */
+  @Test
+  void testFindByCodeGreaterThanOrderByCodeAsc() {
+    moduleRepository.save(new Module("CS103", "Operating Systems", false));
+    moduleRepository.save(new Module("CS102", "Data Structures", false));
+
+    List<Module> firstPage = moduleRepository.findByCodeGreaterThanOrderByCodeAsc("", Limit.of(2));
+    List<Module> secondPage = moduleRepository.findByCodeGreaterThanOrderByCodeAsc(
+        firstPage.get(firstPage.size() - 1).getCode(), Limit.of(2));
+
+    assertEquals(List.of("CS101", "CS102"), firstPage.stream().map(Module::getCode).toList());
+    assertEquals(List.of("CS103"), secondPage.stream().map(Module::getCode).toList());
+  }
 }
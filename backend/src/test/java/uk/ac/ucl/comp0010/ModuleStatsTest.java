@@ -0,0 +1,257 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.ModuleScore;
+import uk.ac.ucl.comp0010.module.GradeTotals;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStats;
+import uk.ac.ucl.comp0010.module.ModuleStatsDrift;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepairJob;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsService;
+import uk.ac.ucl.comp0010.module.ModuleStatsSummary;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.List;
+
+/**
+ * Unit tests for the {@link ModuleStats} class and the {@link ModuleStatsService} that maintains
+ * it. Verifies the summary statistics against hand-computed values and that the statistics
+ * survive a round trip through the database.
+ */
+@DataJpaTest
+public class ModuleStatsTest {
+
+  /**
+   * Default constructor for ModuleStatsTest.
+   */
+  public ModuleStatsTest() {
+  }
+
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private EntityManager entityManager;
+
+  private ModuleStatsService moduleStatsService;
+
+  /**
+   * Creates the service on top of the repository before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    moduleStatsService = new ModuleStatsService(moduleStatsRepository);
+  }
+
+  /**
+   * Tests that empty statistics report a zero count and no summary values.
+   */
+  @Test
+  void testEmptyStats() {
+    ModuleStats stats = new ModuleStats("TM1");
+    assertEquals(0, stats.getCount());
+    assertNull(stats.mean());
+    assertNull(stats.variance());
+    assertNull(stats.percentile(50));
+  }
+
+  /**
+   * Tests the mean, variance and percentiles of a small set of scores.
+   */
+  @Test
+  void testSummaryStatistics() {
+    ModuleStats stats = new ModuleStats("TM1");
+    for (int score : new int[] {40, 50, 60, 70, 80}) {
+      stats.add(score);
+    }
+
+    assertEquals(60.0, stats.mean(), 0.001);
+    assertEquals(200.0, stats.variance(), 0.001);
+    assertEquals(60, stats.percentile(50));
+    assertEquals(50, stats.percentile(25));
+    assertEquals(70, stats.percentile(75));
+    assertEquals(80, stats.percentile(90));
+    assertEquals(40, stats.percentile(0));
+    assertEquals(80, stats.percentile(100));
+  }
+
+  /**
+   * Tests that removing a score exactly undoes adding it.
+   */
+  @Test
+  void testRemoveUndoesAdd() {
+    ModuleStats stats = new ModuleStats("TM1");
+    stats.add(0);
+    stats.add(100);
+    stats.remove(100);
+
+    assertEquals(1, stats.getCount());
+    assertEquals(0, stats.getSum());
+    assertEquals(0, stats.getSumOfSquares());
+    assertEquals(0, stats.getHistogram()[100]);
+    assertEquals(1, stats.getHistogram()[0]);
+  }
+
+  /**
+   * Tests that a score without a histogram bucket is rejected before anything is recorded.
+   */
+  @Test
+  void testOutOfRangeScoreRejected() {
+    ModuleStats stats = new ModuleStats("TM1");
+    assertThrows(IllegalArgumentException.class, () -> stats.add(101));
+    assertThrows(IllegalArgumentException.class, () -> stats.remove(-1));
+    assertEquals(0, stats.getCount());
+    assertEquals(0, stats.getSum());
+  }
+
+  /**
+   * Tests the service against the database. Verifies that recording, replacing and removing grades
+   * is persisted, including the histogram, and that a module without statistics is summarised as
+   * empty.
+   */
+  @Test
+  void testServicePersistsStatistics() {
+    moduleStatsService.initialise("TM1");
+    moduleStatsService.recordGrade("TM1", null, 70);
+    moduleStatsService.recordGrade("TM1", null, 90);
+    moduleStatsService.recordGrade("TM1", 90, 50);
+    moduleStatsService.recordGrade("TM2", null, 30);
+    moduleStatsService.removeGrades(List.of(new ModuleScore("TM2", 30)));
+    entityManager.flush();
+    entityManager.clear();
+
+    ModuleStatsSummary summary = moduleStatsService.summarise("TM1");
+    assertEquals(2, summary.count());
+    assertEquals(60.0, summary.mean(), 0.001);
+    assertEquals(100.0, summary.variance(), 0.001);
+    assertEquals(50, summary.median());
+    int[] expectedHistogram = new int[ModuleStats.BUCKETS];
+    expectedHistogram[50] = 1;
+    expectedHistogram[70] = 1;
+    assertArrayEquals(expectedHistogram, summary.histogram());
+
+    assertEquals(0, moduleStatsService.summarise("TM2").count());
+    moduleStatsService.drop("TM2");
+    assertEquals(0, moduleStatsService.summarise("NONE").count());
+  }
+
+  /**
+   * Saves grades in a module, one per student, without maintaining its statistics, as if the
+   * grades predated them.
+   *
+   * @param moduleCode the code of the module, which is created.
+   * @param scores     the scores, given to students 1, 2 and so on.
+   */
+  private void saveGrades(String moduleCode, int... scores) {
+    Module module = moduleRepository.save(new Module(moduleCode, "Module " + moduleCode, false));
+    for (int i = 0; i < scores.length; i++) {
+      long id = i + 1;
+      Student student = studentRepository.findById(id).orElseGet(() -> {
+        Student created = new Student();
+        created.setId(id);
+        created.setFirstName("Student");
+        created.setLastName(String.valueOf(id));
+        created.setUsername("student" + id);
+        created.setEmail("student" + id + "@mail.com");
+        return studentRepository.save(created);
+      });
+      gradeRepository.save(new Grade(scores[i], student, module));
+    }
+    entityManager.flush();
+  }
+
+  /**
+   * Tests that the statistics of a module that predates them are seeded from its grades on the
+   * first grade change, so a grade written or deleted there is counted on top of the others
+   * rather than on top of nothing.
+   */
+  @Test
+  void testFirstChangeSeedsStatisticsFromGrades() {
+    saveGrades("TM1", 60, 80);
+    saveGrades("TM2", 50);
+
+    moduleStatsService.recordGrade("TM1", null, 70);
+    moduleStatsService.removeGrades(List.of(new ModuleScore("TM2", 50)));
+    entityManager.flush();
+    entityManager.clear();
+
+    ModuleStatsSummary summary = moduleStatsService.summarise("TM1");
+    assertEquals(3, summary.count());
+    assertEquals(70.0, summary.mean(), 0.001);
+    assertEquals(0, moduleStatsService.summarise("TM2").count());
+    assertArrayEquals(new int[ModuleStats.BUCKETS],
+        moduleStatsRepository.findById("TM2").orElseThrow().getHistogram());
+  }
+
+  /**
+   * Tests the repair job. Verifies that statistics which miss grades, count grades that are gone,
+   * or are missing altogether are reported as drift and recomputed, and that a second run finds no
+   * drift.
+   */
+  @Test
+  void testModuleStatsRepairJob() {
+    saveGrades("TM1", 60, 80);
+    saveGrades("TM2", 50);
+    moduleStatsService.recordGrade("TM1", null, 10);
+    moduleStatsRepository.findById("TM1").orElseThrow().add(10);
+    moduleStatsService.recordGrade("TM3", null, 90);
+    moduleStatsService.recordGrade("TM4", null, 40);
+    moduleStatsRepository.findById("TM4").orElseThrow().remove(40);
+    entityManager.flush();
+
+    ModuleStatsRepairJob repairJob = new ModuleStatsRepairJob(moduleStatsService);
+    List<ModuleStatsDrift> drift = repairJob.repair();
+    entityManager.flush();
+    entityManager.clear();
+
+    assertEquals(List.of(new ModuleStatsDrift("TM1", 4L, 160L, 2L, 140L),
+        new ModuleStatsDrift("TM2", null, null, 1L, 50L),
+        new ModuleStatsDrift("TM3", 1L, 90L, 0L, 0L)), drift);
+    assertEquals(2, moduleStatsService.summarise("TM1").count());
+    assertEquals(70.0, moduleStatsService.summarise("TM1").mean(), 0.001);
+    assertEquals(1, moduleStatsService.summarise("TM2").count());
+    assertEquals(0, moduleStatsService.summarise("TM3").count());
+    assertTrue(repairJob.repair().isEmpty());
+  }
+
+  /**
+   * Tests that the totals sum the grade counts and scores of every module, and that they are
+   * empty when no grade was recorded.
+   */
+  @Test
+  void testTotalsSumEveryModule() {
+    assertEquals(0L, moduleStatsService.totals().count());
+    assertNull(moduleStatsService.totals().mean());
+
+    moduleStatsService.recordGrade("TM1", null, 70);
+    moduleStatsService.recordGrade("TM1", null, 90);
+    moduleStatsService.recordGrade("TM2", null, 50);
+    moduleStatsService.recordGrade("TM2", 50, 20);
+    entityManager.flush();
+
+    GradeTotals totals = moduleStatsService.totals();
+    assertEquals(3L, totals.count());
+    assertEquals(180L, totals.sum());
+    assertEquals(60.0, totals.mean(), 0.001);
+  }
+}
@@ -204,8 +204,17 @@ public class ModuleTest {
     student.setEmail("janedoe@example.com");
     studentRepository.save(student);
 
+    // Each student holds at most one grade per module
+    Student otherStudent = new Student();
+    otherStudent.setId(3L);
+    otherStudent.setFirstName("John");
+    otherStudent.setLastName("Smith");
+    otherStudent.setUsername("johnsmith");
+    otherStudent.setEmail("johnsmith@example.com");
+    studentRepository.save(otherStudent);
+
     Grade grade1 = new Grade(90, student, moduleWithGrades);
-    Grade grade2 = new Grade(75, student, moduleWithGrades);
+    Grade grade2 = new Grade(75, otherStudent, moduleWithGrades);
 
     gradeRepository.save(grade1);
     gradeRepository.save(grade2);
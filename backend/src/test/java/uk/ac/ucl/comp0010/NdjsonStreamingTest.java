@@ -0,0 +1,148 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the NDJSON streaming of the unpaged grade and registration collections against the full
+ * application context, since the stream runs in its own transaction outside the request.
+ */
+@SpringBootTest
+public class NdjsonStreamingTest {
+
+  /**
+   * Default constructor for NdjsonStreamingTest.
+   */
+  public NdjsonStreamingTest() {
+  }
+
+  /**
+   * The number of students inserted, each with a grade and a registration in one module.
+   */
+  private static final int STUDENTS = 1200;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Inserts {@value #STUDENTS} students, each with a grade and a registration in module ST1.
+   */
+  private void insertData() {
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) VALUES ('ST1', 'Stream', FALSE)");
+    List<Object[]> students = new ArrayList<>();
+    for (int i = 1; i <= STUDENTS; i++) {
+      students.add(new Object[] {(long) i, "First" + i, "Last" + i, "user" + i,
+          "user" + i + "@mail.com"});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) VALUES (?, ?, ?, ?, ?, 0, 0)", students);
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) "
+        + "SELECT id, 'ST1', MOD(id, 101) FROM student");
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code) "
+        + "SELECT id, 'ST1' FROM student");
+  }
+
+  /**
+   * A response stream that counts how often it is flushed.
+   */
+  private static class CountingStream extends ByteArrayOutputStream {
+    private int flushes;
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+
+  /**
+   * Tests that every grade is written on its own line with its student and module, and that the
+   * response is flushed in batches while the rows are being read.
+   *
+   * @throws IOException if the stream cannot be written.
+   */
+  @Test
+  void testStreamGrades() throws IOException {
+    insertData();
+    CountingStream out = new CountingStream();
+    controller.streamGrades().getBody().writeTo(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(STUDENTS, lines.length);
+    for (String line : lines) {
+      JsonNode grade = objectMapper.readTree(line);
+      assertEquals("ST1", grade.get("module").get("code").asText());
+      assertEquals(grade.get("student").get("id").asLong() % 101, grade.get("score").asLong());
+    }
+    assertTrue(out.flushes > 1, "the response should be flushed before the last row");
+  }
+
+  /**
+   * Tests that every registration is written on its own line.
+   *
+   * @throws IOException if the stream cannot be written.
+   */
+  @Test
+  void testStreamRegistrations() throws IOException {
+    insertData();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    controller.streamRegistrations().getBody().writeTo(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(STUDENTS, lines.length);
+    assertEquals("ST1", objectMapper.readTree(lines[0]).get("module").get("code").asText());
+  }
+}
@@ -0,0 +1,151 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test of concurrent registrations through {@link Controller#registerStudent(Registration)},
+ * mimicking the bulk registration page firing overlapping requests in parallel.
+ * <p>
+ * Every thread tries to register every student for the module. Exactly one request per student
+ * must succeed and every other one must get the "already exists" response, with no duplicate rows
+ * left behind.
+ * </p>
+ */
+@SpringBootTest
+public class RegistrationConcurrencyTest {
+
+  /**
+   * Default constructor for RegistrationConcurrencyTest.
+   */
+  public RegistrationConcurrencyTest() {
+  }
+
+  /**
+   * The number of students registered by each run.
+   */
+  private static final int STUDENTS = 200;
+
+  /**
+   * The number of threads used by the concurrent run.
+   */
+  private static final int THREADS = 8;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
+
+  private final List<Student> students = new ArrayList<>();
+
+  /**
+   * Creates the students to register.
+   */
+  @BeforeEach
+  void setUp() {
+    for (long id = 1; id <= STUDENTS; id++) {
+      Student student = new Student();
+      student.setId(id);
+      student.setUsername("student" + id);
+      students.add(studentRepository.save(student));
+    }
+  }
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Tests that overlapping registrations from {@value #THREADS} threads never create duplicates.
+   *
+   * @throws Exception if a registering thread fails.
+   */
+  @Test
+  void testConcurrentRegistrationsCreateNoDuplicates() throws Exception {
+    registerConcurrently(new Module("CONC" + THREADS, "Concurrency " + THREADS, false), THREADS);
+  }
+
+  /**
+   * Has every thread register every student for the given module at the same time, then checks
+   * that each student is registered exactly once.
+   *
+   * @param module  the module to register the students for.
+   * @param threads the number of threads sending registrations.
+   * @throws Exception if a registering thread fails.
+   */
+  private void registerConcurrently(Module module, int threads) throws Exception {
+    moduleRepository.save(module);
+    AtomicInteger created = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> workers = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        workers.add(executor.submit(() -> {
+          start.await();
+          for (Student student : students) {
+            ResponseEntity<?> response =
+                controller.registerStudent(new Registration(student, new Module(module.getCode(),
+                    module.getName(), module.isMnc())));
+            (response.getStatusCode().is2xxSuccessful() ? created : rejected).incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+
+      assertEquals(STUDENTS, created.get());
+      assertEquals(STUDENTS * (threads - 1), rejected.get());
+      assertEquals(STUDENTS, registrationRepository.findByModuleCode(module.getCode()).size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationIndex;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.util.List;
+
+/**
+ * Integration tests for {@code GET /cohorts} and the {@link RegistrationIndex} behind it.
+ * <p>
+ * The writes go through {@link Controller}, so the tests check that every write path keeps the
+ * index in step with the registration table. A benchmark compares a cohort evaluated over the
+ * bitmaps with the same cohort queried from the database, at {@value #STUDENTS} students and
+ * {@value #MODULES} modules.
+ * </p>
+ */
+@SpringBootTest
+public class RegistrationIndexTest {
+
+  /**
+   * Default constructor for RegistrationIndexTest.
+   */
+  public RegistrationIndexTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 50_000;
+
+  /**
+   * The number of modules in the benchmark data set; each student takes every other one.
+   */
+  private static final int MODULES = 10;
+
+  /**
+   * The number of times each cohort is evaluated in the benchmark.
+   */
+  private static final int REPEATS = 50;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private RegistrationIndex registrationIndex;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Reloads the index before each test, since other tests write to the tables directly.
+   */
+  @BeforeEach
+  void setUp() {
+    registrationIndex.invalidate();
+  }
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+    registrationIndex.invalidate();
+  }
+
+  /**
+   * Creates a student through the controller.
+   *
+   * @param id the ID of the student.
+   */
+  private void createStudent(long id) {
+    Student student = new Student();
+    student.setId(id);
+    student.setUsername("student" + id);
+    controller.createStudent(student);
+  }
+
+  /**
+   * Evaluates a cohort through the controller.
+   *
+   * @param all  the modules every student is registered for.
+   * @param any  the modules every student is registered for one of.
+   * @param none the modules no student is registered for.
+   * @return the IDs of the students.
+   */
+  private List<Long> cohort(List<String> all, List<String> any, List<String> none) {
+    return controller.getCohort(all, any, none).getBody();
+  }
+
+  /**
+   * Tests that registrations created and deleted by every write path are reflected in the
+   * cohorts.
+   */
+  @Test
+  void testWritesKeepIndexInStep() {
+    controller.createModule(new Module("CH1", "Cohort 1", false));
+    controller.createModule(new Module("CH2", "Cohort 2", false));
+    createStudent(1);
+    createStudent(2);
+    createStudent(3);
+    controller.registerStudents(List.of(new RegistrationKey(1L, "CH1"),
+        new RegistrationKey(2L, "CH1"), new RegistrationKey(2L, "CH2")));
+
+    assertEquals(List.of(1L, 2L), cohort(List.of("CH1"), null, null));
+    assertEquals(List.of(1L), cohort(List.of("CH1"), null, List.of("CH2")));
+    assertEquals(List.of(3L), cohort(null, null, List.of("CH1", "CH2")));
+    assertEquals(List.of(1L, 2L, 3L), cohort(null, null, null));
+    assertEquals(List.of(2L), cohort(List.of("CH2"), null, null));
+
+    // A new student is registered for every mandatory module
+    controller.createModule(new Module("MN1", "Mandatory", true));
+    createStudent(4);
+    assertEquals(List.of(1L, 2L, 3L, 4L), cohort(List.of("MN1"), null, null));
+
+    controller.deleteRegistration(2L, "CH1");
+    assertEquals(List.of(1L, 2L), cohort(null, List.of("CH1", "CH2"), null));
+    assertEquals(List.of(1L), cohort(List.of("CH1"), null, null));
+
+    controller.deleteStudent(1L);
+    assertEquals(List.of(), cohort(List.of("CH1"), null, null));
+    assertEquals(List.of(2L, 3L, 4L), cohort(List.of("MN1"), null, null));
+
+    controller.deleteModule("CH2");
+    assertEquals(400, controller.getCohort(List.of("CH2"), null, null).getStatusCode().value());
+    assertEquals(List.of(), registrationIndex.cohort(List.of("CH2"), List.of(), List.of()));
+  }
+
+  /**
+   * Compares a cohort evaluated over the bitmaps with the same cohort queried from the database.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkCohort() {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), 0, 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    // Odd students take the odd modules and even students the even ones
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code) "
+        + "SELECT s.id, m.code FROM student s, module m "
+        + "WHERE MOD(s.id, 2) = MOD(CAST(SUBSTRING(m.code, 3) AS INT), 2)");
+    moduleCatalogue.invalidate();
+    registrationIndex.invalidate();
+    registrationIndex.warmUp();
+
+    List<String> all = List.of("BM1", "BM3");
+    List<String> none = List.of("BM2");
+    List<Long> expected = jdbcTemplate.queryForList("SELECT r.student_id FROM registration r "
+        + "WHERE r.module_code IN ('BM1', 'BM3') GROUP BY r.student_id HAVING COUNT(*) = 2 "
+        + "AND r.student_id NOT IN (SELECT student_id FROM registration WHERE module_code = 'BM2') "
+        + "ORDER BY r.student_id", Long.class);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < REPEATS; i++) {
+      jdbcTemplate.queryForList("SELECT r.student_id FROM registration r "
+          + "WHERE r.module_code IN ('BM1', 'BM3') GROUP BY r.student_id HAVING COUNT(*) = 2 "
+          + "AND r.student_id NOT IN (SELECT student_id FROM registration "
+          + "WHERE module_code = 'BM2') ORDER BY r.student_id", Long.class);
+    }
+    double queryMillis = (System.nanoTime() - start) / 1e6 / REPEATS;
+
+    List<Long> cohort = null;
+    start = System.nanoTime();
+    for (int i = 0; i < REPEATS; i++) {
+      cohort = registrationIndex.cohort(all, List.of(), none);
+    }
+    double indexMillis = (System.nanoTime() - start) / 1e6 / REPEATS;
+
+    assertEquals(expected, cohort);
+    assertEquals(STUDENTS / 2, cohort.size());
+    assertTrue(indexMillis < queryMillis, "the bitmaps should beat the database");
+  }
+}
@@ -3,18 +3,37 @@ package uk.ac.ucl.comp0010;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.grade.ModuleGrade;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.module.ModuleRepository;
 import uk.ac.ucl.comp0010.registration.Registration;
+import uk.ac.ucl.comp0010.registration.RegistrationBatchRepositoryImpl;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
 import uk.ac.ucl.comp0010.registration.RegistrationRepository;
 import uk.ac.ucl.comp0010.student.Student;
 import uk.ac.ucl.comp0010.student.StudentRepository;
 
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+import javax.sql.DataSource;
+
 
 /**
  * Unit test for the Registration class. Ensures correct functionality of constructors, methods, and
@@ -35,6 +54,8 @@ public class RegistrationTest {
   private StudentRepository studentRepository;
   @Autowired
   private RegistrationRepository registrationRepository;
+  @Autowired
+  private GradeRepository gradeRepository;
 
   private Student myFirstStudent;
   private Student mySecondStudent;
@@ -128,4 +149,188 @@ public class RegistrationTest {
     assertEquals(mySecondStudent, registration.getStudent());
     assertEquals(myFirstModule, registration.getModule());
   }
+
+  /**
+   * Tests the JDBC batch insert used by batch registration. Verifies that every pair is inserted.
+   */
+  @Test
+  void testInsertAll() {
+    studentRepository.save(mySecondStudent);
+    studentRepository.flush();
+
+    int inserted = registrationRepository.insertAll(List.of(
+        new RegistrationKey(1L, "TM1"), new RegistrationKey(1L, "TM2"),
+        new RegistrationKey(2L, "TM2")));
+
+    assertEquals(3, inserted);
+    assertEquals(3, registrationRepository.count());
+    assertTrue(registrationRepository.existsByStudentIdAndModuleCode(1L, "TM1"));
+    assertTrue(registrationRepository.existsByStudentIdAndModuleCode(1L, "TM2"));
+    assertTrue(registrationRepository.existsByStudentIdAndModuleCode(2L, "TM2"));
+  }
+
+  /**
+   * Tests that {@code insertMissing} reports only the pairs it inserted, in the order given.
+   */
+  @Test
+  void testInsertMissingReportsInsertedKeys() {
+    // The batch goes straight to JDBC, so the student and modules must be written first
+    studentRepository.flush();
+    registrationRepository.insertAll(List.of(new RegistrationKey(1L, "TM1")));
+
+    List<RegistrationKey> inserted = registrationRepository.insertMissing(List.of(
+        new RegistrationKey(1L, "TM2"), new RegistrationKey(1L, "TM1")));
+
+    assertEquals(List.of(new RegistrationKey(1L, "TM2")), inserted);
+    assertEquals(2, registrationRepository.count());
+  }
+
+  /**
+   * Tests that {@code insertMissing} undoes the batch and inserts the pairs one at a time when
+   * the driver does not report whether each statement of the batch inserted a row.
+   *
+   * @throws SQLException never, as the driver is mocked.
+   */
+  @Test
+  void testInsertMissingChecksEachPairWhenCountsAreUnknown() throws SQLException {
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Connection connection = Mockito.mock(Connection.class);
+    PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(connection);
+    Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+    Mockito.when(statement.executeBatch())
+        .thenReturn(new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+    Mockito.when(statement.executeUpdate()).thenReturn(0, 1);
+
+    List<RegistrationKey> inserted = new RegistrationBatchRepositoryImpl(dataSource)
+        .insertMissing(List.of(new RegistrationKey(1L, "TM1"), new RegistrationKey(1L, "TM2")));
+
+    assertEquals(List.of(new RegistrationKey(1L, "TM2")), inserted);
+    Mockito.verify(connection).rollback(Mockito.any());
+    Mockito.verify(statement, Mockito.times(2)).executeUpdate();
+  }
+
+  /**
+   * Tests that {@code insertMissing} skips a pair a concurrent transaction inserted while the
+   * batch ran: the batch fails on the unique constraint, is undone, and the pairs are inserted
+   * one at a time with the conflicting one rolled back to its own savepoint.
+   *
+   * @throws SQLException never, as the driver is mocked.
+   */
+  @Test
+  void testInsertMissingSkipsPairsInsertedConcurrently() throws SQLException {
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Connection connection = Mockito.mock(Connection.class);
+    PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+    Savepoint batch = Mockito.mock(Savepoint.class);
+    Savepoint first = Mockito.mock(Savepoint.class);
+    Savepoint second = Mockito.mock(Savepoint.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(connection);
+    Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+    Mockito.when(connection.setSavepoint()).thenReturn(batch, first, second);
+    SQLException duplicate = new SQLException("Unique index violation", "23505");
+    Mockito.when(statement.executeBatch())
+        .thenThrow(new BatchUpdateException("Batch failed", null, 0, new int[0], duplicate));
+    Mockito.when(statement.executeUpdate()).thenThrow(duplicate).thenReturn(1);
+
+    List<RegistrationKey> inserted = new RegistrationBatchRepositoryImpl(dataSource)
+        .insertMissing(List.of(new RegistrationKey(1L, "TM1"), new RegistrationKey(1L, "TM2")));
+
+    assertEquals(List.of(new RegistrationKey(1L, "TM2")), inserted);
+    Mockito.verify(connection).rollback(batch);
+    Mockito.verify(connection).rollback(first);
+    Mockito.verify(connection).releaseSavepoint(second);
+  }
+
+  /**
+   * Tests the queries behind the detail pages. Verifies that every registration is returned once,
+   * with its grade when there is one and with a {@code null} grade otherwise.
+   */
+  @Test
+  void testFindGradedRegistrations() {
+    studentRepository.save(mySecondStudent);
+    registrationRepository.save(new Registration(myFirstStudent, myFirstModule));
+    registrationRepository.save(new Registration(myFirstStudent, mySecondModule));
+    registrationRepository.save(new Registration(mySecondStudent, myFirstModule));
+    Grade grade = gradeRepository.save(new Grade(65, myFirstStudent, myFirstModule));
+    gradeRepository.save(new Grade(80, mySecondStudent, mySecondModule));
+
+    assertEquals(List.of(new GradeView(grade.getId(), 65, 1L, "TM1"),
+            new GradeView(null, null, 1L, "TM2")),
+        registrationRepository.findGradedByStudentId(1L));
+
+    List<ModuleGrade> roster = registrationRepository.findGradedByModuleCode("TM1");
+    assertEquals(List.of(1L, 2L), roster.stream().map(row -> row.student().id()).toList());
+    assertEquals(grade.getId(), roster.get(0).id());
+    assertEquals(65, roster.get(0).score());
+    assertNull(roster.get(1).id());
+    assertNull(roster.get(1).score());
+  }
+
+  /**
+   * Tests that inserting an empty batch is a no-op.
+   */
+  @Test
+  void testInsertAllWithNoKeys() {
+    assertEquals(0, registrationRepository.insertAll(List.of()));
+    assertEquals(0, registrationRepository.count());
+  }
+
+  /**
+   * Tests the set-based MNC fan-out. Verifies that every student without a registration for the
+   * module gets one, that existing registrations are left alone, and that the number of created
+   * registrations is returned.
+   */
+  @Test
+  void testRegisterAllStudents() {
+    studentRepository.save(mySecondStudent);
+    registrationRepository.save(new Registration(myFirstStudent, myFirstModule));
+    registrationRepository.flush();
+
+    int created = registrationRepository.registerAllStudents("TM1");
+
+    assertEquals(1, created);
+    assertEquals(2, registrationRepository.findByModuleCode("TM1").size());
+    assertEquals(0, registrationRepository.registerAllStudents("TM1"));
+  }
+
+  /**
+   * Tests the single-statement insert-if-absent. Verifies that the first call creates the
+   * registration and that a repeated call reports that nothing was inserted.
+   */
+  @Test
+  void testInsertIfAbsent() {
+    studentRepository.flush();
+
+    assertEquals(1, registrationRepository.insertIfAbsent(1L, "TM1"));
+    assertEquals(0, registrationRepository.insertIfAbsent(1L, "TM1"));
+    assertEquals(1, registrationRepository.count());
+  }
+
+  /**
+   * Tests that the JDBC batch skips pairs that are already registered, including pairs repeated
+   * within the same batch.
+   */
+  @Test
+  void testInsertAllSkipsExistingRegistrations() {
+    registrationRepository.saveAndFlush(new Registration(myFirstStudent, myFirstModule));
+
+    int inserted = registrationRepository.insertAll(List.of(
+        new RegistrationKey(1L, "TM1"), new RegistrationKey(1L, "TM2"),
+        new RegistrationKey(1L, "TM2")));
+
+    assertEquals(1, inserted);
+    assertEquals(2, registrationRepository.count());
+  }
+
+  /**
+   * Tests that the database rejects a second registration of the same student for the same module.
+   */
+  @Test
+  void testDuplicateRegistrationRejected() {
+    registrationRepository.saveAndFlush(new Registration(myFirstStudent, myFirstModule));
+
+    assertThrows(DataIntegrityViolationException.class, () -> registrationRepository
+        .saveAndFlush(new Registration(myFirstStudent, myFirstModule)));
+  }
 }
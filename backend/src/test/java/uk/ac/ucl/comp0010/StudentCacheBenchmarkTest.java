@@ -0,0 +1,132 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentCacheStats;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+/**
+ * Benchmark of repeated student detail views, as staff moving between student pages request
+ * them. Each view reads the student and their registered modules through {@link Controller}.
+ * <p>
+ * The first pass over the students loads every one of them from the database; the following
+ * passes are served from the {@link StudentCache}. The test checks that every repeated view was a
+ * cache hit and faster on average than the first.
+ * </p>
+ */
+@Tag("benchmark")
+@SpringBootTest
+public class StudentCacheBenchmarkTest {
+
+  /**
+   * Default constructor for StudentCacheBenchmarkTest.
+   */
+  public StudentCacheBenchmarkTest() {
+  }
+
+  /**
+   * The number of students viewed on each pass.
+   */
+  private static final int STUDENTS = 500;
+
+  /**
+   * The number of modules every student is registered for.
+   */
+  private static final int MODULES = 10;
+
+  /**
+   * The number of passes over the students after the first one.
+   */
+  private static final int REPEATS = 20;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * Removes everything the benchmark created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Views every student once, as the detail page does.
+   *
+   * @return the time taken, in nanoseconds.
+   */
+  private long viewAll() {
+    long start = System.nanoTime();
+    for (long id = 1; id <= STUDENTS; id++) {
+      assertEquals(200, controller.getStudentById(id).getStatusCode().value());
+      assertEquals(MODULES, controller.getRegisteredModulesByStudentId(id).getBody().size());
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * Compares the latency of the first detail view of each student with that of repeated views.
+   */
+  @Test
+  void benchmarkRepeatedDetailViews() {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), 0, 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    jdbcTemplate.update("INSERT INTO registration (student_id, module_code) "
+        + "SELECT s.id, m.code FROM student s, module m");
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+
+    StudentCacheStats before = studentCache.stats();
+    long cold = viewAll();
+    long warm = 0;
+    for (int i = 0; i < REPEATS; i++) {
+      warm += viewAll();
+    }
+    StudentCacheStats after = studentCache.stats();
+
+    // Every view after the first pass is served without a query
+    assertEquals(2L * STUDENTS, after.misses() - before.misses());
+    assertEquals(STUDENTS, after.size());
+    assertTrue(warm / REPEATS < cold, "cached views should be faster than cold views");
+  }
+}
@@ -0,0 +1,175 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentCacheStats;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Unit tests for the {@link StudentCache} class.
+ * <p>
+ * The repositories are mocked so the tests can count how often the cache actually queries the
+ * database.
+ * </p>
+ */
+public class StudentCacheTest {
+
+  /**
+   * Default constructor for StudentCacheTest.
+   */
+  public StudentCacheTest() {
+  }
+
+  @Mock
+  StudentRepository studentRepository;
+
+  @Mock
+  RegistrationRepository registrationRepository;
+
+  private StudentCache cache;
+
+  /**
+   * Initializes the mocks and a cache of two students with a long time to live before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    cache = new StudentCache(studentRepository, registrationRepository, 2, Duration.ofMinutes(10));
+    for (long id = 1; id <= 3; id++) {
+      Mockito.when(studentRepository.findById(id)).thenReturn(Optional.of(student(id)));
+    }
+  }
+
+  /**
+   * Creates a student with the given ID.
+   *
+   * @param id the ID of the student.
+   * @return the student.
+   */
+  private static Student student(long id) {
+    Student student = new Student();
+    student.setId(id);
+    student.setUsername("student" + id);
+    return student;
+  }
+
+  /**
+   * Tests that a student is loaded once and then served from the cache.
+   */
+  @Test
+  void testFindQueriesOnce() {
+    Student first = cache.find(1L).orElseThrow();
+    assertSame(first, cache.find(1L).orElseThrow());
+
+    Mockito.verify(studentRepository, Mockito.times(1)).findById(1L);
+    assertEquals(new StudentCacheStats(1, 1, 0, 0, 1), cache.stats());
+  }
+
+  /**
+   * Tests that an unknown student is not cached.
+   */
+  @Test
+  void testUnknownStudentIsNotCached() {
+    Mockito.when(studentRepository.findById(9L)).thenReturn(Optional.empty());
+
+    assertFalse(cache.contains(9L));
+    assertFalse(cache.contains(9L));
+
+    Mockito.verify(studentRepository, Mockito.times(2)).findById(9L);
+    assertEquals(0, cache.stats().size());
+  }
+
+  /**
+   * Tests that the module codes are loaded once with the student and then served from the cache.
+   */
+  @Test
+  void testModuleCodesQueriedOnce() {
+    Mockito.when(registrationRepository.findModuleCodesByStudentId(1L))
+        .thenReturn(List.of("TM1", "TM2"));
+
+    assertEquals(List.of("TM1", "TM2"), cache.findModuleCodes(1L).orElseThrow());
+    assertEquals(List.of("TM1", "TM2"), cache.findModuleCodes(1L).orElseThrow());
+
+    Mockito.verify(studentRepository, Mockito.times(1)).findById(1L);
+    Mockito.verify(registrationRepository, Mockito.times(1)).findModuleCodesByStudentId(1L);
+  }
+
+  /**
+   * Tests that the least recently used student is evicted once the cache is full.
+   */
+  @Test
+  void testEvictsLeastRecentlyUsed() {
+    cache.find(1L);
+    cache.find(2L);
+    cache.find(1L);
+    cache.find(3L);
+
+    assertEquals(1, cache.stats().evictions());
+    assertEquals(2, cache.stats().size());
+
+    // Student 1 was used more recently than student 2, so only student 2 is queried again
+    cache.find(1L);
+    cache.find(2L);
+    Mockito.verify(studentRepository, Mockito.times(1)).findById(1L);
+    Mockito.verify(studentRepository, Mockito.times(2)).findById(2L);
+  }
+
+  /**
+   * Tests that an entry older than the time to live is reloaded.
+   */
+  @Test
+  void testExpiredEntryIsReloaded() {
+    cache = new StudentCache(studentRepository, registrationRepository, 2, Duration.ZERO);
+
+    cache.find(1L);
+    cache.find(1L);
+
+    Mockito.verify(studentRepository, Mockito.times(2)).findById(1L);
+    assertEquals(1, cache.stats().expirations());
+  }
+
+  /**
+   * Tests that evicting a student outside a transaction forces the next read to reload both the
+   * student and their module codes.
+   */
+  @Test
+  void testEvictReloads() {
+    Mockito.when(registrationRepository.findModuleCodesByStudentId(1L))
+        .thenReturn(List.of("TM1")).thenReturn(List.of("TM1", "TM2"));
+
+    assertEquals(List.of("TM1"), cache.findModuleCodes(1L).orElseThrow());
+    cache.evict(1L);
+    assertEquals(List.of("TM1", "TM2"), cache.findModuleCodes(1L).orElseThrow());
+
+    Mockito.verify(studentRepository, Mockito.times(2)).findById(1L);
+  }
+
+  /**
+   * Tests that evicting several students or clearing the cache drops the matching entries.
+   */
+  @Test
+  void testEvictAllAndClear() {
+    cache.find(1L);
+    cache.find(2L);
+
+    cache.evictAll(List.of(1L));
+    assertEquals(1, cache.stats().size());
+
+    cache.clear();
+    assertEquals(0, cache.stats().size());
+  }
+}
@@ -0,0 +1,210 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+import uk.ac.ucl.comp0010.student.StudentSearchHit;
+import uk.ac.ucl.comp0010.student.StudentSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the {@link StudentSearchIndex} class.
+ * <p>
+ * The index is loaded from a mocked repository. A benchmark times typeahead queries over
+ * {@value #STUDENTS} students, one keystroke at a time.
+ * </p>
+ */
+public class StudentSearchIndexTest {
+
+  /**
+   * Default constructor for StudentSearchIndexTest.
+   */
+  public StudentSearchIndexTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 100_000;
+
+  @Mock
+  StudentRepository studentRepository;
+
+  private StudentSearchIndex index;
+
+  /**
+   * Initializes the mocks and an index of a few students before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    Mockito.when(studentRepository.findAll()).thenReturn(List.of(
+        student(3, "Ann", "Lee", "alee", "ann.lee@mail.com"),
+        student(1, "Annabel", "Smith", "asmith", "annabel.smith@mail.com"),
+        student(2, "Joanna", "Annan", "jannan", "joanna.annan@mail.com"),
+        student(4, "Ben", "Hanna", "bhanna", "ben.hanna@mail.com")));
+    index = new StudentSearchIndex(studentRepository);
+  }
+
+  /**
+   * Creates a student.
+   *
+   * @param id        the ID of the student.
+   * @param firstName the first name of the student.
+   * @param lastName  the last name of the student.
+   * @param username  the username of the student.
+   * @param email     the email address of the student.
+   * @return the student.
+   */
+  private static Student student(long id, String firstName, String lastName, String username,
+      String email) {
+    Student student = new Student();
+    student.setId(id);
+    student.setFirstName(firstName);
+    student.setLastName(lastName);
+    student.setUsername(username);
+    student.setEmail(email);
+    return student;
+  }
+
+  /**
+   * Returns the IDs of the students found by a search.
+   *
+   * @param query the query.
+   * @param limit the largest number of students returned.
+   * @return the IDs, best match first.
+   */
+  private List<Long> search(String query, int limit) {
+    return index.search(query, limit).stream().map(StudentSearchHit::id).toList();
+  }
+
+  /**
+   * Tests that whole words rank above words started, which rank above substrings, and that the
+   * index is loaded once.
+   */
+  @Test
+  void testMatchesAreRanked() {
+    // "ann" is a word of student 3, starts "annabel" and "annan", and is inside "hanna"
+    assertEquals(List.of(3L, 1L, 2L, 4L), search("Ann", 10));
+    assertEquals(List.of(3L, 1L), search("ann", 2));
+    assertEquals(List.of(4L), search("HANN", 10));
+    assertEquals(List.of(2L), search("2", 10));
+    Mockito.verify(studentRepository, Mockito.times(1)).findAll();
+  }
+
+  /**
+   * Tests that every term of a query must match, and that punctuation separates terms.
+   */
+  @Test
+  void testEveryTermMustMatch() {
+    assertEquals(List.of(2L), search("ann jo", 10));
+    assertEquals(List.of(1L), search("annabel.smith@mail", 10));
+    assertEquals(List.of(), search("ann zed", 10));
+    // Terms shorter than three characters only match the start of a word
+    assertEquals(List.of(), search("nn", 10));
+    assertEquals(List.of(), search("  ", 10));
+  }
+
+  /**
+   * Tests that creating, updating and deleting a student updates a loaded index.
+   */
+  @Test
+  void testIndexIsUpdatedIncrementally() {
+    assertEquals(4, search("mail", 10).size());
+
+    index.put(student(5, "Anna", "Jones", "ajones", "anna.jones@mail.com"));
+    assertEquals(List.of(5L), search("jones", 10));
+    index.put(student(5, "Hannah", "Jones", "hjones", "hannah.jones@mail.com"));
+    assertEquals(List.of(), search("ajones", 10));
+    assertEquals(List.of(5L), search("hannah", 10));
+
+    index.remove(3L);
+    assertEquals(List.of(1L, 2L, 4L, 5L), search("ann", 10));
+    assertEquals(4, index.size());
+    Mockito.verify(studentRepository, Mockito.times(1)).findAll();
+  }
+
+  /**
+   * Tests that a student taking the slot of a removed one is found, and ranked in ID order among
+   * the students that match as well.
+   */
+  @Test
+  void testRemovedSlotIsReused() {
+    assertEquals(List.of(3L, 1L, 2L, 4L), search("ann", 10));
+
+    index.remove(1L);
+    index.put(student(6, "Annabel", "Stone", "astone", "annabel.stone@mail.com"));
+    index.put(student(6, "Annabel", "Stone", "astone2", "annabel.stone@mail.com"));
+    // Words started are listed in word order, other equal matches in ID order
+    assertEquals(List.of(3L, 6L, 2L, 4L), search("ann", 10));
+    assertEquals(List.of(3L, 2L, 6L, 4L), search("ann com", 10));
+    assertEquals(List.of(6L), search("astone2", 10));
+    assertEquals(List.of(), search("smith", 10));
+    assertEquals(4, index.size());
+  }
+
+  /**
+   * Tests that invalidating the index reloads it on the next search.
+   */
+  @Test
+  void testInvalidateReloads() {
+    assertEquals(List.of(4L), search("ben", 1));
+    assertEquals(4, index.size());
+    index.invalidate();
+    assertEquals(0, index.size());
+    Mockito.when(studentRepository.findAll())
+        .thenReturn(List.of(student(6, "Cara", "Dunn", "cdunn", "cara.dunn@mail.com")));
+    assertEquals(List.of(6L), search("cara", 10));
+    assertEquals(1, index.size());
+  }
+
+  /**
+   * Times typeahead queries over {@value #STUDENTS} students, typing each query one character at
+   * a time, and checks that the mean query answers in under 5 ms.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkTypeahead() {
+    List<Student> students = new ArrayList<>();
+    for (long id = 1; id <= STUDENTS; id++) {
+      students.add(student(id, "First" + id, "Last" + id, "user" + id, "user" + id + "@mail.com"));
+    }
+    Mockito.when(studentRepository.findAll()).thenReturn(students);
+    index.invalidate();
+
+    assertEquals(List.of(1L), search("1", 1));
+
+    List<String> queries = List.of("user4242", "last77", "first9 last9", "ser123", "mail.com");
+    // Warm up, then time every prefix of every query
+    for (int round = 0; round < 2; round++) {
+      for (String query : queries) {
+        for (int end = 1; end <= query.length(); end++) {
+          index.search(query.substring(0, end), StudentSearchIndex.DEFAULT_LIMIT);
+        }
+      }
+    }
+    int count = 0;
+    long start = System.nanoTime();
+    for (String query : queries) {
+      for (int end = 1; end <= query.length(); end++) {
+        index.search(query.substring(0, end), StudentSearchIndex.DEFAULT_LIMIT);
+        count++;
+      }
+    }
+    double meanMillis = (System.nanoTime() - start) / 1e6 / count;
+
+    assertEquals(List.of(4242L, 42420L), search("user4242", 2));
+    assertEquals(List.of(123L, 1230L, 1231L), search("ser123", 3));
+    assertTrue(meanMillis < 5, "a keystroke should be answered in under 5 ms");
+  }
+}
@@ -5,16 +5,23 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import uk.ac.ucl.comp0010.grade.Grade;
 import uk.ac.ucl.comp0010.grade.GradeRepository;
 import uk.ac.ucl.comp0010.module.Module;
 import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.student.GradeAggregateDrift;
+import uk.ac.ucl.comp0010.student.GradeAggregateRepairJob;
 import uk.ac.ucl.comp0010.student.Student;
 import uk.ac.ucl.comp0010.student.StudentRepository;
+import uk.ac.ucl.comp0010.sync.ChangeLog;
+
+import java.util.List;
 
 
 /**
@@ -36,6 +43,8 @@ public class StudentTest {
   private StudentRepository studentRepository;
   @Autowired
   private GradeRepository gradeRepository;
+  @Autowired
+  private EntityManager entityManager;
 
   private Student myStudent;
   private Module myFirstModule;
@@ -262,5 +271,64 @@ public class StudentTest {
         "Average should be 87.5 when two grades are present");
   }
 
+  /**
+   * Tests the statements that maintain the persisted aggregates. Verifies that adding, changing
+   * and removing grades keeps the count, sum and average in step without loading any grade.
+   */
+  @Test
+  void testGradeAggregatesMaintainedIncrementally() {
+    moduleRepository.save(new Module("TM1", "TestModule1", false));
+    moduleRepository.save(new Module("TM2", "TestModule2", false));
+    entityManager.flush();
+
+    gradeRepository.upsert(1L, "TM1", 60);
+    studentRepository.adjustGradeAggregates(1L, 1, 60);
+    gradeRepository.upsert(1L, "TM2", 90);
+    studentRepository.adjustGradeAggregates(1L, 1, 90);
+    gradeRepository.upsert(1L, "TM2", 80);
+    studentRepository.adjustGradeAggregates(1L, 0, -10);
+    entityManager.clear();
+
+    Student student = studentRepository.findById(1L).orElseThrow();
+    assertEquals(2, student.getGradeCount());
+    assertEquals(140, student.getScoreSum());
+    assertEquals(70.0, student.computeAverage(), 0.001);
+
+    assertEquals(1, studentRepository.subtractModuleGrade(1L, "TM1"));
+    assertEquals(0, studentRepository.subtractModuleGrade(1L, "NONE"));
+    assertEquals(1, studentRepository.subtractModuleGrades("TM2"));
+    entityManager.clear();
+
+    student = studentRepository.findById(1L).orElseThrow();
+    assertEquals(0, student.getGradeCount());
+    assertEquals(0, student.getScoreSum());
+  }
 
+  /**
+   * Tests the repair job. Verifies that grades written without maintaining the aggregates are
+   * reported as drift, that the repair recomputes the aggregates, and that a second run finds no
+   * drift.
+   */
+  @Test
+  void testGradeAggregateRepairJob() {
+    myFirstModule = moduleRepository.save(new Module("TM1", "TestModule1", false));
+    Student student = studentRepository.findById(1L).orElseThrow();
+    gradeRepository.save(new Grade(75, student, myFirstModule));
+    Student otherStudent = studentRepository.save(
+        createTestStudent(2L, "Second", "Student", "secondstudent@mail.com", "secondstudent2"));
+    entityManager.flush();
+
+    ChangeLog changeLog = Mockito.mock(ChangeLog.class);
+    GradeAggregateRepairJob repairJob = new GradeAggregateRepairJob(studentRepository, changeLog);
+    List<GradeAggregateDrift> drift = repairJob.repair();
+    entityManager.clear();
+
+    assertEquals(List.of(new GradeAggregateDrift(1L, 0, 0L, 1L, 75L)), drift);
+    Student repaired = studentRepository.findById(1L).orElseThrow();
+    assertEquals(1, repaired.getGradeCount());
+    assertEquals(75.0, repaired.computeAverage(), 0.001);
+    assertEquals(0, studentRepository.findById(otherStudent.getId()).orElseThrow().getGradeCount());
+    assertTrue(repairJob.repair().isEmpty());
+    Mockito.verify(changeLog, Mockito.times(1)).students(List.of(1L));
+  }
 }
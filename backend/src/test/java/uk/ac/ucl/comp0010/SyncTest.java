@@ -0,0 +1,299 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ucl.comp0010.controller.Controller;
+import uk.ac.ucl.comp0010.grade.Grade;
+import uk.ac.ucl.comp0010.grade.GradeRepository;
+import uk.ac.ucl.comp0010.grade.GradeView;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.module.Module;
+import uk.ac.ucl.comp0010.module.ModuleCatalogue;
+import uk.ac.ucl.comp0010.module.ModuleRepository;
+import uk.ac.ucl.comp0010.module.ModuleStatsRepository;
+import uk.ac.ucl.comp0010.registration.RegistrationKey;
+import uk.ac.ucl.comp0010.registration.RegistrationRepository;
+import uk.ac.ucl.comp0010.student.Student;
+import uk.ac.ucl.comp0010.student.StudentCache;
+import uk.ac.ucl.comp0010.student.StudentRepository;
+import uk.ac.ucl.comp0010.sync.ChangeLog;
+import uk.ac.ucl.comp0010.sync.SyncDelta;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Integration tests for {@code GET /sync} and the {@link ChangeLog} behind it.
+ * <p>
+ * The writes go through {@link Controller}, so the tests check that every write path logs the
+ * rows it changes, that a delta only carries those rows, and that a transaction still in flight
+ * holds the resume point back. A benchmark compares the size of a delta after one grade change
+ * with that of the full compact grade list at {@value #STUDENTS} x {@value #MODULES} grades.
+ * </p>
+ */
+@SpringBootTest
+public class SyncTest {
+
+  /**
+   * Default constructor for SyncTest.
+   */
+  public SyncTest() {
+  }
+
+  /**
+   * The number of students in the benchmark data set.
+   */
+  private static final int STUDENTS = 1000;
+
+  /**
+   * The number of modules in the benchmark data set; every student has a grade in each.
+   */
+  private static final int MODULES = 100;
+
+  @Autowired
+  private Controller controller;
+  @Autowired
+  private ChangeLog changeLog;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+  @Autowired
+  private StudentRepository studentRepository;
+  @Autowired
+  private ModuleRepository moduleRepository;
+  @Autowired
+  private ModuleCatalogue moduleCatalogue;
+  @Autowired
+  private StudentCache studentCache;
+  @Autowired
+  private GradeRepository gradeRepository;
+  @Autowired
+  private RegistrationRepository registrationRepository;
+  @Autowired
+  private ModuleStatsRepository moduleStatsRepository;
+
+  /**
+   * The sequence number the data had reached before each test.
+   */
+  private long baseline;
+
+  /**
+   * Records where the change log stands before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    baseline = controller.sync(0).getBody().next();
+  }
+
+  /**
+   * Removes everything the test created, since the application context is not rolled back.
+   */
+  @AfterEach
+  void tearDown() {
+    moduleStatsRepository.deleteAllInBatch();
+    gradeRepository.deleteAllInBatch();
+    registrationRepository.deleteAllInBatch();
+    studentRepository.deleteAllInBatch();
+    moduleRepository.deleteAllInBatch();
+    jdbcTemplate.update("DELETE FROM change_log");
+    jdbcTemplate.update("DELETE FROM change_log_floor");
+    moduleCatalogue.invalidate();
+    studentCache.clear();
+  }
+
+  /**
+   * Creates a student through the controller.
+   *
+   * @param id the ID of the student.
+   */
+  private void createStudent(long id) {
+    Student student = new Student();
+    student.setId(id);
+    student.setUsername("student" + id);
+    controller.createStudent(student);
+  }
+
+  /**
+   * Adds a grade through the controller.
+   *
+   * @param studentId  the ID of the student.
+   * @param moduleCode the code of the module.
+   * @param score      the score.
+   */
+  private void addGrade(long studentId, String moduleCode, int score) {
+    Student student = new Student();
+    student.setId(studentId);
+    controller.addGrade(new Grade(score, student, new Module(moduleCode, null, false)));
+  }
+
+  /**
+   * Tests that each delta carries exactly the rows written or deleted since the previous sync.
+   */
+  @Test
+  void testDeltaCarriesOnlyChanges() {
+    controller.createModule(new Module("SY1", "Sync 1", false));
+    createStudent(1);
+    createStudent(2);
+    controller.registerStudents(
+        List.of(new RegistrationKey(1L, "SY1"), new RegistrationKey(2L, "SY1")));
+    addGrade(1, "SY1", 70);
+    addGrade(2, "SY1", 50);
+
+    SyncDelta initial = controller.sync(baseline).getBody();
+    assertEquals(2, initial.students().size());
+    assertEquals(List.of("SY1"), initial.modules().stream().map(Module::getCode).toList());
+    assertEquals(2, initial.grades().size());
+    assertEquals(2, initial.registrations().size());
+    assertTrue(initial.deleted().grades().isEmpty());
+
+    // One grade change costs the grade and its student's aggregates
+    addGrade(1, "SY1", 90);
+    SyncDelta afterGrade = controller.sync(initial.next()).getBody();
+    assertEquals(List.of(90), afterGrade.grades().stream().map(GradeView::score).toList());
+    assertEquals(List.of(1L), afterGrade.students().stream().map(Student::getId).toList());
+    assertEquals(90, afterGrade.students().get(0).getScoreSum());
+    assertTrue(afterGrade.modules().isEmpty());
+    assertTrue(afterGrade.registrations().isEmpty());
+
+    // Deleting a registration leaves tombstones for it and its grade
+    long registrationId = initial.registrations().stream()
+        .filter(view -> view.studentId() == 2L).findFirst().orElseThrow().id();
+    long gradeId = initial.grades().stream().filter(view -> view.studentId() == 2L)
+        .findFirst().orElseThrow().id();
+    controller.deleteRegistration(2L, "SY1");
+    SyncDelta afterDelete = controller.sync(afterGrade.next()).getBody();
+    assertEquals(List.of(registrationId), afterDelete.deleted().registrations());
+    assertEquals(List.of(gradeId), afterDelete.deleted().grades());
+    assertEquals(List.of(2L), afterDelete.students().stream().map(Student::getId).toList());
+    assertTrue(afterDelete.grades().isEmpty());
+
+    // Deleting the module leaves tombstones for everything in it
+    controller.deleteModule("SY1");
+    SyncDelta afterModule = controller.sync(afterDelete.next()).getBody();
+    assertEquals(List.of("SY1"), afterModule.deleted().modules());
+    assertEquals(1, afterModule.deleted().grades().size());
+    assertEquals(1, afterModule.deleted().registrations().size());
+    assertEquals(List.of(1L), afterModule.students().stream().map(Student::getId).toList());
+
+    // Nothing changed since the last sync
+    SyncDelta empty = controller.sync(afterModule.next()).getBody();
+    assertTrue(empty.students().isEmpty());
+    assertTrue(empty.deleted().modules().isEmpty());
+  }
+
+  /**
+   * Tests that a change committed after a later one is not skipped: while a transaction that
+   * logged a change is in flight, the resume point stays below it.
+   *
+   * @throws Exception if the concurrent sync fails.
+   */
+  @Test
+  void testInFlightTransactionHoldsBackNext() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    long[] heldBack = new long[1];
+    try {
+      new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+        changeLog.module("EARLY");
+        try {
+          // A later change commits on its own, then a client syncs
+          executor.submit(() -> changeLog.module("LATE")).get();
+          ChangeLog.Changes during = executor.submit(() -> changeLog.since(baseline)).get();
+          assertTrue(during.upserted().get(Table.MODULE).contains("LATE"));
+          assertFalse(during.upserted().get(Table.MODULE).contains("EARLY"));
+          heldBack[0] = during.next();
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    } finally {
+      executor.shutdown();
+    }
+
+    ChangeLog.Changes after = changeLog.since(heldBack[0]);
+    assertTrue(after.upserted().get(Table.MODULE).contains("EARLY"));
+  }
+
+  /**
+   * Tests that a compaction keeps only the latest change to each row that still exists, and that
+   * a client that last synced below the floor it raises is told to resync while one that synced
+   * after it is sent its delta as before.
+   */
+  @Test
+  void testCompactionRaisesFloor() {
+    controller.createModule(new Module("SY1", "Sync 1", false));
+    controller.createModule(new Module("SY2", "Sync 2", false));
+    createStudent(1);
+    addGrade(1, "SY1", 70);
+    addGrade(1, "SY1", 90);
+    controller.deleteModule("SY2");
+    long synced = controller.sync(baseline).getBody().next();
+
+    assertTrue(changeLog.compact(Instant.now().plusSeconds(60)) > 0);
+
+    // One change is left per row, and none for the deleted module
+    assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log WHERE deleted",
+        Integer.class));
+    assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_log", Integer.class),
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM (SELECT DISTINCT kind, entity_key FROM change_log)",
+            Integer.class));
+
+    SyncDelta stale = controller.sync(baseline).getBody();
+    assertTrue(stale.resyncRequired());
+    assertTrue(stale.students().isEmpty());
+    assertTrue(stale.next() >= synced);
+
+    addGrade(1, "SY1", 50);
+    SyncDelta current = controller.sync(synced).getBody();
+    assertFalse(current.resyncRequired());
+    assertEquals(List.of(50), current.grades().stream().map(GradeView::score).toList());
+  }
+
+  /**
+   * Compares the payload of a delta after one grade change with that of the full compact grade
+   * list.
+   *
+   * @throws Exception if a payload cannot be serialised.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmarkIncrementalRefresh() throws Exception {
+    jdbcTemplate.update("INSERT INTO student (id, first_name, last_name, username, email, "
+        + "grade_count, score_sum) SELECT x, CONCAT('First', x), CONCAT('Last', x), "
+        + "CONCAT('user', x), CONCAT('user', x, '@mail.com'), " + MODULES + ", 0 "
+        + "FROM SYSTEM_RANGE(1, " + STUDENTS + ")");
+    jdbcTemplate.update("INSERT INTO module (code, name, mnc) SELECT CONCAT('BM', x), "
+        + "CONCAT('Benchmark module ', x), FALSE FROM SYSTEM_RANGE(1, " + MODULES + ")");
+    jdbcTemplate.update("INSERT INTO grade (student_id, module_id, score) "
+        + "SELECT s.id, m.code, 0 FROM student s, module m");
+    moduleCatalogue.invalidate();
+    long since = controller.sync(0).getBody().next();
+
+    long fullBytes = objectMapper.writeValueAsBytes(controller.getGradeViews()).length;
+
+    addGrade(1, "BM1", 80);
+    SyncDelta delta = controller.sync(since).getBody();
+    long deltaBytes = objectMapper.writeValueAsBytes(delta).length;
+
+    assertEquals(1, delta.grades().size());
+    assertEquals(1, delta.students().size());
+    assertTrue(deltaBytes * 1000 < fullBytes, "a delta should be three orders smaller");
+  }
+}
@@ -0,0 +1,132 @@
+package uk.ac.ucl.comp0010;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.ac.ucl.comp0010.insights.DataVersion;
+import uk.ac.ucl.comp0010.insights.DataVersion.Table;
+import uk.ac.ucl.comp0010.insights.VersionEtagInterceptor;
+
+/**
+ * Unit tests for the {@link VersionEtagInterceptor} class and the ETags of {@link DataVersion}.
+ * <p>
+ * The interceptor guards a grades endpoint, so its tag depends on the grade, student and module
+ * versions and not on the registration version.
+ * </p>
+ */
+public class VersionEtagInterceptorTest {
+
+  /**
+   * Default constructor for VersionEtagInterceptorTest.
+   */
+  public VersionEtagInterceptorTest() {
+  }
+
+  private DataVersion dataVersion;
+
+  private VersionEtagInterceptor interceptor;
+
+  /**
+   * Creates fresh data versions and an interceptor for a grades endpoint before each test.
+   */
+  @BeforeEach
+  public void setup() {
+    dataVersion = new DataVersion();
+    interceptor =
+        new VersionEtagInterceptor(dataVersion, Table.GRADE, Table.STUDENT, Table.MODULE);
+  }
+
+  /**
+   * Sends a request through the interceptor.
+   *
+   * @param method      the HTTP method.
+   * @param ifNoneMatch the If-None-Match header, or {@code null} for none.
+   * @param response    the response to write to.
+   * @return whether the handler would be called.
+   */
+  private boolean send(String method, String ifNoneMatch, MockHttpServletResponse response) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, "/grades");
+    if (ifNoneMatch != null) {
+      request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+    return interceptor.preHandle(request, response, new Object());
+  }
+
+  /**
+   * Tests that an unconditional GET reaches the handler with a strong ETag set.
+   */
+  @Test
+  void testGetSetsEtag() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertTrue(send("GET", null, response));
+    assertEquals(200, response.getStatus());
+    assertEquals(dataVersion.etag(Table.GRADE, Table.STUDENT, Table.MODULE),
+        response.getHeader(HttpHeaders.ETAG));
+    assertFalse(response.getHeader(HttpHeaders.ETAG).startsWith("W/"));
+    assertEquals("no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+  }
+
+  /**
+   * Tests that a GET with the current ETag is answered with 304 without calling the handler.
+   */
+  @Test
+  void testMatchingEtagIsNotModified() {
+    String etag = dataVersion.etag(Table.GRADE, Table.STUDENT, Table.MODULE);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertFalse(send("GET", "\"other\", " + etag, response));
+    assertEquals(304, response.getStatus());
+    assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that a change to a table the endpoint reads invalidates the ETag, while a change to
+   * another table does not.
+   */
+  @Test
+  void testOnlyReadTablesChangeEtag() {
+    String etag = dataVersion.etag(Table.GRADE, Table.STUDENT, Table.MODULE);
+
+    dataVersion.bump(Table.REGISTRATION);
+    assertFalse(send("GET", etag, new MockHttpServletResponse()));
+
+    dataVersion.bump(Table.STUDENT);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertTrue(send("GET", etag, response));
+    assertEquals(200, response.getStatus());
+    assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Tests that bumping every table moves the overall version on once and each table version on.
+   */
+  @Test
+  void testBumpAllMovesEveryVersion() {
+    dataVersion.bump();
+
+    assertEquals(1, dataVersion.current());
+    for (Table table : Table.values()) {
+      assertEquals(1, dataVersion.current(table));
+    }
+  }
+
+  /**
+   * Tests that write requests are passed through without an ETag.
+   */
+  @Test
+  void testPostIsIgnored() {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertTrue(send("POST", dataVersion.etag(Table.GRADE), response));
+    assertNull(response.getHeader(HttpHeaders.ETAG));
+  }
+}
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from "react";
+import React, { useState, useEffect, useRef } from "react";
 import axios from "axios";
 import {
     Breadcrumbs,
@@ -25,50 +25,96 @@ function Home() {
     const [gradeCount, setGradeCount] = useState(0);
     const [registrationCount, setRegistrationCount] = useState(0);
     const [unregisteredCount, setUnregisteredCount] = useState(0);
+    const [averageGrade, setAverageGrade] = useState(null);
     const [error, setError] = useState(null);
     const [searchQuery, setSearchQuery] = useState("");
     const [searchResults, setSearchResults] = useState([]);
     const [students, setStudents] = useState([]);
     const [modules, setModules] = useState([]);
+    const dashboardTimer = useRef(null);
 
     useEffect(() => {
         fetchData();
-    }, []);
 
-    const fetchData = async () => {
-        try {
-            const studentsResponse = await axios.get(`${API_ENDPOINT}/students`);
-            const studentList = studentsResponse.data || [];
-            setStudents(studentList);
-            setStudentCount(studentList.length);
+        // Keep the page up to date from the change events instead of fetching every collection
+        const events = new EventSource(`${API_ENDPOINT}/events`);
+        events.onmessage = (message) => applyEvent(JSON.parse(message.data));
+        // Events were dropped because this page fell behind, so the lists may be stale
+        events.addEventListener("overflow", () => fetchData());
+        return () => {
+            events.close();
+            clearTimeout(dashboardTimer.current);
+        };
+    }, []);
 
-            const modulesResponse = await axios.get(`${API_ENDPOINT}/modules`);
-            const moduleList = modulesResponse.data || [];
-            setModules(moduleList);
-            setModuleCount(moduleList.length);
+    const applyEvent = (event) => {
+        // The counts come from a handful of COUNT queries, so a burst of writes reloads them once
+        clearTimeout(dashboardTimer.current);
+        dashboardTimer.current = setTimeout(fetchDashboard, 250);
 
-            const gradesResponse = await axios.get(`${API_ENDPOINT}/grades`);
-            setGradeCount(gradesResponse.data.length || 0);
+        // The students and modules are kept for the search
+        switch (event.type) {
+            case "STUDENT_CREATED":
+                loadStudent(event.studentId);
+                break;
+            case "STUDENT_DELETED":
+                setStudents((list) => list.filter((student) => student.id !== event.studentId));
+                break;
+            case "MODULE_CREATED":
+                fetchModules();
+                break;
+            case "MODULE_DELETED":
+                setModules((list) => list.filter((module) => module.code !== event.moduleCode));
+                break;
+            default:
+                break;
+        }
+    };
 
-            const registrationResponse = await axios.get(`${API_ENDPOINT}/registrations`);
-            const registrationList = registrationResponse.data || [];
-            setRegistrationCount(registrationList.length);
+    const loadStudent = async (studentId) => {
+        try {
+            const response = await axios.get(`${API_ENDPOINT}/students/${studentId}`);
+            setStudents((list) => [
+                ...list.filter((student) => student.id !== studentId),
+                response.data,
+            ]);
+        } catch (error) {
+            setError("Error fetching data");
+        }
+    };
 
-            // Calculate unregistered students
-            const registeredStudentIds = new Set(
-                registrationList.map((registration) => registration.studentId)
-            );
-            const unregisteredStudents = studentList.filter(
-                (student) => !registeredStudentIds.has(student.id)
-            );
-            setUnregisteredCount(unregisteredStudents.length);
+    const fetchModules = async () => {
+        const modulesResponse = await axios.get(`${API_ENDPOINT}/modules?unpaged=true`);
+        setModules(modulesResponse.data || []);
+    };
 
+    const fetchDashboard = async () => {
+        try {
+            const { data } = await axios.get(`${API_ENDPOINT}/dashboard`);
+            setStudentCount(data.studentCount);
+            setModuleCount(data.moduleCount);
+            setGradeCount(data.gradeCount);
+            setRegistrationCount(data.registrationCount);
+            setUnregisteredCount(data.unregisteredCount);
+            setAverageGrade(data.averageGrade);
             setError(null); // Clear error if successful
         } catch (error) {
             setError("Error fetching data");
         }
     };
 
+    const fetchData = async () => {
+        try {
+            await fetchDashboard();
+
+            const studentsResponse = await axios.get(`${API_ENDPOINT}/students?unpaged=true`);
+            setStudents(studentsResponse.data || []);
+            await fetchModules();
+        } catch (error) {
+            setError("Error fetching data");
+        }
+    };
+
     const handleSearchChange = (event, value) => {
         setSearchQuery(value);
 
@@ -279,7 +325,7 @@ function Home() {
                 await axios.post(`${API_ENDPOINT}/grades`, grade);
             }
 
-            fetchData(); // Refresh data
+            // The counts are updated by the change events the writes publish
         } catch (error) {
             setError("Error adding fake data");
         }
@@ -414,7 +460,9 @@ function Home() {
                                 <Typography variant="h6" color="text.secondary">
                                     Insights
                                 </Typography>
-                                <Typography variant="h4"></Typography>
+                                <Typography variant="h4">
+                                    {averageGrade === null ? "" : averageGrade.toFixed(1)}
+                                </Typography>
                             </CardContent>
                         </Card>
                     </Grid>
@@ -36,7 +36,7 @@ function AddGrade(props) {
     React.useEffect(() => {
         // Fetch registrations
         axios
-            .get(`${API_ENDPOINT}/registrations`)
+            .get(`${API_ENDPOINT}/registrations?unpaged=true`)
             .then((response) => {
                 console.log("Registrations response:", response.data);
                 setRegistrations(response.data || []); // Default to empty array
@@ -45,7 +45,7 @@ function AddGrade(props) {
 
         // Fetch grades
         axios
-            .get(`${API_ENDPOINT}/grades`)
+            .get(`${API_ENDPOINT}/grades?unpaged=true&view=compact`)
             .then((response) => {
                 console.log("Grades response:", response.data);
                 setGrades(response.data || []); // Default to empty array
@@ -64,7 +64,7 @@ function AddGrade(props) {
 
         // Check if the student has already been graded for the module
         const existingGrade = grades.find(
-            (g) => g.student.id === grade.student_id && g.module.code === grade.module_code
+            (g) => g.studentId === grade.student_id && g.moduleCode === grade.module_code
         );
         console.log(grade.student_id, grade.module_code);
         console.log("Existing grade:", existingGrade);
@@ -14,7 +14,7 @@ const GradeDetail = () => {
     const [error, setError] = useState(null);
 
     useEffect(() => {
-        axios.get(`${API_ENDPOINT}/grades`)
+        axios.get(`${API_ENDPOINT}/grades?unpaged=true`)
             .then((response) => {
                 console.log("Received grade: ", response.data);
                 const foundGrade = response.data.find(m => m.id === parseInt(id)); // Locate the module with matching id
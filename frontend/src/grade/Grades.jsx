@@ -31,7 +31,7 @@ function Grades() {
     function updateGrades() {
         console.log("Attempting to GET grades data.");
         axios
-            .get(`${API_ENDPOINT}/grades`)
+            .get(`${API_ENDPOINT}/grades?unpaged=true&view=compact`)
             .then((response) => {
                 console.log("Received grades: ", response.data);
                 setGrades(response.data || []);
@@ -86,8 +86,8 @@ function Grades() {
                                 >
                                     <TableCell>{g.id}</TableCell>
                                     <TableCell>{g.score}</TableCell>
-                                    <TableCell>{g.student.id}</TableCell>
-                                    <TableCell>{g.module.code}</TableCell>
+                                    <TableCell>{g.studentId}</TableCell>
+                                    <TableCell>{g.moduleCode}</TableCell>
                                 </TableRow>
                             ))}
                         </TableBody>
@@ -59,8 +59,6 @@ function Insights() {
     const [loading, setLoading] = useState(true);
     const [error, setError] = useState(null);
     const [studentList, setStudentList] = useState([]);
-    const [moduleList, setModuleList] = useState([]);
-    const [grades, setGrades] = useState([]); // Define grades state
     const [exportAnchorEl, setExportAnchorEl] = useState(null);
     const exportMenuOpen = Boolean(exportAnchorEl);
     const [exportType, setExportType] = useState(null);
@@ -69,59 +67,24 @@ function Insights() {
         fetchData();
     }, []);
 
+    // The summary is computed on the server in one pass over the grades
     const fetchData = async () => {
         try {
-            const studentsResponse = await axios.get(`${API_ENDPOINT}/students`);
-            const studentList = studentsResponse.data || [];
-            setStudentList(studentList);
-            setStudentCount(studentList.length);
-
-            const modulesResponse = await axios.get(`${API_ENDPOINT}/modules`);
-            const moduleList = modulesResponse.data || [];
-            setModuleList(moduleList);
-            setModuleCount(moduleList.length);
-
-            const gradesResponse = await axios.get(`${API_ENDPOINT}/grades`);
-            const gradeList = gradesResponse.data || [];
-            setGrades(gradeList); // Set grades state
-
-            const registrationResponse = await axios.get(`${API_ENDPOINT}/registrations`);
-            const registrationList = registrationResponse.data || [];
-            setRegistrationCount(registrationList.length);
-
-            const registeredStudentIds = new Set(
-                registrationList.map((registration) => registration.studentId)
-            );
-            const unregisteredStudents = studentList.filter(
-                (student) => !registeredStudentIds.has(student.id)
-            );
-            setUnregisteredCount(unregisteredStudents.length);
-
-            const totalGrades = gradeList.reduce((acc, grade) => acc + grade.score, 0);
-            setAverageGrade((totalGrades / gradeList.length).toFixed(2));
-
-            const moduleGradesData = moduleList.map((module) => {
-                const moduleGrades = gradeList.filter((grade) => grade.module.code === module.code);
-                const averageModuleGrade = moduleGrades.length > 0
-                    ? (moduleGrades.reduce((acc, grade) => acc + grade.score, 0) / moduleGrades.length).toFixed(2)
-                    : 0;
-                return { module: module.name, averageGrade: averageModuleGrade };
-            });
-            setModuleGrades(moduleGradesData);
-
-            const failedStudentsData = studentList.filter(student => 
-                gradeList.some(grade => grade.student.id === student.id && grade.score < 40)
-            );
-            setFailedStudents(failedStudentsData);
-
-            const topStudentData = studentList.reduce((top, student) => {
-                const studentGrades = gradeList.filter(grade => grade.student.id === student.id);
-                const studentAverage = studentGrades.length > 0
-                    ? studentGrades.reduce((acc, grade) => acc + grade.score, 0) / studentGrades.length
-                    : 0;
-                return studentAverage > (top.average || 0) ? { ...student, average: studentAverage } : top;
-            }, {});
-            setTopStudent(topStudentData);
+            const response = await axios.get(`${API_ENDPOINT}/insights`);
+            const insights = response.data;
+            setStudentCount(insights.studentCount);
+            setModuleCount(insights.moduleCount);
+            setRegistrationCount(insights.registrationCount);
+            setUnregisteredCount(insights.unregisteredCount);
+            setAverageGrade(insights.averageGrade != null ? insights.averageGrade.toFixed(2) : 0);
+            setModuleGrades(insights.moduleAverages.map((module) => ({
+                code: module.code,
+                module: module.name,
+                averageGrade: module.averageGrade != null ? module.averageGrade.toFixed(2) : 0,
+                hasGrades: module.averageGrade != null
+            })));
+            setFailedStudents(insights.failedStudents);
+            setTopStudent(insights.topStudent);
 
             setError(null);
             setLoading(false);
@@ -131,8 +94,14 @@ function Insights() {
         }
     };
 
+    // The student list is only needed for the student export, so it is fetched on demand
     const handleExportMenuClick = (event) => {
         setExportAnchorEl(event.currentTarget);
+        if (studentList.length === 0) {
+            axios.get(`${API_ENDPOINT}/students?unpaged=true`)
+                .then((response) => setStudentList(response.data || []))
+                .catch(() => setError("Error fetching data"));
+        }
     };
 
     const handleExportMenuClose = () => {
@@ -144,23 +113,30 @@ function Insights() {
         setExportType(type);
     };
 
+    // Each student carries their grade count and score sum, so no grade has to be downloaded
+    const studentAverage = (student) => student.gradeCount > 0
+        ? (student.scoreSum / student.gradeCount).toFixed(2)
+        : "N/A";
+
+    const studentRows = () => studentList.map((student) => [
+        student.id,
+        student.firstName,
+        student.lastName,
+        studentAverage(student)
+    ]);
+
+    const moduleRows = () => moduleGrades.map((module) => [
+        module.code,
+        module.module,
+        module.hasGrades ? module.averageGrade : "N/A"
+    ]);
+
     const exportStudentsToPDF = () => {
         const doc = new jsPDF();
         doc.text("All Students", 20, 10);
         doc.autoTable({
             head: [["Student ID", "First Name", "Last Name", "Average Grade"]],
-            body: studentList.map((student) => {
-                const studentGrades = grades.filter(grade => grade.student.id === student.id);
-                const studentAverage = studentGrades.length > 0
-                    ? (studentGrades.reduce((acc, grade) => acc + grade.score, 0) / studentGrades.length).toFixed(2)
-                    : "N/A";
-                return [
-                    student.id,
-                    student.firstName,
-                    student.lastName,
-                    studentAverage
-                ];
-            }),
+            body: studentRows(),
         });
         doc.save("All_Students.pdf");
     };
@@ -170,50 +146,19 @@ function Insights() {
         doc.text("All Modules", 20, 10);
         doc.autoTable({
             head: [["Module Code", "Module Name", "Average Grade"]],
-            body: moduleList.map((module) => {
-                const moduleGrades = grades.filter(grade => grade.module.code === module.code);
-                const averageModuleGrade = moduleGrades.length > 0
-                    ? (moduleGrades.reduce((acc, grade) => acc + grade.score, 0) / moduleGrades.length).toFixed(2)
-                    : "N/A";
-                return [
-                    module.code,
-                    module.name,
-                    averageModuleGrade
-                ];
-            }),
+            body: moduleRows(),
         });
         doc.save("All_Modules.pdf");
     };
 
     const studentCsvData = [
         ["Student ID", "First Name", "Last Name", "Average Grade"],
-        ...studentList.map((student) => {
-            const studentGrades = grades.filter(grade => grade.student.id === student.id);
-            const studentAverage = studentGrades.length > 0
-                ? (studentGrades.reduce((acc, grade) => acc + grade.score, 0) / studentGrades.length).toFixed(2)
-                : "N/A";
-            return [
-                student.id,
-                student.firstName,
-                student.lastName,
-                studentAverage
-            ];
-        })
+        ...studentRows()
     ];
 
     const moduleCsvData = [
         ["Module Code", "Module Name", "Average Grade"],
-        ...moduleList.map((module) => {
-            const moduleGrades = grades.filter(grade => grade.module.code === module.code);
-            const averageModuleGrade = moduleGrades.length > 0
-                ? (moduleGrades.reduce((acc, grade) => acc + grade.score, 0) / moduleGrades.length).toFixed(2)
-                : "N/A";
-            return [
-                module.code,
-                module.name,
-                averageModuleGrade
-            ];
-        })
+        ...moduleRows()
     ];
 
     const barChartData = {
@@ -320,6 +265,10 @@ function Insights() {
                         <MenuItem onClick={() => handleExportTypeClick("modules")}>
                             Export All Modules
                         </MenuItem>
+                        {/* Every grade is written by the server straight from the database */}
+                        <MenuItem component="a" href={`${API_ENDPOINT}/export/grades.csv`} onClick={handleExportMenuClose}>
+                            Export All Grades to CSV
+                        </MenuItem>
                     </Menu>
                     {exportType && (
                         <Menu
@@ -457,16 +406,11 @@ function Insights() {
                             </Typography>
                             <Box sx={{ maxHeight: 300, overflowY: 'auto' }}>
                                 {failedStudents.length > 0 ? (
-                                    failedStudents.map(student => {
-                                        const failedModules = grades
-                                            .filter(grade => grade.student.id === student.id && grade.score < 40)
-                                            .map(grade => grade.module.name);
-                                        return (
-                                            <Typography key={student.id} variant="body1" sx={{ mb: 1 }}>
-                                                {student.firstName} {student.lastName} ({student.id}) - Failed Modules: {failedModules.join(", ")}
-                                            </Typography>
-                                        );
-                                    })
+                                    failedStudents.map(student => (
+                                        <Typography key={student.id} variant="body1" sx={{ mb: 1 }}>
+                                            {student.firstName} {student.lastName} ({student.id}) - Failed Modules: {student.failedModules.join(", ")}
+                                        </Typography>
+                                    ))
                                 ) : (
                                     <Typography variant="body1">No students have failed a module.</Typography>
                                 )}
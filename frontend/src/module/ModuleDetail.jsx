@@ -65,34 +65,19 @@ const ModuleDetail = () => {
     };
 
     useEffect(() => {
-        axios.get(`${API_ENDPOINT}/modules`)
+        // The module, its students and their grades come in one response
+        axios.get(`${API_ENDPOINT}/modules/${id}/detail`)
             .then((response) => {
-                const foundModule = response.data.find(m => m.code === id);
-                if (!foundModule) {
-                    setError("Module not found");
-                } else {
-                    setModule(foundModule);
-                }
+                setModule(response.data.module);
+                setStudents(response.data.students);
+                setGrades(response.data.grades);
+                setGradesError(null);
                 setLoading(false);
             })
             .catch((error) => {
                 setError(error.message);
                 setLoading(false);
             });
-    
-        axios.get(`${API_ENDPOINT}/registrations`)
-            .then(response => {
-                const moduleStudents = response.data.filter(registration => registration.module.code === id);
-                setStudents(moduleStudents.map(registration => registration.student));
-            })
-            .catch(() => setError("Error fetching module students"));
-    
-        axios.get(`${API_ENDPOINT}/modules/${id}/grades`)
-            .then(response => {
-                setGrades(response.data);
-                setGradesError(null);
-            })
-            .catch(() => setGradesError("Error fetching grades"));
     }, [id]);
 
     if (loading) return <CircularProgress style={{ position: "absolute", top: "50%", left: "50%", transform: "translate(-50%, -50%)" }} />;
@@ -432,6 +417,10 @@ const ModuleDetail = () => {
                             Export to CSV
                         </MenuItem>
                     </CSVLink>
+                    {/* The full roster is written by the server straight from the database */}
+                    <MenuItem component="a" href={`${API_ENDPOINT}/export/modules/${encodeURIComponent(id)}/roster.csv`} onClick={handleExportMenuClose}>
+                        Export Roster to CSV
+                    </MenuItem>
                 </DropdownMenu>
             </Box>
 
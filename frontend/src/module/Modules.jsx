@@ -27,7 +27,7 @@ function Modules() {
 
     function updateModules() {
         axios
-            .get(`${API_ENDPOINT}/modules`)
+            .get(`${API_ENDPOINT}/modules?unpaged=true`)
             .then((response) => {
                 console.log("Received modules: ", response.data);
                 setModules(response.data);
@@ -34,7 +34,7 @@ function AddRegistration() {
     React.useEffect(() => {
         // Fetch students
         axios
-            .get(`${API_ENDPOINT}/students`)
+            .get(`${API_ENDPOINT}/students?unpaged=true`)
             .then((response) => {
                 console.log("Students response:", response.data);
                 setStudents(response.data || []);
@@ -43,7 +43,7 @@ function AddRegistration() {
 
         // Fetch modules
         axios
-            .get(`${API_ENDPOINT}/modules`)
+            .get(`${API_ENDPOINT}/modules?unpaged=true`)
             .then((response) => {
                 console.log("Modules response:", response.data);
                 setModules(response.data || []);
@@ -71,7 +71,7 @@ function BulkModuleRegistration() {
     };
 
     const updateModules = () => {
-        axios.get(`${API_ENDPOINT}/modules`)
+        axios.get(`${API_ENDPOINT}/modules?unpaged=true`)
             .then((response) => {
                 setModules(response.data || []);
                 setError(null);
@@ -120,24 +120,21 @@ function BulkModuleRegistration() {
     };
 
     const handleRegisterSelectedModules = () => {
-        selectedModules.forEach(code => {
-            const newRegistration = {
-                student: { id: initialData.student_id },
-                module: { code: code },
-            };
-
-            axios.post(`${API_ENDPOINT}/registrations`, newRegistration)
-                .then(response => {
-                    console.log('Registration successful:', response);
-                })
-                .catch((error) => {
-                    console.error("Error during registration:", error);
-                    setError(error.response?.data?.message || error.message || "Registration failed");
-                });
-        });
+        const registrations = Array.from(selectedModules, code => ({
+            studentId: initialData.student_id,
+            moduleCode: code,
+        }));
 
-        setDialogOpen(false); // Close the dialog after attempting registration
-        navigate(`/students/${initialData.student_id}`);
+        axios.post(`${API_ENDPOINT}/registrations/batch`, registrations)
+            .then(response => {
+                console.log('Registration successful:', response);
+                setDialogOpen(false); // Close the dialog once the batch is stored
+                navigate(`/students/${initialData.student_id}`);
+            })
+            .catch((error) => {
+                console.error("Error during registration:", error);
+                setError(error.response?.data?.message || error.message || "Registration failed");
+            });
     };
 
 
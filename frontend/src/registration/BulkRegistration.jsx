@@ -27,13 +27,17 @@ import { ArrowUpward, ArrowDownward } from "@mui/icons-material";
 import App from "../App";
 import { API_ENDPOINT } from "../config";
 
+// The largest number of students listed for a search
+const SEARCH_LIMIT = 100;
+
 function BulkRegistration() {
     const [students, setStudents] = useState([]);
     const [alreadyRegisteredStudents, setAlreadyRegisteredStudents] = useState([]);
     const [filteredStudents, setFilteredStudents] = useState([]);
     const [selectedStudents, setSelectedStudents] = useState(new Set());
     const [error, setError] = useState(null);
-    const [sortConfig, setSortConfig] = useState({ key: "id", direction: "asc" });
+    // Unsorted until a column is chosen, so search results keep their ranking
+    const [sortConfig, setSortConfig] = useState({ key: null, direction: "asc" });
     const [filter, setFilter] = useState("");
     const [dialogOpen, setDialogOpen] = useState(false);
     const navigate = useNavigate();
@@ -41,10 +45,15 @@ function BulkRegistration() {
     const initialData = location.state || {};
 
     useEffect(() => {
-        updateStudents();
         updateAlreadyRegisteredStudents();
     }, []);
 
+    useEffect(() => {
+        // Search on the server once typing pauses, rather than on every keystroke
+        const timer = setTimeout(() => updateStudents(filter), 150);
+        return () => clearTimeout(timer);
+    }, [filter]);
+
     useEffect(() => {
         // Pre-select students who are already registered by adding their ids to the selectedStudents set
         const preSelectedStudents = new Set(alreadyRegisteredStudents.map(student => student.id));
@@ -53,7 +62,7 @@ function BulkRegistration() {
 
     useEffect(() => {
         applyFilterAndSort();
-    }, [students, filter, sortConfig]);
+    }, [students, sortConfig]);
 
     const updateAlreadyRegisteredStudents = () => {
         axios.get(`${API_ENDPOINT}/modules/${initialData.module_id}/students`)
@@ -67,10 +76,16 @@ function BulkRegistration() {
         console.log(alreadyRegisteredStudents)
     };
 
-    const updateStudents = () => {
-        axios.get(`${API_ENDPOINT}/students`)
-            .then((response) => {
-                setStudents(response.data || []);
+    const updateStudents = (query) => {
+        // The search index ranks the matches; without a query the first page of students is shown
+        const request = query.trim()
+            ? axios.get(`${API_ENDPOINT}/students/search`, { params: { q: query, limit: SEARCH_LIMIT } })
+                .then((response) => response.data || [])
+            : axios.get(`${API_ENDPOINT}/students`, { params: { limit: SEARCH_LIMIT } })
+                .then((response) => response.data?.items || []);
+        request
+            .then((found) => {
+                setStudents(found);
                 setError(null);
             })
             .catch((error) => {
@@ -79,13 +94,7 @@ function BulkRegistration() {
     };
 
     const applyFilterAndSort = () => {
-        let filtered = students.filter((student) =>
-            String(student.id).toLowerCase().includes(filter.toLowerCase()) ||
-            student.firstName.toLowerCase().includes(filter.toLowerCase()) ||
-            student.lastName.toLowerCase().includes(filter.toLowerCase()) ||
-            student.username.toLowerCase().includes(filter.toLowerCase()) ||
-            student.email.toLowerCase().includes(filter.toLowerCase())
-        );
+        let filtered = [...students];
 
         if (sortConfig.key) {
             filtered.sort((a, b) => {
@@ -120,22 +129,20 @@ function BulkRegistration() {
     };
 
     const handleRegisterSelectedStudents = () => {
-        selectedStudents.forEach(id => {
-            const newRegistration = {
-                student: { id: id },
-                module: { code: initialData.module_id },
-            };
-            console.log("This is the data:", newRegistration);
+        const registrations = Array.from(selectedStudents, id => ({
+            studentId: id,
+            moduleCode: initialData.module_id,
+        }));
 
-            console.log(id)
-            axios
-                .post(`${API_ENDPOINT}/registrations`, newRegistration)
-                .catch((response) => {
-                    setError(response.message);
-                });
-        });
-        setDialogOpen(false); // Close the dialog after deleting
-        navigate(`/modules/${initialData.module_id}`);
+        axios
+            .post(`${API_ENDPOINT}/registrations/batch`, registrations)
+            .then(() => {
+                setDialogOpen(false); // Close the dialog once the batch is stored
+                navigate(`/modules/${initialData.module_id}`);
+            })
+            .catch((response) => {
+                setError(response.message);
+            });
     };
 
     const openDialog = () => setDialogOpen(true);
@@ -37,7 +37,7 @@ function Registrations() {
 
     const updateRegistrations = () => {
         axios
-            .get(`${API_ENDPOINT}/registrations`)
+            .get(`${API_ENDPOINT}/registrations?unpaged=true`)
             .then((response) => {
                 setRegistrations(response.data || []);
                 setError(null);
@@ -29,17 +29,17 @@ function Home() {
 
     const fetchData = async () => {
         try {
-            const studentsResponse = await axios.get(`${API_ENDPOINT}/students`);
+            const studentsResponse = await axios.get(`${API_ENDPOINT}/students?unpaged=true`);
             const studentList = studentsResponse.data || [];
             setStudentCount(studentList.length);
 
-            const modulesResponse = await axios.get(`${API_ENDPOINT}/modules`);
+            const modulesResponse = await axios.get(`${API_ENDPOINT}/modules?unpaged=true`);
             setModuleCount(modulesResponse.data.length || 0);
 
-            const gradesResponse = await axios.get(`${API_ENDPOINT}/grades`);
+            const gradesResponse = await axios.get(`${API_ENDPOINT}/grades?unpaged=true&view=compact`);
             setGradeCount(gradesResponse.data.length || 0);
 
-            const registrationResponse = await axios.get(`${API_ENDPOINT}/registrations`);
+            const registrationResponse = await axios.get(`${API_ENDPOINT}/registrations?unpaged=true&view=compact`);
             const registrationList = registrationResponse.data || [];
             setRegistrationCount(registrationList.length);
 
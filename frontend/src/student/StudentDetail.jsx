@@ -75,33 +75,19 @@ const StudentDetail = () => {
     };
 
     useEffect(() => {
-        axios.get(`${API_ENDPOINT}/students/${id}`)
+        // The student, their modules and their grades come in one response
+        axios.get(`${API_ENDPOINT}/students/${id}/detail`)
             .then(response => {
-                if (!response.data) {
-                    setError("Student not found");
-                } else {
-                    setStudent(response.data);
-                }
+                setStudent(response.data.student);
+                setModules(response.data.modules);
+                setGrades(response.data.grades);
+                setGradesError(null);
                 setLoading(false);
             })
             .catch(() => {
                 setError("Error fetching student details");
                 setLoading(false);
             });
-    
-        axios.get(`${API_ENDPOINT}/registrations`)
-            .then(response => {
-                const studentModules = response.data.filter(registration => registration.student.id === parseInt(id));
-                setModules(studentModules.map(registration => registration.module));
-            })
-            .catch(() => setError("Error fetching student modules"));
-    
-        axios.get(`${API_ENDPOINT}/students/${id}/grades`)
-            .then(response => {
-                setGrades(response.data);
-                setGradesError(null);
-            })
-            .catch(() => setGradesError("Error fetching grades"));
     }, [id]);
 
     if (loading) return <CircularProgress style={{ position: "absolute", top: "50%", left: "50%", transform: "translate(-50%, -50%)" }} />;
@@ -150,7 +136,7 @@ const StudentDetail = () => {
                 .then(() => {
                     console.log("Module unregistered successfully");
                     setModules(modules.filter(module => module.code !== selectedModule.code));
-                    setGrades(grades.filter(grade => grade.module.code !== selectedModule.code));
+                    setGrades(grades.filter(grade => grade.moduleCode !== selectedModule.code));
                     handleMenuClose();
                 })
                 .catch(() => setError("Error unregistering module"));
@@ -160,9 +146,7 @@ const StudentDetail = () => {
     // Create a dictionary to map module codes to grades (changed from module IDs)
     const gradeMap = {};
     grades.forEach(grade => {
-        if (grade.student.id === parseInt(id)) {
-            gradeMap[grade.module.code] = grade.score;
-        }
+        gradeMap[grade.moduleCode] = grade.score;
     });
 
     const gradeLabels = modules.map((module) => module.name);
@@ -438,6 +422,10 @@ const StudentDetail = () => {
                             Export to CSV
                         </MenuItem>
                     </CSVLink>
+                    {/* The full transcript is written by the server straight from the database */}
+                    <MenuItem component="a" href={`${API_ENDPOINT}/export/students/${id}/transcript.csv`} onClick={handleExportMenuClose}>
+                        Export Transcript to CSV
+                    </MenuItem>
                 </DropdownMenu>
             </Box>
 
@@ -689,10 +677,7 @@ const StudentDetail = () => {
                                 </TableHead>
                                 <TableBody>
                                     {modules.map((module) => {
-                                        const grade = grades.find(g => 
-                                            g.module.code === module.code && 
-                                            g.student.id === parseInt(id)
-                                        );
+                                        const grade = grades.find(g => g.moduleCode === module.code);
                                         return (
                                             <TableRow 
                                                 key={module.code}
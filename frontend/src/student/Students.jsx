@@ -46,7 +46,7 @@ function Students() {
     }, [students, filter, sortConfig]);
 
     const updateStudents = () => {
-        axios.get(`${API_ENDPOINT}/students`)
+        axios.get(`${API_ENDPOINT}/students?unpaged=true`)
             .then((response) => {
                 setStudents(response.data || []);
                 setError(null);